@@ -76,6 +76,110 @@ class MigrationTest {
         db.close()
     }
 
+    @Test
+    @Throws(IOException::class)
+    fun migrate89to90() {
+        var db = helper.createDatabase(TEST_DB, 89)
+
+        db.apply {
+            execSQL(
+                "INSERT INTO filelist(_id, filename, path, path_decrypted, parent, file_owner, tags) " +
+                    "VALUES(2, 'Holiday_2024.jpg', '/Holiday_2024.jpg', '/Holiday_2024.jpg', 1, 'test@nextcloud', '[]')"
+            )
+            close()
+        }
+
+        db = helper.runMigrationsAndValidate(TEST_DB, 90, true, Migration89to90())
+
+        // existing rows are indexed by the migration, new ones by the triggers
+        db.execSQL(
+            "INSERT INTO filelist(_id, filename, path, path_decrypted, parent, file_owner, tags) " +
+                "VALUES(3, 'holiday.pdf', '/holiday.pdf', '/holiday.pdf', 1, 'test@nextcloud', '[]')"
+        )
+
+        db.query("SELECT docid FROM filelist_fts WHERE filelist_fts MATCH '\"holi\"*' ORDER BY docid").use { cursor ->
+            assertEquals(2, cursor.count)
+        }
+
+        db.close()
+    }
+
+    @Test
+    @Throws(IOException::class)
+    fun migrate91to92() {
+        var db = helper.createDatabase(TEST_DB, 91)
+
+        db.apply {
+            listOf(1 to 2, 2 to 0, 3 to 2).forEach { (id, status) ->
+                execSQL(
+                    "INSERT INTO list_of_uploads(_id, local_path, remote_path, account_name, status) " +
+                        "VALUES($id, '/sdcard/a.jpg', '/a.jpg', 'test@nextcloud', $status)"
+                )
+            }
+            execSQL(
+                "INSERT INTO list_of_uploads(_id, local_path, remote_path, account_name, status) " +
+                    "VALUES(4, '/sdcard/b.jpg', '/b.jpg', 'test@nextcloud', 2)"
+            )
+            close()
+        }
+
+        db = helper.runMigrationsAndValidate(TEST_DB, 92, true, Migration91to92())
+
+        // the pending duplicate is kept
+        db.query("SELECT _id FROM list_of_uploads ORDER BY _id").use { cursor ->
+            assertEquals(2, cursor.count)
+            cursor.moveToFirst()
+            assertEquals(2, cursor.getInt(0))
+        }
+
+        db.execSQL(
+            "INSERT OR REPLACE INTO list_of_uploads(local_path, remote_path, account_name, status) " +
+                "VALUES('/sdcard/b.jpg', '/b.jpg', 'test@nextcloud', 0)"
+        )
+        db.query("SELECT _id FROM list_of_uploads").use { cursor ->
+            assertEquals(2, cursor.count)
+        }
+
+        db.close()
+    }
+
+    @Test
+    @Throws(IOException::class)
+    fun migrate91to92WithManyDuplicates() {
+        val uploads = 2000
+        val duplicates = 5
+        var db = helper.createDatabase(TEST_DB, 91)
+
+        db.apply {
+            beginTransaction()
+            for (copy in 0 until duplicates) {
+                for (upload in 0 until uploads) {
+                    // only the second copy of every upload is still pending
+                    val status = if (copy == 1) 0 else 2
+                    execSQL(
+                        "INSERT INTO list_of_uploads(local_path, remote_path, account_name, status) " +
+                            "VALUES('/sdcard/$upload.jpg', '/$upload.jpg', 'test@nextcloud', $status)"
+                    )
+                }
+            }
+            setTransactionSuccessful()
+            endTransaction()
+            close()
+        }
+
+        db = helper.runMigrationsAndValidate(TEST_DB, 92, true, Migration91to92())
+
+        db.query("SELECT COUNT(*), MIN(_id), MAX(_id), SUM(status) FROM list_of_uploads").use { cursor ->
+            cursor.moveToFirst()
+            assertEquals(uploads, cursor.getInt(0))
+            assertEquals(uploads + 1, cursor.getInt(1))
+            assertEquals(2 * uploads, cursor.getInt(2))
+            assertEquals(0, cursor.getInt(3))
+        }
+
+        db.close()
+    }
+
     companion object {
         private const val TEST_DB = "migration-test"
     }
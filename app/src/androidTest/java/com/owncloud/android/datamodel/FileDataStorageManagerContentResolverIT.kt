@@ -7,12 +7,25 @@
  */
 package com.owncloud.android.datamodel
 
+import android.content.ContentUris
+import com.nextcloud.model.LocalFileSearchQuery
+import com.nextcloud.model.OCFileFilterType
+import com.owncloud.android.db.ProviderMeta.ProviderTableMeta
+import com.owncloud.android.lib.resources.shares.ShareType
+import com.owncloud.android.lib.resources.shares.ShareeUser
+import com.owncloud.android.utils.FileStorageUtils
+import com.owncloud.android.utils.MimeType
 import org.junit.Assert
 import org.junit.Test
+import java.io.File
 
 class FileDataStorageManagerContentResolverIT : FileDataStorageManagerIT() {
     companion object {
         private const val MANY_FILES_AMOUNT = 5000
+        private const val FILTERED_FILES_AMOUNT = 10000
+        private const val TREE_FOLDERS = 10
+        private const val TREE_FILES = 40
+        private const val TREE_DEPTH = 3
     }
 
     override fun before() {
@@ -53,4 +66,246 @@ class FileDataStorageManagerContentResolverIT : FileDataStorageManagerIT() {
         // check file count is correct
         Assert.assertEquals(MANY_FILES_AMOUNT, sut.getFolderContent(folderA, false).size)
     }
+
+    /**
+     * Shared and favorite files of the root are filtered by the database, compared with filtering all files
+     */
+    @Test
+    fun testFilterManyFiles() {
+        val root = sut.getFileByDecryptedRemotePath("/")!!
+        val files = (1..FILTERED_FILES_AMOUNT).map {
+            OCFile("/file$it").apply {
+                parentId = root.fileId
+                when (it % 10) {
+                    0 -> isSharedViaLink = true
+                    1 -> isSharedWithSharee = true
+                    2 -> permissions = "SRGDNVW"
+                    3 -> sharees = listOf(ShareeUser("admin", "Server Admin", ShareType.USER))
+                    4 -> isFavorite = true
+                    5 -> permissions = "RGDNVW"
+                }
+            }
+        }
+        sut.saveFolder(root, files, ArrayList())
+
+        for (filterType in OCFileFilterType.values()) {
+            var start = System.currentTimeMillis()
+            val expected = sut.allFiles.filter {
+                if (filterType == OCFileFilterType.Shared) it.isShared else it.isFavorite
+            }
+            val allFilesMillis = System.currentTimeMillis() - start
+
+            start = System.currentTimeMillis()
+            val filtered = sut.filter(root, filterType)
+            val filterMillis = System.currentTimeMillis() - start
+
+            println("$filterType: all files ${allFilesMillis}ms, database filter ${filterMillis}ms")
+            Assert.assertEquals(expected.map { it.remotePath }.sorted(), filtered.map { it.remotePath }.sorted())
+            Assert.assertEquals(expected.map { it.fileName.lowercase() }, filtered.map { it.fileName.lowercase() })
+        }
+        Assert.assertEquals(FILTERED_FILES_AMOUNT * 4 / 10, sut.filter(root, OCFileFilterType.Shared).size)
+    }
+
+    @Test
+    fun testAncestorFlagsAreReadByPath() {
+        val root = sut.getFileByDecryptedRemotePath("/")!!
+        val folderA = OCFile("/a/").apply { parentId = root.fileId }
+        folderA.setFolder()
+        sut.saveFile(folderA)
+        val folderAId = sut.getFileByDecryptedRemotePath("/a/")!!.fileId
+
+        val folderB = OCFile("/a/b/").apply { parentId = folderAId }
+        folderB.setFolder()
+        sut.saveFile(folderB)
+        val file = OCFile("/a/b/c.txt").apply { parentId = sut.getFileByDecryptedRemotePath("/a/b/")!!.fileId }
+
+        Assert.assertEquals(listOf("/a/b/", "/a/"), sut.getAncestors(file)!!.map { it.remotePath })
+        Assert.assertFalse(FileStorageUtils.checkEncryptionStatus(file, sut))
+        Assert.assertFalse(sut.isPartOfInternalTwoWaySync(file))
+
+        val encryptedA = sut.getFileByDecryptedRemotePath("/a/")!!.apply {
+            isEncrypted = true
+            internalFolderSyncTimestamp = 0L
+        }
+        sut.saveFile(encryptedA)
+
+        Assert.assertTrue(FileStorageUtils.checkEncryptionStatus(file, sut))
+        Assert.assertTrue(sut.isPartOfInternalTwoWaySync(file))
+
+        // parent ids not matching the path fall back to following the parent ids
+        val misplaced = OCFile("/a/b/d.txt").apply { parentId = folderAId }
+        Assert.assertNull(sut.getAncestors(misplaced))
+        Assert.assertTrue(FileStorageUtils.checkEncryptionStatus(misplaced, sut))
+    }
+
+    /**
+     * Compares deleting a folder tree with one statement against deleting it row by row, as the provider did before.
+     */
+    @Test
+    fun testDeleteFolderTree() {
+        val root = sut.getFileByDecryptedRemotePath("/")!!
+        val folders = listOf("/rowByRow/", "/setBased/", "/kept/").map { path ->
+            val folder = OCFile(path).apply { parentId = root.fileId }
+            folder.setFolder()
+            sut.saveFile(folder)
+            sut.getFileByDecryptedRemotePath(path)!!.also { createTree(it, TREE_DEPTH) }
+        }
+        val treeRows = countRows("/kept/")
+        folders.forEach { Assert.assertEquals(treeRows, countRows(it.remotePath)) }
+
+        var start = System.currentTimeMillis()
+        val rowByRowCount = deleteRowByRow(folders[0].fileId)
+        val rowByRowMillis = System.currentTimeMillis() - start
+
+        start = System.currentTimeMillis()
+        val setBasedCount = targetContext.contentResolver.delete(
+            ContentUris.withAppendedId(ProviderTableMeta.CONTENT_URI_DIR, folders[1].fileId),
+            ProviderTableMeta.FILE_ACCOUNT_OWNER + " = ? AND " + ProviderTableMeta.FILE_PATH + " = ?",
+            arrayOf(user.accountName, folders[1].remotePath)
+        )
+        val setBasedMillis = System.currentTimeMillis() - start
+
+        println("$treeRows rows: row by row ${rowByRowMillis}ms, set based ${setBasedMillis}ms")
+        Assert.assertEquals(treeRows, rowByRowCount)
+        Assert.assertEquals(treeRows, setBasedCount)
+        Assert.assertEquals(0, countRows("/rowByRow/"))
+        Assert.assertEquals(0, countRows("/setBased/"))
+        Assert.assertEquals(treeRows, countRows("/kept/"))
+    }
+
+    @Test
+    fun testDeleteAllFiles() {
+        val root = sut.getFileByDecryptedRemotePath("/")!!
+        val folder = OCFile("/folder/").apply { parentId = root.fileId }
+        folder.setFolder()
+        sut.saveFile(folder)
+        createTree(sut.getFileByDecryptedRemotePath("/folder/")!!, 1)
+        Assert.assertTrue(countRows("/") > 0)
+
+        sut.deleteAllFiles()
+
+        Assert.assertEquals(0, countRows("/"))
+    }
+
+    @Test
+    fun testRemoveLocalFolderKeepsFilesOfSimilarPaths() {
+        val root = sut.getFileByDecryptedRemotePath("/")!!
+        val (removed, kept) = listOf("/a_b/", "/aXb/").map { path ->
+            val folder = OCFile(path).apply { parentId = root.fileId }
+            folder.setFolder()
+            sut.saveFile(folder)
+            sut.getFileByDecryptedRemotePath(path)!!
+        }
+        val removedFolder = File(FileStorageUtils.getDefaultSavePathFor(user.accountName, removed))
+        val keptFolder = File(FileStorageUtils.getDefaultSavePathFor(user.accountName, kept))
+        val keptLocalFile = File(keptFolder, "file.txt")
+
+        try {
+            Assert.assertTrue(removedFolder.mkdirs() || removedFolder.isDirectory)
+            Assert.assertTrue(keptFolder.mkdirs() || keptFolder.isDirectory)
+            keptLocalFile.writeText("kept")
+            sut.saveFile(
+                OCFile("/aXb/file.txt").apply {
+                    parentId = kept.fileId
+                    storagePath = keptLocalFile.absolutePath
+                }
+            )
+
+            // '_' must not match any character of the sibling folder
+            Assert.assertTrue(sut.removeFolder(removed, false, true))
+
+            Assert.assertFalse(removedFolder.exists())
+            Assert.assertTrue(keptLocalFile.exists())
+            Assert.assertEquals(
+                keptLocalFile.absolutePath,
+                sut.getFileByDecryptedRemotePath("/aXb/file.txt")!!.storagePath
+            )
+        } finally {
+            removedFolder.deleteRecursively()
+            keptFolder.deleteRecursively()
+        }
+    }
+
+    @Test
+    fun testMigrateStoredFilesRewritesStoragePathsBelowSource() {
+        val root = sut.getFileByDecryptedRemotePath("/")!!
+        val storagePaths = mapOf(
+            "/moved.txt" to "/old/nextcloud/moved.txt",
+            "/other.txt" to "/elsewhere/nextcloud/other.txt",
+            "/notStored.txt" to null
+        )
+        storagePaths.forEach { (remotePath, storagePath) ->
+            sut.saveFile(
+                OCFile(remotePath).apply {
+                    parentId = root.fileId
+                    this.storagePath = storagePath
+                }
+            )
+        }
+
+        Assert.assertEquals(1, sut.migrateStoredFiles("/old", "/new/location"))
+
+        Assert.assertEquals(
+            "/new/location/nextcloud/moved.txt",
+            sut.getFileByDecryptedRemotePath("/moved.txt")!!.storagePath
+        )
+        Assert.assertEquals(
+            "/elsewhere/nextcloud/other.txt",
+            sut.getFileByDecryptedRemotePath("/other.txt")!!.storagePath
+        )
+        Assert.assertNull(sut.getFileByDecryptedRemotePath("/notStored.txt")!!.storagePath)
+    }
+
+    @Test
+    fun testFileNameSearchFindsSubstringsOfFilesOnly() {
+        val root = sut.getFileByDecryptedRemotePath("/")!!
+        val folder = OCFile("/reports/").apply { parentId = root.fileId }
+        folder.setFolder()
+        sut.saveFile(folder)
+        val reports = sut.getFileByDecryptedRemotePath("/reports/")!!
+        val names = (1..LocalFileSearchQuery.DEFAULT_LIMIT + 1).map { "report$it.pdf" } + "airport.jpg"
+        names.forEach { name ->
+            sut.saveFile(OCFile("/reports/$name").apply { parentId = reports.fileId })
+        }
+        sut.saveFile(OCFile("/Portrait.jpg").apply { parentId = root.fileId })
+
+        val found = sut.searchLocalFiles(LocalFileSearchQuery.fileNameContaining("port")).map { it.fileName }
+
+        Assert.assertEquals(names.sorted(), found.sorted())
+    }
+
+    private fun createTree(folder: OCFile, depth: Int) {
+        val folders = (1..TREE_FOLDERS).map { OCFile("${folder.remotePath}folder$it/").apply { setFolder() } }
+        val files = (1..TREE_FILES).map { OCFile("${folder.remotePath}file$it") }
+        sut.saveFolder(folder, folders + files, ArrayList())
+        if (depth > 1) {
+            folders.forEach { createTree(it, depth - 1) }
+        }
+    }
+
+    private fun countRows(folderPath: String): Int =
+        sut.fileDao.getFolderWithDescendants("$folderPath%", user.accountName).size
+
+    private fun deleteRowByRow(folderId: Long): Int {
+        val resolver = targetContext.contentResolver
+        var count = 0
+        resolver.query(
+            ContentUris.withAppendedId(ProviderTableMeta.CONTENT_URI_DIR, folderId),
+            arrayOf(ProviderTableMeta._ID, ProviderTableMeta.FILE_CONTENT_TYPE),
+            null,
+            null,
+            null
+        )?.use { children ->
+            while (children.moveToNext()) {
+                val childId = children.getLong(0)
+                count += if (MimeType.DIRECTORY == children.getString(1)) {
+                    deleteRowByRow(childId)
+                } else {
+                    resolver.delete(ContentUris.withAppendedId(ProviderTableMeta.CONTENT_URI_FILE, childId), null, null)
+                }
+            }
+        }
+        count += resolver.delete(ContentUris.withAppendedId(ProviderTableMeta.CONTENT_URI_FILE, folderId), null, null)
+        return count
+    }
 }
@@ -34,6 +34,7 @@ import org.junit.runner.RunWith;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Map;
 import java.util.Random;
 import java.util.UUID;
 
@@ -119,6 +120,76 @@ public class UploadStorageManagerTest extends AbstractIT {
         }
     }
 
+    @Test
+    public void storeUploadsUpdatesExistingUploads() {
+        deleteAllUploads();
+
+        OCUpload existing = createUpload(account);
+        long existingId = uploadsStorageManager.storeUpload(existing);
+
+        OCUpload duplicate = new OCUpload(existing.getLocalPath(), existing.getRemotePath(), account.name);
+        duplicate.setUploadStatus(UploadsStorageManager.UploadStatus.UPLOAD_FAILED);
+        duplicate.setLastResult(UploadResult.NETWORK_CONNECTION);
+        OCUpload first = createUpload(account);
+        OCUpload second = new OCUpload(first.getLocalPath(), first.getRemotePath(), account.name);
+
+        ArrayList<OCUpload> uploads = new ArrayList<>();
+        uploads.add(duplicate);
+        uploads.add(first);
+        uploads.add(second);
+        long[] ids = uploadsStorageManager.storeUploads(uploads);
+
+        assertNotNull(ids);
+        assertEquals(existingId, ids[0]);
+        assertEquals(ids[1], ids[2]);
+        assertEquals(2, uploadsStorageManager.getAllStoredUploads().length);
+        assertEquals(UploadsStorageManager.UploadStatus.UPLOAD_FAILED,
+                     uploadsStorageManager.getUploadById(existingId).getUploadStatus());
+    }
+
+    @Test
+    public void reclassifyFailedUploadsByConditions() {
+        deleteAllUploads();
+
+        OCUpload wifiOnly = createUpload(account);
+        wifiOnly.setUploadStatus(UploadsStorageManager.UploadStatus.UPLOAD_FAILED);
+        wifiOnly.setLastResult(UploadResult.NETWORK_CONNECTION);
+        OCUpload chargingOnly = createUpload(account);
+        chargingOnly.setUploadStatus(UploadsStorageManager.UploadStatus.UPLOAD_FAILED);
+        chargingOnly.setWhileChargingOnly(true);
+        OCUpload unrestricted = createUpload(account);
+        unrestricted.setUploadStatus(UploadsStorageManager.UploadStatus.UPLOAD_FAILED);
+        unrestricted.setUseWifiOnly(false);
+
+        ArrayList<OCUpload> uploads = new ArrayList<>();
+        uploads.add(wifiOnly);
+        uploads.add(chargingOnly);
+        uploads.add(unrestricted);
+        uploadsStorageManager.storeUploads(uploads);
+
+        Map<Long, String> candidates = uploadsStorageManager.reclassifyFailedUploads(false, false, false);
+
+        assertEquals(1, candidates.size());
+        assertEquals(unrestricted.getLocalPath(), candidates.get(unrestricted.getUploadId()));
+        assertEquals(UploadResult.DELAYED_FOR_WIFI,
+                     uploadsStorageManager.getUploadById(wifiOnly.getUploadId()).getLastResult());
+        assertEquals(UploadResult.DELAYED_FOR_CHARGING,
+                     uploadsStorageManager.getUploadById(chargingOnly.getUploadId()).getLastResult());
+
+        assertEquals(1, uploadsStorageManager.updateUploadsStatus(candidates.keySet(),
+                                                                  UploadsStorageManager.UploadStatus.UPLOAD_IN_PROGRESS,
+                                                                  null));
+        assertEquals(0, uploadsStorageManager.updateUploadsStatus(candidates.keySet(),
+                                                                  UploadsStorageManager.UploadStatus.UPLOAD_IN_PROGRESS,
+                                                                  null));
+        assertEquals(UploadsStorageManager.UploadStatus.UPLOAD_IN_PROGRESS,
+                     uploadsStorageManager.getUploadById(unrestricted.getUploadId()).getUploadStatus());
+
+        assertTrue(uploadsStorageManager.reclassifyFailedUploads(true, true, true).isEmpty());
+        assertEquals(UploadResult.DELAYED_IN_POWER_SAVE_MODE,
+                     uploadsStorageManager.getUploadById(wifiOnly.getUploadId()).getLastResult());
+    }
+
     @Test
     public void testIsSame() {
         OCUpload upload1 = new OCUpload("/test", "/test", account.name);
@@ -187,6 +258,40 @@ public class UploadStorageManagerTest extends AbstractIT {
         return uuid.toString();
     }
 
+    @Test
+    public void storingFinishedUploadAgainKeepsItsId() {
+        deleteAllUploads();
+
+        OCUpload finished = createUpload(account);
+        finished.setUploadStatus(UploadsStorageManager.UploadStatus.UPLOAD_SUCCEEDED);
+        long finishedId = uploadsStorageManager.storeUpload(finished);
+
+        OCUpload again = new OCUpload(finished.getLocalPath(), finished.getRemotePath(), account.name);
+        again.setUploadStatus(UploadsStorageManager.UploadStatus.UPLOAD_IN_PROGRESS);
+
+        assertEquals(finishedId, uploadsStorageManager.storeUpload(again));
+        assertEquals(1, uploadsStorageManager.getAllStoredUploads().length);
+        assertEquals(UploadsStorageManager.UploadStatus.UPLOAD_IN_PROGRESS,
+                     uploadsStorageManager.getUploadById(finishedId).getUploadStatus());
+    }
+
+    @Test
+    public void updateToPathsOfOtherUploadKeepsOtherUpload() {
+        deleteAllUploads();
+
+        OCUpload first = createUpload(account);
+        OCUpload second = createUpload(account);
+        uploadsStorageManager.storeUpload(first);
+        long secondId = uploadsStorageManager.storeUpload(second);
+
+        first.setLocalPath(second.getLocalPath());
+        first.setRemotePath(second.getRemotePath());
+        uploadsStorageManager.updateUpload(first);
+
+        assertEquals(2, uploadsStorageManager.getAllStoredUploads().length);
+        assertNotNull(uploadsStorageManager.getUploadById(secondId));
+    }
+
     private OCUpload createUpload(Account account) {
         OCUpload upload = new OCUpload(File.separator + "very long long long long long long long long long long long " +
                                            "long long long long long long long long long long long long long long " +
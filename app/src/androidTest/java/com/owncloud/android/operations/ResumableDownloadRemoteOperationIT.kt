@@ -0,0 +1,161 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later OR GPL-2.0-only
+ */
+package com.owncloud.android.operations
+
+import com.owncloud.android.AbstractOnServerIT
+import com.owncloud.android.lib.common.network.OnDatatransferProgressListener
+import com.owncloud.android.lib.resources.files.RemoveFileRemoteOperation
+import com.owncloud.android.lib.resources.files.UploadFileRemoteOperation
+import com.owncloud.android.utils.FileStorageUtils
+import org.junit.After
+import org.junit.Assert.assertArrayEquals
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.io.File
+import kotlin.random.Random
+
+@Suppress("MagicNumber")
+class ResumableDownloadRemoteOperationIT : AbstractOnServerIT() {
+
+    companion object {
+        private const val REMOTE_PATH = "/resumable.bin"
+        private const val FILE_SIZE = 3 * 1024 * 1024
+        private const val INTERRUPT_AT = 1024 * 1024L
+    }
+
+    private val localFile = File(FileStorageUtils.getTemporalPath(account.name), "resumable.bin")
+    private val tmpFile = File(FileStorageUtils.getTemporalPath(account.name), "resumable.bin.tmp")
+
+    @After
+    fun deleteLocalFiles() {
+        localFile.delete()
+        tmpFile.delete()
+        File(tmpFile.path + ".download").delete()
+    }
+
+    @Test
+    fun largeFileIsDownloadedInSegments() {
+        val content = upload()
+
+        val sut = ResumableDownloadRemoteOperation(REMOTE_PATH, tmpFile, FILE_SIZE.toLong(), 4, 1)
+
+        assertTrue(sut.execute(client).isSuccess)
+        assertArrayEquals(content, tmpFile.readBytes())
+        assertTrue(sut.etag.isNotEmpty())
+    }
+
+    @Test
+    fun interruptedDownloadContinuesWithMissingBytes() {
+        val content = upload()
+        interruptDownload()
+
+        var transferred = 0L
+        val sut = ResumableDownloadRemoteOperation(REMOTE_PATH, tmpFile, FILE_SIZE.toLong(), 1, Long.MAX_VALUE)
+        sut.addDatatransferProgressListener(OnDatatransferProgressListener { read, _, _, _ -> transferred += read })
+
+        assertTrue(sut.execute(client).isSuccess)
+        assertArrayEquals(content, tmpFile.readBytes())
+        assertTrue(transferred < FILE_SIZE)
+        assertFalse(File(tmpFile.path + ".download").exists())
+    }
+
+    @Test
+    fun fileChangedSinceInterruptionIsDownloadedAgain() {
+        upload()
+        interruptDownload()
+        val changedContent = upload()
+
+        val sut = ResumableDownloadRemoteOperation(REMOTE_PATH, tmpFile, FILE_SIZE.toLong(), 1, Long.MAX_VALUE)
+
+        assertTrue(sut.execute(client).isSuccess)
+        assertArrayEquals(changedContent, tmpFile.readBytes())
+    }
+
+    @Test
+    fun downloadInterruptedAfterLastByteIsCompleteWithoutTransfer() {
+        val content = upload()
+        val completed = ResumableDownloadRemoteOperation(REMOTE_PATH, tmpFile, FILE_SIZE.toLong(), 1, Long.MAX_VALUE)
+        assertTrue(completed.execute(client).isSuccess)
+        assertTrue(completed.modificationTimestamp > 0)
+
+        // state as left behind by a download interrupted before it was finished up
+        File(tmpFile.path + ".download").writeText(
+            "etag=\"${completed.etag}\"\n" +
+                "segments=1\n" +
+                "segment.0=0,-1,$FILE_SIZE\n" +
+                "modified=${completed.modificationTimestamp}\n"
+        )
+
+        var transferred = 0L
+        val sut = ResumableDownloadRemoteOperation(REMOTE_PATH, tmpFile, FILE_SIZE.toLong(), 1, Long.MAX_VALUE)
+        sut.addDatatransferProgressListener(OnDatatransferProgressListener { read, _, _, _ -> transferred += read })
+
+        assertTrue(sut.execute(client).isSuccess)
+        assertEquals(0L, transferred)
+        assertArrayEquals(content, tmpFile.readBytes())
+        assertEquals(completed.modificationTimestamp, sut.modificationTimestamp)
+    }
+
+    @Test
+    fun removedFileDeletesTemporaryFile() {
+        upload()
+        interruptDownload()
+        assertTrue(RemoveFileRemoteOperation(REMOTE_PATH).execute(client).isSuccess)
+
+        val sut = ResumableDownloadRemoteOperation(REMOTE_PATH, tmpFile, FILE_SIZE.toLong(), 1, Long.MAX_VALUE)
+
+        assertFalse(sut.execute(client).isSuccess)
+        assertFalse(tmpFile.exists())
+        assertFalse(File(tmpFile.path + ".download").exists())
+    }
+
+    @Test
+    fun cancelledDownloadDeletesTemporaryFile() {
+        upload()
+        interruptDownload()
+        assertTrue(tmpFile.exists())
+
+        val sut = ResumableDownloadRemoteOperation(REMOTE_PATH, tmpFile, FILE_SIZE.toLong(), 1, Long.MAX_VALUE)
+        sut.cancel()
+
+        assertTrue(sut.execute(client).isCancelled)
+        assertFalse(tmpFile.exists())
+        assertFalse(File(tmpFile.path + ".download").exists())
+    }
+
+    private fun upload(): ByteArray {
+        val content = Random.nextBytes(FILE_SIZE)
+        localFile.parentFile?.mkdirs()
+        localFile.writeBytes(content)
+        assertTrue(
+            UploadFileRemoteOperation(
+                localFile.absolutePath,
+                REMOTE_PATH,
+                "application/octet-stream",
+                System.currentTimeMillis() / 1000
+            ).execute(client).isSuccess
+        )
+        return content
+    }
+
+    /**
+     * Stops a download once [INTERRUPT_AT] bytes are stored, leaving the temporary file and the download state behind.
+     */
+    private fun interruptDownload() {
+        val interrupted = ResumableDownloadRemoteOperation(REMOTE_PATH, tmpFile, FILE_SIZE.toLong(), 1, Long.MAX_VALUE)
+        interrupted.addDatatransferProgressListener(
+            OnDatatransferProgressListener { _, total, _, _ ->
+                check(total < INTERRUPT_AT) { "connection lost" }
+            }
+        )
+
+        assertFalse(interrupted.execute(client).isSuccess)
+        assertTrue(File(tmpFile.path + ".download").exists())
+    }
+}
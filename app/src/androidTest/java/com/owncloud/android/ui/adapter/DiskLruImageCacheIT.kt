@@ -0,0 +1,104 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later OR GPL-2.0-only
+ */
+package com.owncloud.android.ui.adapter
+
+import android.graphics.Bitmap
+import android.graphics.Color
+import androidx.test.platform.app.InstrumentationRegistry
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNotNull
+import org.junit.Test
+import java.io.File
+
+class DiskLruImageCacheIT {
+
+    companion object {
+        private const val CACHE_SIZE = 64 * 1024 * 1024
+        private const val QUALITY = 70
+        private const val THUMBNAILS = 500
+    }
+
+    private val directories = mutableListOf<File>()
+
+    @After
+    fun tearDown() {
+        directories.forEach { it.deleteRecursively() }
+    }
+
+    @Test
+    fun putsAreFlushedInBatches() {
+        val cache = createCache(32, Long.MAX_VALUE)
+        val bitmap = createBitmap(64, Color.RED)
+
+        repeat(100) { cache.put("key$it", bitmap) }
+        assertEquals(3, cache.flushCount)
+
+        cache.flush()
+        assertEquals(4, cache.flushCount)
+
+        // nothing pending
+        cache.flush()
+        assertEquals(4, cache.flushCount)
+        assertNotNull(cache.getBitmap("key99"))
+    }
+
+    @Test
+    fun scaledBitmapIsDecodedFromOneSnapshot() {
+        val cache = createCache(32, Long.MAX_VALUE)
+        cache.put("key", createBitmap(512, Color.BLUE))
+
+        val bitmap = cache.getScaledBitmap("key", 128, 128)
+
+        assertEquals(256, bitmap.width)
+        assertEquals(256, bitmap.height)
+    }
+
+    /**
+     * Benchmark of putting and reading scaled thumbnails, flushing the cache after every put as before and in batches.
+     */
+    @Test
+    fun benchmarkPutAndGet() {
+        val bitmaps = listOf(Color.RED, Color.GREEN, Color.BLUE).map { createBitmap(256, it) }
+
+        for ((name, flushEveryPuts) in listOf("every put" to 1, "batched" to 32)) {
+            val cache = createCache(flushEveryPuts, 5_000)
+
+            val putStart = System.nanoTime()
+            repeat(THUMBNAILS) { cache.put("thumbnail$it", bitmaps[it % bitmaps.size]) }
+            cache.flush()
+            val putMillis = (System.nanoTime() - putStart) / 1_000_000
+
+            val getStart = System.nanoTime()
+            repeat(THUMBNAILS) { assertNotNull(cache.getScaledBitmap("thumbnail$it", 64, 64)) }
+            val getMillis = (System.nanoTime() - getStart) / 1_000_000
+
+            println(
+                "$THUMBNAILS thumbnails, flushing $name (${cache.flushCount} flushes): " +
+                    "put in ${putMillis}ms, scaled get in ${getMillis}ms"
+            )
+        }
+    }
+
+    private fun createCache(flushEveryPuts: Int, flushIntervalMillis: Long): DiskLruImageCache {
+        val context = InstrumentationRegistry.getInstrumentation().targetContext
+        val directory = File(context.cacheDir, "disk_lru_image_cache_it_" + directories.size)
+        directory.deleteRecursively()
+        directories.add(directory)
+        return DiskLruImageCache(
+            directory,
+            CACHE_SIZE,
+            Bitmap.CompressFormat.JPEG,
+            QUALITY,
+            flushEveryPuts,
+            flushIntervalMillis
+        )
+    }
+
+    private fun createBitmap(size: Int, color: Int): Bitmap =
+        Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888).apply { eraseColor(color) }
+}
@@ -21,8 +21,14 @@ import com.owncloud.android.utils.ScreenshotTest
 import org.junit.Assert
 import org.junit.Rule
 import org.junit.Test
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
 
 class OCFileListFragmentStaticServerIT : AbstractIT() {
+    companion object {
+        private const val SWAP_TIMEOUT_SECONDS = 5L
+    }
+
     @get:Rule
     val testActivityRule = IntentsTestRule(TestActivity::class.java, true, false)
 
@@ -376,24 +382,33 @@ class OCFileListFragmentStaticServerIT : AbstractIT() {
         activity.addFragment(sut)
         val testFolder: OCFile = activity.storageManager.getFileByEncryptedRemotePath("/test/")
 
+        // richWorkspace is not set
+        Assert.assertFalse(sut.adapter.shouldShowHeader())
+
+        testFolder.richWorkspace = " "
+        activity.storageManager.saveFile(testFolder)
+        swapDirectoryAndWait(activity, sut, testFolder)
+        Assert.assertFalse(sut.adapter.shouldShowHeader())
+
+        testFolder.richWorkspace = null
+        activity.storageManager.saveFile(testFolder)
+        swapDirectoryAndWait(activity, sut, testFolder)
+        Assert.assertFalse(sut.adapter.shouldShowHeader())
+
+        testFolder.richWorkspace = "1"
+        activity.storageManager.saveFile(testFolder)
+        sut.adapter.currentDirectory = testFolder
+        Assert.assertTrue(sut.adapter.shouldShowHeader())
+    }
+
+    /**
+     * Swaps the directory on the main thread and waits until the listing, prepared in the background, is shown.
+     */
+    private fun swapDirectoryAndWait(activity: TestActivity, sut: OCFileListFragment, folder: OCFile) {
+        val swapped = CountDownLatch(1)
         activity.runOnUiThread {
-            // richWorkspace is not set
-            Assert.assertFalse(sut.adapter.shouldShowHeader())
-
-            testFolder.richWorkspace = " "
-            activity.storageManager.saveFile(testFolder)
-            sut.adapter.swapDirectory(user, testFolder, activity.storageManager, false, "")
-            Assert.assertFalse(sut.adapter.shouldShowHeader())
-
-            testFolder.richWorkspace = null
-            activity.storageManager.saveFile(testFolder)
-            sut.adapter.swapDirectory(user, testFolder, activity.storageManager, false, "")
-            Assert.assertFalse(sut.adapter.shouldShowHeader())
-
-            testFolder.richWorkspace = "1"
-            activity.storageManager.saveFile(testFolder)
-            sut.adapter.currentDirectory = testFolder
-            Assert.assertTrue(sut.adapter.shouldShowHeader())
+            sut.adapter.swapDirectory(user, folder, activity.storageManager, false, "") { swapped.countDown() }
         }
+        Assert.assertTrue(swapped.await(SWAP_TIMEOUT_SECONDS, TimeUnit.SECONDS))
     }
 }
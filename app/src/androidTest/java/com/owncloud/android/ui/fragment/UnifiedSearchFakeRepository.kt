@@ -15,52 +15,10 @@ import com.owncloud.android.ui.unifiedsearch.UnifiedSearchResult
 
 class UnifiedSearchFakeRepository : IUnifiedSearchRepository {
 
-    override fun queryAll(
-        query: String,
-        onResult: (UnifiedSearchResult) -> Unit,
-        onError: (Throwable) -> Unit,
-        onFinished: (Boolean) -> Unit
-    ) {
-        val result = UnifiedSearchResult(
-            provider = "files",
-            success = true,
-            result = SearchResult(
-                "files",
-                false,
-                listOf(
-                    SearchResultEntry(
-                        "thumbnailUrl",
-                        "Test",
-                        "in Files",
-                        "http://localhost/nc/index.php/apps/files/?dir=/Files&scrollto=Test",
-                        "icon",
-                        false
-                    ),
-                    SearchResultEntry(
-                        "thumbnailUrl",
-                        "Test1",
-                        "in Folder",
-                        "http://localhost/nc/index.php/apps/files/?dir=/folder&scrollto=test1.txt",
-                        "icon",
-                        false
-                    )
-                )
-            )
-
-        )
-        onResult(result)
-        onFinished(true)
-    }
+    override suspend fun fetchProviders(): List<ProviderID> = listOf("files")
 
-    override fun queryProvider(
-        query: String,
-        provider: ProviderID,
-        cursor: Int?,
-        onResult: (UnifiedSearchResult) -> Unit,
-        onError: (Throwable) -> Unit,
-        onFinished: (Boolean) -> Unit
-    ) {
-        val result = UnifiedSearchResult(
+    override suspend fun queryProvider(query: String, provider: ProviderID, cursor: Int?): UnifiedSearchResult {
+        return UnifiedSearchResult(
             provider = provider,
             success = true,
             result = SearchResult(
@@ -85,7 +43,6 @@ class UnifiedSearchFakeRepository : IUnifiedSearchRepository {
                     )
                 )
             )
-
         )
     }
 }
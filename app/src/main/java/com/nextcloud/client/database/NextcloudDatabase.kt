@@ -18,18 +18,26 @@ import com.nextcloud.client.core.ClockImpl
 import com.nextcloud.client.database.dao.ArbitraryDataDao
 import com.nextcloud.client.database.dao.FileDao
 import com.nextcloud.client.database.dao.OfflineOperationDao
+import com.nextcloud.client.database.dao.StorageUsageDao
+import com.nextcloud.client.database.dao.SyncedFolderScanDao
 import com.nextcloud.client.database.entity.ArbitraryDataEntity
 import com.nextcloud.client.database.entity.CapabilityEntity
 import com.nextcloud.client.database.entity.ExternalLinkEntity
 import com.nextcloud.client.database.entity.FileEntity
+import com.nextcloud.client.database.entity.FileFtsEntity
 import com.nextcloud.client.database.entity.FilesystemEntity
 import com.nextcloud.client.database.entity.OfflineOperationEntity
 import com.nextcloud.client.database.entity.ShareEntity
+import com.nextcloud.client.database.entity.StorageUsageEntity
+import com.nextcloud.client.database.entity.SyncedFolderCheckpointEntity
+import com.nextcloud.client.database.entity.SyncedFolderDirectoryEntity
 import com.nextcloud.client.database.entity.SyncedFolderEntity
 import com.nextcloud.client.database.entity.UploadEntity
 import com.nextcloud.client.database.entity.VirtualEntity
 import com.nextcloud.client.database.migrations.DatabaseMigrationUtil
 import com.nextcloud.client.database.migrations.Migration67to68
+import com.nextcloud.client.database.migrations.Migration89to90
+import com.nextcloud.client.database.migrations.Migration91to92
 import com.nextcloud.client.database.migrations.RoomMigration
 import com.nextcloud.client.database.migrations.addLegacyMigrations
 import com.nextcloud.client.database.typeConverter.OfflineOperationTypeConverter
@@ -41,12 +49,16 @@ import com.owncloud.android.db.ProviderMeta
         CapabilityEntity::class,
         ExternalLinkEntity::class,
         FileEntity::class,
+        FileFtsEntity::class,
         FilesystemEntity::class,
         ShareEntity::class,
         SyncedFolderEntity::class,
         UploadEntity::class,
         VirtualEntity::class,
-        OfflineOperationEntity::class
+        OfflineOperationEntity::class,
+        SyncedFolderCheckpointEntity::class,
+        SyncedFolderDirectoryEntity::class,
+        StorageUsageEntity::class
     ],
     version = ProviderMeta.DB_VERSION,
     autoMigrations = [
@@ -71,7 +83,11 @@ import com.owncloud.android.db.ProviderMeta
         AutoMigration(from = 84, to = 85, spec = DatabaseMigrationUtil.DeleteColumnSpec::class),
         AutoMigration(from = 85, to = 86, spec = DatabaseMigrationUtil.ResetCapabilitiesPostMigration::class),
         AutoMigration(from = 86, to = 87, spec = DatabaseMigrationUtil.ResetCapabilitiesPostMigration::class),
-        AutoMigration(from = 87, to = 88, spec = DatabaseMigrationUtil.ResetCapabilitiesPostMigration::class)
+        AutoMigration(from = 87, to = 88, spec = DatabaseMigrationUtil.ResetCapabilitiesPostMigration::class),
+        AutoMigration(from = 90, to = 91),
+        AutoMigration(from = 92, to = 93),
+        AutoMigration(from = 93, to = 94),
+        AutoMigration(from = 94, to = 95)
     ],
     exportSchema = true
 )
@@ -82,6 +98,8 @@ abstract class NextcloudDatabase : RoomDatabase() {
     abstract fun arbitraryDataDao(): ArbitraryDataDao
     abstract fun fileDao(): FileDao
     abstract fun offlineOperationDao(): OfflineOperationDao
+    abstract fun syncedFolderScanDao(): SyncedFolderScanDao
+    abstract fun storageUsageDao(): StorageUsageDao
 
     companion object {
         const val FIRST_ROOM_DB_VERSION = 65
@@ -104,6 +122,8 @@ abstract class NextcloudDatabase : RoomDatabase() {
                     .addLegacyMigrations(clock, context)
                     .addMigrations(RoomMigration())
                     .addMigrations(Migration67to68())
+                    .addMigrations(Migration89to90())
+                    .addMigrations(Migration91to92())
                     .fallbackToDestructiveMigration()
                     .build()
             }
@@ -9,6 +9,8 @@ package com.nextcloud.client.database.dao
 
 import androidx.room.Dao
 import androidx.room.Query
+import androidx.room.RawQuery
+import androidx.sqlite.db.SupportSQLiteQuery
 import com.nextcloud.client.database.entity.FileEntity
 import com.owncloud.android.db.ProviderMeta.ProviderTableMeta
 
@@ -47,6 +49,29 @@ interface FileDao {
     @Query("SELECT * FROM filelist WHERE file_owner = :fileOwner ORDER BY ${ProviderTableMeta.FILE_DEFAULT_SORT_ORDER}")
     fun getAllFiles(fileOwner: String): List<FileEntity>
 
+    /**
+     * Page of the files of the account shared by or with the user, matching `OCFile.isShared()`
+     */
+    @Query(
+        "SELECT * FROM filelist WHERE file_owner = :fileOwner" +
+            " AND (share_by_link = 1 OR shared_via_users = 1 OR instr(permissions, 'S') > 0" +
+            " OR (sharees IS NOT NULL AND sharees NOT IN ('', 'null', '[]')))" +
+            " ORDER BY ${ProviderTableMeta.FILE_DEFAULT_SORT_ORDER}, _id LIMIT :limit OFFSET :offset"
+    )
+    fun getSharedFiles(fileOwner: String, limit: Int, offset: Int): List<FileEntity>
+
+    @Query(
+        "SELECT * FROM filelist WHERE file_owner = :fileOwner AND favorite = 1" +
+            " ORDER BY ${ProviderTableMeta.FILE_DEFAULT_SORT_ORDER}, _id LIMIT :limit OFFSET :offset"
+    )
+    fun getFavoriteFiles(fileOwner: String, limit: Int, offset: Int): List<FileEntity>
+
+    @Query(
+        "SELECT * FROM filelist WHERE file_owner = :fileOwner" +
+            " AND (path IN (:paths) OR path_decrypted IN (:paths))"
+    )
+    fun getFilesByPaths(paths: List<String>, fileOwner: String): List<FileEntity>
+
     @Query("SELECT * FROM filelist WHERE path LIKE :pathPattern AND file_owner = :fileOwner ORDER BY path ASC")
     fun getFolderWithDescendants(pathPattern: String, fileOwner: String): List<FileEntity>
 
@@ -58,4 +83,16 @@ interface FileDao {
             "ORDER BY internal_two_way_sync_timestamp DESC"
     )
     fun getInternalTwoWaySyncFolders(fileOwner: String): List<FileEntity>
+
+    @Query(
+        "UPDATE filelist SET media_path = :destinationPath || substr(media_path, length(:sourcePath) + 1) " +
+            "WHERE substr(media_path, 1, length(:sourcePath)) = :sourcePath"
+    )
+    fun migrateStoragePaths(sourcePath: String, destinationPath: String): Int
+
+    @Query("UPDATE filelist SET media_path = NULL WHERE _id IN (:ids)")
+    fun clearStoragePaths(ids: List<Long>): Int
+
+    @RawQuery
+    fun search(query: SupportSQLiteQuery): List<FileEntity>
 }
@@ -0,0 +1,34 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later OR GPL-2.0-only
+ */
+package com.nextcloud.client.database.dao
+
+import androidx.room.Dao
+import androidx.room.Insert
+import androidx.room.OnConflictStrategy
+import androidx.room.Query
+import com.nextcloud.client.database.entity.StorageUsageEntity
+
+@Dao
+interface StorageUsageDao {
+    @Query("SELECT * FROM storage_usage WHERE path = :path")
+    fun get(path: String): StorageUsageEntity?
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    fun upsert(usage: StorageUsageEntity)
+
+    /**
+     * Adds [delta] to the recorded directories among [paths]; directories without a record are left alone.
+     */
+    @Query("UPDATE storage_usage SET bytes = MAX(bytes + :delta, 0) WHERE path IN (:paths)")
+    fun add(paths: List<String>, delta: Long)
+
+    @Query("DELETE FROM storage_usage WHERE path IN (:paths)")
+    fun delete(paths: List<String>)
+
+    @Query("DELETE FROM storage_usage WHERE path = :path OR substr(path, 1, length(:path) + 1) = :path || '/'")
+    fun deleteTree(path: String)
+}
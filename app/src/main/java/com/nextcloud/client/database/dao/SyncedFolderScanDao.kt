@@ -0,0 +1,58 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later OR GPL-2.0-only
+ */
+package com.nextcloud.client.database.dao
+
+import androidx.room.Dao
+import androidx.room.Insert
+import androidx.room.OnConflictStrategy
+import androidx.room.Query
+import androidx.room.Transaction
+import com.nextcloud.client.database.entity.SyncedFolderCheckpointEntity
+import com.nextcloud.client.database.entity.SyncedFolderDirectoryEntity
+
+@Dao
+interface SyncedFolderScanDao {
+    @Query("SELECT * FROM synced_folder_checkpoints WHERE synced_folder_id = :syncedFolderId AND volume = :volume")
+    fun getCheckpoint(syncedFolderId: Long, volume: String): SyncedFolderCheckpointEntity?
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    fun upsertCheckpoint(checkpoint: SyncedFolderCheckpointEntity)
+
+    @Query("SELECT * FROM synced_folder_directories WHERE synced_folder_id = :syncedFolderId")
+    fun getDirectories(syncedFolderId: Long): List<SyncedFolderDirectoryEntity>
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    fun upsertDirectories(directories: List<SyncedFolderDirectoryEntity>)
+
+    @Query(
+        "DELETE FROM synced_folder_directories WHERE synced_folder_id = :syncedFolderId AND " +
+            "(path = :path OR substr(path, 1, length(:path) + 1) = :path || '/')"
+    )
+    fun deleteDirectoryTree(syncedFolderId: Long, path: String)
+
+    @Transaction
+    fun updateDirectories(
+        syncedFolderId: Long,
+        changed: List<SyncedFolderDirectoryEntity>,
+        removedPaths: Collection<String>
+    ) {
+        removedPaths.forEach { deleteDirectoryTree(syncedFolderId, it) }
+        upsertDirectories(changed)
+    }
+
+    @Query("DELETE FROM synced_folder_checkpoints WHERE synced_folder_id = :syncedFolderId")
+    fun deleteCheckpoints(syncedFolderId: Long)
+
+    @Query("DELETE FROM synced_folder_directories WHERE synced_folder_id = :syncedFolderId")
+    fun deleteDirectories(syncedFolderId: Long)
+
+    @Transaction
+    fun reset(syncedFolderId: Long) {
+        deleteCheckpoints(syncedFolderId)
+        deleteDirectories(syncedFolderId)
+    }
+}
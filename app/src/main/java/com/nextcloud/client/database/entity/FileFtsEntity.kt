@@ -0,0 +1,28 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later OR GPL-2.0-only
+ */
+package com.nextcloud.client.database.entity
+
+import androidx.room.ColumnInfo
+import androidx.room.Entity
+import androidx.room.Fts4
+import androidx.room.FtsOptions
+import com.owncloud.android.db.ProviderMeta.ProviderTableMeta
+
+/**
+ * Full-text index over file names and tags of [FileEntity].
+ *
+ * The table is an external content table: Room keeps it in sync with filelist through triggers,
+ * so every write path of filelist updates the index as well.
+ */
+@Fts4(contentEntity = FileEntity::class, tokenizer = FtsOptions.TOKENIZER_UNICODE61)
+@Entity(tableName = ProviderTableMeta.FILE_FTS_TABLE_NAME)
+data class FileFtsEntity(
+    @ColumnInfo(name = ProviderTableMeta.FILE_NAME)
+    val name: String?,
+    @ColumnInfo(name = ProviderTableMeta.FILE_TAGS)
+    val tags: String?
+)
@@ -0,0 +1,26 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later OR GPL-2.0-only
+ */
+package com.nextcloud.client.database.entity
+
+import androidx.room.ColumnInfo
+import androidx.room.Entity
+import androidx.room.PrimaryKey
+import com.owncloud.android.db.ProviderMeta.ProviderTableMeta
+
+/**
+ * Bytes stored on the device below a local directory, together with the time they were last counted on disk.
+ */
+@Entity(tableName = ProviderTableMeta.STORAGE_USAGE_TABLE_NAME)
+data class StorageUsageEntity(
+    @PrimaryKey
+    @ColumnInfo(name = ProviderTableMeta.STORAGE_USAGE_PATH)
+    val path: String,
+    @ColumnInfo(name = ProviderTableMeta.STORAGE_USAGE_BYTES)
+    val bytes: Long,
+    @ColumnInfo(name = ProviderTableMeta.STORAGE_USAGE_RECONCILED)
+    val reconciled: Long
+)
@@ -0,0 +1,33 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later OR GPL-2.0-only
+ */
+package com.nextcloud.client.database.entity
+
+import androidx.room.ColumnInfo
+import androidx.room.Entity
+import com.owncloud.android.db.ProviderMeta.ProviderTableMeta
+
+/**
+ * Last MediaStore generation of a volume that has been scanned for a media synced folder.
+ * The generation is only comparable as long as the MediaStore version of the volume stays the same.
+ */
+@Entity(
+    tableName = ProviderTableMeta.SYNCED_FOLDER_CHECKPOINTS_TABLE_NAME,
+    primaryKeys = [
+        ProviderTableMeta.SYNCED_FOLDER_CHECKPOINT_SYNCED_FOLDER_ID,
+        ProviderTableMeta.SYNCED_FOLDER_CHECKPOINT_VOLUME
+    ]
+)
+data class SyncedFolderCheckpointEntity(
+    @ColumnInfo(name = ProviderTableMeta.SYNCED_FOLDER_CHECKPOINT_SYNCED_FOLDER_ID)
+    val syncedFolderId: Long,
+    @ColumnInfo(name = ProviderTableMeta.SYNCED_FOLDER_CHECKPOINT_VOLUME)
+    val volume: String,
+    @ColumnInfo(name = ProviderTableMeta.SYNCED_FOLDER_CHECKPOINT_MEDIA_STORE_VERSION)
+    val mediaStoreVersion: String?,
+    @ColumnInfo(name = ProviderTableMeta.SYNCED_FOLDER_CHECKPOINT_GENERATION)
+    val generation: Long
+)
@@ -0,0 +1,32 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later OR GPL-2.0-only
+ */
+package com.nextcloud.client.database.entity
+
+import androidx.room.ColumnInfo
+import androidx.room.Entity
+import com.owncloud.android.db.ProviderMeta.ProviderTableMeta
+
+/**
+ * A directory below a custom synced folder together with the modification time it had when it was last listed.
+ */
+@Entity(
+    tableName = ProviderTableMeta.SYNCED_FOLDER_DIRECTORIES_TABLE_NAME,
+    primaryKeys = [
+        ProviderTableMeta.SYNCED_FOLDER_DIRECTORY_SYNCED_FOLDER_ID,
+        ProviderTableMeta.SYNCED_FOLDER_DIRECTORY_PATH
+    ]
+)
+data class SyncedFolderDirectoryEntity(
+    @ColumnInfo(name = ProviderTableMeta.SYNCED_FOLDER_DIRECTORY_SYNCED_FOLDER_ID)
+    val syncedFolderId: Long,
+    @ColumnInfo(name = ProviderTableMeta.SYNCED_FOLDER_DIRECTORY_PATH)
+    val path: String,
+    @ColumnInfo(name = ProviderTableMeta.SYNCED_FOLDER_DIRECTORY_PARENT_PATH)
+    val parentPath: String?,
+    @ColumnInfo(name = ProviderTableMeta.SYNCED_FOLDER_DIRECTORY_MODIFIED)
+    val modified: Long
+)
@@ -9,10 +9,21 @@ package com.nextcloud.client.database.entity
 
 import androidx.room.ColumnInfo
 import androidx.room.Entity
+import androidx.room.Index
 import androidx.room.PrimaryKey
 import com.owncloud.android.db.ProviderMeta.ProviderTableMeta
 
-@Entity(tableName = ProviderTableMeta.UPLOADS_TABLE_NAME)
+@Entity(
+    tableName = ProviderTableMeta.UPLOADS_TABLE_NAME,
+    indices = [
+        Index(
+            ProviderTableMeta.UPLOADS_LOCAL_PATH,
+            ProviderTableMeta.UPLOADS_REMOTE_PATH,
+            ProviderTableMeta.UPLOADS_ACCOUNT_NAME,
+            unique = true
+        )
+    ]
+)
 data class UploadEntity(
     @PrimaryKey(autoGenerate = true)
     @ColumnInfo(name = ProviderTableMeta._ID)
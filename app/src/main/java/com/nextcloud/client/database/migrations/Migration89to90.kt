@@ -0,0 +1,48 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later OR GPL-2.0-only
+ */
+package com.nextcloud.client.database.migrations
+
+import androidx.room.migration.Migration
+import androidx.sqlite.db.SupportSQLiteDatabase
+
+/**
+ * Migration from version 89 to 90.
+ *
+ * Adds the full-text index filelist_fts over file names and tags, the triggers keeping it in sync with filelist,
+ * and metadata indexes used by local search.
+ */
+@Suppress("MagicNumber")
+class Migration89to90 : Migration(89, 90) {
+    override fun migrate(db: SupportSQLiteDatabase) {
+        db.execSQL(
+            "CREATE VIRTUAL TABLE IF NOT EXISTS `filelist_fts` " +
+                "USING FTS4(`filename` TEXT, `tags` TEXT, tokenize=unicode61, content=`filelist`)"
+        )
+
+        listOf("UPDATE", "DELETE").forEach { event ->
+            db.execSQL(
+                "CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_filelist_fts_BEFORE_$event " +
+                    "BEFORE $event ON `filelist` BEGIN DELETE FROM `filelist_fts` WHERE `docid`=OLD.`rowid`; END"
+            )
+        }
+        listOf("UPDATE", "INSERT").forEach { event ->
+            db.execSQL(
+                "CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_filelist_fts_AFTER_$event " +
+                    "AFTER $event ON `filelist` BEGIN INSERT INTO `filelist_fts`(`docid`, `filename`, `tags`) " +
+                    "VALUES (NEW.`rowid`, NEW.`filename`, NEW.`tags`); END"
+            )
+        }
+        db.execSQL("INSERT INTO `filelist_fts`(`filelist_fts`) VALUES('rebuild')")
+
+        listOf("content_type", "modified", "content_length").forEach { column ->
+            db.execSQL(
+                "CREATE INDEX IF NOT EXISTS `index_filelist_file_owner_$column` " +
+                    "ON `filelist` (`file_owner`, `$column`)"
+            )
+        }
+    }
+}
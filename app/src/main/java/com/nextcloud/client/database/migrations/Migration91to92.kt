@@ -0,0 +1,35 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later OR GPL-2.0-only
+ */
+package com.nextcloud.client.database.migrations
+
+import androidx.room.migration.Migration
+import androidx.sqlite.db.SupportSQLiteDatabase
+
+/**
+ * Migration from version 91 to 92.
+ *
+ * Makes (local_path, remote_path, account_name) unique in list_of_uploads. Of duplicated uploads the latest pending
+ * or failed one is kept, otherwise the latest.
+ *
+ * The ids to keep are ranked in a single grouping pass. The subquery does not depend on the deleted row, so SQLite
+ * evaluates it once instead of once per row.
+ */
+@Suppress("MagicNumber")
+class Migration91to92 : Migration(91, 92) {
+    override fun migrate(db: SupportSQLiteDatabase) {
+        db.execSQL(
+            "DELETE FROM `list_of_uploads` WHERE `_id` NOT IN (" +
+                "SELECT coalesce(MAX(CASE WHEN `status` IN (0, 1) THEN `_id` END), MAX(`_id`)) " +
+                "FROM `list_of_uploads` " +
+                "GROUP BY `local_path`, `remote_path`, `account_name`)"
+        )
+        db.execSQL(
+            "CREATE UNIQUE INDEX IF NOT EXISTS `index_list_of_uploads_local_path_remote_path_account_name` " +
+                "ON `list_of_uploads` (`local_path`, `remote_path`, `account_name`)"
+        )
+    }
+}
@@ -41,6 +41,7 @@ import com.nextcloud.client.network.ClientFactory;
 import com.nextcloud.client.notifications.AppNotificationManager;
 import com.nextcloud.client.notifications.AppNotificationManagerImpl;
 import com.nextcloud.client.preferences.AppPreferences;
+import com.nextcloud.client.startup.StartupGate;
 import com.nextcloud.client.utils.Throttler;
 import com.owncloud.android.providers.UsersAndGroupsSearchConfig;
 import com.owncloud.android.authentication.PassCodeManager;
@@ -161,6 +162,11 @@ class AppModule {
         return new ClockImpl();
     }
 
+    @Provides
+    StartupGate startupGate() {
+        return StartupGate.getInstance();
+    }
+
     @Provides
     @Singleton
     Logger logger(Context context, Clock clock) {
@@ -22,6 +22,7 @@ import com.nextcloud.client.etm.pages.EtmBackgroundJobsFragment
 import com.nextcloud.client.etm.pages.EtmFileTransferFragment
 import com.nextcloud.client.etm.pages.EtmMigrations
 import com.nextcloud.client.etm.pages.EtmPreferencesFragment
+import com.nextcloud.client.etm.pages.EtmThumbnailsFragment
 import com.nextcloud.client.jobs.BackgroundJobManager
 import com.nextcloud.client.jobs.JobInfo
 import com.nextcloud.client.jobs.transfer.TransferManagerConnection
@@ -29,6 +30,7 @@ import com.nextcloud.client.migrations.MigrationInfo
 import com.nextcloud.client.migrations.MigrationsDb
 import com.nextcloud.client.migrations.MigrationsManager
 import com.owncloud.android.R
+import com.owncloud.android.datamodel.ThumbnailLoader
 import com.owncloud.android.lib.common.accounts.AccountUtils
 import javax.inject.Inject
 
@@ -94,6 +96,11 @@ class EtmViewModel @Inject constructor(
             iconRes = R.drawable.ic_cloud_download,
             titleRes = R.string.etm_transfer,
             pageClass = EtmFileTransferFragment::class
+        ),
+        EtmMenuEntry(
+            iconRes = R.drawable.ic_image_outline,
+            titleRes = R.string.etm_thumbnails,
+            pageClass = EtmThumbnailsFragment::class
         )
     )
     val transferManagerConnection = TransferManagerConnection(context, accountManager.user)
@@ -131,6 +138,10 @@ class EtmViewModel @Inject constructor(
         return migrationsDb.lastMigratedVersion
     }
 
+    val thumbnailMetrics: ThumbnailLoader.Metrics get() {
+        return ThumbnailLoader.instance.getMetrics()
+    }
+
     init {
         (currentPage as MutableLiveData).apply {
             value = null
@@ -0,0 +1,72 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later OR GPL-2.0-only
+ */
+package com.nextcloud.client.etm.pages
+
+import android.os.Bundle
+import android.os.Handler
+import android.os.Looper
+import android.view.LayoutInflater
+import android.view.View
+import android.view.ViewGroup
+import com.nextcloud.client.etm.EtmBaseFragment
+import com.owncloud.android.databinding.FragmentEtmThumbnailsBinding
+
+class EtmThumbnailsFragment : EtmBaseFragment() {
+    companion object {
+        private const val REFRESH_INTERVAL_MILLIS = 1000L
+    }
+
+    private var _binding: FragmentEtmThumbnailsBinding? = null
+    val binding get() = _binding!!
+
+    private val handler = Handler(Looper.getMainLooper())
+    private val refresh = object : Runnable {
+        override fun run() {
+            showMetrics()
+            handler.postDelayed(this, REFRESH_INTERVAL_MILLIS)
+        }
+    }
+
+    override fun onCreateView(inflater: LayoutInflater, container: ViewGroup?, savedInstanceState: Bundle?): View? {
+        _binding = FragmentEtmThumbnailsBinding.inflate(inflater, container, false)
+        return binding.root
+    }
+
+    override fun onResume() {
+        super.onResume()
+        refresh.run()
+    }
+
+    override fun onPause() {
+        super.onPause()
+        handler.removeCallbacks(refresh)
+    }
+
+    private fun showMetrics() {
+        val metrics = vm.thumbnailMetrics
+        binding.etmThumbnailsText.text = buildString {
+            append("Threads: ${metrics.poolSize}\n")
+            append("Queued: ${metrics.queued}\n")
+            append("Running: ${metrics.running}\n")
+            append("Requested: ${metrics.requested}\n")
+            append("Deduplicated: ${metrics.deduplicated}\n")
+            append("Prefetched: ${metrics.prefetched}\n")
+            append("Cancelled: ${metrics.cancelled}\n")
+            append("Dropped: ${metrics.dropped}\n")
+            append("Completed: ${metrics.completed}\n")
+            append("Failed: ${metrics.failed}\n")
+            append("Average wait: ${metrics.averageWaitMillis} ms\n")
+            append("Average latency: ${metrics.averageLatencyMillis} ms\n")
+            append("Max latency: ${metrics.maxLatencyMillis} ms\n")
+        }
+    }
+
+    override fun onDestroyView() {
+        super.onDestroyView()
+        _binding = null
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later OR GPL-2.0-only
+ */
+package com.nextcloud.client.files
+
+import android.accounts.AccountsException
+import android.content.Context
+import androidx.annotation.VisibleForTesting
+import com.nextcloud.client.account.User
+import com.owncloud.android.datamodel.FileDataStorageManager
+import com.owncloud.android.datamodel.OCFile
+import com.owncloud.android.datamodel.VirtualFolderType
+import com.owncloud.android.datamodel.e2e.v1.decrypted.DecryptedFolderMetadataFileV1
+import com.owncloud.android.datamodel.e2e.v2.decrypted.DecryptedFolderMetadataFile
+import com.owncloud.android.lib.common.OwnCloudClient
+import com.owncloud.android.lib.common.OwnCloudClientFactory
+import com.owncloud.android.lib.common.utils.Log_OC
+import com.owncloud.android.lib.resources.files.model.RemoteFile
+import com.owncloud.android.operations.RefreshFolderOperation
+import com.owncloud.android.operations.RemoteOperationFailedException
+import com.owncloud.android.utils.FileStorageUtils
+import java.io.IOException
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.Executor
+import java.util.concurrent.Executors
+
+/**
+ * Stores the results of a favorites search as content of the favorites virtual folder.
+ *
+ * The stored state of all results and of their parents is read with a few queries, and the results are stored
+ * together with their virtual rows in one transaction. Only parents which are not stored yet, which is rare as
+ * favorites are usually found in browsed folders, are stored one by one before. Favorite folders are refreshed afterwards in the background,
+ * by a small pool shared by all loaders, and only if their contents were not synchronized at the ETag returned by the
+ * search yet.
+ */
+class FavoritesLoader @VisibleForTesting internal constructor(
+    private val user: User,
+    private val storageManager: FileDataStorageManager,
+    private val context: Context,
+    private val refreshFolder: (OCFile) -> Unit
+) {
+
+    companion object {
+        private const val TAG = "FavoritesLoader"
+        private const val REFRESH_PARALLELISM = 4
+
+        private val refreshExecutor: Executor by lazy { Executors.newFixedThreadPool(REFRESH_PARALLELISM) }
+
+        // folders queued or being refreshed, by account name and path
+        private val refreshing = ConcurrentHashMap.newKeySet<String>()
+
+        /**
+         * @return whether the contents of [storedFolder] have to be synchronized to match [remoteFolder]
+         */
+        @VisibleForTesting
+        internal fun isRefreshNeeded(storedFolder: OCFile?, remoteFolder: OCFile): Boolean {
+            val storedEtag = storedFolder?.etag
+            return storedEtag.isNullOrEmpty() || !storedEtag.equals(remoteFolder.etag, ignoreCase = true)
+        }
+
+        private fun refreshInBackground(
+            folder: OCFile,
+            user: User,
+            storageManager: FileDataStorageManager,
+            context: Context
+        ) {
+            val key = user.accountName + folder.remotePath
+            if (!refreshing.add(key)) {
+                return
+            }
+
+            refreshExecutor.execute {
+                try {
+                    val result = RefreshFolderOperation(
+                        folder,
+                        System.currentTimeMillis(),
+                        true,
+                        false,
+                        storageManager,
+                        user,
+                        context
+                    ).execute(user, context)
+                    if (!result.isSuccess) {
+                        Log_OC.w(TAG, "Refresh of favorite folder failed: " + result.logMessage)
+                    }
+                } finally {
+                    refreshing.remove(key)
+                }
+            }
+        }
+    }
+
+    constructor(user: User, storageManager: FileDataStorageManager, context: Context) : this(
+        user,
+        storageManager,
+        context,
+        // refreshes outlive the caller, so they must not keep an activity
+        context.applicationContext.let { appContext ->
+            { folder: OCFile -> refreshInBackground(folder, user, storageManager, appContext) }
+        }
+    )
+
+    private var client: OwnCloudClient? = null
+
+    /**
+     * Stores [remoteFiles] as content of the favorites virtual folder and starts refreshing the favorite folders
+     * whose contents changed.
+     *
+     * @param replace whether the previous favorites are removed
+     * @return the stored files, without the ones which could not be stored; empty if storing them failed
+     */
+    fun load(remoteFiles: List<Any>, replace: Boolean): List<OCFile> {
+        val files = remoteFiles.filterIsInstance<RemoteFile>().map { remoteFile ->
+            FileStorageUtils.fillOCFile(remoteFile).also {
+                FileStorageUtils.searchForLocalFileInDefaultPath(it, user.accountName)
+            }
+        }
+        val storedFiles = storageManager.getFilesByPaths(files.flatMap { listOf(it.remotePath, getParentPath(it)) })
+        val decryptedMetadata = HashMap<Long, Any>()
+        val savedFiles = ArrayList<OCFile>(files.size)
+        val foldersToRefresh = ArrayList<OCFile>()
+
+        for (file in files) {
+            try {
+                val storedFile = storedFiles[file.remotePath]
+                val isRefreshNeeded = file.isFolder && isRefreshNeeded(storedFile, file)
+                file.etagOnServer = file.etag
+                if (file.isFolder) {
+                    // same as a folder refresh, the ETag is only updated once the contents are synchronized
+                    file.etag = storedFile?.etag ?: ""
+                }
+                storedFile?.let { file.fileId = it.fileId }
+
+                val parent = getParent(file, storedFiles)
+                if (parent.isEncrypted || file.isEncrypted) {
+                    decryptFileName(file, parent, decryptedMetadata)
+                }
+
+                savedFiles.add(file)
+                if (isRefreshNeeded) {
+                    foldersToRefresh.add(file)
+                }
+            } catch (e: RemoteOperationFailedException) {
+                Log_OC.e(TAG, "Error saving file with parent" + e.message, e)
+            } catch (e: AccountsException) {
+                Log_OC.e(TAG, "Error saving file with parent" + e.message, e)
+            } catch (e: IOException) {
+                Log_OC.e(TAG, "Error saving file with parent" + e.message, e)
+            } catch (e: IllegalStateException) {
+                Log_OC.e(TAG, "Error saving file with parent" + e.message, e)
+            }
+        }
+
+        if (!storageManager.saveVirtualFolderFiles(VirtualFolderType.FAVORITE, savedFiles, replace)) {
+            return emptyList()
+        }
+        foldersToRefresh.forEach { refreshFolder(it) }
+
+        return savedFiles
+    }
+
+    private fun getParentPath(file: OCFile): String = file.remotePath.substring(
+        0,
+        file.remotePath.lastIndexOf(file.fileName)
+    )
+
+    /**
+     * Sets the parent id of [file], storing its parents first if they are not stored yet. These are stored outside of
+     * the transaction of the results.
+     */
+    private fun getParent(file: OCFile, storedFiles: MutableMap<String, OCFile>): OCFile {
+        val parentPath = getParentPath(file)
+        val storedParent = storedFiles[parentPath]
+        if (storedParent != null) {
+            file.parentId = storedParent.fileId
+            return storedParent
+        }
+
+        storageManager.saveFileWithParent(file, context)
+        val parent = storageManager.getFileById(file.parentId)
+            ?: throw IllegalStateException("parent of " + file.remotePath + " is not stored")
+        storedFiles[parentPath] = parent
+        return parent
+    }
+
+    private fun decryptFileName(file: OCFile, parent: OCFile, decryptedMetadata: MutableMap<Long, Any>) {
+        val metadata = decryptedMetadata[parent.fileId]
+            ?: RefreshFolderOperation.getDecryptedFolderMetadata(true, parent, getClient(), user, context)
+            ?: throw IllegalStateException("metadata is null!")
+        decryptedMetadata[parent.fileId] = metadata
+
+        if (metadata is DecryptedFolderMetadataFileV1) {
+            RefreshFolderOperation.updateFileNameForEncryptedFileV1(storageManager, metadata, file)
+        } else {
+            RefreshFolderOperation.updateFileNameForEncryptedFile(
+                storageManager,
+                metadata as DecryptedFolderMetadataFile,
+                file
+            )
+        }
+    }
+
+    private fun getClient(): OwnCloudClient = client
+        ?: OwnCloudClientFactory.createOwnCloudClient(user.toPlatformAccount(), context).also { client = it }
+}
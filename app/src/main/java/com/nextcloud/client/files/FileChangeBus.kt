@@ -0,0 +1,126 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later OR GPL-2.0-only
+ */
+package com.nextcloud.client.files
+
+import android.os.Handler
+import android.os.HandlerThread
+import android.os.Process
+import androidx.annotation.VisibleForTesting
+import com.owncloud.android.datamodel.OCFile
+import java.util.concurrent.CopyOnWriteArrayList
+
+/**
+ * Process wide bus for changes of files shown in file lists.
+ *
+ * Producers post changes of single files or refreshed folders from any thread. Changes are grouped by account and
+ * parent folder and delivered to listeners once per window, so that a burst of finished transfers results in one
+ * update per folder with the changed items instead of one reload per transfer.
+ *
+ * Listeners are called on a background thread, so that they can read the changed files from the database before
+ * handing them to the main thread.
+ */
+class FileChangeBus @VisibleForTesting internal constructor(
+    private val scheduler: (delayMillis: Long, task: Runnable) -> Unit,
+    private val windowMillis: Long
+) {
+
+    companion object {
+        // a few frames, long enough to catch transfers finishing back to back
+        private const val WINDOW_MILLIS = 100L
+
+        @JvmStatic
+        val instance: FileChangeBus by lazy {
+            val thread = HandlerThread("FileChangeBus", Process.THREAD_PRIORITY_BACKGROUND).apply { start() }
+            val handler = Handler(thread.looper)
+            FileChangeBus({ delayMillis, task -> handler.postDelayed(task, delayMillis) }, WINDOW_MILLIS)
+        }
+
+        @VisibleForTesting
+        internal fun getParentPath(remotePath: String): String {
+            val path = remotePath.trimEnd(OCFile.PATH_SEPARATOR[0])
+            return path.substringBeforeLast(OCFile.PATH_SEPARATOR) + OCFile.PATH_SEPARATOR
+        }
+    }
+
+    enum class ChangeType {
+        CHANGED,
+        REMOVED
+    }
+
+    /**
+     * Changes of the direct children of [folderPath], by their remote path. If [isRefreshed] is set, the contents of
+     * the whole folder were refreshed and may have changed in any way.
+     */
+    data class FolderChanges(
+        val accountName: String,
+        val folderPath: String,
+        val changes: Map<String, ChangeType>,
+        val isRefreshed: Boolean
+    )
+
+    fun interface Listener {
+        fun onFolderChanged(changes: FolderChanges)
+    }
+
+    private data class Key(val accountName: String, val folderPath: String)
+
+    private class Pending {
+        val changes = linkedMapOf<String, ChangeType>()
+        var isRefreshed = false
+    }
+
+    private val listeners = CopyOnWriteArrayList<Listener>()
+    private var pending = linkedMapOf<Key, Pending>()
+    private var isFlushScheduled = false
+
+    fun register(listener: Listener) {
+        listeners.addIfAbsent(listener)
+    }
+
+    fun unregister(listener: Listener) {
+        listeners.remove(listener)
+    }
+
+    fun postChanged(accountName: String, remotePath: String) {
+        post(accountName, getParentPath(remotePath)) { it.changes[remotePath] = ChangeType.CHANGED }
+    }
+
+    fun postRemoved(accountName: String, remotePath: String) {
+        post(accountName, getParentPath(remotePath)) { it.changes[remotePath] = ChangeType.REMOVED }
+    }
+
+    fun postFolderRefreshed(accountName: String, folderPath: String) {
+        post(accountName, folderPath) { it.isRefreshed = true }
+    }
+
+    private fun post(accountName: String, folderPath: String, update: (Pending) -> Unit) {
+        val schedule = synchronized(this) {
+            update(pending.getOrPut(Key(accountName, folderPath)) { Pending() })
+            val wasScheduled = isFlushScheduled
+            isFlushScheduled = true
+            !wasScheduled
+        }
+
+        if (schedule) {
+            scheduler(windowMillis) { flush() }
+        }
+    }
+
+    private fun flush() {
+        val flushed = synchronized(this) {
+            val current = pending
+            pending = linkedMapOf()
+            isFlushScheduled = false
+            current
+        }
+
+        flushed.forEach { (key, changes) ->
+            val folderChanges = FolderChanges(key.accountName, key.folderPath, changes.changes, changes.isRefreshed)
+            listeners.forEach { it.onFolderChanged(folderChanges) }
+        }
+    }
+}
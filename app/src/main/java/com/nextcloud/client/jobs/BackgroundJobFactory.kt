@@ -28,6 +28,7 @@ import com.nextcloud.client.jobs.upload.FileUploadWorker
 import com.nextcloud.client.logger.Logger
 import com.nextcloud.client.network.ConnectivityService
 import com.nextcloud.client.preferences.AppPreferences
+import com.nextcloud.client.startup.StartupGate
 import com.owncloud.android.datamodel.ArbitraryDataProvider
 import com.owncloud.android.datamodel.SyncedFolderProvider
 import com.owncloud.android.datamodel.UploadsStorageManager
@@ -61,7 +62,8 @@ class BackgroundJobFactory @Inject constructor(
     private val viewThemeUtils: Provider<ViewThemeUtils>,
     private val localBroadcastManager: Provider<LocalBroadcastManager>,
     private val generatePdfUseCase: GeneratePDFUseCase,
-    private val syncedFolderProvider: SyncedFolderProvider
+    private val syncedFolderProvider: SyncedFolderProvider,
+    private val startupGate: StartupGate
 ) : WorkerFactory() {
 
     @SuppressLint("NewApi")
@@ -71,6 +73,9 @@ class BackgroundJobFactory @Inject constructor(
         workerClassName: String,
         workerParameters: WorkerParameters
     ): ListenableWorker? {
+        // workers read synced folders and uploads that are migrated in the background after app start
+        startupGate.await()
+
         val workerClass = try {
             Class.forName(workerClassName).kotlin
         } catch (ex: ClassNotFoundException) {
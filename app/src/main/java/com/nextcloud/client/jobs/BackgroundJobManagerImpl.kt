@@ -29,8 +29,6 @@ import com.nextcloud.client.jobs.download.FileDownloadWorker
 import com.nextcloud.client.jobs.offlineOperations.OfflineOperationsWorker
 import com.nextcloud.client.jobs.upload.FileUploadWorker
 import com.nextcloud.client.preferences.AppPreferences
-import com.nextcloud.utils.extensions.isWorkRunning
-import com.nextcloud.utils.extensions.isWorkScheduled
 import com.owncloud.android.datamodel.OCFile
 import com.owncloud.android.operations.DownloadType
 import java.util.Date
@@ -56,7 +54,8 @@ import kotlin.reflect.KClass
 internal class BackgroundJobManagerImpl(
     private val workManager: WorkManager,
     private val clock: Clock,
-    private val preferences: AppPreferences
+    private val preferences: AppPreferences,
+    private val workStates: WorkStateRegistry = WorkStateRegistry(workManager)
 ) : BackgroundJobManager, Injectable {
 
     companion object {
@@ -414,8 +413,8 @@ internal class BackgroundJobManagerImpl(
     }
 
     override fun bothFilesSyncJobsRunning(syncedFolderID: Long): Boolean {
-        return workManager.isWorkRunning(JOB_PERIODIC_FILES_SYNC + "_" + syncedFolderID) &&
-            workManager.isWorkRunning(JOB_IMMEDIATE_FILES_SYNC + "_" + syncedFolderID)
+        return workStates.isRunning(JOB_PERIODIC_FILES_SYNC + "_" + syncedFolderID) &&
+            workStates.isRunning(JOB_IMMEDIATE_FILES_SYNC + "_" + syncedFolderID)
     }
 
     override fun startPeriodicallyOfflineOperation() {
@@ -576,7 +575,7 @@ internal class BackgroundJobManagerImpl(
     }
 
     override fun isStartFileUploadJobScheduled(user: User): Boolean {
-        return workManager.isWorkScheduled(startFileUploadJobTag(user))
+        return workStates.isScheduled(startFileUploadJobTag(user))
     }
 
     override fun startFilesUploadJob(user: User) {
@@ -602,7 +601,7 @@ internal class BackgroundJobManagerImpl(
     }
 
     override fun isStartFileDownloadJobScheduled(user: User, fileId: Long): Boolean {
-        return workManager.isWorkScheduled(startFileDownloadJobTag(user, fileId))
+        return workStates.isScheduled(startFileDownloadJobTag(user, fileId))
     }
 
     override fun startFileDownloadJob(
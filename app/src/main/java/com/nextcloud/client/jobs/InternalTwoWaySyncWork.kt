@@ -12,11 +12,13 @@ import androidx.work.Worker
 import androidx.work.WorkerParameters
 import com.nextcloud.client.account.UserAccountManager
 import com.nextcloud.client.device.PowerManagementService
+import com.nextcloud.client.jobs.sync.LocalChangeJournal
 import com.nextcloud.client.network.ConnectivityService
 import com.nextcloud.client.preferences.AppPreferences
 import com.owncloud.android.MainApp
 import com.owncloud.android.datamodel.FileDataStorageManager
 import com.owncloud.android.datamodel.OCFile
+import com.owncloud.android.datamodel.StorageUsageLedger
 import com.owncloud.android.lib.common.utils.Log_OC
 import com.owncloud.android.operations.SynchronizeFolderOperation
 import com.owncloud.android.utils.FileStorageUtils
@@ -33,6 +35,7 @@ class InternalTwoWaySyncWork(
 ) : Worker(context, params) {
     private var shouldRun = true
     private var operation: SynchronizeFolderOperation? = null
+    private val journal = LocalChangeJournal.instance
 
     override fun doWork(): Result {
         Log_OC.d(TAG, "Worker started!")
@@ -55,6 +58,10 @@ class InternalTwoWaySyncWork(
         for (user in users) {
             val fileDataStorageManager = FileDataStorageManager(user, context.contentResolver)
             val folders = fileDataStorageManager.getInternalTwoWaySyncFolders(user)
+            val storageRoot = File(FileStorageUtils.getSavePath(user.accountName))
+            journal.watch(storageRoot)
+            val localChanges = journal.getChanges(storageRoot, TAG)
+            var userResult = true
 
             for (folder in folders) {
                 if (!shouldRun) {
@@ -68,13 +75,16 @@ class InternalTwoWaySyncWork(
 
                 Log_OC.d(TAG, "Folder ${folder.remotePath}: started!")
                 operation = SynchronizeFolderOperation(context, folder.remotePath, user, fileDataStorageManager, true)
+                if (localChanges.isComplete) {
+                    operation?.setLocalChanges(localChanges.paths.keys)
+                }
                 val operationResult = operation?.execute(context)
 
                 if (operationResult?.isSuccess == true) {
                     Log_OC.d(TAG, "Folder ${folder.remotePath}: finished!")
                 } else {
                     Log_OC.d(TAG, "Folder ${folder.remotePath} failed!")
-                    result = false
+                    userResult = false
                 }
 
                 folder.apply {
@@ -87,6 +97,12 @@ class InternalTwoWaySyncWork(
 
                 fileDataStorageManager.saveFile(folder)
             }
+
+            if (userResult) {
+                journal.acknowledge(localChanges)
+            } else {
+                result = false
+            }
         }
 
         return if (result) {
@@ -115,7 +131,7 @@ class InternalTwoWaySyncWork(
         return try {
             val freeSpaceLeft = file.freeSpace
             val localFolder = File(storagePath, MainApp.getDataFolder())
-            val localFolderSize = FileStorageUtils.getFolderSize(localFolder)
+            val localFolderSize = StorageUsageLedger.instance.getSize(localFolder)
             val remoteFolderSize = folder.fileLength
 
             if (freeSpaceLeft < (remoteFolderSize - localFolderSize)) {
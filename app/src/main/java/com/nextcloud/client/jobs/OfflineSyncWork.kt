@@ -17,6 +17,7 @@ import androidx.work.WorkerParameters
 import com.nextcloud.client.account.User
 import com.nextcloud.client.account.UserAccountManager
 import com.nextcloud.client.device.PowerManagementService
+import com.nextcloud.client.jobs.sync.LocalChangeJournal
 import com.nextcloud.client.network.ConnectivityService
 import com.owncloud.android.datamodel.FileDataStorageManager
 import com.owncloud.android.datamodel.OCFile
@@ -41,6 +42,8 @@ class OfflineSyncWork(
         const val TAG = "OfflineSyncJob"
     }
 
+    private val journal = LocalChangeJournal.instance
+
     override fun doWork(): Result {
         if (!powerManagementService.isPowerSavingEnabled) {
             val users = userAccountManager.allUsers
@@ -50,45 +53,60 @@ class OfflineSyncWork(
                 if (ocRoot.storagePath == null) {
                     break
                 }
-                recursive(File(ocRoot.storagePath), storageManager, user)
+                val root = File(ocRoot.storagePath)
+                journal.watch(root)
+                val localChanges = journal.getChanges(root, TAG)
+                val synced = mutableSetOf<String>()
+                recursive(root, storageManager, user, synced)
+                val localChangesSynced = !localChanges.isComplete ||
+                    syncLocalChanges(localChanges, synced, storageManager, user)
+                if (localChangesSynced) {
+                    journal.acknowledge(localChanges)
+                }
             }
         }
         return Result.success()
     }
 
-    private fun recursive(folder: File, storageManager: FileDataStorageManager, user: User) {
+    /**
+     * Synchronizes the downloaded files below [folder] whose folder eTag changed on the server, adding their local
+     * paths to [synced]. Folders with an unchanged eTag are neither listed nor descended into, so unless something
+     * changed on the server this costs a single eTag check of the root folder.
+     */
+    private fun recursive(
+        folder: File,
+        storageManager: FileDataStorageManager,
+        user: User,
+        synced: MutableSet<String>
+    ) {
         val downloadFolder = FileStorageUtils.getSavePath(user.accountName)
         val folderName = folder.absolutePath.replaceFirst(downloadFolder.toRegex(), "") + OCFile.PATH_SEPARATOR
         Log_OC.d(TAG, "$folderName: enter")
-        // exit
-        if (folder.listFiles() == null) {
+        if (!folder.isDirectory) {
             return
         }
 
         val updatedEtag = checkETagChanged(folderName, storageManager, user) ?: return
 
+        val (subfolders, files) = (folder.listFiles() ?: return).partition { it.isDirectory }
+
         // iterate over downloaded files
-        val files = folder.listFiles { obj: File -> obj.isFile }
-        if (files != null) {
-            for (file in files) {
-                val ocFile = storageManager.getFileByLocalPath(file.path)
-                val synchronizeFileOperation = SynchronizeFileOperation(
-                    ocFile?.remotePath,
-                    user,
-                    true,
-                    context,
-                    storageManager,
-                    true
-                )
-                synchronizeFileOperation.execute(context)
-            }
+        for (file in files) {
+            val ocFile = storageManager.getFileByLocalPath(file.path)
+            synced.add(file.path)
+            val synchronizeFileOperation = SynchronizeFileOperation(
+                ocFile?.remotePath,
+                user,
+                true,
+                context,
+                storageManager,
+                true
+            )
+            synchronizeFileOperation.execute(context)
         }
         // recursive into folder
-        val subfolders = folder.listFiles { obj: File -> obj.isDirectory }
-        if (subfolders != null) {
-            for (subfolder in subfolders) {
-                recursive(subfolder, storageManager, user)
-            }
+        for (subfolder in subfolders) {
+            recursive(subfolder, storageManager, user, synced)
         }
         // update eTag
         @Suppress("TooGenericExceptionCaught") // legacy code
@@ -101,6 +119,37 @@ class OfflineSyncWork(
         }
     }
 
+    /**
+     * Synchronizes the locally created or modified files journaled in [localChanges] that were not covered by the
+     * walk over folders changed on the server. Only journaled paths are looked up, the local tree is not listed.
+     *
+     * @return `true` if all of them were handled, `false` if they have to be synchronized again
+     */
+    private fun syncLocalChanges(
+        localChanges: LocalChangeJournal.Changes,
+        synced: Set<String>,
+        storageManager: FileDataStorageManager,
+        user: User
+    ): Boolean {
+        var success = true
+        for ((path, type) in localChanges.paths) {
+            if (type == LocalChangeJournal.ChangeType.DELETED || path in synced) {
+                continue
+            }
+            val ocFile = storageManager.getFileByLocalPath(path)
+            if (ocFile == null || ocFile.isFolder) {
+                continue
+            }
+            Log_OC.d(TAG, "${ocFile.remotePath}: changed locally")
+            val result = SynchronizeFileOperation(ocFile.remotePath, user, true, context, storageManager, true)
+                .execute(context)
+            if (!result.isSuccess && result.code != ResultCode.SYNC_CONFLICT) {
+                success = false
+            }
+        }
+        return success
+    }
+
     /**
      * @return new eTag if changed, `null` otherwise
      */
@@ -0,0 +1,64 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later OR GPL-2.0-only
+ */
+package com.nextcloud.client.jobs
+
+import android.os.Handler
+import android.os.Looper
+import androidx.annotation.VisibleForTesting
+import androidx.work.WorkInfo
+import androidx.work.WorkManager
+import com.nextcloud.utils.extensions.isWorkRunning
+import com.nextcloud.utils.extensions.isWorkScheduled
+import java.util.concurrent.atomic.AtomicBoolean
+
+/**
+ * Answers whether work with a tag is scheduled or running from memory, instead of querying the work database.
+ *
+ * All work of the client is tagged with [BackgroundJobManagerImpl.TAG_ALL], so a single observer of that tag keeps the
+ * states of all unfinished work by tag. Observing starts with the first query, which is answered by the blocking
+ * query as long as the observer did not receive the work yet.
+ *
+ * Updates are delivered asynchronously, so work enqueued a moment ago may not be known yet. Work which must not run
+ * twice is enqueued as unique work anyway.
+ */
+class WorkStateRegistry(private val workManager: WorkManager) {
+
+    private val isObserving = AtomicBoolean(false)
+
+    // states of unfinished work by tag, null until the first update
+    @Volatile
+    private var states: Map<String, Set<WorkInfo.State>>? = null
+
+    fun isScheduled(tag: String): Boolean {
+        val tagStates = getStates() ?: return workManager.isWorkScheduled(tag)
+        val workStates = tagStates[tag] ?: return false
+        return workStates.contains(WorkInfo.State.RUNNING) || workStates.contains(WorkInfo.State.ENQUEUED)
+    }
+
+    fun isRunning(tag: String): Boolean {
+        val tagStates = getStates() ?: return workManager.isWorkRunning(tag)
+        return tagStates[tag]?.contains(WorkInfo.State.RUNNING) == true
+    }
+
+    private fun getStates(): Map<String, Set<WorkInfo.State>>? {
+        if (isObserving.compareAndSet(false, true)) {
+            Handler(Looper.getMainLooper()).post {
+                workManager.getWorkInfosByTagLiveData(BackgroundJobManagerImpl.TAG_ALL).observeForever(::update)
+            }
+        }
+        return states
+    }
+
+    @VisibleForTesting
+    internal fun update(workInfos: List<WorkInfo>) {
+        val tagStates = HashMap<String, MutableSet<WorkInfo.State>>()
+        workInfos.filter { !it.state.isFinished }.forEach { workInfo ->
+            workInfo.tags.forEach { tag -> tagStates.getOrPut(tag) { HashSet() }.add(workInfo.state) }
+        }
+        states = tagStates
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later OR GPL-2.0-only
+ */
+package com.nextcloud.client.jobs.autoUpload
+
+import android.content.Context
+import android.net.Uri
+import android.os.Build
+import android.provider.MediaStore
+import androidx.annotation.RequiresApi
+import com.nextcloud.client.database.dao.SyncedFolderScanDao
+import com.nextcloud.client.database.entity.SyncedFolderCheckpointEntity
+import com.nextcloud.client.database.entity.SyncedFolderDirectoryEntity
+import com.owncloud.android.datamodel.FilesystemDataProvider
+import com.owncloud.android.datamodel.MediaFolderType
+import com.owncloud.android.datamodel.OCFile.PATH_SEPARATOR
+import com.owncloud.android.datamodel.SyncedFolder
+import com.owncloud.android.lib.common.utils.Log_OC
+import java.io.File
+import java.util.concurrent.TimeUnit
+
+/**
+ * Finds files of a synced folder that changed since the previous scan, without visiting every file again.
+ *
+ * Media folders are queried by MediaStore generation: a checkpoint per volume remembers the generation reached by
+ * the last scan, so only rows modified afterwards are returned. Custom folders keep the modification time of every
+ * directory, and a directory whose modification time did not change is not listed again; its known subdirectories
+ * are visited straight from the index. A directory's modification time only changes when entries are added, removed
+ * or renamed, so files overwritten or appended to in place are not found by such a scan. Media among them are still
+ * reported by the content observer; for everything else every directory is listed again once a day.
+ *
+ * All state is dropped when a folder has not been scanned yet, e.g. after it was (re-)configured.
+ */
+class AutoUploadChangeDetector(
+    private val context: Context,
+    private val scanDao: SyncedFolderScanDao,
+    private val filesystemDataProvider: FilesystemDataProvider
+) {
+    companion object {
+        private const val TAG = "AutoUploadChangeDetector"
+
+        /**
+         * Directories modified this close to the start of a scan may still change within the same timestamp
+         * granularity (2s on FAT); they are listed again on the next scan.
+         */
+        private const val MODIFIED_GRANULARITY_MS = 2000L
+        private const val UNSTABLE = -1L
+        private const val MILLIS_PER_SECOND = 1000
+
+        /**
+         * Checkpoint of custom folders, storing the start of the last scan that listed every directory as generation.
+         */
+        private const val FULL_SCAN = "full_scan"
+        private val FULL_SCAN_INTERVAL_MS = TimeUnit.DAYS.toMillis(1)
+    }
+
+    /**
+     * Scans all external volumes for media of [syncedFolder] that changed since the stored checkpoints.
+     */
+    @RequiresApi(Build.VERSION_CODES.R)
+    fun scanMediaFolder(syncedFolder: SyncedFolder) {
+        val isFirstScan = resetIfNotScannedYet(syncedFolder)
+
+        for (volume in MediaStore.getExternalVolumeNames(context)) {
+            val version = MediaStore.getVersion(context, volume)
+            val generation = MediaStore.getGeneration(context, volume)
+            val checkpoint = scanDao.getCheckpoint(syncedFolder.id, volume)
+                ?.takeIf { !isFirstScan && it.mediaStoreVersion == version }
+
+            if (checkpoint?.generation == generation) {
+                Log_OC.d(TAG, "No media changes on $volume for ${syncedFolder.localPath}")
+                continue
+            }
+
+            val uri = if (syncedFolder.type == MediaFolderType.VIDEO) {
+                MediaStore.Video.Media.getContentUri(volume)
+            } else {
+                MediaStore.Images.Media.getContentUri(volume)
+            }
+            val count = insertChangedMedia(uri, syncedFolder, isFirstScan, checkpoint?.generation)
+            scanDao.upsertCheckpoint(SyncedFolderCheckpointEntity(syncedFolder.id, volume, version, generation))
+            Log_OC.d(TAG, "Found $count changed media on $volume for ${syncedFolder.localPath}")
+        }
+    }
+
+    private fun insertChangedMedia(
+        uri: Uri,
+        syncedFolder: SyncedFolder,
+        isFirstScan: Boolean,
+        sinceGeneration: Long?
+    ): Int {
+        val path = syncedFolder.localPath.let { if (it.endsWith(PATH_SEPARATOR)) it else it + PATH_SEPARATOR }
+        val selection = StringBuilder("${MediaStore.MediaColumns.DATA} LIKE ?")
+        val selectionArgs = mutableListOf("$path%")
+
+        if (sinceGeneration != null) {
+            selection.append(" AND ${MediaStore.MediaColumns.GENERATION_MODIFIED} > ?")
+            selectionArgs.add(sinceGeneration.toString())
+        } else if (!isFirstScan) {
+            selection.append(" AND ${MediaStore.MediaColumns.DATE_MODIFIED} >= ?")
+            selectionArgs.add((syncedFolder.lastScanTimestampMs / MILLIS_PER_SECOND).toString())
+        }
+        if (!syncedFolder.isExisting) {
+            selection.append(" AND ${MediaStore.MediaColumns.DATE_MODIFIED} >= ?")
+            selectionArgs.add((syncedFolder.enabledTimestampMs / MILLIS_PER_SECOND).toString())
+        }
+
+        val projection = arrayOf(MediaStore.MediaColumns.DATA, MediaStore.MediaColumns.DATE_MODIFIED)
+        var count = 0
+        context.contentResolver.query(uri, projection, selection.toString(), selectionArgs.toTypedArray(), null)?.use {
+            val dataIndex = it.getColumnIndexOrThrow(MediaStore.MediaColumns.DATA)
+            val dateModifiedIndex = it.getColumnIndexOrThrow(MediaStore.MediaColumns.DATE_MODIFIED)
+            while (it.moveToNext()) {
+                // media rows are never directories
+                filesystemDataProvider.storeOrUpdateFileValue(
+                    it.getString(dataIndex),
+                    it.getLong(dateModifiedIndex),
+                    false,
+                    syncedFolder
+                )
+                count++
+            }
+        }
+        return count
+    }
+
+    /**
+     * Walks [syncedFolder], listing and updating the index only for directories whose modification time changed
+     * since the previous scan, or all of them if the last full scan is older than a day.
+     */
+    @Suppress("LongMethod")
+    fun scanCustomFolder(syncedFolder: SyncedFolder) {
+        resetIfNotScannedYet(syncedFolder)
+
+        val index = scanDao.getDirectories(syncedFolder.id).associateBy { it.path }
+        val knownChildren = index.values.filter { it.parentPath != null }.groupBy({ it.parentPath!! }, { it.path })
+
+        val scanStart = System.currentTimeMillis()
+        val lastCheck = syncedFolder.lastScanTimestampMs
+        val lastFullScan = scanDao.getCheckpoint(syncedFolder.id, FULL_SCAN)?.generation
+        val isFullScan = lastFullScan == null || scanStart - lastFullScan > FULL_SCAN_INTERVAL_MS
+        val changed = mutableListOf<SyncedFolderDirectoryEntity>()
+        val removed = mutableListOf<String>()
+        var skipped = 0
+
+        val queue = ArrayDeque<Pair<File, String?>>()
+        queue.add(File(syncedFolder.localPath) to null)
+        while (queue.isNotEmpty()) {
+            val (directory, parentPath) = queue.removeFirst()
+            val path = directory.absolutePath
+            val modified = directory.lastModified()
+            val known = index[path]
+
+            if (!isFullScan && known != null && known.modified == modified) {
+                // same entries as before
+                knownChildren[path]?.forEach { queue.add(File(it) to path) }
+                skipped++
+                continue
+            }
+
+            val children = directory.listFiles()
+            if (children == null) {
+                if (known != null) {
+                    removed.add(path)
+                }
+                continue
+            }
+
+            val subdirectories = HashSet<String>()
+            for (child in children) {
+                if (syncedFolder.isExcludeHidden && child.isHidden) {
+                    continue
+                }
+                if (child.isDirectory) {
+                    subdirectories.add(child.absolutePath)
+                    queue.add(child to path)
+                } else {
+                    visitFile(child, syncedFolder, lastCheck)
+                }
+            }
+
+            knownChildren[path]?.filterNotTo(removed) { it in subdirectories }
+            val stableModified = if (modified < scanStart - MODIFIED_GRANULARITY_MS) modified else UNSTABLE
+            changed.add(SyncedFolderDirectoryEntity(syncedFolder.id, path, parentPath, stableModified))
+        }
+
+        scanDao.updateDirectories(syncedFolder.id, changed, removed)
+        if (isFullScan) {
+            scanDao.upsertCheckpoint(SyncedFolderCheckpointEntity(syncedFolder.id, FULL_SCAN, null, scanStart))
+        }
+        Log_OC.d(
+            TAG,
+            "Indexed ${changed.size} and kept $skipped unchanged directories of ${syncedFolder.localPath}"
+        )
+    }
+
+    private fun visitFile(file: File, syncedFolder: SyncedFolder, lastCheck: Long) {
+        val modified = file.lastModified()
+        if (modified < lastCheck) {
+            // skip files that were already checked
+            return
+        }
+        if (syncedFolder.isExisting || modified >= syncedFolder.enabledTimestampMs) {
+            filesystemDataProvider.storeOrUpdateFileValue(file.absolutePath, modified, false, syncedFolder)
+        }
+    }
+
+    private fun resetIfNotScannedYet(syncedFolder: SyncedFolder): Boolean {
+        val notScannedYet = syncedFolder.lastScanTimestampMs == SyncedFolder.NOT_SCANNED_YET
+        if (notScannedYet) {
+            scanDao.reset(syncedFolder.id)
+        }
+        return notScannedYet
+    }
+}
@@ -9,6 +9,7 @@ package com.nextcloud.client.jobs.download
 
 import com.nextcloud.client.account.User
 import com.nextcloud.client.jobs.BackgroundJobManager
+import com.nextcloud.client.jobs.transfer.TransferStateIndex
 import com.owncloud.android.MainApp
 import com.owncloud.android.datamodel.FileDataStorageManager
 import com.owncloud.android.datamodel.OCFile
@@ -63,6 +64,7 @@ class FileDownloadHelper {
         files.forEach { file ->
             FileDownloadWorker.cancelOperation(user.accountName, file.fileId)
             backgroundJobManager.cancelFilesDownloadJob(user, file.fileId)
+            TransferStateIndex.instance.removeScheduledDownload(user.accountName, file.fileId)
         }
     }
 
@@ -79,6 +81,7 @@ class FileDownloadHelper {
         currentDownload.cancel()
         FileDownloadWorker.cancelOperation(currentUser.accountName, currentFile.fileId)
         backgroundJobManager.cancelFilesDownloadJob(currentUser, currentFile.fileId)
+        TransferStateIndex.instance.removeScheduledDownload(currentUser.accountName, currentFile.fileId)
     }
 
     fun saveFile(file: OCFile, currentDownload: DownloadFileOperation?, storageManager: FileDataStorageManager?) {
@@ -131,6 +134,8 @@ class FileDownloadHelper {
         packageName: String = "",
         conflictUploadId: Long? = null
     ) {
+        // until the worker indexes the files it downloads
+        TransferStateIndex.instance.addScheduledDownload(user.accountName, ocFile.remotePath, ocFile.fileId)
         backgroundJobManager.startFileDownloadJob(
             user,
             ocFile,
@@ -21,6 +21,7 @@ import androidx.work.ForegroundInfo
 import androidx.work.WorkerParameters
 import com.nextcloud.client.account.User
 import com.nextcloud.client.account.UserAccountManager
+import com.nextcloud.client.jobs.transfer.TransferStateIndex
 import com.nextcloud.model.WorkerState
 import com.nextcloud.model.WorkerStateLiveData
 import com.nextcloud.utils.ForegroundServiceHelper
@@ -39,9 +40,15 @@ import com.owncloud.android.lib.common.utils.Log_OC
 import com.owncloud.android.operations.DownloadFileOperation
 import com.owncloud.android.operations.DownloadType
 import com.owncloud.android.utils.theme.ViewThemeUtils
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.coroutineScope
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.sync.Semaphore
+import kotlinx.coroutines.sync.withPermit
 import java.util.AbstractList
 import java.util.Optional
 import java.util.Vector
+import java.util.concurrent.ConcurrentHashMap
 import kotlin.random.Random
 
 @Suppress("LongParameterList", "TooManyFunctions")
@@ -51,7 +58,7 @@ class FileDownloadWorker(
     private var localBroadcastManager: LocalBroadcastManager,
     private val context: Context,
     params: WorkerParameters
-) : CoroutineWorker(context, params), OnAccountsUpdateListener, OnDatatransferProgressListener {
+) : CoroutineWorker(context, params), OnAccountsUpdateListener {
 
     companion object {
         private val TAG = FileDownloadWorker::class.java.simpleName
@@ -89,7 +96,17 @@ class FileDownloadWorker(
         }
     }
 
+    /**
+     * Download shown in the progress notification, the one started last.
+     */
+    @Volatile
     private var currentDownload: DownloadFileOperation? = null
+    private val activeDownloads: MutableSet<DownloadFileOperation> = ConcurrentHashMap.newKeySet()
+
+    /**
+     * Downloads added to the [TransferStateIndex] by this worker and not finished yet.
+     */
+    private val indexedDownloads: MutableSet<DownloadFileOperation> = ConcurrentHashMap.newKeySet()
 
     private var conflictUploadId: Long? = null
     private var lastPercent = 0
@@ -109,6 +126,7 @@ class FileDownloadWorker(
     private var currentUserFileStorageManager: FileDataStorageManager? = null
     private var fileDataStorageManager: FileDataStorageManager? = null
 
+    @Volatile
     private var downloadError: FileDownloadError? = null
 
     @Suppress("TooGenericExceptionCaught", "ReturnCount")
@@ -123,9 +141,7 @@ class FileDownloadWorker(
             val requestDownloads = getRequestDownloads(ocFile)
             addAccountUpdateListener()
 
-            requestDownloads.forEach {
-                downloadFile(it)
-            }
+            downloadFiles(requestDownloads)
 
             downloadError?.let {
                 showDownloadErrorNotification(it)
@@ -141,6 +157,8 @@ class FileDownloadWorker(
         } finally {
             Log_OC.e(TAG, "FilesDownloadWorker cleanup")
             notificationManager.dismissNotification()
+            indexedDownloads.toList().forEach { removeFromIndex(it) }
+            removeScheduledDownload()
             setIdleWorkerState()
         }
     }
@@ -189,8 +207,10 @@ class FileDownloadWorker(
                     downloadType
                 )
 
-                operation.addDownloadDataTransferProgressListener(this)
-                operation.addDownloadDataTransferProgressListener(downloadProgressListener)
+                operation.addDownloadDataTransferProgressListener { _, transferred, total, _ ->
+                    onTransferProgress(operation, transferred, total)
+                }
+                operation.addDownloadDataTransferProgressListener(downloadProgressListener.forDownload(operation))
                 val (downloadKey, linkedToRemotePath) = pendingDownloads.putIfAbsent(
                     user?.accountName,
                     file.remotePath,
@@ -199,6 +219,7 @@ class FileDownloadWorker(
 
                 downloadKey?.let {
                     requestedDownloads.add(downloadKey)
+                    addToIndex(operation)
                 }
 
                 linkedToRemotePath?.let {
@@ -245,110 +266,156 @@ class FileDownloadWorker(
         am.addOnAccountsUpdatedListener(this, null, false)
     }
 
+    /**
+     * Runs up to [R.integer.max_concurrent_downloads] downloads at once. Each download reports its result on its own;
+     * the progress notification follows the download started last.
+     */
+    private suspend fun downloadFiles(downloadKeys: List<String>) {
+        val maxConcurrentDownloads = context.resources.getInteger(R.integer.max_concurrent_downloads).coerceAtLeast(1)
+        val semaphore = Semaphore(maxConcurrentDownloads)
+
+        coroutineScope {
+            downloadKeys.forEach { downloadKey ->
+                launch(Dispatchers.IO) {
+                    semaphore.withPermit { downloadFile(downloadKey) }
+                }
+            }
+        }
+    }
+
     @Suppress("TooGenericExceptionCaught", "DEPRECATION")
     private fun downloadFile(downloadKey: String) {
-        currentDownload = pendingDownloads.get(downloadKey)
-
-        if (currentDownload == null) {
-            return
-        }
+        val download = pendingDownloads.get(downloadKey) ?: return
 
-        setWorkerState(user)
         Log_OC.e(TAG, "FilesDownloadWorker downloading: $downloadKey")
 
-        val isAccountExist = accountManager.exists(currentDownload?.user?.toPlatformAccount())
+        val isAccountExist = accountManager.exists(download.user?.toPlatformAccount())
         if (!isAccountExist) {
-            removePendingDownload(currentDownload?.user?.accountName)
+            removePendingDownload(download.user?.accountName)
             return
         }
 
-        lastPercent = 0
-        notificationManager.run {
-            prepareForStart(currentDownload!!)
-            setContentIntent(intents.detailsIntent(currentDownload!!), PendingIntent.FLAG_IMMUTABLE)
+        activeDownloads.add(download)
+        synchronized(notificationManager) {
+            currentDownload = download
+            setWorkerState(user)
+            lastPercent = 0
+            notificationManager.run {
+                prepareForStart(download)
+                setContentIntent(intents.detailsIntent(download), PendingIntent.FLAG_IMMUTABLE)
+            }
         }
 
         var downloadResult: RemoteOperationResult<*>? = null
         try {
-            val ocAccount = getOCAccountForDownload()
+            val ocAccount = getOCAccountForDownload(download)
             val downloadClient =
                 OwnCloudClientManagerFactory.getDefaultSingleton().getClientFor(ocAccount, context)
 
-            downloadResult = currentDownload?.execute(downloadClient)
-            if (downloadResult?.isSuccess == true && currentDownload?.downloadType === DownloadType.DOWNLOAD) {
-                getCurrentFile()?.let {
-                    FileDownloadHelper.instance().saveFile(it, currentDownload, currentUserFileStorageManager)
+            downloadResult = download.execute(downloadClient)
+            if (downloadResult?.isSuccess == true && download.downloadType === DownloadType.DOWNLOAD) {
+                getFile(download)?.let {
+                    FileDownloadHelper.instance().saveFile(it, download, currentUserFileStorageManager)
                 }
             }
         } catch (e: Exception) {
             Log_OC.e(TAG, "Error downloading", e)
             downloadResult = RemoteOperationResult<Any?>(e)
         } finally {
-            cleanupDownloadProcess(downloadResult)
+            activeDownloads.remove(download)
+            cleanupDownloadProcess(download, downloadResult)
         }
     }
 
     @Suppress("DEPRECATION")
-    private fun getOCAccountForDownload(): OwnCloudAccount {
-        val currentDownloadAccount = currentDownload?.user?.toPlatformAccount()
-        val currentDownloadUser = accountManager.getUser(currentDownloadAccount?.name)
-        if (currentUser != currentDownloadUser) {
-            currentUser = currentDownloadUser
+    @Synchronized
+    private fun getOCAccountForDownload(download: DownloadFileOperation): OwnCloudAccount {
+        val downloadAccount = download.user?.toPlatformAccount()
+        val downloadUser = accountManager.getUser(downloadAccount?.name)
+        if (currentUser != downloadUser) {
+            currentUser = downloadUser
             currentUserFileStorageManager = FileDataStorageManager(currentUser.get(), context.contentResolver)
         }
-        return currentDownloadUser.get().toOwnCloudAccount()
+        return downloadUser.get().toOwnCloudAccount()
     }
 
-    private fun getCurrentFile(): OCFile? {
-        var file: OCFile? = currentDownload?.file?.fileId?.let { currentUserFileStorageManager?.getFileById(it) }
+    private fun getCurrentFile(): OCFile? = currentDownload?.let { getFile(it) }
+
+    private fun getFile(download: DownloadFileOperation): OCFile? {
+        var file: OCFile? = download.file?.fileId?.let { currentUserFileStorageManager?.getFileById(it) }
 
         if (file == null) {
-            file = currentUserFileStorageManager?.getFileByDecryptedRemotePath(currentDownload?.file?.remotePath)
+            file = currentUserFileStorageManager?.getFileByDecryptedRemotePath(download.file?.remotePath)
         }
 
         if (file == null) {
-            Log_OC.e(this, "Could not save " + currentDownload?.file?.remotePath)
+            Log_OC.e(this, "Could not save " + download.file?.remotePath)
             return null
         }
 
         return file
     }
 
-    private fun cleanupDownloadProcess(result: RemoteOperationResult<*>?) {
+    private fun cleanupDownloadProcess(download: DownloadFileOperation, result: RemoteOperationResult<*>?) {
         result?.let {
             checkDownloadError(it)
         }
 
         val removeResult = pendingDownloads.removePayload(
-            currentDownload?.user?.accountName,
-            currentDownload?.remotePath
+            download.user?.accountName,
+            download.remotePath
         )
 
         val downloadResult = result ?: RemoteOperationResult<Any?>(RuntimeException("Error downloading…"))
 
-        currentDownload?.run {
-            notifyDownloadResult(this, downloadResult)
+        notifyDownloadResult(download, downloadResult)
+
+        val downloadFinishedIntent = intents.downloadFinishedIntent(
+            download,
+            downloadResult,
+            removeResult.second
+        )
+
+        localBroadcastManager.sendBroadcast(downloadFinishedIntent)
+        removeFromIndex(download)
+    }
+
+    private fun addToIndex(download: DownloadFileOperation) {
+        val accountName = download.user?.accountName ?: return
+        indexedDownloads.add(download)
+        TransferStateIndex.instance.addDownload(accountName, download.remotePath, download.file?.fileId ?: -1)
+    }
 
-            val downloadFinishedIntent = intents.downloadFinishedIntent(
-                this,
-                downloadResult,
-                removeResult.second
-            )
+    /**
+     * Removes the mark set when the job was scheduled, see [FileDownloadHelper.downloadFile].
+     */
+    private fun removeScheduledDownload() {
+        val accountName = inputData.keyValueMap[ACCOUNT_NAME] as String? ?: return
+        val remotePath = inputData.keyValueMap[FILE_REMOTE_PATH] as String? ?: return
+        TransferStateIndex.instance.removeScheduledDownload(accountName, remotePath)
+    }
 
-            localBroadcastManager.sendBroadcast(downloadFinishedIntent)
+    private fun removeFromIndex(download: DownloadFileOperation) {
+        val accountName = download.user?.accountName ?: return
+        if (indexedDownloads.remove(download)) {
+            TransferStateIndex.instance.removeDownload(accountName, download.remotePath, download.file?.fileId ?: -1)
         }
     }
 
     private fun checkDownloadError(result: RemoteOperationResult<*>) {
-        if (result.isSuccess || downloadError != null) {
-            notificationManager.dismissNotification()
-            return
-        }
+        synchronized(notificationManager) {
+            if (result.isSuccess || downloadError != null) {
+                if (activeDownloads.isEmpty()) {
+                    notificationManager.dismissNotification()
+                }
+                return
+            }
 
-        downloadError = if (result.isCancelled) {
-            FileDownloadError.Cancelled
-        } else {
-            FileDownloadError.Failed
+            downloadError = if (result.isCancelled) {
+                FileDownloadError.Cancelled
+            } else {
+                FileDownloadError.Failed
+            }
         }
     }
 
@@ -372,6 +439,16 @@ class FileDownloadWorker(
         }
 
         val needsToUpdateCredentials = (ResultCode.UNAUTHORIZED == downloadResult.code)
+        if (!needsToUpdateCredentials && activeDownloads.isNotEmpty()) {
+            return
+        }
+
+        synchronized(notificationManager) {
+            showDownloadResult(download, needsToUpdateCredentials)
+        }
+    }
+
+    private fun showDownloadResult(download: DownloadFileOperation, needsToUpdateCredentials: Boolean) {
         notificationManager.run {
             prepareForResult()
 
@@ -389,9 +466,9 @@ class FileDownloadWorker(
 
     @Suppress("DEPRECATION")
     override fun onAccountsUpdated(accounts: Array<out Account>?) {
-        if (!accountManager.exists(currentDownload?.user?.toPlatformAccount())) {
-            currentDownload?.cancel()
-        }
+        activeDownloads
+            .filter { !accountManager.exists(it.user?.toPlatformAccount()) }
+            .forEach { it.cancel() }
     }
 
     @Suppress("MagicNumber")
@@ -399,26 +476,31 @@ class FileDownloadWorker(
     private var lastUpdateTime = 0L
 
     @Suppress("MagicNumber")
-    override fun onTransferProgress(
-        progressRate: Long,
+    private fun onTransferProgress(
+        download: DownloadFileOperation,
         totalTransferredSoFar: Long,
-        totalToTransfer: Long,
-        filePath: String
+        totalToTransfer: Long
     ) {
-        val percent: Int = downloadProgressListener.getPercent(totalTransferredSoFar, totalToTransfer)
-        val currentTime = System.currentTimeMillis()
+        synchronized(notificationManager) {
+            if (download !== currentDownload) {
+                return
+            }
 
-        if (percent != lastPercent && (currentTime - lastUpdateTime) >= minProgressUpdateInterval) {
-            notificationManager.run {
-                updateDownloadProgress(percent, totalToTransfer)
+            val percent: Int = downloadProgressListener.getPercent(totalTransferredSoFar, totalToTransfer)
+            val currentTime = System.currentTimeMillis()
+
+            if (percent != lastPercent && (currentTime - lastUpdateTime) >= minProgressUpdateInterval) {
+                notificationManager.run {
+                    updateDownloadProgress(percent, totalToTransfer)
+                }
+                lastUpdateTime = currentTime
             }
-            lastUpdateTime = currentTime
-        }
 
-        lastPercent = percent
+            lastPercent = percent
+        }
     }
 
-    inner class FileDownloadProgressListener : OnDatatransferProgressListener {
+    inner class FileDownloadProgressListener {
         private val boundListeners: MutableMap<Long, OnDatatransferProgressListener> = HashMap()
 
         fun isDownloading(user: User?, file: OCFile?): Boolean {
@@ -444,19 +526,18 @@ class FileDownloadWorker(
             }
         }
 
-        override fun onTransferProgress(
-            progressRate: Long,
-            totalTransferredSoFar: Long,
-            totalToTransfer: Long,
-            fileName: String
-        ) {
-            val listener = boundListeners[currentDownload?.file?.fileId]
-            listener?.onTransferProgress(
-                progressRate,
-                totalTransferredSoFar,
-                totalToTransfer,
-                fileName
-            )
-        }
+        /**
+         * @return listener forwarding the progress of [download] to the listener bound to its file
+         */
+        fun forDownload(download: DownloadFileOperation) =
+            OnDatatransferProgressListener { progressRate, totalTransferredSoFar, totalToTransfer, fileName ->
+                val listener = boundListeners[download.file?.fileId]
+                listener?.onTransferProgress(
+                    progressRate,
+                    totalTransferredSoFar,
+                    totalToTransfer,
+                    fileName
+                )
+            }
     }
 }
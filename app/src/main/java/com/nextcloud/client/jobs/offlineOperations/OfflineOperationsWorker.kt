@@ -206,7 +206,7 @@ class OfflineOperationsWorker(
                 repository.updateNextOperations(operation)
             }
 
-            fileDataStorageManager.offlineOperationDao.delete(operation)
+            fileDataStorageManager.deleteOfflineOperation(operation)
             notificationManager.update(totalOperations, currentSuccessfulOperationIndex, operation.filename ?: "")
         } else {
             val excludedErrorCodes = listOf(RemoteOperationResult.ResultCode.FOLDER_ALREADY_EXISTS)
@@ -0,0 +1,84 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later OR GPL-2.0-only
+ */
+package com.nextcloud.client.jobs.offlineOperations.repository
+
+import androidx.annotation.VisibleForTesting
+import androidx.room.InvalidationTracker
+import com.nextcloud.client.database.NextcloudDatabase
+import com.nextcloud.client.database.entity.OfflineOperationEntity
+import com.nextcloud.model.OfflineOperationType
+import com.owncloud.android.MainApp
+import com.owncloud.android.datamodel.OCFile
+import com.owncloud.android.db.ProviderMeta.ProviderTableMeta
+
+/**
+ * In-memory overlay of the pending offline operations, indexed by path and by parent file id.
+ *
+ * File lists look up the offline operation of every bound item to show its pending name and state. The overlay loads
+ * all operations at once and keeps them until the table changes, which Room reports through its
+ * [InvalidationTracker]. Writers in this process additionally call [invalidate] directly, as the tracker reports
+ * changes asynchronously.
+ *
+ * Returned entities are shared and must not be modified; load them through the DAO for updates.
+ */
+class OfflineOperationsCache @VisibleForTesting internal constructor(
+    private val load: () -> List<OfflineOperationEntity>
+) {
+
+    companion object {
+        @JvmStatic
+        val instance: OfflineOperationsCache by lazy {
+            val database = NextcloudDatabase.getInstance(MainApp.getAppContext())
+            val dao = database.offlineOperationDao()
+            OfflineOperationsCache { dao.getAll() }.also { cache ->
+                val tableName = ProviderTableMeta.OFFLINE_OPERATION_TABLE_NAME
+                database.invalidationTracker.addObserver(object : InvalidationTracker.Observer(tableName) {
+                    override fun onInvalidated(tables: Set<String>) {
+                        cache.invalidate()
+                    }
+                })
+            }
+        }
+    }
+
+    private class Snapshot(entities: List<OfflineOperationEntity>) {
+        // same as the DAO, the first operation of a path wins
+        val byPath: Map<String, OfflineOperationEntity> = entities
+            .filter { it.path != null }
+            .reversed()
+            .associateBy { it.path!! }
+        val byParent: Map<Long, List<OfflineOperationEntity>> = entities
+            .filter { it.parentOCFileId != null }
+            .groupBy { it.parentOCFileId!! }
+    }
+
+    @Volatile
+    private var snapshot: Snapshot? = null
+
+    fun getByPath(path: String?): OfflineOperationEntity? = path?.let { getSnapshot().byPath[it] }
+
+    fun getByParentId(parentOCFileId: Long): List<OfflineOperationEntity> =
+        getSnapshot().byParent[parentOCFileId] ?: emptyList()
+
+    /**
+     * @return name of [file] after its pending rename, if any
+     */
+    fun getFilename(file: OCFile): String {
+        val type = getByPath(file.decryptedRemotePath)?.type
+        return if (type is OfflineOperationType.RenameFile) type.newName else file.decryptedFileName
+    }
+
+    fun invalidate() {
+        synchronized(this) {
+            snapshot = null
+        }
+    }
+
+    private fun getSnapshot(): Snapshot = snapshot ?: synchronized(this) {
+        snapshot ?: Snapshot(load()).also { snapshot = it }
+    }
+}
@@ -60,6 +60,7 @@ class OfflineOperationsRepository(
         file.decryptedRemotePath?.let {
             dao.deleteByPath(it)
         }
+        OfflineOperationsCache.instance.invalidate()
 
         fileDataStorageManager.removeFile(file, true, true)
     }
@@ -100,10 +101,11 @@ class OfflineOperationsRepository(
                 }
             }
             .forEach { dao.update(it) }
+        OfflineOperationsCache.instance.invalidate()
     }
 
     override fun convertToOCFiles(fileId: Long): List<OCFile> =
-        dao.getSubEntitiesByParentOCFileId(fileId).map { entity ->
+        OfflineOperationsCache.instance.getByParentId(fileId).map { entity ->
             OCFile(entity.path).apply {
                 mimeType = if (entity.type is OfflineOperationType.CreateFolder) {
                     MimeType.DIRECTORY
@@ -0,0 +1,253 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later OR GPL-2.0-only
+ */
+package com.nextcloud.client.jobs.sync
+
+import android.os.FileObserver
+import androidx.annotation.VisibleForTesting
+import com.nextcloud.client.core.Clock
+import com.nextcloud.client.core.ClockImpl
+import com.owncloud.android.lib.common.utils.Log_OC
+import java.io.File
+import java.util.concurrent.TimeUnit
+
+/**
+ * Journal of local changes below the storage folders of accounts, fed by a [FileObserver] on every directory.
+ *
+ * Sync workers ask for the changes they have not acknowledged yet and only look at those instead of checking every
+ * local file. As observers only run while the process lives and the kernel may drop events, the journal is reported
+ * incomplete to a consumer whenever it may have missed something: before the consumer acknowledged a full rescan,
+ * after an event overflow, when a tree has too many directories to watch and, as fallback, once a day.
+ */
+class LocalChangeJournal @VisibleForTesting internal constructor(
+    private val clock: Clock,
+    private val maxDirectories: Int,
+    private val maxEntries: Int
+) {
+
+    companion object {
+        private const val TAG = "LocalChangeJournal"
+        private const val MAX_DIRECTORIES = 4096
+        private const val MAX_ENTRIES = 10_000
+        private val RESCAN_INTERVAL_MILLIS = TimeUnit.DAYS.toMillis(1)
+
+        // inotify flags not exposed by FileObserver
+        @VisibleForTesting
+        internal const val IN_Q_OVERFLOW = 0x00004000
+
+        @VisibleForTesting
+        internal const val IN_ISDIR = 0x40000000
+
+        private const val MASK = FileObserver.CREATE or FileObserver.CLOSE_WRITE or FileObserver.MOVED_TO or
+            FileObserver.DELETE or FileObserver.MOVED_FROM or FileObserver.DELETE_SELF or FileObserver.MOVE_SELF
+
+        @JvmStatic
+        val instance: LocalChangeJournal by lazy { LocalChangeJournal(ClockImpl(), MAX_DIRECTORIES, MAX_ENTRIES) }
+    }
+
+    enum class ChangeType {
+        CREATED,
+        MODIFIED,
+        DELETED
+    }
+
+    /**
+     * Changes below [root] that [consumer] has not acknowledged yet. If the journal is not [isComplete], the consumer
+     * has to check the whole tree and acknowledge afterwards.
+     */
+    class Changes internal constructor(
+        val root: File,
+        val consumer: String,
+        val isComplete: Boolean,
+        val paths: Map<String, ChangeType>,
+        internal val sequence: Long,
+        internal val epoch: Int,
+        internal val createdAt: Long
+    ) {
+        fun contains(path: String): Boolean = paths.containsKey(path)
+
+        fun isChangedBelow(directory: String): Boolean {
+            val prefix = directory.trimEnd(File.separatorChar) + File.separator
+            return paths.keys.any { it.startsWith(prefix) }
+        }
+    }
+
+    private class Entry(val type: ChangeType, val sequence: Long)
+
+    private class Cursor(val sequence: Long, val rescannedAt: Long)
+
+    private class Root(val path: String) {
+        val observers = mutableMapOf<String, FileObserver>()
+        val entries = mutableMapOf<String, Entry>()
+        val cursors = mutableMapOf<String, Cursor>()
+        var epoch = 0
+        var truncated = false
+    }
+
+    @Suppress("DEPRECATION") // the File based constructor needs API 29
+    private inner class DirectoryObserver(private val rootPath: String, private val directory: String) :
+        FileObserver(directory, MASK) {
+        override fun onEvent(event: Int, name: String?) {
+            this@LocalChangeJournal.onEvent(rootPath, directory, event, name)
+        }
+    }
+
+    private val roots = mutableMapOf<String, Root>()
+    private var sequence = 0L
+
+    /**
+     * Starts observing all directories below [root], if not done yet.
+     */
+    @Synchronized
+    fun watch(root: File) {
+        val path = root.absolutePath
+        if (roots.containsKey(path) || !root.isDirectory) {
+            return
+        }
+
+        val state = Root(path)
+        roots[path] = state
+        watchTree(state, root, false)
+        Log_OC.d(TAG, "Watching ${state.observers.size} directories below $path")
+    }
+
+    @Synchronized
+    fun unwatch(root: File) {
+        roots.remove(root.absolutePath)?.observers?.values?.forEach { it.stopWatching() }
+    }
+
+    @Synchronized
+    fun getChanges(root: File, consumer: String): Changes {
+        val now = clock.currentTime
+        val state = roots[root.absolutePath]
+        val cursor = state?.cursors?.get(consumer)
+        if (state == null || cursor == null || state.truncated || now - cursor.rescannedAt > RESCAN_INTERVAL_MILLIS) {
+            return Changes(root, consumer, false, emptyMap(), sequence, state?.epoch ?: -1, now)
+        }
+
+        val paths = state.entries
+            .filterValues { it.sequence > cursor.sequence }
+            .mapValues { it.value.type }
+        return Changes(root, consumer, true, paths, sequence, state.epoch, now)
+    }
+
+    /**
+     * To be called once all [changes] were processed, or the whole tree was checked if they were not complete.
+     * Changes recorded in the meantime are kept for the next call of [getChanges].
+     */
+    @Synchronized
+    fun acknowledge(changes: Changes) {
+        val state = roots[changes.root.absolutePath] ?: return
+        if (state.epoch != changes.epoch) {
+            // events were lost while processing, the consumer has to rescan
+            return
+        }
+
+        val previous = state.cursors[changes.consumer]
+        val rescannedAt = if (changes.isComplete && previous != null) previous.rescannedAt else changes.createdAt
+        state.cursors[changes.consumer] = Cursor(changes.sequence, rescannedAt)
+
+        val acknowledged = state.cursors.values.minOf { it.sequence }
+        state.entries.values.removeAll { it.sequence <= acknowledged }
+    }
+
+    @VisibleForTesting
+    @Synchronized
+    internal fun onEvent(rootPath: String, directory: String, event: Int, name: String?) {
+        val state = roots[rootPath] ?: return
+        if (event and IN_Q_OVERFLOW != 0) {
+            overflow(state, "event queue overflow")
+            return
+        }
+
+        val type = event and FileObserver.ALL_EVENTS
+        if (name.isNullOrEmpty()) {
+            if (type == FileObserver.DELETE_SELF || type == FileObserver.MOVE_SELF) {
+                stopWatching(state, directory)
+            }
+            return
+        }
+
+        val path = directory + File.separator + name
+        val isDirectory = event and IN_ISDIR != 0
+        when (type) {
+            FileObserver.CREATE, FileObserver.MOVED_TO -> if (isDirectory) {
+                record(state, path, ChangeType.CREATED)
+                watchTree(state, File(path), true)
+            } else {
+                record(state, path, ChangeType.CREATED)
+            }
+
+            FileObserver.CLOSE_WRITE -> record(state, path, ChangeType.MODIFIED)
+
+            FileObserver.DELETE, FileObserver.MOVED_FROM -> {
+                if (isDirectory) {
+                    stopWatching(state, path)
+                }
+                record(state, path, ChangeType.DELETED)
+            }
+        }
+    }
+
+    /**
+     * Observes [directory] and everything below; files found are journaled as created if [journalFiles] is set,
+     * e.g. for a directory moved into the tree.
+     */
+    private fun watchTree(state: Root, directory: File, journalFiles: Boolean) {
+        val pending = ArrayDeque<File>()
+        pending.add(directory)
+        while (pending.isNotEmpty()) {
+            val current = pending.removeLast()
+            if (state.observers.size >= maxDirectories) {
+                state.truncated = true
+                Log_OC.w(TAG, "Too many directories below ${state.path}, falling back to rescans")
+                return
+            }
+
+            val observer = DirectoryObserver(state.path, current.absolutePath)
+            observer.startWatching()
+            state.observers[current.absolutePath] = observer
+
+            current.listFiles()?.forEach { child ->
+                if (child.isDirectory) {
+                    pending.add(child)
+                } else if (journalFiles) {
+                    record(state, child.absolutePath, ChangeType.CREATED)
+                }
+            }
+        }
+    }
+
+    private fun stopWatching(state: Root, directory: String) {
+        val prefix = directory + File.separator
+        val iterator = state.observers.entries.iterator()
+        while (iterator.hasNext()) {
+            val (path, observer) = iterator.next()
+            if (path == directory || path.startsWith(prefix)) {
+                observer.stopWatching()
+                iterator.remove()
+            }
+        }
+    }
+
+    private fun record(state: Root, path: String, type: ChangeType) {
+        if (state.entries.size >= maxEntries && !state.entries.containsKey(path)) {
+            overflow(state, "too many changes")
+            return
+        }
+
+        val previous = state.entries[path]?.type
+        val merged = if (previous == ChangeType.CREATED && type == ChangeType.MODIFIED) previous else type
+        state.entries[path] = Entry(merged, ++sequence)
+    }
+
+    private fun overflow(state: Root, reason: String) {
+        Log_OC.w(TAG, "Changes below ${state.path} incomplete: $reason")
+        state.epoch++
+        state.cursors.clear()
+        state.entries.clear()
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later OR GPL-2.0-only
+ */
+package com.nextcloud.client.jobs.transfer
+
+import androidx.annotation.VisibleForTesting
+import com.nextcloud.client.files.FileChangeBus
+import com.owncloud.android.datamodel.OCFile
+
+/**
+ * Process wide index of the files currently transferred, kept up to date by the download and upload workers.
+ *
+ * Binding a file list item only needs to know whether the file is transferred right now, which this index answers
+ * from memory instead of querying the database and WorkManager for every item. Downloads are indexed by file id and
+ * remote path, and mark their ancestor folders as well, so that a folder shows the indicator while any file inside
+ * of it is downloaded. Downloads which are scheduled but not started yet mark their path and everything below it.
+ * Uploads are indexed by remote path only, as their files may not be stored yet, and cover all pending upload rows
+ * of an account, not only the ones handled right now.
+ *
+ * Every change of the state of a file is reported to [onChanged], by default the [FileChangeBus], so that lists
+ * showing the file can update its item.
+ */
+class TransferStateIndex @VisibleForTesting internal constructor(
+    private val onChanged: (accountName: String, remotePath: String) -> Unit
+) {
+
+    companion object {
+        @JvmStatic
+        val instance: TransferStateIndex by lazy {
+            TransferStateIndex { accountName, remotePath ->
+                FileChangeBus.instance.postChanged(accountName, remotePath)
+            }
+        }
+
+        /**
+         * @return folders containing [remotePath], from the closest one up to, but excluding, the root folder
+         */
+        @VisibleForTesting
+        internal fun getAncestorPaths(remotePath: String): List<String> {
+            val ancestors = mutableListOf<String>()
+            var path = remotePath.trimEnd(OCFile.PATH_SEPARATOR[0])
+            while (true) {
+                path = path.substringBeforeLast(OCFile.PATH_SEPARATOR, "")
+                if (path.isEmpty()) {
+                    return ancestors
+                }
+                ancestors.add(path + OCFile.PATH_SEPARATOR)
+            }
+        }
+    }
+
+    private data class PathKey(val accountName: String, val remotePath: String)
+
+    private data class IdKey(val accountName: String, val fileId: Long)
+
+    // counts, as several downloads can share ancestors and the same file may be requested more than once
+    private val downloadPaths = HashMap<PathKey, Int>()
+    private val downloadIds = HashMap<IdKey, Int>()
+
+    // downloads scheduled but not started yet, file ids by path and paths by file id
+    private val scheduledDownloads = HashMap<PathKey, Long>()
+    private val scheduledDownloadPaths = HashMap<IdKey, String>()
+
+    // scheduled downloads of folders, marking everything below them
+    private val scheduledFolders = HashSet<PathKey>()
+    private val uploadPaths = HashSet<PathKey>()
+
+    fun addDownload(accountName: String, remotePath: String, fileId: Long) {
+        synchronized(this) {
+            addDownloadCounts(accountName, remotePath, fileId)
+        }
+        onChanged(accountName, remotePath)
+    }
+
+    fun removeDownload(accountName: String, remotePath: String, fileId: Long) {
+        synchronized(this) {
+            removeDownloadCounts(accountName, remotePath, fileId)
+        }
+        onChanged(accountName, remotePath)
+    }
+
+    /**
+     * Marks a download job which is scheduled, until [removeScheduledDownload] is called for it. Scheduling the same
+     * file again while it is marked has no effect, as WorkManager keeps the first job.
+     */
+    fun addScheduledDownload(accountName: String, remotePath: String, fileId: Long) {
+        synchronized(this) {
+            val key = PathKey(accountName, remotePath)
+            if (scheduledDownloads.putIfAbsent(key, fileId) != null) {
+                return
+            }
+            if (fileId > 0) {
+                scheduledDownloadPaths[IdKey(accountName, fileId)] = remotePath
+            }
+            if (remotePath.endsWith(OCFile.PATH_SEPARATOR)) {
+                scheduledFolders.add(key)
+            }
+            addDownloadCounts(accountName, remotePath, fileId)
+        }
+        onChanged(accountName, remotePath)
+    }
+
+    fun removeScheduledDownload(accountName: String, remotePath: String) {
+        synchronized(this) {
+            val key = PathKey(accountName, remotePath)
+            val fileId = scheduledDownloads.remove(key) ?: return
+            scheduledDownloadPaths.remove(IdKey(accountName, fileId), remotePath)
+            scheduledFolders.remove(key)
+            removeDownloadCounts(accountName, remotePath, fileId)
+        }
+        onChanged(accountName, remotePath)
+    }
+
+    fun removeScheduledDownload(accountName: String, fileId: Long) {
+        val remotePath = synchronized(this) { scheduledDownloadPaths[IdKey(accountName, fileId)] } ?: return
+        removeScheduledDownload(accountName, remotePath)
+    }
+
+    fun removeScheduledDownloads() {
+        val keys = synchronized(this) { scheduledDownloads.keys.toList() }
+        keys.forEach { removeScheduledDownload(it.accountName, it.remotePath) }
+    }
+
+    /**
+     * Replaces the uploads of [accountName] with the pending uploads to [remotePaths].
+     */
+    fun setUploads(accountName: String, remotePaths: Collection<String>) {
+        val changed = synchronized(this) {
+            val previous = uploadPaths.filter { it.accountName == accountName }.toSet()
+            val current = remotePaths.map { PathKey(accountName, it) }.toSet()
+            uploadPaths.removeAll(previous)
+            uploadPaths.addAll(current)
+            (previous - current) + (current - previous)
+        }
+        changed.forEach { onChanged(it.accountName, it.remotePath) }
+    }
+
+    fun addUploads(accountName: String, remotePaths: Collection<String>) {
+        val added = synchronized(this) {
+            remotePaths.filter { uploadPaths.add(PathKey(accountName, it)) }
+        }
+        added.forEach { onChanged(accountName, it) }
+    }
+
+    fun removeUpload(accountName: String, remotePath: String) {
+        synchronized(this) {
+            uploadPaths.remove(PathKey(accountName, remotePath))
+        }
+        onChanged(accountName, remotePath)
+    }
+
+    @Synchronized
+    fun isDownloading(accountName: String, file: OCFile): Boolean =
+        downloadIds.containsKey(IdKey(accountName, file.fileId)) ||
+            downloadPaths.containsKey(PathKey(accountName, file.remotePath)) ||
+            scheduledFolders.isNotEmpty() && isInScheduledFolder(accountName, file.remotePath)
+
+    @Synchronized
+    fun isUploading(accountName: String, file: OCFile): Boolean =
+        uploadPaths.contains(PathKey(accountName, file.remotePath))
+
+    fun isTransferring(accountName: String, file: OCFile): Boolean =
+        isDownloading(accountName, file) || isUploading(accountName, file)
+
+    private fun isInScheduledFolder(accountName: String, remotePath: String): Boolean =
+        scheduledFolders.contains(PathKey(accountName, OCFile.ROOT_PATH)) ||
+            getAncestorPaths(remotePath).any { scheduledFolders.contains(PathKey(accountName, it)) }
+
+    private fun addDownloadCounts(accountName: String, remotePath: String, fileId: Long) {
+        increment(downloadPaths, PathKey(accountName, remotePath))
+        getAncestorPaths(remotePath).forEach { increment(downloadPaths, PathKey(accountName, it)) }
+        if (fileId > 0) {
+            increment(downloadIds, IdKey(accountName, fileId))
+        }
+    }
+
+    private fun removeDownloadCounts(accountName: String, remotePath: String, fileId: Long) {
+        decrement(downloadPaths, PathKey(accountName, remotePath))
+        getAncestorPaths(remotePath).forEach { decrement(downloadPaths, PathKey(accountName, it)) }
+        if (fileId > 0) {
+            decrement(downloadIds, IdKey(accountName, fileId))
+        }
+    }
+
+    private fun <K> increment(counts: MutableMap<K, Int>, key: K) {
+        counts[key] = (counts[key] ?: 0) + 1
+    }
+
+    private fun <K> decrement(counts: MutableMap<K, Int>, key: K) {
+        val count = counts[key] ?: return
+        if (count > 1) {
+            counts[key] = count - 1
+        } else {
+            counts.remove(key)
+        }
+    }
+}
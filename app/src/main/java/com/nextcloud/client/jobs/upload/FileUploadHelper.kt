@@ -15,6 +15,7 @@ import com.nextcloud.client.account.UserAccountManager
 import com.nextcloud.client.device.BatteryStatus
 import com.nextcloud.client.device.PowerManagementService
 import com.nextcloud.client.jobs.BackgroundJobManager
+import com.nextcloud.client.jobs.transfer.TransferStateIndex
 import com.nextcloud.client.jobs.upload.FileUploadWorker.Companion.currentUploadFileOperation
 import com.nextcloud.client.network.Connectivity
 import com.nextcloud.client.network.ConnectivityService
@@ -37,11 +38,16 @@ import com.owncloud.android.operations.UploadFileOperation
 import com.owncloud.android.utils.FileUtil
 import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.async
+import kotlinx.coroutines.awaitAll
+import kotlinx.coroutines.delay
 import kotlinx.coroutines.launch
+import kotlinx.coroutines.runBlocking
 import java.io.File
 import java.util.concurrent.CompletableFuture
 import java.util.concurrent.ExecutionException
 import java.util.concurrent.Semaphore
+import java.util.concurrent.atomic.AtomicBoolean
 import javax.inject.Inject
 
 @Suppress("TooManyFunctions")
@@ -76,6 +82,10 @@ class FileUploadHelper {
         private var instance: FileUploadHelper? = null
 
         private val retryFailedUploadsSemaphore = Semaphore(1)
+        private val retryFailedUploadsScheduled = AtomicBoolean(false)
+
+        private const val RETRY_DEBOUNCE_MILLIS = 2000L
+        private const val EXISTENCE_CHECK_CHUNK_SIZE = 100
 
         fun instance(): FileUploadHelper {
             return instance ?: synchronized(this) {
@@ -96,18 +106,11 @@ class FileUploadHelper {
     ) {
         if (retryFailedUploadsSemaphore.tryAcquire()) {
             try {
-                val failedUploads = uploadsStorageManager.failedUploads
-                if (failedUploads == null || failedUploads.isEmpty()) {
-                    Log_OC.d(TAG, "Failed uploads are empty or null")
-                    return
-                }
-
-                retryUploads(
+                retryFailedUploadsInBulk(
                     uploadsStorageManager,
                     connectivityService,
                     accountManager,
-                    powerManagementService,
-                    failedUploads
+                    powerManagementService
                 )
             } finally {
                 retryFailedUploadsSemaphore.release()
@@ -117,6 +120,107 @@ class FileUploadHelper {
         }
     }
 
+    /**
+     * Like [retryFailedUploads], but coalesces calls arriving within [RETRY_DEBOUNCE_MILLIS], e.g. from bursts of
+     * connectivity and power broadcasts, into one pass in the background.
+     */
+    fun scheduleRetryFailedUploads(
+        uploadsStorageManager: UploadsStorageManager,
+        connectivityService: ConnectivityService,
+        accountManager: UserAccountManager,
+        powerManagementService: PowerManagementService
+    ) {
+        if (!retryFailedUploadsScheduled.compareAndSet(false, true)) {
+            Log_OC.d(TAG, "Retry of failed uploads already scheduled")
+            return
+        }
+
+        ioScope.launch {
+            delay(RETRY_DEBOUNCE_MILLIS)
+            retryFailedUploadsScheduled.set(false)
+            retryFailedUploads(uploadsStorageManager, connectivityService, accountManager, powerManagementService)
+        }
+    }
+
+    /**
+     * Reclassifies all failed uploads by the current conditions with a few bulk statements instead of updating them
+     * one by one, checks the remaining local files in parallel and restarts the uploads that can be retried.
+     */
+    private fun retryFailedUploadsInBulk(
+        uploadsStorageManager: UploadsStorageManager,
+        connectivityService: ConnectivityService,
+        accountManager: UserAccountManager,
+        powerManagementService: PowerManagementService
+    ) {
+        val accountNames = accountManager.accounts.filter { account ->
+            accountManager.getUser(account.name).isPresent
+        }.map { account ->
+            account.name
+        }.toHashSet()
+        uploadsStorageManager.removeFailedUploadsOfOtherAccounts(accountNames)
+
+        markRetriedUploads(uploadsStorageManager, connectivityService, powerManagementService)
+
+        // the jobs also pick up uploads which were in progress already
+        accountNames.forEach { accountName ->
+            val user = accountManager.getUser(accountName)
+            if (user.isPresent) {
+                startUploadJob(user.get())
+            }
+        }
+    }
+
+    /**
+     * Marks the failed uploads which can be retried under the current conditions as in progress.
+     */
+    private fun markRetriedUploads(
+        uploadsStorageManager: UploadsStorageManager,
+        connectivityService: ConnectivityService,
+        powerManagementService: PowerManagementService
+    ) {
+        val connectivity = connectivityService.connectivity
+        val battery = powerManagementService.battery
+        val candidates = uploadsStorageManager.reclassifyFailedUploads(
+            powerManagementService.isPowerSavingEnabled,
+            battery.isCharging || battery.isFull,
+            connectivity.isWifi && !connectivity.isMetered
+        )
+        if (candidates.isEmpty()) {
+            Log_OC.d(TAG, "No failed uploads to retry")
+            return
+        }
+
+        val missing = findMissingLocalFiles(candidates)
+        uploadsStorageManager.updateUploadsStatus(missing, UploadStatus.UPLOAD_FAILED, UploadResult.FILE_NOT_FOUND)
+
+        val available = candidates.keys - missing
+        if (!checkConnectivity(connectivityService)) {
+            uploadsStorageManager.updateUploadsStatus(
+                available,
+                UploadStatus.UPLOAD_FAILED,
+                UploadResult.NETWORK_CONNECTION
+            )
+            return
+        }
+
+        val retried = uploadsStorageManager.updateUploadsStatus(available, UploadStatus.UPLOAD_IN_PROGRESS, null)
+        Log_OC.d(TAG, "Retrying $retried of ${candidates.size} failed uploads, ${missing.size} files missing")
+    }
+
+    /**
+     * @return ids of the uploads whose local file does not exist, checked in parallel
+     */
+    private fun findMissingLocalFiles(localPaths: Map<Long, String>): Set<Long> = runBlocking(Dispatchers.IO) {
+        localPaths.entries
+            .chunked(EXISTENCE_CHECK_CHUNK_SIZE)
+            .map { chunk ->
+                async { chunk.filterNot { File(it.value).exists() }.map { it.key } }
+            }
+            .awaitAll()
+            .flatten()
+            .toSet()
+    }
+
     fun retryCancelledUploads(
         uploadsStorageManager: UploadsStorageManager,
         connectivityService: ConnectivityService,
@@ -186,7 +290,7 @@ class FileUploadHelper {
         accountNames.forEach { accountName ->
             val user = accountManager.getUser(accountName)
             if (user.isPresent) {
-                backgroundJobManager.startFilesUploadJob(user.get())
+                startUploadJob(user.get())
             }
         }
 
@@ -217,7 +321,7 @@ class FileUploadHelper {
             }
         }
         uploadsStorageManager.storeUploads(uploads)
-        backgroundJobManager.startFilesUploadJob(user)
+        startUploadJob(user)
     }
 
     fun removeFileUpload(remotePath: String, accountName: String) {
@@ -227,6 +331,7 @@ class FileUploadHelper {
             // need to update now table in mUploadsStorageManager,
             // since the operation will not get to be run by FileUploader#uploadFile
             uploadsStorageManager.removeUpload(accountName, remotePath)
+            TransferStateIndex.instance.removeUpload(accountName, remotePath)
 
             cancelAndRestartUploadJob(user)
         } catch (e: NoSuchElementException) {
@@ -249,6 +354,7 @@ class FileUploadHelper {
         for (upload in uploads) {
             upload.uploadStatus = UploadStatus.UPLOAD_CANCELLED
             uploadsStorageManager.updateUpload(upload)
+            TransferStateIndex.instance.removeUpload(accountName, upload.remotePath)
         }
 
         try {
@@ -260,9 +366,22 @@ class FileUploadHelper {
     }
 
     fun cancelAndRestartUploadJob(user: User) {
-        backgroundJobManager.run {
-            cancelFilesUploadJob(user)
-            startFilesUploadJob(user)
+        backgroundJobManager.cancelFilesUploadJob(user)
+        startUploadJob(user)
+    }
+
+    /**
+     * Marks the pending uploads of [user] in the [TransferStateIndex], so that lists show them as uploading while the
+     * job waits to run, and starts the upload job afterwards. The job clears the marks once it is done, so they must
+     * not be added after it started.
+     */
+    private fun startUploadJob(user: User) {
+        ioScope.launch {
+            TransferStateIndex.instance.addUploads(
+                user.accountName,
+                uploadsStorageManager.getCurrentUploadsForAccount(user.accountName).map { it.remotePath }
+            )
+            backgroundJobManager.startFilesUploadJob(user)
         }
     }
 
@@ -377,7 +496,7 @@ class FileUploadHelper {
             }
         }
         uploadsStorageManager.storeUploads(uploads)
-        backgroundJobManager.startFilesUploadJob(user)
+        startUploadJob(user)
     }
 
     /**
@@ -421,7 +540,7 @@ class FileUploadHelper {
         upload.uploadStatus = UploadStatus.UPLOAD_IN_PROGRESS
         uploadsStorageManager.updateUpload(upload)
 
-        backgroundJobManager.startFilesUploadJob(user)
+        startUploadJob(user)
     }
 
     fun cancel(accountName: String) {
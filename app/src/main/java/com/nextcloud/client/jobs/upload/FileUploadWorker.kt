@@ -17,6 +17,7 @@ import com.nextcloud.client.account.UserAccountManager
 import com.nextcloud.client.device.PowerManagementService
 import com.nextcloud.client.jobs.BackgroundJobManager
 import com.nextcloud.client.jobs.BackgroundJobManagerImpl
+import com.nextcloud.client.jobs.transfer.TransferStateIndex
 import com.nextcloud.client.network.ConnectivityService
 import com.nextcloud.client.preferences.AppPreferences
 import com.nextcloud.model.WorkerState
@@ -129,9 +130,24 @@ class FileUploadWorker(
         WorkerStateLiveData.instance().setWorkState(WorkerState.UploadFinished(currentUploadFileOperation?.file))
     }
 
-    @Suppress("ReturnCount")
     private fun retrievePagesBySortingUploadsByID(): Result {
         val accountName = inputData.getString(ACCOUNT) ?: return Result.failure()
+        val index = TransferStateIndex.instance
+        index.setUploads(
+            accountName,
+            uploadsStorageManager.getCurrentUploadsForAccount(accountName).map { it.remotePath }
+        )
+
+        try {
+            return uploadPages(accountName)
+        } finally {
+            // uploads left are only handled by the next job
+            index.setUploads(accountName, emptyList())
+        }
+    }
+
+    @Suppress("ReturnCount")
+    private fun uploadPages(accountName: String): Result {
         var uploadsPerPage = uploadsStorageManager.getCurrentUploadsForAccountPageAscById(-1, accountName)
         val totalUploadSize = uploadsStorageManager.getTotalUploadSize(accountName)
 
@@ -190,6 +206,10 @@ class FileUploadWorker(
             return
         }
 
+        // uploads stored after the job started
+        val index = TransferStateIndex.instance
+        index.addUploads(accountName, uploadsPerPage.map { it.remotePath })
+
         run uploads@{
             uploadsPerPage.forEach { upload ->
                 if (canExitEarly()) {
@@ -228,6 +248,8 @@ class FileUploadWorker(
                 } else {
                     uploadsStorageManager.removeUpload(upload.uploadId)
                 }
+
+                index.removeUpload(accountName, upload.remotePath)
             }
         }
     }
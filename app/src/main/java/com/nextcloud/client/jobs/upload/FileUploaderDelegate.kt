@@ -10,6 +10,7 @@ package com.nextcloud.client.jobs.upload
 import android.content.Context
 import android.content.Intent
 import androidx.localbroadcastmanager.content.LocalBroadcastManager
+import com.nextcloud.client.files.FileChangeBus
 import com.owncloud.android.lib.common.operations.RemoteOperationResult
 import com.owncloud.android.operations.UploadFileOperation
 
@@ -76,5 +77,11 @@ class FileUploaderDelegate {
         }
         end.setPackage(context.packageName)
         localBroadcastManager.sendBroadcast(end)
+
+        val changeBus = FileChangeBus.instance
+        changeBus.postChanged(upload.user.accountName, upload.remotePath)
+        if (upload.wasRenamed()) {
+            changeBus.postChanged(upload.user.accountName, upload.oldFile!!.remotePath)
+        }
     }
 }
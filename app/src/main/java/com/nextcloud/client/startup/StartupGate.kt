@@ -0,0 +1,55 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later OR GPL-2.0-only
+ */
+package com.nextcloud.client.startup
+
+import androidx.annotation.VisibleForTesting
+import com.owncloud.android.lib.common.utils.Log_OC
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+/**
+ * Holds back workers until the startup tasks they depend on, like the migration of synced folders, have run in the
+ * background after [android.app.Application.onCreate].
+ *
+ * Waiting is bounded by [timeoutMillis], so a startup that never gets to open the gate delays workers instead of
+ * blocking them forever.
+ */
+class StartupGate @VisibleForTesting internal constructor(private val timeoutMillis: Long) {
+
+    companion object {
+        private const val TAG = "StartupGate"
+        private val TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(30)
+
+        @JvmStatic
+        val instance: StartupGate by lazy { StartupGate(TIMEOUT_MILLIS) }
+    }
+
+    private val latch = CountDownLatch(1)
+
+    val isOpen: Boolean
+        get() = latch.count == 0L
+
+    fun open() {
+        latch.countDown()
+    }
+
+    /**
+     * Blocks the calling thread until the gate is open or the timeout elapsed. Must not be called on the main thread.
+     */
+    fun await() {
+        if (isOpen) {
+            return
+        }
+        try {
+            if (!latch.await(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                Log_OC.w(TAG, "Startup tasks not finished after $timeoutMillis ms, continuing")
+            }
+        } catch (e: InterruptedException) {
+            Thread.currentThread().interrupt()
+        }
+    }
+}
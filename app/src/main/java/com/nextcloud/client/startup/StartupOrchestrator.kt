@@ -0,0 +1,190 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later OR GPL-2.0-only
+ */
+package com.nextcloud.client.startup
+
+import android.os.Handler
+import android.os.Looper
+import androidx.annotation.VisibleForTesting
+import com.nextcloud.client.core.Clock
+import com.owncloud.android.lib.common.utils.Log_OC
+import java.util.concurrent.Executor
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+
+/**
+ * Runs the initialization of the app in stages, so that only what has to be ready before the first component starts
+ * blocks [android.app.Application.onCreate].
+ *
+ * Tasks of [Stage.CRITICAL] run synchronously in [start]. [Stage.DEFERRED] tasks run on the main thread once it is
+ * idle for the first time, i.e. after the first frame was drawn, and [Stage.BACKGROUND] tasks run on a background
+ * thread after that. Within a stage tasks run in the order of their dependencies, a task may only depend on tasks of
+ * the same or an earlier stage. If a deferred or background task fails, the tasks depending on it are skipped.
+ *
+ * Stage and task timings are measured with [Clock.millisSinceBoot] and logged once the background stage is done.
+ */
+class StartupOrchestrator @VisibleForTesting internal constructor(
+    private val clock: Clock,
+    private val mainThreadIdleExecutor: Executor,
+    private val backgroundExecutor: Executor
+) {
+
+    constructor(clock: Clock) : this(clock, MainThreadIdleExecutor(), Executors.newSingleThreadExecutor())
+
+    companion object {
+        private const val TAG = "StartupOrchestrator"
+    }
+
+    enum class Stage {
+        CRITICAL,
+        DEFERRED,
+        BACKGROUND
+    }
+
+    enum class Result {
+        SUCCEEDED,
+        FAILED,
+        SKIPPED
+    }
+
+    data class TaskTiming(val name: String, val millis: Long, val result: Result)
+
+    data class StageTiming(val stage: Stage, val millis: Long, val tasks: List<TaskTiming>)
+
+    private class Task(val name: String, val stage: Stage, val dependsOn: List<String>, val action: Runnable)
+
+    private val tasks = linkedMapOf<String, Task>()
+    private val results = mutableMapOf<String, Result>()
+    private val timings = mutableListOf<StageTiming>()
+    private var started = false
+
+    /**
+     * Adds a task named [name] to [stage], to be run after all tasks named in [dependsOn].
+     */
+    @Synchronized
+    fun add(name: String, stage: Stage, action: Runnable, vararg dependsOn: String): StartupOrchestrator {
+        check(!started) { "Startup already started" }
+        require(!tasks.containsKey(name)) { "Duplicate startup task $name" }
+        tasks[name] = Task(name, stage, dependsOn.toList(), action)
+        return this
+    }
+
+    /**
+     * Runs the critical stage and schedules the others. [onFinished] runs on the background thread once the background
+     * stage is done, even if some of its tasks failed.
+     *
+     * @throws IllegalArgumentException if a dependency is unknown, belongs to a later stage or is cyclic
+     */
+    @JvmOverloads
+    fun start(onFinished: Runnable? = null) {
+        val ordered = synchronized(this) {
+            check(!started) { "Startup already started" }
+            started = true
+            Stage.values().associateWith { order(it) }
+        }
+
+        runStage(Stage.CRITICAL, ordered.getValue(Stage.CRITICAL))
+        mainThreadIdleExecutor.execute {
+            runStage(Stage.DEFERRED, ordered.getValue(Stage.DEFERRED))
+            backgroundExecutor.execute {
+                try {
+                    runStage(Stage.BACKGROUND, ordered.getValue(Stage.BACKGROUND))
+                    Log_OC.d(TAG, getReport())
+                } finally {
+                    onFinished?.run()
+                    // the executor only runs the background stage
+                    (backgroundExecutor as? ExecutorService)?.shutdown()
+                }
+            }
+        }
+    }
+
+    /**
+     * @return timings of the stages finished so far
+     */
+    @Synchronized
+    fun getTimings(): List<StageTiming> = timings.toList()
+
+    fun getReport(): String = getTimings().joinToString("\n") { stage ->
+        val tasks = stage.tasks.joinToString(", ") { task ->
+            if (task.result == Result.SUCCEEDED) "${task.name} ${task.millis}ms" else "${task.name} ${task.result}"
+        }
+        "${stage.stage}: ${stage.millis}ms [$tasks]"
+    }
+
+    private fun order(stage: Stage): List<Task> {
+        val stageTasks = tasks.values.filter { it.stage == stage }
+        stageTasks.forEach { task ->
+            task.dependsOn.forEach { dependency ->
+                val other = requireNotNull(tasks[dependency]) { "${task.name} depends on unknown task $dependency" }
+                require(other.stage <= stage) { "${task.name} depends on $dependency of a later stage" }
+            }
+        }
+
+        // tasks in order of insertion, as soon as their dependencies of this stage are done
+        val ordered = mutableListOf<Task>()
+        val done = mutableSetOf<String>()
+        val pending = stageTasks.toMutableList()
+        while (pending.isNotEmpty()) {
+            val next = pending.firstOrNull { task ->
+                task.dependsOn.all { done.contains(it) || tasks.getValue(it).stage < stage }
+            } ?: throw IllegalArgumentException("Cyclic startup dependencies: ${pending.map { it.name }}")
+            pending.remove(next)
+            done.add(next.name)
+            ordered.add(next)
+        }
+        return ordered
+    }
+
+    private fun runStage(stage: Stage, stageTasks: List<Task>) {
+        val stageStart = clock.millisSinceBoot
+        val taskTimings = stageTasks.map { run(it) }
+        val stageTiming = StageTiming(stage, clock.millisSinceBoot - stageStart, taskTimings)
+        synchronized(this) { timings.add(stageTiming) }
+    }
+
+    @Suppress("TooGenericExceptionCaught")
+    private fun run(task: Task): TaskTiming {
+        val blocked = synchronized(this) { task.dependsOn.any { results[it] != Result.SUCCEEDED } }
+        if (blocked) {
+            Log_OC.w(TAG, "Skipping ${task.name}, a dependency did not succeed")
+            return record(task, 0, Result.SKIPPED)
+        }
+
+        val start = clock.millisSinceBoot
+        try {
+            task.action.run()
+        } catch (e: RuntimeException) {
+            if (task.stage == Stage.CRITICAL) {
+                throw e
+            }
+            Log_OC.e(TAG, "Startup task ${task.name} failed", e)
+            return record(task, clock.millisSinceBoot - start, Result.FAILED)
+        }
+        return record(task, clock.millisSinceBoot - start, Result.SUCCEEDED)
+    }
+
+    private fun record(task: Task, millis: Long, result: Result): TaskTiming {
+        synchronized(this) { results[task.name] = result }
+        return TaskTiming(task.name, millis, result)
+    }
+
+    /**
+     * Runs commands on the main thread once its message queue is idle, i.e. after pending frames were drawn.
+     */
+    private class MainThreadIdleExecutor : Executor {
+        private val handler = Handler(Looper.getMainLooper())
+
+        override fun execute(command: Runnable) {
+            handler.post {
+                Looper.myQueue().addIdleHandler {
+                    command.run()
+                    false
+                }
+            }
+        }
+    }
+}
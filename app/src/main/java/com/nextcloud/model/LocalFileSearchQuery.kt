@@ -0,0 +1,140 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later OR GPL-2.0-only
+ */
+package com.nextcloud.model
+
+import androidx.sqlite.db.SimpleSQLiteQuery
+import androidx.sqlite.db.SupportSQLiteQuery
+import com.owncloud.android.db.ProviderMeta.ProviderTableMeta
+import com.owncloud.android.utils.MimeType
+
+/**
+ * Search over all locally known files of an account.
+ *
+ * [text] is matched as word prefixes against names and tags through the full-text index, [tag] against tags only.
+ * [nameContains] is matched as case sensitive substring of the file name instead, which cannot use the index.
+ * All other criteria are optional and combined with AND. Results are ranked by exact name match, then name prefix
+ * match, then shorter names, then most recently modified. At most [limit] files are returned, all for [NO_LIMIT].
+ */
+data class LocalFileSearchQuery @JvmOverloads constructor(
+    val text: String? = null,
+    val tag: String? = null,
+    val mimeTypePrefix: String? = null,
+    val minSize: Long? = null,
+    val maxSize: Long? = null,
+    val modifiedAfter: Long? = null,
+    val modifiedBefore: Long? = null,
+    val limit: Int = DEFAULT_LIMIT,
+    val nameContains: String? = null,
+    val filesOnly: Boolean = false
+) {
+    companion object {
+        const val DEFAULT_LIMIT = 100
+
+        // SQLite treats a negative limit as no limit
+        const val NO_LIMIT = -1
+        private val TOKEN_SEPARATOR = Regex("[^\\p{L}\\p{N}]+")
+
+        /**
+         * All files, but not folders, whose name contains [text], as the documents provider searched before the
+         * full-text index existed.
+         */
+        @JvmStatic
+        fun fileNameContaining(text: String) = LocalFileSearchQuery(
+            nameContains = text,
+            filesOnly = true,
+            limit = NO_LIMIT
+        )
+    }
+
+    @Suppress("LongMethod", "ComplexMethod")
+    fun toSQLiteQuery(accountName: String): SupportSQLiteQuery {
+        val file = ProviderTableMeta.FILE_TABLE_NAME
+        val fts = ProviderTableMeta.FILE_FTS_TABLE_NAME
+        val where = mutableListOf(
+            "$file.${ProviderTableMeta.FILE_ACCOUNT_OWNER} = ?",
+            "$file.${ProviderTableMeta.FILE_PARENT} > 0"
+        )
+        val args = mutableListOf<Any>(accountName)
+
+        val match = listOfNotNull(toMatchExpression(text, null), toMatchExpression(tag, ProviderTableMeta.FILE_TAGS))
+        if (match.isNotEmpty()) {
+            where.add("$file.${ProviderTableMeta._ID} IN (SELECT docid FROM $fts WHERE $fts MATCH ?)")
+            args.add(match.joinToString(" "))
+        }
+
+        nameContains?.takeIf { it.isNotEmpty() }?.let {
+            where.add("instr($file.${ProviderTableMeta.FILE_NAME}, ?) > 0")
+            args.add(it)
+        }
+        if (filesOnly) {
+            where.add("ifnull($file.${ProviderTableMeta.FILE_CONTENT_TYPE}, '') NOT IN (?, ?)")
+            args.add(MimeType.DIRECTORY)
+            args.add(MimeType.WEBDAV_FOLDER)
+        }
+
+        mimeTypePrefix?.takeIf { it.isNotEmpty() }?.let {
+            // range instead of LIKE, so the index on content_type can be used
+            val contentType = "$file.${ProviderTableMeta.FILE_CONTENT_TYPE}"
+            where.add("$contentType >= ? AND $contentType < ?")
+            args.add(it)
+            args.add(it + Char.MAX_VALUE)
+        }
+        minSize?.let {
+            where.add("$file.${ProviderTableMeta.FILE_CONTENT_LENGTH} >= ?")
+            args.add(it)
+        }
+        maxSize?.let {
+            where.add("$file.${ProviderTableMeta.FILE_CONTENT_LENGTH} <= ?")
+            args.add(it)
+        }
+        modifiedAfter?.let {
+            where.add("$file.${ProviderTableMeta.FILE_MODIFIED} >= ?")
+            args.add(it)
+        }
+        modifiedBefore?.let {
+            where.add("$file.${ProviderTableMeta.FILE_MODIFIED} < ?")
+            args.add(it)
+        }
+
+        val order = mutableListOf<String>()
+        val name = text?.trim()?.lowercase()
+        if (!name.isNullOrEmpty()) {
+            val fileName = "lower($file.${ProviderTableMeta.FILE_NAME})"
+            order.add("$fileName = ? DESC")
+            order.add("substr($fileName, 1, ?) = ? DESC")
+            order.add("length($fileName) ASC")
+            args.add(name)
+            args.add(name.length)
+            args.add(name)
+        }
+        order.add("$file.${ProviderTableMeta.FILE_MODIFIED} DESC")
+        args.add(limit)
+
+        val sql = "SELECT $file.* FROM $file WHERE " + where.joinToString(" AND ") +
+            " ORDER BY " + order.joinToString(", ") + " LIMIT ?"
+
+        return SimpleSQLiteQuery(sql, args.toTypedArray())
+    }
+
+    /**
+     * Turns free text into an FTS expression matching every word as prefix, e.g. "IMG 2024" -> "img"* "2024"*
+     */
+    private fun toMatchExpression(value: String?, column: String?): String? {
+        val tokens = value
+            ?.lowercase()
+            ?.split(TOKEN_SEPARATOR)
+            ?.filter { it.isNotEmpty() }
+            .orEmpty()
+
+        if (tokens.isEmpty()) {
+            return null
+        }
+
+        val prefix = column?.let { "$it:" }.orEmpty()
+        return tokens.joinToString(" ") { "$prefix\"$it\"*" }
+    }
+}
@@ -24,6 +24,6 @@ class OfflineOperationActionReceiver : BroadcastReceiver() {
         val path = intent?.getStringExtra(FILE_PATH) ?: return
         val user = intent.getParcelableArgument(USER, User::class.java) ?: return
         val fileDataStorageManager = FileDataStorageManager(user, context?.contentResolver)
-        fileDataStorageManager.offlineOperationDao.deleteByPath(path)
+        fileDataStorageManager.deleteOfflineOperationByPath(path)
     }
 }
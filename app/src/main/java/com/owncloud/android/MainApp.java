@@ -59,6 +59,9 @@ import com.nextcloud.client.onboarding.OnboardingService;
 import com.nextcloud.client.preferences.AppPreferences;
 import com.nextcloud.client.preferences.AppPreferencesImpl;
 import com.nextcloud.client.preferences.DarkMode;
+import com.nextcloud.client.startup.StartupGate;
+import com.nextcloud.client.startup.StartupOrchestrator;
+import com.nextcloud.client.startup.StartupOrchestrator.Stage;
 import com.nextcloud.receiver.NetworkChangeListener;
 import com.nextcloud.receiver.NetworkChangeReceiver;
 import com.nextcloud.utils.extensions.ContextExtensionsKt;
@@ -298,7 +301,6 @@ public class MainApp extends Application implements HasAndroidInjector, NetworkC
     }
 
 
-    @SuppressFBWarnings("ST")
     @Override
     public void onCreate() {
         enableStrictMode();
@@ -314,21 +316,50 @@ public class MainApp extends Application implements HasAndroidInjector, NetworkC
 
         registerActivityLifecycleCallbacks(new ActivityInjector());
 
-        //update the app restart count when app is launched by the user
-        inAppReviewHelper.resetAndIncrementAppRestartCounter();
+        new StartupOrchestrator(clock)
+            .add("migrations", Stage.CRITICAL, this::startMigrations)
+            .add("storagePath", Stage.CRITICAL, this::initStoragePath, "migrations")
+            .add("network", Stage.CRITICAL, this::initNetwork)
+            .add("logging", Stage.CRITICAL, this::initLogging, "storagePath")
+            .add("notificationChannels", Stage.CRITICAL, MainApp::notificationChannels)
+            .add("passCodeProtection", Stage.CRITICAL, this::registerGlobalPassCodeProtection)
+            .add("networkChangeReceiver", Stage.CRITICAL, this::initNetworkChangeReceiver)
+            .add("documentsStorageProvider", Stage.CRITICAL, this::initDocumentsStorageProvider)
+            // update the app restart count when app is launched by the user
+            .add("inAppReview", Stage.DEFERRED, inAppReviewHelper::resetAndIncrementAppRestartCounter)
+            .add("autoUploadInfo", Stage.DEFERRED, () -> updateToAutoUpload(this), "migrations")
+            .add("autoUploadEntries",
+                 Stage.BACKGROUND,
+                 () -> migrateAutoUploadEntries(preferences, clock, viewThemeUtils),
+                 "migrations")
+            .add("syncOperations", Stage.BACKGROUND, this::startSyncOperations, "autoUploadEntries", "network")
+            .add("contactsBackup", Stage.BACKGROUND, () -> initContactsBackup(accountManager, backgroundJobManager))
+            .add("periodicJobs", Stage.BACKGROUND, this::schedulePeriodicJobs, "migrations")
+            // workers read the synced folders and uploads, they wait for the migration and sync scheduling above
+            .start(StartupGate.getInstance()::open);
+    }
 
+    private void startMigrations() {
         int startedMigrationsCount = migrationsManager.startMigration();
         logger.i(TAG, String.format(Locale.US, "Started %d migrations", startedMigrationsCount));
 
         new SecurityUtils();
         DisplayUtils.useCompatVectorIfNeeded();
+    }
 
+    @SuppressFBWarnings("ST")
+    private void initStoragePath() {
         fixStoragePath();
 
         checkCancelDownloadJobs();
 
         MainApp.storagePath = preferences.getStoragePath(getApplicationContext().getFilesDir().getAbsolutePath());
 
+        // initialise thumbnails cache on background thread
+        ThumbnailsCacheManager.initDiskCacheAsync();
+    }
+
+    private void initNetwork() {
         OwnCloudClientManagerFactory.setUserAgent(getUserAgent());
 
         if (isClientBrandedPlus()) {
@@ -337,11 +368,9 @@ public class MainApp extends Application implements HasAndroidInjector, NetworkC
         } else {
             setProxyForNonBrandedPlusClients();
         }
+    }
 
-        // initialise thumbnails cache on background thread
-        ThumbnailsCacheManager.initDiskCacheAsync();
-
-
+    private void initLogging() {
         if (MDMConfig.INSTANCE.isLogEnabled(this)) {
             // use app writable dir, no permissions needed
             Log_OC.setLoggerImplementation(new LegacyLoggerAdapter(logger));
@@ -354,20 +383,32 @@ public class MainApp extends Application implements HasAndroidInjector, NetworkC
         } catch (Exception e) {
             Log_OC.d("Debug", "Failed to disable uri exposure");
         }
-        initSyncOperations(this,
-                           preferences,
-                           uploadsStorageManager,
-                           accountManager,
-                           connectivityService,
-                           powerManagementService,
-                           backgroundJobManager,
-                           clock,
-                           viewThemeUtils,
-                           walledCheckCache,
-                           syncedFolderProvider);
-        initContactsBackup(accountManager, backgroundJobManager);
-        notificationChannels();
+    }
+
+    private void initNetworkChangeReceiver() {
+        networkChangeReceiver = new NetworkChangeReceiver(this, connectivityService);
+        registerNetworkChangeReceiver();
+    }
+
+    private void initDocumentsStorageProvider() {
+        if (!MDMConfig.INSTANCE.sendFilesSupport(this)) {
+            disableDocumentsStorageProvider();
+        }
+    }
+
+    private void startSyncOperations() {
+        startSyncOperations(this,
+                            preferences,
+                            uploadsStorageManager,
+                            accountManager,
+                            connectivityService,
+                            powerManagementService,
+                            backgroundJobManager,
+                            walledCheckCache,
+                            syncedFolderProvider);
+    }
 
+    private void schedulePeriodicJobs() {
         if (backgroundJobManager != null) {
             backgroundJobManager.scheduleMediaFoldersDetectionJob();
             backgroundJobManager.startMediaFoldersDetectionJob();
@@ -379,17 +420,7 @@ public class MainApp extends Application implements HasAndroidInjector, NetworkC
 
             backgroundJobManager.startPeriodicallyOfflineOperation();
         }
-
-        registerGlobalPassCodeProtection();
-        networkChangeReceiver = new NetworkChangeReceiver(this, connectivityService);
-        registerNetworkChangeReceiver();
-
-        if (!MDMConfig.INSTANCE.sendFilesSupport(this)) {
-            disableDocumentsStorageProvider();
-        }
-        
-        
-     }
+    }
 
     public void disableDocumentsStorageProvider() {
         String packageName = getPackageName();
@@ -404,6 +435,7 @@ public class MainApp extends Application implements HasAndroidInjector, NetworkC
             Log_OC.d(TAG, "APP IN FOREGROUND");
         } else if (event == Lifecycle.Event.ON_STOP) {
             passCodeManager.setCanAskPin(true);
+            ThumbnailsCacheManager.flushDiskCache();
             Log_OC.d(TAG, "APP IN BACKGROUND");
         } else if (event == Lifecycle.Event.ON_RESUME) {
             setProxyConfig();
@@ -625,6 +657,21 @@ public class MainApp extends Application implements HasAndroidInjector, NetworkC
         final WalledCheckCache walledCheckCache,
         final SyncedFolderProvider syncedFolderProvider) {
         updateToAutoUpload(context);
+        migrateAutoUploadEntries(preferences, clock, viewThemeUtils);
+        startSyncOperations(context,
+                            preferences,
+                            uploadsStorageManager,
+                            accountManager,
+                            connectivityService,
+                            powerManagementService,
+                            backgroundJobManager,
+                            walledCheckCache,
+                            syncedFolderProvider);
+    }
+
+    private static void migrateAutoUploadEntries(final AppPreferences preferences,
+                                                 final Clock clock,
+                                                 final ViewThemeUtils viewThemeUtils) {
         cleanOldEntries(clock);
         updateAutoUploadEntries(clock);
 
@@ -635,13 +682,24 @@ public class MainApp extends Application implements HasAndroidInjector, NetworkC
                 preferences.setAutoUploadSplitEntriesEnabled(true);
             }
         }
+    }
 
+    private static void startSyncOperations(
+        final Context context,
+        final AppPreferences preferences,
+        final UploadsStorageManager uploadsStorageManager,
+        final UserAccountManager accountManager,
+        final ConnectivityService connectivityService,
+        final PowerManagementService powerManagementService,
+        final BackgroundJobManager backgroundJobManager,
+        final WalledCheckCache walledCheckCache,
+        final SyncedFolderProvider syncedFolderProvider) {
         if (!preferences.isAutoUploadInitialized()) {
             FilesSyncHelper.startFilesSyncForAllFolders(syncedFolderProvider, backgroundJobManager,false, new String[]{});
             preferences.setAutoUploadInit(true);
         }
 
-        FilesSyncHelper.scheduleFilesSyncForAllFoldersIfNeeded(appContext.get(), syncedFolderProvider, backgroundJobManager);
+        FilesSyncHelper.scheduleFilesSyncForAllFoldersIfNeeded(context, syncedFolderProvider, backgroundJobManager);
         FilesSyncHelper.restartUploadsIfNeeded(
             uploadsStorageManager,
             accountManager,
@@ -994,6 +1052,12 @@ public class MainApp extends Application implements HasAndroidInjector, NetworkC
         }
     }
 
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        ThumbnailsCacheManager.flushDiskCache();
+    }
+
     @Override
     public AndroidInjector<Object> androidInjector() {
         return dispatchingAndroidInjector;
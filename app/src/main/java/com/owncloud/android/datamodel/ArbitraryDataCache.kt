@@ -0,0 +1,42 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later OR GPL-2.0-only
+ */
+package com.owncloud.android.datamodel
+
+import androidx.annotation.VisibleForTesting
+
+/**
+ * Process wide cache of the arbitrary data, by account and key.
+ *
+ * All reads and writes of the arbitrary data table go through [ArbitraryDataProviderImpl], which fills this cache on
+ * the first read of a key and updates it on every write while holding its lock, so that it never differs from the
+ * database. Keys which have no row are cached as well, as many flags are only stored once they are set.
+ */
+class ArbitraryDataCache @VisibleForTesting internal constructor() {
+
+    companion object {
+        @JvmStatic
+        val instance: ArbitraryDataCache by lazy { ArbitraryDataCache() }
+    }
+
+    /**
+     * Row of a key, [isStored] is false if there is none.
+     */
+    data class Entry(val isStored: Boolean, val value: String?)
+
+    private val accounts = HashMap<String, HashMap<String, Entry>>()
+
+    /**
+     * @return the cached row of the key, or null if the key was not read yet
+     */
+    @Synchronized
+    fun get(accountName: String, key: String): Entry? = accounts[accountName]?.get(key)
+
+    @Synchronized
+    fun put(accountName: String, key: String, entry: Entry) {
+        accounts.getOrPut(accountName) { HashMap() }[key] = entry
+    }
+}
@@ -18,10 +18,14 @@ import com.nextcloud.client.database.entity.ArbitraryDataEntity;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
 
 /**
  * Database provider for handling the persistence aspects of arbitrary data table.
  * <p>
+ * Values are read through the process wide {@link ArbitraryDataCache}, which every write updates as well, so each key
+ * is queried at most once.
+ * <p>
  * Don't instantiate this class, inject the interface instead.
  */
 public class ArbitraryDataProviderImpl implements ArbitraryDataProvider {
@@ -29,6 +33,7 @@ public class ArbitraryDataProviderImpl implements ArbitraryDataProvider {
     private static final String TRUE = "true";
 
     private final ArbitraryDataDao arbitraryDataDao;
+    private final ArbitraryDataCache cache;
 
     /**
      * @deprecated inject interface instead
@@ -39,12 +44,21 @@ public class ArbitraryDataProviderImpl implements ArbitraryDataProvider {
     }
 
     public ArbitraryDataProviderImpl(@NonNull final ArbitraryDataDao dao) {
+        this(dao, ArbitraryDataCache.getInstance());
+    }
+
+    @VisibleForTesting
+    ArbitraryDataProviderImpl(@NonNull final ArbitraryDataDao dao, @NonNull final ArbitraryDataCache cache) {
         this.arbitraryDataDao = dao;
+        this.cache = cache;
     }
 
     @Override
     public void deleteKeyForAccount(@NonNull String account, @NonNull String key) {
-        arbitraryDataDao.deleteValue(account, key);
+        synchronized (cache) {
+            arbitraryDataDao.deleteValue(account, key);
+            cache.put(account, key, new ArbitraryDataCache.Entry(false, null));
+        }
     }
 
     @Override
@@ -54,13 +68,15 @@ public class ArbitraryDataProviderImpl implements ArbitraryDataProvider {
 
     @Override
     public void incrementValue(@NonNull String accountName, @NonNull String key) {
-        int oldValue = getIntegerValue(accountName, key);
-
-        int value = 1;
-        if (oldValue > 0) {
-            value = oldValue + 1;
+        synchronized (cache) {
+            int oldValue = getIntegerValue(accountName, key);
+
+            int value = 1;
+            if (oldValue > 0) {
+                value = oldValue + 1;
+            }
+            storeOrUpdateKeyValue(accountName, key, value);
         }
-        storeOrUpdateKeyValue(accountName, key, value);
     }
 
     @Override
@@ -72,11 +88,13 @@ public class ArbitraryDataProviderImpl implements ArbitraryDataProvider {
     public void storeOrUpdateKeyValue(@NonNull String accountName,
                                       @NonNull String key,
                                       @Nullable String newValue) {
-        final ArbitraryDataEntity currentValue = arbitraryDataDao.getByAccountAndKey(accountName, key);
-        if (currentValue != null) {
-            arbitraryDataDao.updateValue(accountName, key, newValue);
-        } else {
-            arbitraryDataDao.insertValue(accountName, key, newValue);
+        synchronized (cache) {
+            if (getEntry(accountName, key).isStored()) {
+                arbitraryDataDao.updateValue(accountName, key, newValue);
+            } else {
+                arbitraryDataDao.insertValue(accountName, key, newValue);
+            }
+            cache.put(accountName, key, new ArbitraryDataCache.Entry(true, newValue));
         }
     }
 
@@ -146,10 +164,23 @@ public class ArbitraryDataProviderImpl implements ArbitraryDataProvider {
     @Override
     @NonNull
     public String getValue(@NonNull String accountName, @NonNull String key) {
-        final ArbitraryDataEntity entity = arbitraryDataDao.getByAccountAndKey(accountName, key);
-        if (entity == null || entity.getValue() == null) {
+        final String value = getEntry(accountName, key).getValue();
+        if (value == null) {
             return "";
         }
-        return entity.getValue();
+        return value;
+    }
+
+    @NonNull
+    private ArbitraryDataCache.Entry getEntry(@NonNull String accountName, @NonNull String key) {
+        synchronized (cache) {
+            ArbitraryDataCache.Entry entry = cache.get(accountName, key);
+            if (entry == null) {
+                final ArbitraryDataEntity entity = arbitraryDataDao.getByAccountAndKey(accountName, key);
+                entry = new ArbitraryDataCache.Entry(entity != null, entity != null ? entity.getValue() : null);
+                cache.put(accountName, key, entry);
+            }
+            return entry;
+        }
     }
 }
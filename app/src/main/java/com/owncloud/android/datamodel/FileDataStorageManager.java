@@ -39,8 +39,10 @@ import com.nextcloud.client.database.dao.FileDao;
 import com.nextcloud.client.database.dao.OfflineOperationDao;
 import com.nextcloud.client.database.entity.FileEntity;
 import com.nextcloud.client.database.entity.OfflineOperationEntity;
+import com.nextcloud.client.jobs.offlineOperations.repository.OfflineOperationsCache;
 import com.nextcloud.client.jobs.offlineOperations.repository.OfflineOperationsRepository;
 import com.nextcloud.client.jobs.offlineOperations.repository.OfflineOperationsRepositoryType;
+import com.nextcloud.model.LocalFileSearchQuery;
 import com.nextcloud.model.OCFileFilterType;
 import com.nextcloud.model.OfflineOperationRawType;
 import com.nextcloud.model.OfflineOperationType;
@@ -78,10 +80,13 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 
 import androidx.annotation.NonNull;
@@ -93,6 +98,10 @@ import kotlin.Pair;
 @SuppressFBWarnings("CE")
 public class FileDataStorageManager {
     private static final String TAG = FileDataStorageManager.class.getSimpleName();
+    private static final int FILTER_PAGE_SIZE = 500;
+    // every path is bound twice, which stays below the limit of 999 variables of older SQLite versions
+    private static final int PATHS_QUERY_CHUNK_SIZE = 400;
+    private static final int IDS_QUERY_CHUNK_SIZE = 500;
 
     private static final String AND = " = ? AND ";
     private static final String FAILED_TO_INSERT_MSG = "Fail to insert insert file to database ";
@@ -173,12 +182,16 @@ public class FileDataStorageManager {
             }
 
             offlineOperationDao.insert(entity);
+            OfflineOperationsCache.getInstance().invalidate();
             createPendingFile(remotePath, mimeType, createdAt, modificationTimestamp);
         }
     }
 
+    /**
+     * @return pending offline operation of the file from {@link OfflineOperationsCache}, must not be modified
+     */
     public OfflineOperationEntity getOfflineEntityFromOCFile(OCFile file) {
-        return offlineOperationDao.getByPath(file.getDecryptedRemotePath());
+        return OfflineOperationsCache.getInstance().getByPath(file.getDecryptedRemotePath());
     }
 
     public OfflineOperationEntity addCreateFolderOfflineOperation(String path, String filename, Long parentOCFileId) {
@@ -198,6 +211,7 @@ public class FileDataStorageManager {
         entity.setModifiedAt(modificationTimestamp / 1000);
 
         offlineOperationDao.insert(entity);
+        OfflineOperationsCache.getInstance().invalidate();
         createPendingDirectory(path, createdAt, modificationTimestamp);
 
         return entity;
@@ -223,6 +237,16 @@ public class FileDataStorageManager {
         offlineOperationsRepository.deleteOperation(file);
     }
 
+    public void deleteOfflineOperation(OfflineOperationEntity entity) {
+        offlineOperationDao.delete(entity);
+        OfflineOperationsCache.getInstance().invalidate();
+    }
+
+    public void deleteOfflineOperationByPath(String path) {
+        offlineOperationDao.deleteByPath(path);
+        OfflineOperationsCache.getInstance().invalidate();
+    }
+
     public void addRenameFileOfflineOperation(OCFile file, String newName) {
         OfflineOperationEntity entity = new OfflineOperationEntity();
 
@@ -240,6 +264,7 @@ public class FileDataStorageManager {
         entity.setModifiedAt(modificationTimestamp / 1000);
 
         offlineOperationDao.insert(entity);
+        OfflineOperationsCache.getInstance().invalidate();
     }
 
     public String getFileNameBasedOnEncryptionStatus(OCFile file) {
@@ -256,13 +281,7 @@ public class FileDataStorageManager {
     }
 
     public String getFilenameConsideringOfflineOperation(OCFile file) {
-        String filename = file.getDecryptedFileName();
-        OfflineOperationEntity renameEntity = offlineOperationDao.getByPath(file.getDecryptedRemotePath());
-        if (renameEntity != null && renameEntity.getType() instanceof OfflineOperationType.RenameFile renameFile) {
-            filename = renameFile.getNewName();
-        }
-
-        return filename;
+        return OfflineOperationsCache.getInstance().getFilename(file);
     }
 
     public void addRemoveFileOfflineOperation(String path, String filename, Long parentOCFileId) {
@@ -282,6 +301,7 @@ public class FileDataStorageManager {
         entity.setModifiedAt(modificationTimestamp / 1000);
 
         offlineOperationDao.insert(entity);
+        OfflineOperationsCache.getInstance().invalidate();
     }
 
     public void renameOfflineOperation(OCFile file, String newFolderName) {
@@ -307,6 +327,7 @@ public class FileDataStorageManager {
         entity.setPath(newPath);
         entity.setFilename(newFolderName);
         offlineOperationDao.update(entity);
+        OfflineOperationsCache.getInstance().invalidate();
 
         moveLocalFile(file, newPath, parentFolder.getDecryptedRemotePath());
     }
@@ -405,6 +426,15 @@ public class FileDataStorageManager {
             return file.getFileId();
         }
 
+        // the last ancestor is the folder directly below the root
+        List<OCFile> ancestors = getAncestors(file);
+        if (ancestors != null && !ancestors.isEmpty()) {
+            OCFile topParent = ancestors.get(ancestors.size() - 1);
+            if (topParent.getParentId() == 1) {
+                return topParent.getFileId();
+            }
+        }
+
         return getTopParentIdRecursive(file);
     }
 
@@ -415,12 +445,67 @@ public class FileDataStorageManager {
 
         OCFile parentFile = getFileById(file.getParentId());
         if (parentFile != null) {
-            return getTopParentId(parentFile);
+            return getTopParentIdRecursive(parentFile);
         }
 
         return file.getFileId();
     }
 
+    /**
+     * Returns the folders containing the file, from its parent up to, but excluding, the root folder. The paths of the
+     * ancestors are the prefixes of the path of the file, so they are read with a single query instead of following
+     * the parent ids one by one.
+     *
+     * @return ancestors of the file, or null if they are not stored consistently with its path and parent ids
+     */
+    public @Nullable
+    List<OCFile> getAncestors(OCFile file) {
+        List<String> ancestorPaths = getAncestorPaths(file.getRemotePath());
+        List<OCFile> ancestors = new ArrayList<>(ancestorPaths.size());
+        if (ancestorPaths.isEmpty()) {
+            return ancestors;
+        }
+
+        List<FileEntity> fileEntities = fileDao.getFilesByPaths(ancestorPaths, user.getAccountName());
+        Map<String, FileEntity> fileEntitiesByPath = new HashMap<>();
+        for (FileEntity fileEntity : fileEntities) {
+            fileEntitiesByPath.put(fileEntity.getPathDecrypted(), fileEntity);
+        }
+        for (FileEntity fileEntity : fileEntities) {
+            fileEntitiesByPath.put(fileEntity.getPath(), fileEntity);
+        }
+
+        long expectedId = file.getParentId();
+        for (String ancestorPath : ancestorPaths) {
+            FileEntity fileEntity = fileEntitiesByPath.get(ancestorPath);
+            if (fileEntity == null || (expectedId > 0 && !Objects.equals(fileEntity.getId(), expectedId))) {
+                return null;
+            }
+
+            OCFile ancestor = createFileInstance(fileEntity);
+            ancestors.add(ancestor);
+            expectedId = ancestor.getParentId();
+        }
+
+        return ancestors;
+    }
+
+    /**
+     * @return paths of the folders containing the given path, from the closest one up to, but excluding, the root
+     */
+    @VisibleForTesting
+    static List<String> getAncestorPaths(String remotePath) {
+        List<String> ancestorPaths = new ArrayList<>();
+        int end = remotePath.endsWith(OCFile.PATH_SEPARATOR) ? remotePath.length() - 1 : remotePath.length();
+        int separator = remotePath.lastIndexOf(OCFile.PATH_SEPARATOR, end - 1);
+        while (separator > 0) {
+            ancestorPaths.add(remotePath.substring(0, separator + 1));
+            separator = remotePath.lastIndexOf(OCFile.PATH_SEPARATOR, separator - 1);
+        }
+
+        return ancestorPaths;
+    }
+
     public List<OCFile> getAllFilesRecursivelyInsideFolder(OCFile file) {
         ArrayList<OCFile> result = new ArrayList<>();
 
@@ -685,7 +770,8 @@ public class FileDataStorageManager {
 
                     File localFolder = new File(FileStorageUtils.getDefaultSavePathFor(user.getAccountName(), ocFile));
                     if (localFolder.exists()) {
-                        removeLocalFolder(localFolder);
+                        Long bytes = StorageUsageLedger.getInstance().recordedSizeOf(localFolder);
+                        onLocalFolderRemoved(localFolder, bytes, removeLocalFolder(localFolder));
                     }
                 } else {
                     operations.add(ContentProviderOperation.newDelete(
@@ -694,8 +780,13 @@ public class FileDataStorageManager {
 
                     if (ocFile.isDown()) {
                         String path = ocFile.getStoragePath();
-                        if (new File(path).delete() && MimeTypeUtil.isMedia(ocFile.getMimeType())) {
-                            triggerMediaScan(path, ocFile); // notify MediaScanner about removed file
+                        File localFile = new File(path);
+                        long length = localFile.length();
+                        if (localFile.delete()) {
+                            StorageUsageLedger.getInstance().onRemoved(localFile, length);
+                            if (MimeTypeUtil.isMedia(ocFile.getMimeType())) {
+                                triggerMediaScan(path, ocFile); // notify MediaScanner about removed file
+                            }
                         }
                     }
                 }
@@ -869,8 +960,11 @@ public class FileDataStorageManager {
 
                 String localPath = ocFile.getStoragePath();
                 if (removeLocalCopy && ocFile.isDown() && localPath != null && success) {
-                    success = new File(localPath).delete();
+                    File localFile = new File(localPath);
+                    long length = localFile.length();
+                    success = localFile.delete();
                     if (success) {
+                        StorageUsageLedger.getInstance().onRemoved(localFile, length);
                         deleteFileInMediaScan(localPath);
                     }
 
@@ -897,7 +991,10 @@ public class FileDataStorageManager {
                 success = removeFolderInDb(folder);
             }
             if (removeLocalContent && success) {
+                File localFolder = new File(FileStorageUtils.getDefaultSavePathFor(user.getAccountName(), folder));
+                Long bytes = StorageUsageLedger.getInstance().recordedSizeOf(localFolder);
                 success = removeLocalFolder(folder);
+                onLocalFolderRemoved(localFolder, bytes, success);
             }
         } else {
             success = false;
@@ -930,23 +1027,32 @@ public class FileDataStorageManager {
         File localFolder = new File(localFolderPath);
 
         if (localFolder.exists()) {
-            // stage 1: remove the local files already registered in the files database
-            List<OCFile> files = getFolderContent(folder.getFileId(), false);
-            for (OCFile ocFile : files) {
-                if (ocFile.isFolder()) {
-                    success &= removeLocalFolder(ocFile);
-                } else if (ocFile.isDown()) {
+            // stage 1: remove the local files already registered in the files database, read with one query for
+            //          the whole subtree; their storage paths are cleared in chunks afterwards
+            List<FileEntity> fileEntities = fileDao.getFolderWithDescendants(folder.getRemotePath() + "%",
+                                                                              user.getAccountName());
+            List<Long> removedIds = new ArrayList<>();
+            for (FileEntity fileEntity : fileEntities) {
+                OCFile ocFile = createFileInstance(fileEntity);
+                // '_' and '%' in folder names are wildcards of the pattern, and the connection may ignore case
+                if (!ocFile.getRemotePath().startsWith(folder.getRemotePath())) {
+                    continue;
+                }
+                if (!ocFile.isFolder() && ocFile.isDown()) {
                     File localFile = new File(ocFile.getStoragePath());
-                    success &= localFile.delete();
-
-                    if (success) {
+                    if (localFile.delete()) {
                         // notify MediaScanner about removed file
                         deleteFileInMediaScan(ocFile.getStoragePath());
-                        ocFile.setStoragePath(null);
-                        saveFile(ocFile);
+                        removedIds.add(ocFile.getFileId());
+                    } else {
+                        success = false;
                     }
                 }
             }
+            for (int start = 0; start < removedIds.size(); start += IDS_QUERY_CHUNK_SIZE) {
+                int end = Math.min(start + IDS_QUERY_CHUNK_SIZE, removedIds.size());
+                fileDao.clearStoragePaths(removedIds.subList(start, end));
+            }
 
             // stage 2: remove the folder itself and any local file inside out of sync;
             //          for instance, after clearing the app cache or reinstalling
@@ -974,6 +1080,18 @@ public class FileDataStorageManager {
         return success;
     }
 
+    /**
+     * Reports a removed local folder to the {@link StorageUsageLedger}; a partially removed folder or one whose size
+     * was not recorded has to be counted again.
+     */
+    private void onLocalFolderRemoved(File localFolder, @Nullable Long bytes, boolean removed) {
+        if (removed && bytes != null) {
+            StorageUsageLedger.getInstance().onRemoved(localFolder, bytes);
+        } else {
+            StorageUsageLedger.getInstance().invalidate(localFolder);
+        }
+    }
+
     /**
      * Updates database and file system for a file or folder that was moved to a different location.
      * <p>
@@ -1066,7 +1184,15 @@ public class FileDataStorageManager {
                 if (targetFolder != null && !targetFolder.exists() && !targetFolder.mkdirs()) {
                     Log_OC.e(TAG, "Unable to create parent folder " + targetFolder.getAbsolutePath());
                 }
+                StorageUsageLedger ledger = StorageUsageLedger.getInstance();
+                Long bytes = ledger.recordedSizeOf(localFile);
                 renamed = localFile.renameTo(targetFile);
+                if (renamed && bytes != null) {
+                    ledger.onMoved(localFile, targetFile, bytes);
+                } else if (renamed) {
+                    ledger.invalidate(localFile);
+                    ledger.invalidate(targetFile);
+                }
             }
 
             if (renamed) {
@@ -1097,70 +1223,33 @@ public class FileDataStorageManager {
                 if (targetFolder != null && !targetFolder.exists() && !targetFolder.mkdirs()) {
                     Log_OC.e(TAG, "Unable to create parent folder " + targetFolder.getAbsolutePath());
                 }
+                long previousLength = targetFile.length();
                 copied = FileStorageUtils.copyFile(localFile, targetFile);
+                if (copied) {
+                    StorageUsageLedger.getInstance().onFileWritten(targetFile, previousLength);
+                }
             }
             Log_OC.d(TAG, "Local file COPIED : " + copied);
         }
     }
 
     /**
+     * Rewrites the storage path of every stored file below sourcePath, for all accounts, with a single statement.
+     * <p>
      * This method does not require {@link FileDataStorageManager} being initialized with any specific user. Migration
      * can be performed with {@link com.nextcloud.client.account.AnonymousUser}.
+     *
+     * @return number of updated rows
      */
-    public void migrateStoredFiles(String sourcePath, String destinationPath)
-        throws RemoteException, OperationApplicationException {
-        Cursor cursor;
-        try {
-            if (getContentResolver() != null) {
-                cursor = getContentResolver().query(ProviderTableMeta.CONTENT_URI_FILE,
-                                                    null,
-                                                    ProviderTableMeta.FILE_STORAGE_PATH + " IS NOT NULL",
-                                                    null,
-                                                    null);
-
-            } else {
-                cursor = getContentProviderClient().query(ProviderTableMeta.CONTENT_URI_FILE,
-                                                          new String[]{ProviderTableMeta._ID, ProviderTableMeta.FILE_STORAGE_PATH},
-                                                          ProviderTableMeta.FILE_STORAGE_PATH + " IS NOT NULL",
-                                                          null,
-                                                          null);
-            }
-        } catch (RemoteException e) {
-            Log_OC.e(TAG, e.getMessage(), e);
-            throw e;
-        }
-
-        ArrayList<ContentProviderOperation> operations = new ArrayList<>(cursor.getCount());
-        if (cursor.moveToFirst()) {
-            String[] fileId = new String[1];
-            do {
-                ContentValues cv = new ContentValues();
-                fileId[0] = String.valueOf(cursor.getLong(cursor.getColumnIndexOrThrow(ProviderTableMeta._ID)));
-                String oldFileStoragePath =
-                    cursor.getString(cursor.getColumnIndexOrThrow(ProviderTableMeta.FILE_STORAGE_PATH));
-
-                if (oldFileStoragePath.startsWith(sourcePath)) {
-
-                    cv.put(ProviderTableMeta.FILE_STORAGE_PATH,
-                           oldFileStoragePath.replaceFirst(sourcePath, destinationPath));
-
-                    operations.add(
-                        ContentProviderOperation.newUpdate(ProviderTableMeta.CONTENT_URI).
-                            withValues(cv).
-                            withSelection(ProviderTableMeta._ID + "=?", fileId)
-                            .build());
-                }
+    public int migrateStoredFiles(String sourcePath, String destinationPath) {
+        int updated = fileDao.migrateStoragePaths(sourcePath, destinationPath);
+        Log_OC.d(TAG, "Migrated storage path of " + updated + " files");
 
-            } while (cursor.moveToNext());
-        }
-        cursor.close();
-
-        /// 3. apply updates in batch
         if (getContentResolver() != null) {
-            getContentResolver().applyBatch(MainApp.getAuthority(), operations);
-        } else {
-            getContentProviderClient().applyBatch(operations);
+            getContentResolver().notifyChange(ProviderTableMeta.CONTENT_URI, null);
         }
+
+        return updated;
     }
 
     private List<OCFile> getFolderContent(long parentId, boolean onlyOnDevice) {
@@ -2538,6 +2627,96 @@ public class FileDataStorageManager {
         }
     }
 
+    /**
+     * Returns the stored files with the given paths, keyed by their remote path and by their decrypted remote path.
+     */
+    public Map<String, OCFile> getFilesByPaths(List<String> paths) {
+        Map<String, OCFile> files = new HashMap<>();
+        for (int start = 0; start < paths.size(); start += PATHS_QUERY_CHUNK_SIZE) {
+            List<String> chunk = paths.subList(start, Math.min(start + PATHS_QUERY_CHUNK_SIZE, paths.size()));
+            for (FileEntity fileEntity : fileDao.getFilesByPaths(chunk, user.getAccountName())) {
+                OCFile file = createFileInstance(fileEntity);
+                files.put(file.getDecryptedRemotePath(), file);
+                files.put(file.getRemotePath(), file);
+            }
+        }
+
+        return files;
+    }
+
+    /**
+     * Stores the files found by the search of a virtual folder together with their rows of the virtual folder in one
+     * transaction. The parents of the files must be stored already and set as their parent ids; stored files must
+     * have their id set.
+     *
+     * @param type    the virtual folder
+     * @param files   the files to store
+     * @param replace whether the previous content of the virtual folder is removed
+     * @return false if the transaction failed, in which case nothing was stored and new files have no id
+     */
+    public boolean saveVirtualFolderFiles(VirtualFolderType type, List<OCFile> files, boolean replace) {
+        ArrayList<ContentProviderOperation> operations = new ArrayList<>(files.size() * 2 + 1);
+        String virtualType = type.toString();
+
+        if (replace) {
+            operations.add(ContentProviderOperation.newDelete(ProviderTableMeta.CONTENT_URI_VIRTUAL)
+                               .withSelection(ProviderTableMeta.VIRTUAL_TYPE + "=?", new String[]{virtualType})
+                               .build());
+        }
+
+        int[] insertIndexes = new int[files.size()];
+        for (int i = 0; i < files.size(); i++) {
+            OCFile file = files.get(i);
+            ContentValues contentValues = createContentValuesForFile(file);
+            if (file.isFolder()) {
+                contentValues.remove(ProviderTableMeta.FILE_STORAGE_PATH);
+            }
+
+            ContentProviderOperation.Builder virtual = ContentProviderOperation
+                .newInsert(ProviderTableMeta.CONTENT_URI_VIRTUAL)
+                .withValue(ProviderTableMeta.VIRTUAL_TYPE, virtualType);
+
+            if (file.fileExists()) {
+                insertIndexes[i] = -1;
+                operations.add(ContentProviderOperation.newUpdate(ProviderTableMeta.CONTENT_URI)
+                                   .withValues(contentValues)
+                                   .withSelection(ProviderTableMeta._ID + "=?",
+                                                  new String[]{String.valueOf(file.getFileId())})
+                                   .build());
+                virtual.withValue(ProviderTableMeta.VIRTUAL_OCFILE_ID, file.getFileId());
+            } else {
+                insertIndexes[i] = operations.size();
+                operations.add(ContentProviderOperation.newInsert(ProviderTableMeta.CONTENT_URI_FILE)
+                                   .withValues(contentValues)
+                                   .build());
+                virtual.withValueBackReference(ProviderTableMeta.VIRTUAL_OCFILE_ID, insertIndexes[i]);
+            }
+            operations.add(virtual.build());
+        }
+
+        ContentProviderResult[] results;
+        Log_OC.d(TAG, String.format(Locale.ENGLISH, SENDING_TO_FILECONTENTPROVIDER_MSG, operations.size()));
+
+        try {
+            if (getContentResolver() != null) {
+                results = getContentResolver().applyBatch(MainApp.getAuthority(), operations);
+            } else {
+                results = getContentProviderClient().applyBatch(operations);
+            }
+        } catch (OperationApplicationException | RemoteException e) {
+            Log_OC.e(TAG, EXCEPTION_MSG + e.getMessage(), e);
+            return false;
+        }
+
+        // update new id in file objects for insertions
+        for (int i = 0; i < files.size(); i++) {
+            if (insertIndexes[i] != -1 && results[insertIndexes[i]].uri != null) {
+                files.get(i).setFileId(ContentUris.parseId(results[insertIndexes[i]].uri));
+            }
+        }
+        return true;
+    }
+
     public List<OCFile> getAllGalleryItems() {
         return getGalleryItems(0, Long.MAX_VALUE);
     }
@@ -2557,6 +2736,18 @@ public class FileDataStorageManager {
         return files;
     }
 
+    /**
+     * Searches all locally known files of this account, without any server round trip.
+     */
+    public List<OCFile> searchLocalFiles(LocalFileSearchQuery query) {
+        List<FileEntity> fileEntities = fileDao.search(query.toSQLiteQuery(user.getAccountName()));
+        List<OCFile> files = new ArrayList<>(fileEntities.size());
+        for (FileEntity fileEntity : fileEntities) {
+            files.add(createFileInstance(fileEntity));
+        }
+        return files;
+    }
+
     public List<OCFile> getVirtualFolderContent(VirtualFolderType type, boolean onlyImages) {
         List<OCFile> ocFiles = new ArrayList<>();
         Uri req_uri = ProviderTableMeta.CONTENT_URI_VIRTUAL;
@@ -2618,9 +2809,8 @@ public class FileDataStorageManager {
     }
 
     public void deleteAllFiles() {
-        String where = ProviderTableMeta.FILE_ACCOUNT_OWNER + "= ? AND " +
-            ProviderTableMeta.FILE_PATH + "= ?";
-        String[] whereArgs = new String[]{user.getAccountName(), OCFile.ROOT_PATH};
+        String where = ProviderTableMeta.FILE_ACCOUNT_OWNER + "= ?";
+        String[] whereArgs = new String[]{user.getAccountName()};
 
         if (getContentResolver() != null) {
             getContentResolver().delete(ProviderTableMeta.CONTENT_URI_DIR, where, whereArgs);
@@ -2689,8 +2879,13 @@ public class FileDataStorageManager {
     public void removeLocalFiles(User user, FileDataStorageManager storageManager) {
         File tempDir = new File(FileStorageUtils.getTemporalPath(user.getAccountName()));
         File saveDir = new File(FileStorageUtils.getSavePath(user.getAccountName()));
+        StorageUsageLedger ledger = StorageUsageLedger.getInstance();
+        Long tempBytes = ledger.recordedSizeOf(tempDir);
+        Long saveBytes = ledger.recordedSizeOf(saveDir);
         FileStorageUtils.deleteRecursively(tempDir, storageManager);
         FileStorageUtils.deleteRecursively(saveDir, storageManager);
+        onLocalFolderRemoved(tempDir, tempBytes, !tempDir.exists());
+        onLocalFolderRemoved(saveDir, saveBytes, !saveDir.exists());
     }
 
     public List<OCFile> getAllFiles() {
@@ -2767,6 +2962,16 @@ public class FileDataStorageManager {
             return true;
         }
 
+        List<OCFile> ancestors = getAncestors(file);
+        if (ancestors != null) {
+            for (OCFile ancestor : ancestors) {
+                if (ancestor.isInternalFolderSync()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
         while (file != null && !OCFile.ROOT_PATH.equals(file.getDecryptedRemotePath())) {
             if (file.isInternalFolderSync()) {
                 return true;
@@ -2782,19 +2987,20 @@ public class FileDataStorageManager {
         }
 
         final List<OCFile> result = new ArrayList<>();
-        final List<OCFile> allFiles = getAllFiles();
-        for (OCFile ocFile: allFiles) {
-            boolean condition = false;
+        // filtered by the database, in pages to keep each query result small
+        final String accountName = user.getAccountName();
+        List<FileEntity> page;
+        do {
             if (filterType == OCFileFilterType.Shared) {
-                condition = ocFile.isShared();
-            } else if (filterType == OCFileFilterType.Favorite) {
-                condition = ocFile.isFavorite();
+                page = fileDao.getSharedFiles(accountName, FILTER_PAGE_SIZE, result.size());
+            } else {
+                page = fileDao.getFavoriteFiles(accountName, FILTER_PAGE_SIZE, result.size());
             }
 
-            if (condition) {
-                result.add(ocFile);
+            for (FileEntity fileEntity : page) {
+                result.add(createFileInstance(fileEntity));
             }
-        }
+        } while (page.size() == FILTER_PAGE_SIZE);
 
         return result;
     }
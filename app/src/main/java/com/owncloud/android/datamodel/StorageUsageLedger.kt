@@ -0,0 +1,143 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later OR GPL-2.0-only
+ */
+package com.owncloud.android.datamodel
+
+import androidx.annotation.VisibleForTesting
+import com.nextcloud.client.core.Clock
+import com.nextcloud.client.core.ClockImpl
+import com.nextcloud.client.database.NextcloudDatabase
+import com.nextcloud.client.database.dao.StorageUsageDao
+import com.nextcloud.client.database.entity.StorageUsageEntity
+import com.owncloud.android.MainApp
+import com.owncloud.android.lib.common.utils.Log_OC
+import com.owncloud.android.utils.FileStorageUtils
+import java.io.File
+import java.util.concurrent.Executor
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+/**
+ * Persisted record of the bytes stored on the device below local directories, so that free space checks do not have
+ * to walk the whole local folder.
+ *
+ * A directory is counted on disk once, when its size is first asked for. Afterwards its record is kept up to date by
+ * the download, upload, move and delete paths reporting every change, and counted again in the background once it
+ * is older than [RECONCILE_INTERVAL_MILLIS], which repairs drift from changes made outside of the app.
+ */
+class StorageUsageLedger @VisibleForTesting internal constructor(
+    private val dao: StorageUsageDao,
+    private val clock: Clock,
+    private val executor: Executor
+) {
+
+    companion object {
+        private const val TAG = "StorageUsageLedger"
+        private val RECONCILE_INTERVAL_MILLIS = TimeUnit.DAYS.toMillis(1)
+
+        @JvmStatic
+        val instance: StorageUsageLedger by lazy {
+            StorageUsageLedger(
+                NextcloudDatabase.getInstance(MainApp.getAppContext()).storageUsageDao(),
+                ClockImpl(),
+                Executors.newSingleThreadExecutor()
+            )
+        }
+    }
+
+    private val pendingReconciles = mutableSetOf<String>()
+
+    /**
+     * @return bytes stored below [directory]; counted on disk only if the directory has no record yet
+     */
+    fun getSize(directory: File): Long {
+        val path = directory.absolutePath
+        val usage = dao.get(path) ?: return count(directory)
+
+        if (clock.currentTime - usage.reconciled > RECONCILE_INTERVAL_MILLIS) {
+            scheduleReconcile(directory)
+        }
+        return usage.bytes
+    }
+
+    /**
+     * @return size of [file], or the recorded size of everything below it if it is a directory; `null` for a directory
+     * without record, which is not counted on disk here
+     */
+    fun recordedSizeOf(file: File): Long? = if (file.isDirectory) dao.get(file.absolutePath)?.bytes else file.length()
+
+    /**
+     * To be called after [file] was written, with the length it had before.
+     */
+    fun onFileWritten(file: File, previousLength: Long) {
+        onChanged(file, file.length() - previousLength)
+    }
+
+    /**
+     * To be called after [file] was removed, with the size it had before as returned by [recordedSizeOf].
+     */
+    fun onRemoved(file: File, bytes: Long) {
+        dao.deleteTree(file.absolutePath)
+        onChanged(file, -bytes)
+    }
+
+    /**
+     * To be called after [source] was moved to [target], with the size it had as returned by [recordedSizeOf].
+     */
+    fun onMoved(source: File, target: File, bytes: Long) {
+        onRemoved(source, bytes)
+        onChanged(target, bytes)
+    }
+
+    /**
+     * Drops the records of [file] and all directories containing it, e.g. because a removal only partially
+     * succeeded. They are counted on disk again when next asked for.
+     */
+    fun invalidate(file: File) {
+        dao.deleteTree(file.absolutePath)
+        dao.delete(getAncestorPaths(file))
+    }
+
+    private fun onChanged(file: File, delta: Long) {
+        if (delta != 0L) {
+            dao.add(getAncestorPaths(file), delta)
+        }
+    }
+
+    private fun count(directory: File): Long {
+        val bytes = FileStorageUtils.getFolderSize(directory)
+        dao.upsert(StorageUsageEntity(directory.absolutePath, bytes, clock.currentTime))
+        return bytes
+    }
+
+    private fun scheduleReconcile(directory: File) {
+        val path = directory.absolutePath
+        synchronized(this) {
+            if (!pendingReconciles.add(path)) {
+                return
+            }
+        }
+
+        executor.execute {
+            try {
+                val bytes = count(directory)
+                Log_OC.d(TAG, "Reconciled usage of $path: $bytes bytes")
+            } finally {
+                synchronized(this) { pendingReconciles.remove(path) }
+            }
+        }
+    }
+
+    private fun getAncestorPaths(file: File): List<String> {
+        val paths = mutableListOf<String>()
+        var parent = file.absoluteFile.parentFile
+        while (parent != null) {
+            paths.add(parent.path)
+            parent = parent.parentFile
+        }
+        return paths
+    }
+}
@@ -0,0 +1,270 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later OR GPL-2.0-only
+ */
+package com.owncloud.android.datamodel
+
+import android.graphics.Bitmap
+import android.os.Handler
+import android.os.Looper
+import androidx.annotation.VisibleForTesting
+import com.owncloud.android.lib.common.utils.Log_OC
+import java.util.concurrent.Callable
+import java.util.concurrent.Executor
+import java.util.concurrent.LinkedBlockingDeque
+import java.util.concurrent.ThreadFactory
+import java.util.concurrent.ThreadPoolExecutor
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Runs thumbnail generation on a small, bounded pool of background threads.
+ *
+ * - Requests are served newest first, so the items currently on screen win over those already scrolled past.
+ *   Prefetch requests are queued behind all of them.
+ * - Requests for the same key share a single job; its result is delivered to every request still attached.
+ * - A queued job is removed as soon as all its requests are cancelled, e.g. because their views were recycled.
+ * - Once [maxQueued] jobs are waiting, the oldest one is dropped.
+ *
+ * Results are delivered through [deliveryExecutor], the main thread by default.
+ */
+class ThumbnailLoader @VisibleForTesting internal constructor(
+    poolSize: Int,
+    private val maxQueued: Int,
+    private val deliveryExecutor: Executor
+) {
+    companion object {
+        private const val TAG = "ThumbnailLoader"
+        private const val MAX_POOL_SIZE = 4
+        private const val MAX_QUEUED = 64
+        private const val RECENT_PREFETCHES = 256
+        private const val LOAD_FACTOR = 0.75f
+        private const val NANOS_PER_MILLI = 1_000_000L
+
+        @JvmStatic
+        val instance: ThumbnailLoader by lazy {
+            val poolSize = (Runtime.getRuntime().availableProcessors() - 1).coerceIn(2, MAX_POOL_SIZE)
+            val mainHandler = Handler(Looper.getMainLooper())
+            ThumbnailLoader(poolSize, MAX_QUEUED) { mainHandler.post(it) }
+        }
+    }
+
+    fun interface Callback {
+        fun onThumbnail(bitmap: Bitmap?)
+    }
+
+    /**
+     * A pending request of one view. Cancelling it detaches the view; the shared job only stops if nobody else
+     * is waiting for it.
+     */
+    inner class Request internal constructor(
+        val key: String,
+        private val callback: Callback,
+        private val onDropped: Runnable?
+    ) {
+        @Volatile
+        var isCancelled = false
+            private set
+
+        fun cancel() {
+            if (!isCancelled) {
+                isCancelled = true
+                detach(this)
+            }
+        }
+
+        internal fun drop() {
+            if (!isCancelled) {
+                isCancelled = true
+                onDropped?.let { deliveryExecutor.execute(it) }
+            }
+        }
+
+        internal fun deliver(bitmap: Bitmap?) {
+            if (!isCancelled) {
+                callback.onThumbnail(bitmap)
+            }
+        }
+    }
+
+    data class Metrics(
+        val poolSize: Int,
+        val queued: Int,
+        val running: Int,
+        val requested: Long,
+        val deduplicated: Long,
+        val prefetched: Long,
+        val cancelled: Long,
+        val dropped: Long,
+        val completed: Long,
+        val failed: Long,
+        val averageWaitMillis: Long,
+        val averageLatencyMillis: Long,
+        val maxLatencyMillis: Long
+    )
+
+    private inner class Job(val key: String, val work: Callable<Bitmap?>, val isPrefetch: Boolean) : Runnable {
+        val requests = mutableListOf<Request>()
+        val enqueuedAt = System.nanoTime()
+        var started = false
+
+        override fun run() {
+            synchronized(lock) {
+                if (jobs[key] !== this) {
+                    return
+                }
+                started = true
+                running++
+            }
+            val startedAt = System.nanoTime()
+
+            val bitmap = try {
+                work.call()
+            } catch (@Suppress("TooGenericExceptionCaught") e: Exception) {
+                Log_OC.e(TAG, "Thumbnail generation for $key failed", e)
+                null
+            } catch (e: OutOfMemoryError) {
+                Log_OC.e(TAG, "Out of memory generating thumbnail for $key", e)
+                null
+            }
+
+            val finishedAt = System.nanoTime()
+            val receivers = synchronized(lock) {
+                jobs.remove(key)
+                running--
+                record(startedAt - enqueuedAt, finishedAt - enqueuedAt, bitmap != null)
+                requests.toList()
+            }
+            if (receivers.isNotEmpty()) {
+                deliveryExecutor.execute { receivers.forEach { it.deliver(bitmap) } }
+            }
+        }
+    }
+
+    private val lock = Any()
+    private val queue = LinkedBlockingDeque<Runnable>()
+    private val jobs = HashMap<String, Job>()
+    private val recentPrefetches = object : LinkedHashMap<String, Unit>(RECENT_PREFETCHES, LOAD_FACTOR, true) {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<String, Unit>?) = size > RECENT_PREFETCHES
+    }
+
+    private val executor = ThreadPoolExecutor(
+        poolSize,
+        poolSize,
+        0L,
+        TimeUnit.MILLISECONDS,
+        queue,
+        object : ThreadFactory {
+            private val count = AtomicInteger()
+            override fun newThread(runnable: Runnable) = Thread(runnable, "thumbnail-${count.incrementAndGet()}")
+        }
+    ).apply { prestartAllCoreThreads() }
+
+    private var running = 0
+    private var requested = 0L
+    private var deduplicated = 0L
+    private var prefetched = 0L
+    private var cancelled = 0L
+    private var dropped = 0L
+    private var completed = 0L
+    private var failed = 0L
+    private var totalWaitNanos = 0L
+    private var totalLatencyNanos = 0L
+    private var maxLatencyNanos = 0L
+
+    /**
+     * Requests the bitmap for [key]. If a job for the same key is already queued or running, the request joins it.
+     * If the job is dropped from a full queue, [callback] is not called but [onDropped] is.
+     */
+    @JvmOverloads
+    fun load(key: String, work: Callable<Bitmap?>, callback: Callback, onDropped: Runnable? = null): Request {
+        val request = Request(key, callback, onDropped)
+        synchronized(lock) {
+            requested++
+            val existing = jobs[key]
+            if (existing != null) {
+                deduplicated++
+                existing.requests.add(request)
+                if (!existing.started && queue.remove(existing)) {
+                    queue.offerFirst(existing)
+                }
+            } else {
+                val job = Job(key, work, false)
+                job.requests.add(request)
+                jobs[key] = job
+                trimQueue()
+                queue.offerFirst(job)
+            }
+        }
+        return request
+    }
+
+    /**
+     * Generates the bitmap for [key] in the background once nothing visible is waiting, so it is cached by the
+     * time its view is bound. Prefetches of keys requested recently, or when the queue is full, are ignored.
+     */
+    fun prefetch(key: String, work: Callable<Bitmap?>) {
+        synchronized(lock) {
+            if (jobs.containsKey(key) || recentPrefetches.containsKey(key) || queue.size >= maxQueued) {
+                return
+            }
+            recentPrefetches[key] = Unit
+            prefetched++
+            val job = Job(key, work, true)
+            jobs[key] = job
+            queue.offerLast(job)
+        }
+    }
+
+    fun getMetrics(): Metrics = synchronized(lock) {
+        val finished = completed + failed
+        Metrics(
+            poolSize = executor.corePoolSize,
+            queued = queue.size,
+            running = running,
+            requested = requested,
+            deduplicated = deduplicated,
+            prefetched = prefetched,
+            cancelled = cancelled,
+            dropped = dropped,
+            completed = completed,
+            failed = failed,
+            averageWaitMillis = if (finished > 0) totalWaitNanos / finished / NANOS_PER_MILLI else 0,
+            averageLatencyMillis = if (finished > 0) totalLatencyNanos / finished / NANOS_PER_MILLI else 0,
+            maxLatencyMillis = maxLatencyNanos / NANOS_PER_MILLI
+        )
+    }
+
+    private fun detach(request: Request) {
+        synchronized(lock) {
+            val job = jobs[request.key] ?: return
+            job.requests.remove(request)
+            if (job.requests.isEmpty() && !job.started && !job.isPrefetch && queue.remove(job)) {
+                jobs.remove(job.key)
+                cancelled++
+            }
+        }
+    }
+
+    /**
+     * Makes room for one more job by dropping the one that waited longest. Dropped requests get no bitmap, only
+     * their drop is reported; their views are long off screen and request again once rebound.
+     */
+    private fun trimQueue() {
+        while (queue.size >= maxQueued) {
+            val oldest = queue.pollLast() as? Job ?: return
+            jobs.remove(oldest.key)
+            oldest.requests.forEach { it.drop() }
+            dropped++
+        }
+    }
+
+    private fun record(waitNanos: Long, latencyNanos: Long, success: Boolean) {
+        if (success) completed++ else failed++
+        totalWaitNanos += waitNanos
+        totalLatencyNanos += latencyNanos
+        maxLatencyNanos = maxOf(maxLatencyNanos, latencyNanos)
+    }
+}
@@ -231,6 +231,19 @@ public final class ThumbnailsCacheManager {
         }
     }
 
+    /**
+     * Writes the pending puts of the disk cache in background, e.g. before the app may be killed.
+     */
+    public static void flushDiskCache() {
+        executor.execute(() -> {
+            synchronized (mThumbnailsDiskCacheLock) {
+                if (mThumbnailCache != null) {
+                    mThumbnailCache.flush();
+                }
+            }
+        });
+    }
+
     public static boolean containsBitmap(String key) {
         return mThumbnailCache.containsKey(key);
     }
@@ -279,6 +292,7 @@ public final class ThumbnailsCacheManager {
         private final List<GalleryImageGenerationTask> asyncTasks;
         private final int backgroundColor;
         private boolean newImage = false;
+        private ThumbnailLoader.Request loaderRequest;
 
         public GalleryImageGenerationTask(
             ImageView imageView,
@@ -299,8 +313,36 @@ public final class ThumbnailsCacheManager {
             this.listener = listener;
         }
 
+        private String getLoaderKey() {
+            return "gallery:" + PREFIX_RESIZED_IMAGE + file.getRemoteId();
+        }
+
+        private boolean isWorkPending() {
+            return !isCancelled() && (loaderRequest == null || !loaderRequest.isCancelled());
+        }
+
+        private void cancelRequest() {
+            if (loaderRequest != null) {
+                loaderRequest.cancel();
+            }
+            if (asyncTasks != null) {
+                asyncTasks.remove(this);
+            }
+        }
+
+        private void onDropped() {
+            cancel(false);
+            if (asyncTasks != null) {
+                asyncTasks.remove(this);
+            }
+        }
+
         @Override
         protected Bitmap doInBackground(Object... params) {
+            return generate(params);
+        }
+
+        private Bitmap generate(Object... params) {
             Bitmap thumbnail;
 
             if (params == null || params.length == 0 || !(params[0] instanceof OCFile)) {
@@ -385,7 +427,12 @@ public final class ThumbnailsCacheManager {
             return result;
         }
 
+        @Override
         protected void onPostExecute(Bitmap bitmap) {
+            deliver(bitmap);
+        }
+
+        private void deliver(Bitmap bitmap) {
             if (bitmap != null && imageViewReference.get() != null) {
                 final ImageView imageView = imageViewReference.get();
                 final GalleryImageGenerationTask bitmapWorkerTask = getGalleryImageGenerationTask(imageView);
@@ -549,6 +596,7 @@ public final class ThumbnailsCacheManager {
         private GetMethod getMethod;
         private Listener mListener;
         private boolean gridViewEnabled = false;
+        private ThumbnailLoader.Request loaderRequest;
 
         public ThumbnailGenerationTask(ImageView imageView, FileDataStorageManager storageManager, User user)
                 throws IllegalArgumentException {
@@ -588,6 +636,40 @@ public final class ThumbnailsCacheManager {
             return mImageKey;
         }
 
+        private void prepare(ThumbnailGenerationTaskObject object) {
+            mFile = object.getFile();
+            mImageKey = object.getImageKey();
+        }
+
+        private String getLoaderKey() {
+            if (mFile instanceof ServerFileInterface serverFile) {
+                return PREFIX_THUMBNAIL + serverFile.getRemoteId();
+            } else if (mFile instanceof File file) {
+                return PREFIX_THUMBNAIL + (mImageKey != null ? mImageKey : file.getAbsolutePath());
+            }
+            return PREFIX_THUMBNAIL + mFile;
+        }
+
+        private boolean isWorkPending() {
+            return !isCancelled() && (loaderRequest == null || !loaderRequest.isCancelled());
+        }
+
+        private void cancelRequest() {
+            if (loaderRequest != null) {
+                loaderRequest.cancel();
+            }
+            if (mAsyncTasks != null) {
+                mAsyncTasks.remove(this);
+            }
+        }
+
+        private void onDropped() {
+            cancel(false);
+            if (mAsyncTasks != null) {
+                mAsyncTasks.remove(this);
+            }
+        }
+
         public ThumbnailGenerationTask(FileDataStorageManager storageManager, User user) {
             if (storageManager == null) {
                 throw new IllegalArgumentException("storageManager must not be NULL");
@@ -602,9 +684,13 @@ public final class ThumbnailsCacheManager {
             mImageViewReference = new WeakReference<>(imageView);
         }
 
-        @SuppressFBWarnings("Dm")
         @Override
         protected Bitmap doInBackground(ThumbnailGenerationTaskObject... params) {
+            return generate(params[0]);
+        }
+
+        @SuppressFBWarnings("Dm")
+        private Bitmap generate(ThumbnailGenerationTaskObject object) {
             Bitmap thumbnail = null;
             try {
                 if (user != null) {
@@ -613,9 +699,7 @@ public final class ThumbnailsCacheManager {
                             getClientFor(ocAccount, MainApp.getAppContext());
                 }
 
-                ThumbnailGenerationTaskObject object = params[0];
-                mFile = object.getFile();
-                mImageKey = object.getImageKey();
+                prepare(object);
 
                 if (mFile instanceof ServerFileInterface) {
                     thumbnail = doThumbnailFromOCFileInBackground();
@@ -645,7 +729,12 @@ public final class ThumbnailsCacheManager {
             return thumbnail;
         }
 
+        @Override
         protected void onPostExecute(Bitmap bitmap) {
+            deliver(bitmap);
+        }
+
+        private void deliver(Bitmap bitmap) {
             if (bitmap != null && mImageViewReference != null) {
                 final ImageView imageView = mImageViewReference.get();
                 final ThumbnailGenerationTask bitmapWorkerTask = getBitmapWorkerTask(imageView);
@@ -857,6 +946,7 @@ public final class ThumbnailsCacheManager {
         private String mImageKey;
         private final Context mContext;
         private final ViewThemeUtils viewThemeUtils;
+        private ThumbnailLoader.Request loaderRequest;
 
         public MediaThumbnailGenerationTask(ImageView imageView,
                                             Context context,
@@ -867,16 +957,30 @@ public final class ThumbnailsCacheManager {
             this.viewThemeUtils = viewThemeUtils;
         }
 
+        private void prepare(Object... params) {
+            if (params[0] instanceof File) {
+                mFile = (File) params[0];
+                if (params.length == IMAGE_KEY_PARAMS_LENGTH) {
+                    mImageKey = (String) params[1];
+                }
+            }
+        }
+
+        private String getLoaderKey() {
+            return "media:" + (mImageKey != null ? mImageKey : String.valueOf(mFile));
+        }
+
         @Override
         protected Bitmap doInBackground(Object... params) {
+            return generate(params);
+        }
+
+        private Bitmap generate(Object... params) {
             Bitmap thumbnail = null;
 
             try {
                 if (params[0] instanceof File) {
-                    mFile = (File) params[0];
-                    if (params.length == IMAGE_KEY_PARAMS_LENGTH) {
-                        mImageKey = (String) params[1];
-                    }
+                    prepare(params);
 
                     if (MimeTypeUtil.isImage(mFile)) {
                         thumbnail = doFileInBackground(mFile, Type.IMAGE);
@@ -896,7 +1000,12 @@ public final class ThumbnailsCacheManager {
             return thumbnail;
         }
 
+        @Override
         protected void onPostExecute(Bitmap bitmap) {
+            deliver(bitmap);
+        }
+
+        private void deliver(Bitmap bitmap) {
             String tagId = "";
             final ImageView imageView = mImageViewReference.get();
             if (imageView != null) {
@@ -1145,22 +1254,102 @@ public final class ThumbnailsCacheManager {
     public static boolean cancelPotentialThumbnailWork(Object file, ImageView imageView) {
         final ThumbnailGenerationTask bitmapWorkerTask = getBitmapWorkerTask(imageView);
 
-        if (bitmapWorkerTask != null) {
+        if (bitmapWorkerTask != null && bitmapWorkerTask.isWorkPending()) {
             final Object bitmapData = bitmapWorkerTask.mFile;
             // If bitmapData is not yet set or it differs from the new data
             if (bitmapData == null || !bitmapData.equals(file)) {
                 // Cancel previous task
                 bitmapWorkerTask.cancel(true);
+                bitmapWorkerTask.cancelRequest();
                 Log_OC.v(TAG, "Cancelled generation of thumbnail for a reused imageView");
             } else {
                 // The same work is already in progress
                 return false;
             }
         }
+
+        final GalleryImageGenerationTask galleryTask = getGalleryImageGenerationTask(imageView);
+        if (galleryTask != null && galleryTask.isWorkPending()) {
+            if (galleryTask.file != null && galleryTask.file.equals(file)) {
+                return false;
+            }
+            galleryTask.cancel(true);
+            galleryTask.cancelRequest();
+        }
+
         // No task associated with the ImageView, or an existing task was cancelled
         return true;
     }
 
+    /**
+     * Stops waiting for the thumbnail of a view that is being recycled. The generation itself keeps running if
+     * another view requested the same thumbnail.
+     */
+    public static void cancelThumbnailWork(ImageView imageView) {
+        final ThumbnailGenerationTask bitmapWorkerTask = getBitmapWorkerTask(imageView);
+        if (bitmapWorkerTask != null) {
+            bitmapWorkerTask.cancel(true);
+            bitmapWorkerTask.cancelRequest();
+        }
+
+        final GalleryImageGenerationTask galleryTask = getGalleryImageGenerationTask(imageView);
+        if (galleryTask != null) {
+            galleryTask.cancel(true);
+            galleryTask.cancelRequest();
+        }
+    }
+
+    /**
+     * Generates the thumbnail of the given file on the {@link ThumbnailLoader} instead of executing the task. Tasks
+     * requesting the same thumbnail share one generation, the result is handed to each of them. A task whose
+     * generation is dropped from the loader's queue is cancelled.
+     */
+    public static void loadThumbnail(ThumbnailGenerationTask task, ThumbnailGenerationTaskObject object) {
+        task.prepare(object);
+        task.loaderRequest = ThumbnailLoader.getInstance().load(task.getLoaderKey(),
+                                                                () -> task.generate(object),
+                                                                bitmap -> {
+                                                                    if (!task.isCancelled()) {
+                                                                        task.deliver(bitmap);
+                                                                    }
+                                                                },
+                                                                task::onDropped);
+    }
+
+    public static void loadGalleryImage(GalleryImageGenerationTask task, OCFile file) {
+        task.file = file;
+        task.loaderRequest = ThumbnailLoader.getInstance().load(task.getLoaderKey(),
+                                                                () -> task.generate(file),
+                                                                bitmap -> {
+                                                                    if (!task.isCancelled()) {
+                                                                        task.deliver(bitmap);
+                                                                    }
+                                                                },
+                                                                task::onDropped);
+    }
+
+    public static void loadMediaThumbnail(MediaThumbnailGenerationTask task, Object... params) {
+        task.prepare(params);
+        task.loaderRequest = ThumbnailLoader.getInstance().load(task.getLoaderKey(),
+                                                                () -> task.generate(params),
+                                                                bitmap -> {
+                                                                    if (!task.isCancelled()) {
+                                                                        task.deliver(bitmap);
+                                                                    }
+                                                                },
+                                                                () -> task.cancel(false));
+    }
+
+    /**
+     * Fills the disk cache with the thumbnail of a file that is about to be shown.
+     */
+    public static void prefetchThumbnail(OCFile file, User user, FileDataStorageManager storageManager) {
+        final ThumbnailGenerationTask task = new ThumbnailGenerationTask(storageManager, user);
+        final ThumbnailGenerationTaskObject object = new ThumbnailGenerationTaskObject(file, file.getRemoteId());
+        task.prepare(object);
+        ThumbnailLoader.getInstance().prefetch(task.getLoaderKey(), () -> task.generate(object));
+    }
+
     public static ThumbnailGenerationTask getBitmapWorkerTask(ImageView imageView) {
         if (imageView != null) {
             final Drawable drawable = imageView.getDrawable();
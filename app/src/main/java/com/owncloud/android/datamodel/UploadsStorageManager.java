@@ -22,6 +22,7 @@ import android.content.OperationApplicationException;
 import android.database.Cursor;
 import android.net.Uri;
 import android.os.RemoteException;
+import android.text.TextUtils;
 
 import com.nextcloud.client.account.CurrentAccountProvider;
 import com.nextcloud.client.account.User;
@@ -43,9 +44,15 @@ import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Observable;
+import java.util.Set;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
@@ -65,6 +72,7 @@ public class UploadsStorageManager extends Observable {
     private static final int SINGLE_RESULT = 1;
 
     private static final long QUERY_PAGE_SIZE = 100;
+    private static final int LOOKUP_CHUNK_SIZE = 500;
 
     private final ContentResolver contentResolver;
     private final CurrentAccountProvider currentAccountProvider;
@@ -126,38 +134,62 @@ public class UploadsStorageManager extends Observable {
 
     }
 
+    /**
+     * Stores many uploads at once. Uploads that are already pending or failed are updated like in
+     * {@link #storeUpload(OCUpload)}, all others inserted. Existing uploads are looked up in chunks and all changes
+     * are written in a single transaction.
+     *
+     * @return upload ids in the order of the given uploads, or null if storing failed
+     */
     public long[] storeUploads(final List<OCUpload> ocUploads) {
         Log_OC.v(TAG, "Inserting " + ocUploads.size() + " uploads");
-        ArrayList<ContentProviderOperation> operations = new ArrayList<>(ocUploads.size());
-        for (OCUpload ocUpload : ocUploads) {
+        final Map<String, Long> existingIds = getPendingCurrentOrFailedUploadIds(ocUploads);
+        final Map<String, Integer> operationIndexes = new HashMap<>(ocUploads.size());
+        final ArrayList<ContentProviderOperation> operations = new ArrayList<>(ocUploads.size());
 
-            OCUpload existingUpload = getPendingCurrentOrFailedUpload(ocUpload);
-            if (existingUpload != null) {
-                Log_OC.v(TAG, "Will update upload in db since " + ocUpload.getLocalPath() + " already exists as" +
-                    " pending, current or failed upload");
-                ocUpload.setUploadId(existingUpload.getUploadId());
-                updateUpload(ocUpload);
-                continue;
+        for (OCUpload ocUpload : ocUploads) {
+            final String key = getUploadKey(ocUpload);
+            final Long existingId = existingIds.get(key);
+            final ContentProviderOperation operation;
+            if (existingId != null) {
+                ocUpload.setUploadId(existingId);
+                operation = ContentProviderOperation
+                    .newUpdate(ProviderTableMeta.CONTENT_URI_UPLOADS)
+                    .withValues(getUpdateContentValues(ocUpload))
+                    .withSelection(ProviderTableMeta._ID + "=?", new String[]{String.valueOf(existingId)})
+                    .build();
+            } else {
+                operation = ContentProviderOperation
+                    .newInsert(ProviderTableMeta.CONTENT_URI_UPLOADS)
+                    .withValues(getContentValues(ocUpload))
+                    .build();
             }
 
-            final ContentProviderOperation operation = ContentProviderOperation
-                .newInsert(ProviderTableMeta.CONTENT_URI_UPLOADS)
-                .withValues(getContentValues(ocUpload))
-                .build();
-            operations.add(operation);
+            // the same upload requested twice is stored once, with the values requested last
+            final Integer index = operationIndexes.get(key);
+            if (index != null) {
+                operations.set(index, operation);
+            } else {
+                operationIndexes.put(key, operations.size());
+                operations.add(operation);
+            }
         }
 
         try {
             final ContentProviderResult[] contentProviderResults = getDB().applyBatch(MainApp.getAuthority(), operations);
-            final long[] newIds = new long[ocUploads.size()];
-            for (int i = 0; i < contentProviderResults.length; i++) {
-                final ContentProviderResult result = contentProviderResults[i];
-                final long new_id = Long.parseLong(result.uri.getPathSegments().get(1));
-                ocUploads.get(i).setUploadId(new_id);
-                newIds[i] = new_id;
+            final long[] ids = new long[ocUploads.size()];
+            for (int i = 0; i < ocUploads.size(); i++) {
+                final OCUpload ocUpload = ocUploads.get(i);
+                final String key = getUploadKey(ocUpload);
+                final ContentProviderResult result = contentProviderResults[operationIndexes.get(key)];
+                final Long existingId = existingIds.get(key);
+                final long id = result.uri != null ? Long.parseLong(result.uri.getPathSegments().get(1)) :
+                    existingId != null ? existingId : -1;
+                ocUpload.setUploadId(id);
+                ids[i] = id;
             }
             notifyObserversNow();
-            return newIds;
+            return ids;
         } catch (OperationApplicationException | RemoteException e) {
             Log_OC.e(TAG, "Error inserting uploads", e);
         }
@@ -165,6 +197,68 @@ public class UploadsStorageManager extends Observable {
         return null;
     }
 
+    /**
+     * @return ids of the pending or failed uploads matching the given ones, by {@link #getUploadKey(OCUpload)}
+     */
+    private Map<String, Long> getPendingCurrentOrFailedUploadIds(List<OCUpload> ocUploads) {
+        final Map<String, Set<String>> localPathsByAccount = new HashMap<>();
+        for (OCUpload ocUpload : ocUploads) {
+            if (ocUpload.getAccountName() != null && ocUpload.getLocalPath() != null) {
+                localPathsByAccount
+                    .computeIfAbsent(ocUpload.getAccountName(), accountName -> new HashSet<>())
+                    .add(ocUpload.getLocalPath());
+            }
+        }
+
+        final Map<String, Long> ids = new HashMap<>();
+        final String[] projection = {
+            ProviderTableMeta._ID,
+            ProviderTableMeta.UPLOADS_LOCAL_PATH,
+            ProviderTableMeta.UPLOADS_REMOTE_PATH
+        };
+        for (Map.Entry<String, Set<String>> entry : localPathsByAccount.entrySet()) {
+            final String accountName = entry.getKey();
+            final List<String> localPaths = new ArrayList<>(entry.getValue());
+
+            for (int start = 0; start < localPaths.size(); start += LOOKUP_CHUNK_SIZE) {
+                final List<String> chunk = localPaths.subList(start, Math.min(start + LOOKUP_CHUNK_SIZE,
+                                                                              localPaths.size()));
+                final String[] selectionArgs = new String[chunk.size() + 3];
+                selectionArgs[0] = accountName;
+                selectionArgs[1] = String.valueOf(UploadStatus.UPLOAD_IN_PROGRESS.value);
+                selectionArgs[2] = String.valueOf(UploadStatus.UPLOAD_FAILED.value);
+                for (int i = 0; i < chunk.size(); i++) {
+                    selectionArgs[i + 3] = chunk.get(i);
+                }
+
+                final String selection = ProviderTableMeta.UPLOADS_ACCOUNT_NAME + "=? AND " +
+                    ProviderTableMeta.UPLOADS_STATUS + " IN (?, ?) AND " +
+                    ProviderTableMeta.UPLOADS_LOCAL_PATH + " IN (" +
+                    TextUtils.join(",", Collections.nCopies(chunk.size(), "?")) + ")";
+
+                try (Cursor cursor = getDB().query(ProviderTableMeta.CONTENT_URI_UPLOADS,
+                                                   projection,
+                                                   selection,
+                                                   selectionArgs,
+                                                   ProviderTableMeta._ID + " ASC")) {
+                    while (cursor != null && cursor.moveToNext()) {
+                        final String key = getUploadKey(cursor.getString(1), cursor.getString(2), accountName);
+                        ids.putIfAbsent(key, cursor.getLong(0));
+                    }
+                }
+            }
+        }
+        return ids;
+    }
+
+    private static String getUploadKey(OCUpload ocUpload) {
+        return getUploadKey(ocUpload.getLocalPath(), ocUpload.getRemotePath(), ocUpload.getAccountName());
+    }
+
+    private static String getUploadKey(String localPath, String remotePath, String accountName) {
+        return localPath + '\0' + remotePath + '\0' + accountName;
+    }
+
     @NonNull
     private ContentValues getContentValues(OCUpload ocUpload) {
         ContentValues cv = new ContentValues();
@@ -184,16 +278,8 @@ public class UploadsStorageManager extends Observable {
         return cv;
     }
 
-
-    /**
-     * Update an upload object in DB.
-     *
-     * @param ocUpload Upload object with state to update
-     * @return num of updated uploads.
-     */
-    public int updateUpload(OCUpload ocUpload) {
-        Log_OC.v(TAG, "Updating " + ocUpload.getLocalPath() + " with status=" + ocUpload.getUploadStatus());
-
+    @NonNull
+    private ContentValues getUpdateContentValues(OCUpload ocUpload) {
         ContentValues cv = new ContentValues();
         cv.put(ProviderTableMeta.UPLOADS_LOCAL_PATH, ocUpload.getLocalPath());
         cv.put(ProviderTableMeta.UPLOADS_REMOTE_PATH, ocUpload.getRemotePath());
@@ -203,9 +289,20 @@ public class UploadsStorageManager extends Observable {
         cv.put(ProviderTableMeta.UPLOADS_UPLOAD_END_TIMESTAMP, ocUpload.getUploadEndTimestamp());
         cv.put(ProviderTableMeta.UPLOADS_FILE_SIZE, ocUpload.getFileSize());
         cv.put(ProviderTableMeta.UPLOADS_FOLDER_UNLOCK_TOKEN, ocUpload.getFolderUnlockToken());
+        return cv;
+    }
+
+    /**
+     * Update an upload object in DB.
+     *
+     * @param ocUpload Upload object with state to update
+     * @return num of updated uploads.
+     */
+    public int updateUpload(OCUpload ocUpload) {
+        Log_OC.v(TAG, "Updating " + ocUpload.getLocalPath() + " with status=" + ocUpload.getUploadStatus());
 
         int result = getDB().update(ProviderTableMeta.CONTENT_URI_UPLOADS,
-                                    cv,
+                                    getUpdateContentValues(ocUpload),
                                     ProviderTableMeta._ID + "=?",
                                     new String[]{String.valueOf(ocUpload.getUploadId())}
                                    );
@@ -653,18 +750,146 @@ public class UploadsStorageManager extends Observable {
      * Get all failed uploads.
      */
     public OCUpload[] getFailedUploads() {
-        return getUploads("(" + ProviderTableMeta.UPLOADS_STATUS + IS_EQUAL +
-                              OR + ProviderTableMeta.UPLOADS_LAST_RESULT +
-                              EQUAL + UploadResult.DELAYED_FOR_WIFI.getValue() +
-                              OR + ProviderTableMeta.UPLOADS_LAST_RESULT +
-                              EQUAL + UploadResult.LOCK_FAILED.getValue() +
-                              OR + ProviderTableMeta.UPLOADS_LAST_RESULT +
-                              EQUAL + UploadResult.DELAYED_FOR_CHARGING.getValue() +
-                              OR + ProviderTableMeta.UPLOADS_LAST_RESULT +
-                              EQUAL + UploadResult.DELAYED_IN_POWER_SAVE_MODE.getValue() +
-                              " ) AND " + ProviderTableMeta.UPLOADS_LAST_RESULT +
-                              "!= " + UploadResult.VIRUS_DETECTED.getValue()
-            , String.valueOf(UploadStatus.UPLOAD_FAILED.value));
+        return getUploads(getFailedUploadsSelection(), (String[]) null);
+    }
+
+    private static String getFailedUploadsSelection() {
+        return "(" + ProviderTableMeta.UPLOADS_STATUS + EQUAL + UploadStatus.UPLOAD_FAILED.value +
+            OR + ProviderTableMeta.UPLOADS_LAST_RESULT +
+            EQUAL + UploadResult.DELAYED_FOR_WIFI.getValue() +
+            OR + ProviderTableMeta.UPLOADS_LAST_RESULT +
+            EQUAL + UploadResult.LOCK_FAILED.getValue() +
+            OR + ProviderTableMeta.UPLOADS_LAST_RESULT +
+            EQUAL + UploadResult.DELAYED_FOR_CHARGING.getValue() +
+            OR + ProviderTableMeta.UPLOADS_LAST_RESULT +
+            EQUAL + UploadResult.DELAYED_IN_POWER_SAVE_MODE.getValue() +
+            " ) AND " + ProviderTableMeta.UPLOADS_LAST_RESULT +
+            "!= " + UploadResult.VIRUS_DETECTED.getValue();
+    }
+
+    /**
+     * Removes the failed uploads of all accounts except the given ones.
+     *
+     * @return number of removed uploads
+     */
+    public int removeFailedUploadsOfOtherAccounts(Collection<String> accountNames) {
+        String selection = getFailedUploadsSelection();
+        if (!accountNames.isEmpty()) {
+            selection += AND + ProviderTableMeta.UPLOADS_ACCOUNT_NAME + " NOT IN (" +
+                TextUtils.join(",", Collections.nCopies(accountNames.size(), "?")) + ")";
+        }
+
+        int result = getDB().delete(ProviderTableMeta.CONTENT_URI_UPLOADS,
+                                    selection,
+                                    accountNames.toArray(new String[0]));
+        if (result > 0) {
+            Log_OC.d(TAG, "Removed " + result + " failed uploads of removed accounts");
+            notifyObserversNow();
+        }
+        return result;
+    }
+
+    /**
+     * Marks the failed uploads that can not be retried under the given device conditions as delayed, with one
+     * statement per reason, using the same precedence as {@link UploadFileOperation}.
+     *
+     * @return local paths of the failed uploads meeting the device conditions, by upload id
+     */
+    public Map<Long, String> reclassifyFailedUploads(boolean powerSaving, boolean charging, boolean unmeteredWifi) {
+        final String failed = getFailedUploadsSelection();
+        if (powerSaving) {
+            setFailedUploadsResult(failed, UploadResult.DELAYED_IN_POWER_SAVE_MODE);
+            return Collections.emptyMap();
+        }
+
+        String candidates = failed;
+        if (!charging) {
+            setFailedUploadsResult(failed + AND + ProviderTableMeta.UPLOADS_IS_WHILE_CHARGING_ONLY + "=1",
+                                   UploadResult.DELAYED_FOR_CHARGING);
+            candidates += AND + ProviderTableMeta.UPLOADS_IS_WHILE_CHARGING_ONLY + "=0";
+        }
+        if (!unmeteredWifi) {
+            setFailedUploadsResult(candidates + AND + ProviderTableMeta.UPLOADS_IS_WIFI_ONLY + "=1",
+                                   UploadResult.DELAYED_FOR_WIFI);
+            candidates += AND + ProviderTableMeta.UPLOADS_IS_WIFI_ONLY + "=0";
+        }
+
+        final Map<Long, String> localPaths = new HashMap<>();
+        try (Cursor cursor = getDB().query(ProviderTableMeta.CONTENT_URI_UPLOADS,
+                                           new String[]{ProviderTableMeta._ID, ProviderTableMeta.UPLOADS_LOCAL_PATH},
+                                           candidates,
+                                           null,
+                                           null)) {
+            while (cursor != null && cursor.moveToNext()) {
+                localPaths.put(cursor.getLong(0), cursor.getString(1));
+            }
+        }
+        return localPaths;
+    }
+
+    private void setFailedUploadsResult(String selection, UploadResult result) {
+        ContentValues cv = new ContentValues();
+        cv.put(ProviderTableMeta.UPLOADS_STATUS, UploadStatus.UPLOAD_FAILED.value);
+        cv.put(ProviderTableMeta.UPLOADS_LAST_RESULT, result.getValue());
+
+        int updated = getDB().update(ProviderTableMeta.CONTENT_URI_UPLOADS,
+                                     cv,
+                                     "(" + selection + ")" + AND + ProviderTableMeta.UPLOADS_LAST_RESULT +
+                                         ANGLE_BRACKETS + result.getValue(),
+                                     null);
+        if (updated > 0) {
+            Log_OC.d(TAG, "Set result of " + updated + " failed uploads to " + result);
+            notifyObserversNow();
+        }
+    }
+
+    /**
+     * Sets status and, if given, last result of the uploads with the given ids in one transaction. Uploads already in
+     * that state are not written.
+     *
+     * @return number of changed uploads
+     */
+    public int updateUploadsStatus(Collection<Long> ids, UploadStatus status, @Nullable UploadResult result) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        ContentValues cv = new ContentValues();
+        cv.put(ProviderTableMeta.UPLOADS_STATUS, status.value);
+        String unchanged = ProviderTableMeta.UPLOADS_STATUS + ANGLE_BRACKETS + status.value;
+        if (result != null) {
+            cv.put(ProviderTableMeta.UPLOADS_LAST_RESULT, result.getValue());
+            unchanged += OR + ProviderTableMeta.UPLOADS_LAST_RESULT + ANGLE_BRACKETS + result.getValue();
+        }
+
+        final List<Long> idList = new ArrayList<>(ids);
+        final ArrayList<ContentProviderOperation> operations = new ArrayList<>();
+        for (int start = 0; start < idList.size(); start += LOOKUP_CHUNK_SIZE) {
+            final List<Long> chunk = idList.subList(start, Math.min(start + LOOKUP_CHUNK_SIZE, idList.size()));
+            operations.add(ContentProviderOperation
+                               .newUpdate(ProviderTableMeta.CONTENT_URI_UPLOADS)
+                               .withValues(cv)
+                               .withSelection(ProviderTableMeta._ID + " IN (" + TextUtils.join(",", chunk) + ")" +
+                                                  AND + "(" + unchanged + ")", null)
+                               .build());
+        }
+
+        int updated = 0;
+        try {
+            for (ContentProviderResult operationResult : getDB().applyBatch(MainApp.getAuthority(), operations)) {
+                if (operationResult.count != null) {
+                    updated += operationResult.count;
+                }
+            }
+        } catch (OperationApplicationException | RemoteException e) {
+            Log_OC.e(TAG, "Error updating status of uploads", e);
+        }
+
+        if (updated > 0) {
+            Log_OC.d(TAG, "Set status of " + updated + " uploads to " + status);
+            notifyObserversNow();
+        }
+        return updated;
     }
 
     public OCUpload[] getUploadsForAccount(final @NonNull String accountName) {
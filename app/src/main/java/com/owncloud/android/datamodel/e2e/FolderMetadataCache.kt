@@ -0,0 +1,121 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later OR GPL-2.0-only
+ */
+package com.owncloud.android.datamodel.e2e
+
+import androidx.annotation.VisibleForTesting
+import com.google.gson.reflect.TypeToken
+import com.owncloud.android.lib.common.utils.Log_OC
+import com.owncloud.android.utils.EncryptionUtils
+
+/**
+ * Keeps the decrypted metadata of recently used end-to-end encrypted folders in memory, so that e.g. downloading
+ * all files of a folder fetches and decrypts its metadata only once.
+ *
+ * Entries are keyed by account and folder id and only returned while the folder still has the eTag they were
+ * stored with. They are invalidated as soon as the folder is locked or its metadata uploaded, and dropped with the
+ * e2e keys of an account.
+ *
+ * Metadata is stored serialized and every hit returns a fresh copy, as callers modify it before uploading.
+ */
+class FolderMetadataCache @VisibleForTesting internal constructor(private val maxEntries: Int) {
+
+    companion object {
+        private const val TAG = "FolderMetadataCache"
+        private const val MAX_ENTRIES = 32
+        private const val LOAD_FACTOR = 0.75f
+        private const val PERCENT = 100
+
+        @JvmStatic
+        val instance: FolderMetadataCache by lazy { FolderMetadataCache(MAX_ENTRIES) }
+    }
+
+    data class Metrics(
+        val entries: Int,
+        val hits: Long,
+        val misses: Long,
+        val stale: Long,
+        val invalidated: Long
+    ) {
+        val hitRatePercent: Int
+            get() = if (hits + misses > 0) (hits * PERCENT / (hits + misses)).toInt() else 0
+    }
+
+    private data class Key(val accountName: String, val folderId: Long)
+
+    private class Entry(val eTag: String, val type: Class<*>, val json: String)
+
+    private val entries = object : LinkedHashMap<Key, Entry>(maxEntries, LOAD_FACTOR, true) {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<Key, Entry>?) = size > maxEntries
+    }
+
+    private var hits = 0L
+    private var misses = 0L
+    private var stale = 0L
+    private var invalidated = 0L
+
+    /**
+     * @return a copy of the cached metadata of the folder, or null if there is none for the given [eTag]
+     */
+    fun get(accountName: String, folderId: Long, eTag: String?): Any? {
+        val entry = synchronized(this) {
+            val key = Key(accountName, folderId)
+            val entry = entries[key]
+            when {
+                entry == null -> {
+                    misses++
+                    null
+                }
+
+                eTag.isNullOrEmpty() || entry.eTag != eTag -> {
+                    entries.remove(key)
+                    misses++
+                    stale++
+                    null
+                }
+
+                else -> {
+                    hits++
+                    entry
+                }
+            }
+        }
+
+        if (entry == null) {
+            Log_OC.d(TAG, "Metadata of folder $folderId not cached, hit rate ${getMetrics().hitRatePercent}%")
+            return null
+        }
+        return EncryptionUtils.deserializeJSON(entry.json, TypeToken.get(entry.type), false)
+    }
+
+    fun put(accountName: String, folderId: Long, eTag: String?, metadata: Any) {
+        if (eTag.isNullOrEmpty()) {
+            return
+        }
+        val entry = Entry(eTag, metadata.javaClass, EncryptionUtils.serializeJSON(metadata, false))
+        synchronized(this) {
+            entries[Key(accountName, folderId)] = entry
+        }
+    }
+
+    /**
+     * Drops the metadata of the folder for all accounts, e.g. because it is about to be changed.
+     */
+    @Synchronized
+    fun invalidate(folderId: Long) {
+        if (entries.keys.removeAll { it.folderId == folderId }) {
+            invalidated++
+        }
+    }
+
+    @Synchronized
+    fun clear(accountName: String) {
+        entries.keys.removeAll { it.accountName == accountName }
+    }
+
+    @Synchronized
+    fun getMetrics(): Metrics = Metrics(entries.size, hits, misses, stale, invalidated)
+}
@@ -0,0 +1,304 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later OR GPL-2.0-only
+ */
+package com.owncloud.android.datastorage;
+
+import android.system.ErrnoException;
+import android.system.Os;
+
+import com.owncloud.android.lib.common.utils.Log_OC;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+/**
+ * Moves a data folder to a new location.
+ * <p>
+ * If source and target live on the same volume, the folder is simply renamed. Otherwise files are copied in
+ * parallel; every finished file is recorded in a checkpoint next to the target folder, so an interrupted migration
+ * continues where it stopped instead of starting over.
+ */
+public class StorageMigrationEngine {
+    private static final String TAG = StorageMigrationEngine.class.getSimpleName();
+
+    @VisibleForTesting
+    static final String CHECKPOINT_SUFFIX = ".migration";
+    private static final String PARTIAL_SUFFIX = ".part";
+    private static final int DEFAULT_PARALLELISM = 4;
+    private static final long TRANSFER_CHUNK_SIZE = 8 * 1024 * 1024;
+
+    public interface ProgressListener {
+        void onBytesMoved(long movedBytes, long totalBytes);
+    }
+
+    private final File source;
+    private final File target;
+    private final File checkpoint;
+    private final int parallelism;
+
+    private final List<String> directories = new ArrayList<>();
+    private final List<String> pendingFiles = new ArrayList<>();
+    private final AtomicLong movedBytes = new AtomicLong();
+    private long totalBytes;
+    private boolean scanned;
+    private boolean renamed;
+    private boolean renameFailed;
+
+    public StorageMigrationEngine(File source, File target) {
+        this(source, target, DEFAULT_PARALLELISM);
+    }
+
+    public StorageMigrationEngine(File source, File target, int parallelism) {
+        this.source = source;
+        this.target = target;
+        this.checkpoint = getCheckpointFile(target);
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    public static boolean hasCheckpoint(File target) {
+        return getCheckpointFile(target).exists();
+    }
+
+    private static File getCheckpointFile(File target) {
+        return new File(target.getParentFile(), target.getName() + CHECKPOINT_SUFFIX);
+    }
+
+    /**
+     * @return true if the data folder can be moved with a single rename, which was not tried without success yet
+     */
+    public boolean canRename() {
+        return !renameFailed && !target.exists() && !checkpoint.exists() &&
+            isSameVolume(source, target.getParentFile());
+    }
+
+    /**
+     * Walks the source tree once, skipping files already recorded in the checkpoint.
+     *
+     * @return number of bytes that still have to be copied
+     */
+    public long scan() throws IOException {
+        Set<String> done = readCheckpoint();
+        directories.clear();
+        pendingFiles.clear();
+        totalBytes = 0;
+        long doneBytes = 0;
+
+        Deque<String> queue = new ArrayDeque<>();
+        queue.add("");
+        while (!queue.isEmpty()) {
+            String relativeDir = queue.poll();
+            File[] children = new File(source, relativeDir).listFiles();
+            if (children == null) {
+                throw new IOException("Cannot list " + relativeDir);
+            }
+            for (File child : children) {
+                String relativePath = relativeDir + File.separator + child.getName();
+                if (child.isDirectory()) {
+                    directories.add(relativePath);
+                    queue.add(relativePath);
+                } else {
+                    long length = child.length();
+                    totalBytes += length;
+                    if (done.contains(relativePath) && new File(target, relativePath).length() == length) {
+                        doneBytes += length;
+                    } else {
+                        pendingFiles.add(relativePath);
+                    }
+                }
+            }
+        }
+
+        movedBytes.set(doneBytes);
+        scanned = true;
+        return totalBytes - doneBytes;
+    }
+
+    /**
+     * Renames the source folder to the target if both are on the same volume. The rename may still fail, e.g. across
+     * mount points of the same volume, in which case the content has to be copied.
+     *
+     * @return true if the folder was renamed
+     */
+    public boolean rename() {
+        if (!renamed && canRename()) {
+            renamed = source.renameTo(target);
+            if (renamed) {
+                Log_OC.d(TAG, "Renamed " + source + " to " + target);
+            } else {
+                renameFailed = true;
+                Log_OC.w(TAG, "Could not rename " + source + " to " + target);
+            }
+        }
+        return renamed;
+    }
+
+    /**
+     * Moves the source folder to the target, either by renaming it or by copying its content.
+     * The source is left in place after copying; callers delete it once the index has been updated.
+     *
+     * @return true on success; on failure a checkpoint is kept so a later call resumes the copy
+     */
+    public boolean migrate(@Nullable ProgressListener listener) {
+        if (rename()) {
+            return true;
+        }
+
+        try {
+            if (!scanned) {
+                scan();
+            }
+            return copy(listener);
+        } catch (IOException e) {
+            Log_OC.e(TAG, "Migration failed", e);
+            return false;
+        }
+    }
+
+    public boolean wasRenamed() {
+        return renamed;
+    }
+
+    /**
+     * Undoes a rename. Copied files are kept, together with the checkpoint, to allow resuming.
+     */
+    public void rollback() {
+        if (renamed && !target.renameTo(source)) {
+            Log_OC.w(TAG, "Could not rename " + target + " back to " + source);
+        }
+    }
+
+    /**
+     * Removes the checkpoint once the migration has been fully committed.
+     */
+    public void finish() {
+        if (checkpoint.exists() && !checkpoint.delete()) {
+            Log_OC.w(TAG, "Could not delete migration checkpoint " + checkpoint);
+        }
+    }
+
+    private boolean copy(@Nullable ProgressListener listener) throws IOException {
+        if (!target.isDirectory() && !target.mkdirs()) {
+            return false;
+        }
+        for (String directory : directories) {
+            File dir = new File(target, directory);
+            if (!dir.isDirectory() && !dir.mkdirs()) {
+                return false;
+            }
+        }
+
+        if (listener != null) {
+            listener.onBytesMoved(movedBytes.get(), totalBytes);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        try (Writer checkpointWriter = new FileWriter(checkpoint, true)) {
+            List<Future<?>> futures = new ArrayList<>(pendingFiles.size());
+            for (String relativePath : pendingFiles) {
+                futures.add(executor.submit(() -> {
+                    copyFile(new File(source, relativePath), new File(target, relativePath), listener);
+                    synchronized (checkpointWriter) {
+                        checkpointWriter.write(relativePath);
+                        checkpointWriter.write('\n');
+                        checkpointWriter.flush();
+                    }
+                    return null;
+                }));
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            pendingFiles.clear();
+            return true;
+        } catch (ExecutionException e) {
+            Log_OC.e(TAG, "Copying failed", e.getCause());
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void copyFile(File src, File dst, @Nullable ProgressListener listener) throws IOException {
+        File partial = new File(dst.getPath() + PARTIAL_SUFFIX);
+        try (FileChannel in = new FileInputStream(src).getChannel();
+             FileChannel out = new FileOutputStream(partial).getChannel()) {
+            long size = in.size();
+            long position = 0;
+            while (position < size) {
+                long transferred = in.transferTo(position, Math.min(TRANSFER_CHUNK_SIZE, size - position), out);
+                if (transferred <= 0) {
+                    throw new IOException("Transfer stalled for " + src);
+                }
+                position += transferred;
+                long moved = movedBytes.addAndGet(transferred);
+                if (listener != null) {
+                    listener.onBytesMoved(moved, totalBytes);
+                }
+            }
+            out.force(false);
+        }
+
+        if (!partial.renameTo(dst)) {
+            throw new IOException("Cannot rename " + partial + " to " + dst);
+        }
+        dst.setLastModified(src.lastModified());
+    }
+
+    @NonNull
+    private Set<String> readCheckpoint() throws IOException {
+        Set<String> done = new HashSet<>();
+        if (!checkpoint.exists()) {
+            return done;
+        }
+        try (BufferedReader reader = new BufferedReader(new FileReader(checkpoint))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty()) {
+                    done.add(line);
+                }
+            }
+        }
+        return done;
+    }
+
+    private static boolean isSameVolume(File first, @Nullable File second) {
+        if (second == null) {
+            return false;
+        }
+        try {
+            return Os.stat(first.getAbsolutePath()).st_dev == Os.stat(second.getAbsolutePath()).st_dev;
+        } catch (ErrnoException e) {
+            Log_OC.w(TAG, "Cannot stat " + first + " or " + second + ": " + e.getMessage());
+            return false;
+        }
+    }
+}
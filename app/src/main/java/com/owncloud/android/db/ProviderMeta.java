@@ -25,7 +25,7 @@ import java.util.List;
  */
 public class ProviderMeta {
     public static final String DB_NAME = "filelist";
-    public static final int DB_VERSION = 89;
+    public static final int DB_VERSION = 95;
 
     private ProviderMeta() {
         // No instance
@@ -34,6 +34,7 @@ public class ProviderMeta {
     static public class ProviderTableMeta implements BaseColumns {
         public static final String OFFLINE_OPERATION_TABLE_NAME = "offline_operations";
         public static final String FILE_TABLE_NAME = "filelist";
+        public static final String FILE_FTS_TABLE_NAME = "filelist_fts";
         public static final String OCSHARES_TABLE_NAME = "ocshares";
         public static final String CAPABILITIES_TABLE_NAME = "capabilities";
         public static final String UPLOADS_TABLE_NAME = "list_of_uploads";
@@ -42,6 +43,9 @@ public class ProviderMeta {
         public static final String ARBITRARY_DATA_TABLE_NAME = "arbitrary_data";
         public static final String VIRTUAL_TABLE_NAME = "virtual";
         public static final String FILESYSTEM_TABLE_NAME = "filesystem";
+        public static final String SYNCED_FOLDER_CHECKPOINTS_TABLE_NAME = "synced_folder_checkpoints";
+        public static final String SYNCED_FOLDER_DIRECTORIES_TABLE_NAME = "synced_folder_directories";
+        public static final String STORAGE_USAGE_TABLE_NAME = "storage_usage";
         public static final String EDITORS_TABLE_NAME = "editors";
         public static final String CREATORS_TABLE_NAME = "creators";
 
@@ -349,6 +353,23 @@ public class ProviderMeta {
         public static final String FILESYSTEM_SYNCED_FOLDER_ID = "syncedfolder_id";
         public static final String FILESYSTEM_CRC32 = "crc32";
 
+        // Columns of synced folder checkpoints table
+        public static final String SYNCED_FOLDER_CHECKPOINT_SYNCED_FOLDER_ID = "synced_folder_id";
+        public static final String SYNCED_FOLDER_CHECKPOINT_VOLUME = "volume";
+        public static final String SYNCED_FOLDER_CHECKPOINT_MEDIA_STORE_VERSION = "media_store_version";
+        public static final String SYNCED_FOLDER_CHECKPOINT_GENERATION = "generation";
+
+        // Columns of synced folder directories table
+        public static final String SYNCED_FOLDER_DIRECTORY_SYNCED_FOLDER_ID = "synced_folder_id";
+        public static final String SYNCED_FOLDER_DIRECTORY_PATH = "path";
+        public static final String SYNCED_FOLDER_DIRECTORY_PARENT_PATH = "parent_path";
+        public static final String SYNCED_FOLDER_DIRECTORY_MODIFIED = "modified";
+
+        // Columns of storage usage table
+        public static final String STORAGE_USAGE_PATH = "path";
+        public static final String STORAGE_USAGE_BYTES = "bytes";
+        public static final String STORAGE_USAGE_RECONCILED = "reconciled";
+
         public static final String CAPABILITIES_RECOMMENDATION = "recommendation";
 
         private ProviderTableMeta() {
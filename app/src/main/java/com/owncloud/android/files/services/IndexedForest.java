@@ -25,6 +25,7 @@ import java.util.concurrent.ConcurrentMap;
  *  Helper structure to keep the trees of folders containing any file downloading or synchronizing.
  *  A map provides the indexation based in hashing.
  *  A tree is created per account.
+ *  Changes of the trees are serialized by the forest itself, as they may come from several transfers at once.
  */
 public class IndexedForest<V> {
 
@@ -89,7 +90,7 @@ public class IndexedForest<V> {
     }
 
 
-    public /* synchronized */ Pair<String, String> putIfAbsent(String accountName, String remotePath, V value) {
+    public synchronized Pair<String, String> putIfAbsent(String accountName, String remotePath, V value) {
         String targetKey = buildKey(accountName, remotePath);
 
         Node<V> valuedNode = new Node<>(targetKey, value);
@@ -138,7 +139,7 @@ public class IndexedForest<V> {
     }
 
 
-    public Pair<V, String> removePayload(String accountName, String remotePath) {
+    public synchronized Pair<V, String> removePayload(String accountName, String remotePath) {
         String targetKey = buildKey(accountName, remotePath);
         Node<V> target = mMap.get(targetKey);
         if (target != null) {
@@ -151,7 +152,7 @@ public class IndexedForest<V> {
     }
 
 
-    public /* synchronized */ Pair<V, String> remove(String accountName, String remotePath) {
+    public synchronized Pair<V, String> remove(String accountName, String remotePath) {
         String targetKey = buildKey(accountName, remotePath);
         Node<V> firstRemoved = mMap.remove(targetKey);
         String unlinkedFrom = null;
@@ -167,6 +168,11 @@ public class IndexedForest<V> {
                 parent.removeChild(removed);
                 if (!parent.hasChildren()) {
                     removed = mMap.remove(parent.getKey());
+                    if (removed == null) {
+                        // already removed with all the files of its account
+                        parent = null;
+                        break;
+                    }
                     parent = removed.getParent();
                 } else {
                     break;
@@ -193,12 +199,12 @@ public class IndexedForest<V> {
         }
     }
 
-    public boolean contains(String accountName, String remotePath) {
+    public synchronized boolean contains(String accountName, String remotePath) {
         String targetKey = buildKey(accountName, remotePath);
         return mMap.containsKey(targetKey);
     }
 
-    public /* synchronized */ V get(String key) {
+    public synchronized V get(String key) {
         Node<V> node = mMap.get(key);
         if (node != null) {
             return node.getPayload();
@@ -217,7 +223,7 @@ public class IndexedForest<V> {
      * Remove the elements that contains account as a part of its key
      * @param accountName
      */
-    public void remove(String accountName){
+    public synchronized void remove(String accountName){
         Iterator<String> it = mMap.keySet().iterator();
         while (it.hasNext()) {
             String key = it.next();
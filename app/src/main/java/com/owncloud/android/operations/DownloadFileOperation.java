@@ -23,6 +23,7 @@ import com.owncloud.android.R;
 import com.owncloud.android.datamodel.ArbitraryDataProviderImpl;
 import com.owncloud.android.datamodel.FileDataStorageManager;
 import com.owncloud.android.datamodel.OCFile;
+import com.owncloud.android.datamodel.StorageUsageLedger;
 import com.owncloud.android.datamodel.e2e.v1.decrypted.DecryptedFolderMetadataFileV1;
 import com.owncloud.android.datamodel.e2e.v2.decrypted.DecryptedFile;
 import com.owncloud.android.datamodel.e2e.v2.decrypted.DecryptedFolderMetadataFile;
@@ -32,7 +33,6 @@ import com.owncloud.android.lib.common.operations.OperationCancelledException;
 import com.owncloud.android.lib.common.operations.RemoteOperation;
 import com.owncloud.android.lib.common.operations.RemoteOperationResult;
 import com.owncloud.android.lib.common.utils.Log_OC;
-import com.owncloud.android.lib.resources.files.DownloadFileRemoteOperation;
 import com.owncloud.android.utils.EncryptionUtils;
 import com.owncloud.android.utils.FileExportUtils;
 import com.owncloud.android.utils.FileStorageUtils;
@@ -65,7 +65,7 @@ public class DownloadFileOperation extends RemoteOperation {
     private final WeakReference<Context> context;
     private Set<OnDatatransferProgressListener> dataTransferListeners = new HashSet<>();
     private long modificationTimestamp;
-    private DownloadFileRemoteOperation downloadOperation;
+    private ResumableDownloadRemoteOperation downloadOperation;
     private final AtomicBoolean cancellationRequested = new AtomicBoolean(false);
     private final Handler mainThreadHandler = new Handler(Looper.getMainLooper());
 
@@ -183,14 +183,17 @@ public class DownloadFileOperation extends RemoteOperation {
 
         RemoteOperationResult result;
         File newFile = null;
+        long previousLength = 0;
         boolean moved;
 
         /// download will be performed to a temporal file, then moved to the final location
         File tmpFile = new File(getTmpPath());
 
-        String tmpFolder = getTmpFolder();
-
-        downloadOperation = new DownloadFileRemoteOperation(file.getRemotePath(), tmpFolder);
+        downloadOperation = new ResumableDownloadRemoteOperation(file.getRemotePath(),
+                                                                 tmpFile,
+                                                                 file.getFileLength(),
+                                                                 getSegmentCount(operationContext),
+                                                                 getSegmentThreshold(operationContext));
 
         if (downloadType == DownloadType.DOWNLOAD) {
             Iterator<OnDatatransferProgressListener> listener = dataTransferListeners.iterator();
@@ -199,9 +202,13 @@ public class DownloadFileOperation extends RemoteOperation {
             }
         }
 
-        result = downloadOperation.execute(client);
-
+        synchronized (cancellationRequested) {
+            if (cancellationRequested.get()) {
+                return new RemoteOperationResult<>(new OperationCancelledException());
+            }
+        }
 
+        result = downloadOperation.execute(client);
 
         if (result.isSuccess()) {
             modificationTimestamp = downloadOperation.getModificationTimestamp();
@@ -209,6 +216,7 @@ public class DownloadFileOperation extends RemoteOperation {
 
             if (downloadType == DownloadType.DOWNLOAD) {
                 newFile = new File(getSavePath());
+                previousLength = newFile.length();
 
                 if (!newFile.getParentFile().exists() && !newFile.getParentFile().mkdirs()) {
                     Log_OC.e(TAG, "Unable to create parent folder " + newFile.getParentFile().getAbsolutePath());
@@ -267,6 +275,9 @@ public class DownloadFileOperation extends RemoteOperation {
                 try {
                     Cipher cipher = EncryptionUtils.getCipher(Cipher.DECRYPT_MODE, key, iv);
                     EncryptionUtils.decryptFile(cipher, tmpFile, newFile, authenticationTagString, new ArbitraryDataProviderImpl(operationContext), user);
+                    if (downloadType == DownloadType.DOWNLOAD) {
+                        StorageUsageLedger.getInstance().onFileWritten(newFile, previousLength);
+                    }
                 } catch (Exception e) {
                     return new RemoteOperationResult(e);
                 }
@@ -276,7 +287,9 @@ public class DownloadFileOperation extends RemoteOperation {
                 moved = tmpFile.renameTo(newFile);
                 boolean isLastModifiedSet = newFile.setLastModified(file.getModificationTimestamp());
                 Log_OC.d(TAG, "Last modified set: " + isLastModifiedSet);
-                if (!moved) {
+                if (moved) {
+                    StorageUsageLedger.getInstance().onFileWritten(newFile, previousLength);
+                } else {
                     result = new RemoteOperationResult(RemoteOperationResult.ResultCode.LOCAL_STORAGE_NOT_MOVED);
                 }
             } else if (downloadType == DownloadType.EXPORT) {
@@ -297,10 +310,20 @@ public class DownloadFileOperation extends RemoteOperation {
         return result;
     }
 
+    private int getSegmentCount(Context context) {
+        return context.getResources().getInteger(R.integer.download_segments);
+    }
+
+    private long getSegmentThreshold(Context context) {
+        return context.getResources().getInteger(R.integer.download_segment_threshold_mb) * 1024L * 1024L;
+    }
+
     public void cancel() {
-        cancellationRequested.set(true);   // atomic set; there is no need of synchronizing it
-        if (downloadOperation != null) {
-            downloadOperation.cancel();
+        synchronized (cancellationRequested) {
+            cancellationRequested.set(true);
+            if (downloadOperation != null) {
+                downloadOperation.cancel();
+            }
         }
     }
 
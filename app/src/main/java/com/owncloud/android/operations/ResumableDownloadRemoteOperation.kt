@@ -0,0 +1,438 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later OR GPL-2.0-only
+ */
+package com.owncloud.android.operations
+
+import com.owncloud.android.lib.common.OwnCloudClient
+import com.owncloud.android.lib.common.network.OnDatatransferProgressListener
+import com.owncloud.android.lib.common.operations.OperationCancelledException
+import com.owncloud.android.lib.common.operations.RemoteOperation
+import com.owncloud.android.lib.common.operations.RemoteOperationResult
+import com.owncloud.android.lib.common.utils.Log_OC
+import org.apache.commons.httpclient.HttpStatus
+import org.apache.commons.httpclient.methods.GetMethod
+import org.apache.commons.httpclient.util.DateParseException
+import org.apache.commons.httpclient.util.DateUtil
+import java.io.File
+import java.io.IOException
+import java.io.InputStream
+import java.io.RandomAccessFile
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.util.Properties
+import java.util.concurrent.Callable
+import java.util.concurrent.CopyOnWriteArraySet
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.Executors
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Downloads a remote file into [tmpFile], continuing a previously interrupted download of the same file.
+ *
+ * The ETag of the downloaded content and the progress are kept next to the temporary file. A later run only
+ * requests the missing bytes with `Range` and `If-Range`, so the server sends the whole file again if it changed in
+ * between. Files of at least [segmentThreshold] bytes are fetched in up to [segmentCount] ranges in parallel.
+ *
+ * The temporary file is kept if the download fails, so a later run can continue it, and deleted if it is cancelled
+ * or the remote file cannot be downloaded anymore.
+ */
+@Suppress("TooManyFunctions")
+class ResumableDownloadRemoteOperation(
+    private val remotePath: String,
+    private val tmpFile: File,
+    private val expectedLength: Long,
+    private val segmentCount: Int,
+    private val segmentThreshold: Long
+) : RemoteOperation<Void>() {
+
+    companion object {
+        private val TAG = ResumableDownloadRemoteOperation::class.java.simpleName
+
+        private const val STATE_SUFFIX = ".download"
+        private const val KEY_ETAG = "etag"
+        private const val KEY_SEGMENTS = "segments"
+        private const val KEY_SEGMENT = "segment."
+        private const val KEY_MODIFIED = "modified"
+        private const val OPEN_END = -1L
+        private const val BUFFER_SIZE = 32 * 1024
+        private const val CHECKPOINT_BYTES = 1024 * 1024L
+        private const val HEADER_OC_ETAG = "OC-ETag"
+        private const val HEADER_ETAG = "ETag"
+        private const val HEADER_CONTENT_RANGE = "Content-Range"
+        private const val HEADER_LAST_MODIFIED = "Last-Modified"
+        private const val UNSATISFIED_RANGE_PREFIX = "bytes */"
+
+        // statuses after which the partial download is of no use anymore
+        private val PERMANENT_FAILURES = setOf(
+            HttpStatus.SC_FORBIDDEN,
+            HttpStatus.SC_NOT_FOUND,
+            HttpStatus.SC_GONE
+        )
+    }
+
+    /**
+     * Bytes [start] to [end] of the file, of which the first [done] are already stored.
+     */
+    private class Segment(val start: Long, val end: Long, @Volatile var done: Long = 0) {
+        val position: Long
+            get() = start + done
+
+        val isComplete: Boolean
+            get() = end != OPEN_END && position > end
+
+        val range: String
+            get() = "bytes=$position-" + if (end == OPEN_END) "" else end.toString()
+    }
+
+    private class State(val eTag: String, val segments: List<Segment>, val modificationTimestamp: Long) {
+        val length: Long
+            get() = segments.maxOf { if (it.end == OPEN_END) it.position else it.end + 1 }
+    }
+
+    /**
+     * Thrown if the server answers a ranged request with the complete, changed file.
+     */
+    private class ContentChangedException : IOException()
+
+    /**
+     * Thrown if the server reports that a resumed open ended segment already reaches the end of the file.
+     */
+    private class SegmentCompleteException : IOException()
+
+    private val listeners = CopyOnWriteArraySet<OnDatatransferProgressListener>()
+    private val runningMethods = CopyOnWriteArraySet<GetMethod>()
+    private val cancelled = AtomicBoolean(false)
+    private val transferred = AtomicLong()
+    private val stateFile = File(tmpFile.path + STATE_SUFFIX)
+
+    private var totalLength = expectedLength
+
+    /**
+     * ETag of the downloaded file, without quotes.
+     */
+    var etag: String = ""
+        private set
+
+    var modificationTimestamp = 0L
+        private set
+
+    fun addDatatransferProgressListener(listener: OnDatatransferProgressListener) {
+        listeners.add(listener)
+    }
+
+    fun cancel() {
+        cancelled.set(true)
+        runningMethods.forEach { it.abort() }
+    }
+
+    @Deprecated("Deprecated in Java")
+    @Suppress("TooGenericExceptionCaught")
+    override fun run(client: OwnCloudClient): RemoteOperationResult<Void> {
+        tmpFile.parentFile?.mkdirs()
+        val state = readState()
+        if (state == null) {
+            tmpFile.delete()
+        }
+
+        return try {
+            RandomAccessFile(tmpFile, "rw").use { file ->
+                val finalState = if (state != null) {
+                    try {
+                        resume(client, file.channel, state)
+                    } catch (e: ContentChangedException) {
+                        Log_OC.d(TAG, "$remotePath changed on server, downloading it again")
+                        file.channel.truncate(0)
+                        start(client, file.channel)
+                    }
+                } else {
+                    start(client, file.channel)
+                }
+                file.channel.truncate(finalState.length)
+            }
+            stateFile.delete()
+            RemoteOperationResult(RemoteOperationResult.ResultCode.OK)
+        } catch (e: HttpStatusException) {
+            if (e.method.statusCode in PERMANENT_FAILURES) {
+                tmpFile.delete()
+                stateFile.delete()
+            }
+            RemoteOperationResult(false, e.method)
+        } catch (e: Exception) {
+            if (cancelled.get()) {
+                tmpFile.delete()
+                stateFile.delete()
+                RemoteOperationResult(OperationCancelledException())
+            } else {
+                Log_OC.e(TAG, "Download of $remotePath interrupted at ${transferred.get()} bytes", e)
+                RemoteOperationResult(e)
+            }
+        } finally {
+            runningMethods.clear()
+        }
+    }
+
+    /**
+     * Requests the file from its start. If it is large and the server supports ranges, the first response only
+     * covers the first segment and the others are requested in parallel.
+     */
+    private fun start(client: OwnCloudClient, channel: FileChannel): State {
+        transferred.set(0)
+        val segmented = segmentCount > 1 && expectedLength >= segmentThreshold
+        val first = Segment(0, if (segmented) expectedLength / segmentCount - 1 else OPEN_END)
+        val get = request(client, first, null)
+
+        readHeaders(get)
+        return if (get.statusCode == HttpStatus.SC_PARTIAL_CONTENT) {
+            val head = Segment(0, minOf(first.end, totalLength - 1))
+            val state = State(getETag(get), planSegments(head), modificationTimestamp)
+            writeState(state)
+            download(client, channel, state, state.segments.drop(1), get to head)
+            state
+        } else {
+            val state = State(getETag(get), listOf(Segment(0, OPEN_END)), modificationTimestamp)
+            writeState(state)
+            copy(get, channel, state, state.segments[0])
+            state
+        }
+    }
+
+    /**
+     * Requests the missing part of every segment, as long as the file still has the stored ETag.
+     */
+    private fun resume(client: OwnCloudClient, channel: FileChannel, state: State): State {
+        val done = state.segments.sumOf { it.done }
+        transferred.set(done)
+        Log_OC.d(TAG, "Resuming download of $remotePath at $done bytes")
+        etag = state.eTag.trim('"')
+        modificationTimestamp = state.modificationTimestamp
+        download(client, channel, state, state.segments.filter { !it.isComplete }, null)
+        return state
+    }
+
+    private fun download(
+        client: OwnCloudClient,
+        channel: FileChannel,
+        state: State,
+        pending: List<Segment>,
+        started: Pair<GetMethod, Segment>?
+    ) {
+        val tasks = pending.map { segment ->
+            Callable {
+                val get = try {
+                    request(client, segment, state.eTag)
+                } catch (e: SegmentCompleteException) {
+                    return@Callable
+                }
+                if (get.statusCode != HttpStatus.SC_PARTIAL_CONTENT) {
+                    get.releaseConnection()
+                    throw ContentChangedException()
+                }
+                readHeaders(get)
+                copy(get, channel, state, segment)
+            }
+        }
+
+        if (tasks.size <= 1 && started == null) {
+            tasks.forEach { it.call() }
+            return
+        }
+
+        val executor = Executors.newFixedThreadPool(tasks.size.coerceAtLeast(1))
+        try {
+            val futures = tasks.map { executor.submit(it) }
+            started?.let { (get, segment) -> copy(get, channel, state, segment) }
+            futures.forEach { future ->
+                try {
+                    future.get()
+                } catch (e: ExecutionException) {
+                    runningMethods.forEach { it.abort() }
+                    throw e.cause ?: e
+                }
+            }
+        } finally {
+            executor.shutdownNow()
+        }
+    }
+
+    private fun request(client: OwnCloudClient, segment: Segment, ifRange: String?): GetMethod {
+        val get = GetMethod(client.getFilesDavUri(remotePath))
+        if (segment.position > 0 || segment.end != OPEN_END) {
+            get.setRequestHeader("Range", segment.range)
+        }
+        if (ifRange != null) {
+            get.setRequestHeader("If-Range", ifRange)
+        }
+        runningMethods.add(get)
+        if (cancelled.get()) {
+            throw OperationCancelledException()
+        }
+
+        val status = client.executeMethod(get)
+        if (status != HttpStatus.SC_OK && status != HttpStatus.SC_PARTIAL_CONTENT) {
+            val isUnsatisfiedRange = ifRange != null && status == HttpStatus.SC_REQUESTED_RANGE_NOT_SATISFIABLE
+            val isComplete = isUnsatisfiedRange && isAtEnd(get, segment)
+            client.exhaustResponse(get.responseBodyAsStream)
+            runningMethods.remove(get)
+            get.releaseConnection()
+            when {
+                isComplete -> throw SegmentCompleteException()
+                isUnsatisfiedRange -> throw ContentChangedException()
+                else -> throw HttpStatusException(get)
+            }
+        }
+        return get
+    }
+
+    /**
+     * An open ended range starting at the end of the file cannot be satisfied. As the server only applies the range
+     * while the file has the ETag given in `If-Range`, the segment is complete if the length of the file given in the
+     * `Content-Range` header of the response is where the segment ends locally.
+     */
+    private fun isAtEnd(get: GetMethod, segment: Segment): Boolean {
+        val length = get.getResponseHeader(HEADER_CONTENT_RANGE)?.value
+            ?.trim()
+            ?.takeIf { it.startsWith(UNSATISFIED_RANGE_PREFIX) }
+            ?.substringAfter(UNSATISFIED_RANGE_PREFIX)
+            ?.toLongOrNull()
+        if (segment.end != OPEN_END || length != segment.position) {
+            return false
+        }
+        totalLength = segment.position
+        return true
+    }
+
+    /**
+     * Writes the response body at the current position of [segment] and regularly records the progress, so an
+     * interrupted download continues where it stopped.
+     */
+    private fun copy(get: GetMethod, channel: FileChannel, state: State, segment: Segment) {
+        try {
+            val input: InputStream = get.responseBodyAsStream ?: return
+            val buffer = ByteArray(BUFFER_SIZE)
+            var unsaved = 0L
+            while (true) {
+                if (cancelled.get()) {
+                    throw OperationCancelledException()
+                }
+                val remaining = if (segment.end == OPEN_END) Long.MAX_VALUE else segment.end - segment.position + 1
+                if (remaining <= 0) {
+                    break
+                }
+                val read = input.read(buffer, 0, minOf(BUFFER_SIZE.toLong(), remaining).toInt())
+                if (read < 0) {
+                    break
+                }
+
+                channel.write(ByteBuffer.wrap(buffer, 0, read), segment.position)
+                segment.done += read
+                unsaved += read
+                if (unsaved >= CHECKPOINT_BYTES) {
+                    writeState(state)
+                    unsaved = 0
+                }
+                notifyProgress(read.toLong())
+            }
+            if (segment.end != OPEN_END && !segment.isComplete) {
+                throw IOException("Connection closed at ${segment.position} of segment ending at ${segment.end}")
+            }
+        } finally {
+            writeState(state)
+            runningMethods.remove(get)
+            get.releaseConnection()
+        }
+    }
+
+    private fun planSegments(first: Segment): List<Segment> {
+        val size = (totalLength - first.end - 1 + segmentCount - 2) / (segmentCount - 1)
+        val segments = mutableListOf(first)
+        var start = first.end + 1
+        while (start < totalLength) {
+            val end = minOf(start + size, totalLength) - 1
+            segments.add(Segment(start, end))
+            start = end + 1
+        }
+        return segments
+    }
+
+    private fun readHeaders(get: GetMethod) {
+        etag = getETag(get).trim('"')
+
+        get.getResponseHeader(HEADER_CONTENT_RANGE)?.value
+            ?.substringAfterLast('/')
+            ?.toLongOrNull()
+            ?.let { totalLength = it }
+
+        get.getResponseHeader(HEADER_LAST_MODIFIED)?.value?.let {
+            try {
+                modificationTimestamp = DateUtil.parseDate(it).time
+            } catch (e: DateParseException) {
+                Log_OC.w(TAG, "Could not parse Last-Modified $it")
+            }
+        }
+    }
+
+    private fun getETag(get: GetMethod): String =
+        (get.getResponseHeader(HEADER_OC_ETAG) ?: get.getResponseHeader(HEADER_ETAG))?.value.orEmpty()
+
+    private fun notifyProgress(read: Long) {
+        val total = transferred.addAndGet(read)
+        synchronized(listeners) {
+            listeners.forEach { it.onTransferProgress(read, total, totalLength, tmpFile.name) }
+        }
+    }
+
+    private fun readState(): State? {
+        if (!stateFile.exists() || !tmpFile.exists()) {
+            return null
+        }
+
+        return try {
+            val properties = Properties()
+            stateFile.inputStream().use { properties.load(it) }
+            val eTag = properties.getProperty(KEY_ETAG)
+            val count = properties.getProperty(KEY_SEGMENTS)?.toIntOrNull()
+            if (eTag.isNullOrEmpty() || count == null || eTag.startsWith("W/")) {
+                return null
+            }
+            val segments = (0 until count).map { index ->
+                val (start, end, done) = properties.getProperty(KEY_SEGMENT + index).split(',').map { it.toLong() }
+                Segment(start, end, done)
+            }
+            State(eTag, segments, properties.getProperty(KEY_MODIFIED)?.toLongOrNull() ?: 0L)
+        } catch (e: IOException) {
+            Log_OC.w(TAG, "Could not read download state of $remotePath: ${e.message}")
+            null
+        } catch (e: RuntimeException) {
+            Log_OC.w(TAG, "Invalid download state of $remotePath: ${e.message}")
+            null
+        }
+    }
+
+    private fun writeState(state: State) {
+        if (state.eTag.isEmpty()) {
+            return
+        }
+
+        val properties = Properties()
+        properties.setProperty(KEY_ETAG, state.eTag)
+        properties.setProperty(KEY_SEGMENTS, state.segments.size.toString())
+        properties.setProperty(KEY_MODIFIED, state.modificationTimestamp.toString())
+        state.segments.forEachIndexed { index, segment ->
+            properties.setProperty(KEY_SEGMENT + index, "${segment.start},${segment.end},${segment.done}")
+        }
+
+        synchronized(stateFile) {
+            try {
+                stateFile.outputStream().use { properties.store(it, null) }
+            } catch (e: IOException) {
+                Log_OC.w(TAG, "Could not store download state of $remotePath: ${e.message}")
+            }
+        }
+    }
+
+    private class HttpStatusException(val method: GetMethod) : IOException("Unexpected status ${method.statusCode}")
+}
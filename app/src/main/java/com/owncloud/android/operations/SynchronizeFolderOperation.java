@@ -38,9 +38,11 @@ import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.Vector;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+import androidx.annotation.Nullable;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
 /**
@@ -88,6 +90,9 @@ public class SynchronizeFolderOperation extends SyncOperation {
 
     private final boolean syncInBackgroundWorker;
 
+    /** Local paths changed since the last synchronization, if known */
+    private Set<String> mLocalChanges;
+
     /**
      * Creates a new instance of {@link SynchronizeFolderOperation}.
      *
@@ -113,6 +118,16 @@ public class SynchronizeFolderOperation extends SyncOperation {
     }
 
 
+    /**
+     * Sets the local paths changed since the folder was last synchronized. If the remote folder did not change
+     * either, only these files are checked for local modifications instead of all downloaded ones.
+     *
+     * @param localChanges Absolute local paths, or null if unknown.
+     */
+    public void setLocalChanges(@Nullable Set<String> localChanges) {
+        mLocalChanges = localChanges;
+    }
+
     /**
      * Performs the synchronization.
      *
@@ -415,6 +430,9 @@ public class SynchronizeFolderOperation extends SyncOperation {
             if (!child.isFolder()) {
                 if (!child.isDown()) {
                     mFilesForDirectDownload.add(child);
+                } else if (mLocalChanges != null && child.getEtagInConflict() == null &&
+                    !mLocalChanges.contains(child.getStoragePath())) {
+                    Log_OC.v(TAG, "No local changes in " + child.getRemotePath());
                 } else {
                     /// this should result in direct upload of files that were locally modified
                     SynchronizeFileOperation operation = new SynchronizeFileOperation(
@@ -28,6 +28,7 @@ import com.owncloud.android.datamodel.ArbitraryDataProvider;
 import com.owncloud.android.datamodel.ArbitraryDataProviderImpl;
 import com.owncloud.android.datamodel.FileDataStorageManager;
 import com.owncloud.android.datamodel.OCFile;
+import com.owncloud.android.datamodel.StorageUsageLedger;
 import com.owncloud.android.datamodel.ThumbnailsCacheManager;
 import com.owncloud.android.datamodel.UploadsStorageManager;
 import com.owncloud.android.datamodel.e2e.v1.decrypted.Data;
@@ -1456,6 +1457,7 @@ public class UploadFileOperation extends SyncOperation {
                 return new RemoteOperationResult(ResultCode.CANNOT_CREATE_FILE);
             }
 
+            long previousLength = targetFile.length();
             Log_OC.d(TAG, "Creating temporal file");
             if (!targetFile.createNewFile() && !targetFile.isFile()) {
                 return new RemoteOperationResult(ResultCode.CANNOT_CREATE_FILE);
@@ -1508,6 +1510,7 @@ public class UploadFileOperation extends SyncOperation {
                         targetFile.getAbsolutePath() + " (ignoring)", e);
                 }
             }
+            StorageUsageLedger.getInstance().onFileWritten(targetFile, previousLength);
         }
         return new RemoteOperationResult(ResultCode.OK);
     }
@@ -1529,6 +1532,8 @@ public class UploadFileOperation extends SyncOperation {
             expectedFolder.mkdirs();
 
             if (expectedFolder.isDirectory()) {
+                long length = sourceFile.length();
+                long previousLength = targetFile.length();
                 if (!sourceFile.renameTo(targetFile)) {
                     // try to copy and then delete
                     targetFile.createNewFile();
@@ -1551,6 +1556,11 @@ public class UploadFileOperation extends SyncOperation {
                     }
                 }
 
+                if (!sourceFile.exists()) {
+                    StorageUsageLedger ledger = StorageUsageLedger.getInstance();
+                    ledger.onRemoved(sourceFile, length);
+                    ledger.onFileWritten(targetFile, previousLength);
+                }
             } else {
                 mFile.setStoragePath("");
             }
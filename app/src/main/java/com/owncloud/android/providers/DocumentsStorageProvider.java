@@ -34,6 +34,7 @@ import com.nextcloud.client.jobs.upload.FileUploadWorker;
 import com.nextcloud.client.preferences.AppPreferences;
 import com.nextcloud.client.preferences.AppPreferencesImpl;
 import com.nextcloud.client.utils.HashUtil;
+import com.nextcloud.model.LocalFileSearchQuery;
 import com.nextcloud.utils.extensions.ContextExtensionsKt;
 import com.nextcloud.utils.fileNameValidator.FileNameValidator;
 import com.owncloud.android.MainApp;
@@ -70,9 +71,7 @@ import org.nextcloud.providers.cursors.RootCursor;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.Executor;
@@ -483,8 +482,8 @@ public class DocumentsStorageProvider extends DocumentsProvider {
             return result;
         }
 
-        for (Document d : findFiles(new Document(storageManager, ROOT_PATH), query)) {
-            result.addFile(d);
+        for (OCFile file : storageManager.searchLocalFiles(LocalFileSearchQuery.fileNameContaining(query))) {
+            result.addFile(new Document(storageManager, file));
         }
 
         return result;
@@ -734,19 +733,6 @@ public class DocumentsStorageProvider extends DocumentsProvider {
         }
     }
 
-    private List<Document> findFiles(Document root, String query) {
-        FileDataStorageManager storageManager = root.getStorageManager();
-        List<Document> result = new ArrayList<>();
-        for (OCFile f : storageManager.getFolderContent(root.getFile(), false)) {
-            if (f.isFolder()) {
-                result.addAll(findFiles(new Document(storageManager, f), query));
-            } else if (f.getFileName().contains(query)) {
-                result.add(new Document(storageManager, f));
-            }
-        }
-        return result;
-    }
-
     private Uri toNotifyUri(Document document) {
         return DocumentsContract.buildDocumentUri(
             getContext().getString(R.string.document_provider_authority),
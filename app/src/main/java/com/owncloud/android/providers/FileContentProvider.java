@@ -32,7 +32,6 @@ import com.owncloud.android.R;
 import com.owncloud.android.db.ProviderMeta.ProviderTableMeta;
 import com.owncloud.android.lib.common.utils.Log_OC;
 import com.owncloud.android.lib.resources.shares.ShareType;
-import com.owncloud.android.utils.MimeType;
 
 import java.util.ArrayList;
 import java.util.Locale;
@@ -70,10 +69,14 @@ public class FileContentProvider extends ContentProvider {
     private static final String ERROR = "ERROR ";
     private static final int SINGLE_PATH_SEGMENT = 1;
     public static final int MINIMUM_PATH_SEGMENTS_SIZE = 1;
+    // ids of all files below the folder with the given id; UNION stops at rows already visited
+    private static final String DESCENDANTS_QUERY = "WITH RECURSIVE descendants(id) AS (" +
+        "SELECT " + ProviderTableMeta._ID + " FROM " + ProviderTableMeta.FILE_TABLE_NAME +
+        " WHERE " + ProviderTableMeta.FILE_PARENT + " = ?" +
+        " UNION SELECT f." + ProviderTableMeta._ID + " FROM " + ProviderTableMeta.FILE_TABLE_NAME + " f" +
+        " JOIN descendants d ON f." + ProviderTableMeta.FILE_PARENT + " = d.id" +
+        ") SELECT id FROM descendants";
 
-    private static final String[] PROJECTION_CONTENT_TYPE = new String[]{
-        ProviderTableMeta._ID, ProviderTableMeta.FILE_CONTENT_TYPE
-    };
     private static final String[] PROJECTION_REMOTE_ID = new String[]{
         ProviderTableMeta._ID, ProviderTableMeta.FILE_REMOTE_ID
     };
@@ -136,36 +139,17 @@ public class FileContentProvider extends ContentProvider {
     }
 
     private int deleteDirectory(SupportSQLiteDatabase db, Uri uri, String where, String... whereArgs) {
-        int count = 0;
-
-        Cursor children = query(uri, PROJECTION_CONTENT_TYPE, null, null, null);
-        if (children != null) {
-            if (children.moveToFirst()) {
-                long childId;
-                boolean isDir;
-                while (!children.isAfterLast()) {
-                    childId = children.getLong(children.getColumnIndexOrThrow(ProviderTableMeta._ID));
-                    isDir = MimeType.DIRECTORY.equals(children.getString(
-                        children.getColumnIndexOrThrow(ProviderTableMeta.FILE_CONTENT_TYPE)
-                    ));
-                    if (isDir) {
-                        count += delete(db, ContentUris.withAppendedId(ProviderTableMeta.CONTENT_URI_DIR, childId),
-                                        null, (String[]) null);
-                    } else {
-                        count += delete(db, ContentUris.withAppendedId(ProviderTableMeta.CONTENT_URI_FILE, childId),
-                                        null, (String[]) null);
-                    }
-                    children.moveToNext();
-                }
-            }
-            children.close();
+        if (uri.getPathSegments().size() <= MINIMUM_PATH_SEGMENTS_SIZE) {
+            // no folder id, the selection alone (e.g. the account) tells which files are deleted
+            return db.delete(ProviderTableMeta.FILE_TABLE_NAME, where, whereArgs);
         }
 
-        if (uri.getPathSegments().size() > MINIMUM_PATH_SEGMENTS_SIZE) {
-            count += deleteWithUri(db, uri, where, whereArgs);
-        }
+        // all descendants at once, following the parent ids down from the folder
+        int count = db.delete(ProviderTableMeta.FILE_TABLE_NAME,
+                              ProviderTableMeta._ID + " IN (" + DESCENDANTS_QUERY + ")",
+                              new String[]{uri.getPathSegments().get(1)});
 
-        return count;
+        return count + deleteWithUri(db, uri, where, whereArgs);
     }
 
     private int deleteSingleFile(SupportSQLiteDatabase db, Uri uri, String where, String... whereArgs) {
@@ -287,7 +271,7 @@ public class FileContentProvider extends ContentProvider {
 
             case UPLOADS:
                 Uri insertedUploadUri;
-                long uploadId = db.insert(ProviderTableMeta.UPLOADS_TABLE_NAME, SQLiteDatabase.CONFLICT_REPLACE, values);
+                long uploadId = upsertUpload(db, values);
                 if (uploadId > 0) {
                     insertedUploadUri = ContentUris.withAppendedId(ProviderTableMeta.CONTENT_URI_UPLOADS, uploadId);
                 } else {
@@ -343,6 +327,47 @@ public class FileContentProvider extends ContentProvider {
         }
     }
 
+    /**
+     * Inserts an upload, or updates the upload with the same local path, remote path and account in place. Unlike
+     * CONFLICT_REPLACE, which deletes the existing row and inserts a new one, the upload keeps its id.
+     *
+     * @return id of the inserted or updated upload, -1 if neither was possible
+     */
+    private long upsertUpload(SupportSQLiteDatabase db, ContentValues values) {
+        long id = db.insert(ProviderTableMeta.UPLOADS_TABLE_NAME, SQLiteDatabase.CONFLICT_IGNORE, values);
+        if (id != -1) {
+            return id;
+        }
+
+        String localPath = values.getAsString(ProviderTableMeta.UPLOADS_LOCAL_PATH);
+        String remotePath = values.getAsString(ProviderTableMeta.UPLOADS_REMOTE_PATH);
+        String accountName = values.getAsString(ProviderTableMeta.UPLOADS_ACCOUNT_NAME);
+        if (localPath == null || remotePath == null || accountName == null) {
+            return -1;
+        }
+
+        try (Cursor cursor = db.query("SELECT " + ProviderTableMeta._ID + " FROM " +
+                                          ProviderTableMeta.UPLOADS_TABLE_NAME + " WHERE " +
+                                          ProviderTableMeta.UPLOADS_LOCAL_PATH + " = ? AND " +
+                                          ProviderTableMeta.UPLOADS_REMOTE_PATH + " = ? AND " +
+                                          ProviderTableMeta.UPLOADS_ACCOUNT_NAME + " = ?",
+                                      new Object[]{localPath, remotePath, accountName})) {
+            if (!cursor.moveToFirst()) {
+                return -1;
+            }
+            id = cursor.getLong(0);
+        }
+
+        ContentValues updateValues = new ContentValues(values);
+        updateValues.remove(ProviderTableMeta._ID);
+        db.update(ProviderTableMeta.UPLOADS_TABLE_NAME,
+                  SQLiteDatabase.CONFLICT_IGNORE,
+                  updateValues,
+                  ProviderTableMeta._ID + " = ?",
+                  new Object[]{id});
+        return id;
+    }
+
     private void updateFilesTableAccordingToShareInsertion(SupportSQLiteDatabase db, ContentValues newShare) {
         ContentValues fileValues = new ContentValues();
         ShareType newShareType = ShareType.fromValue(newShare.getAsInteger(ProviderTableMeta.OCSHARES_SHARE_TYPE));
@@ -560,8 +585,9 @@ public class FileContentProvider extends ContentProvider {
                 db.update(ProviderTableMeta.OCSHARES_TABLE_NAME, SQLiteDatabase.CONFLICT_REPLACE, values, selection, selectionArgs);
             case CAPABILITIES ->
                 db.update(ProviderTableMeta.CAPABILITIES_TABLE_NAME, SQLiteDatabase.CONFLICT_REPLACE, values, selection, selectionArgs);
+            // replacing would delete the other upload with the same paths, so such an update is skipped instead
             case UPLOADS ->
-                db.update(ProviderTableMeta.UPLOADS_TABLE_NAME, SQLiteDatabase.CONFLICT_REPLACE, values, selection, selectionArgs);
+                db.update(ProviderTableMeta.UPLOADS_TABLE_NAME, SQLiteDatabase.CONFLICT_IGNORE, values, selection, selectionArgs);
             case SYNCED_FOLDERS ->
                 db.update(ProviderTableMeta.SYNCED_FOLDERS_TABLE_NAME, SQLiteDatabase.CONFLICT_REPLACE, values, selection, selectionArgs);
             case FILESYSTEM ->
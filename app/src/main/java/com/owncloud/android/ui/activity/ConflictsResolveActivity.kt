@@ -150,7 +150,7 @@ class ConflictsResolveActivity : FileActivity(), OnConflictDecisionMadeListener
 
     private fun keepServerFile(offlineOperation: OfflineOperationEntity?) {
         offlineOperation ?: return
-        fileDataStorageManager.offlineOperationDao.delete(offlineOperation)
+        fileDataStorageManager.deleteOfflineOperation(offlineOperation)
 
         val id = offlineOperation.id ?: return
         offlineOperationNotificationManager.dismissNotification(id)
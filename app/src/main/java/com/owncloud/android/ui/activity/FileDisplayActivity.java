@@ -55,6 +55,7 @@ import com.nextcloud.client.core.Clock;
 import com.nextcloud.client.di.Injectable;
 import com.nextcloud.client.editimage.EditImageActivity;
 import com.nextcloud.client.files.DeepLinkHandler;
+import com.nextcloud.client.files.FileChangeBus;
 import com.nextcloud.client.jobs.download.FileDownloadHelper;
 import com.nextcloud.client.jobs.download.FileDownloadWorker;
 import com.nextcloud.client.jobs.upload.FileUploadHelper;
@@ -1403,10 +1404,8 @@ public class FileDisplayActivity extends FileActivity
                             }
 
                             if (currentDir.getRemotePath().equals(synchFolderRemotePath)) {
-                                OCFileListFragment fileListFragment = getListOfFilesFragment();
-                                if (fileListFragment != null) {
-                                    fileListFragment.listDirectory(currentDir, MainApp.isOnlyOnDevice(), false);
-                                }
+                                // coalesced with other changes of the folder, e.g. finished uploads
+                                FileChangeBus.getInstance().postFolderRefreshed(accountName, synchFolderRemotePath);
                             }
                             setFile(currentFile);
                         }
@@ -1538,16 +1537,8 @@ public class FileDisplayActivity extends FileActivity
             String accountName = intent.getStringExtra(FileUploadWorker.ACCOUNT_NAME);
             Account account = getAccount();
             boolean sameAccount = accountName != null && account != null && accountName.equals(account.name);
-            OCFile currentDir = getCurrentDir();
-            boolean isDescendant = currentDir != null && uploadedRemotePath != null && uploadedRemotePath.startsWith(currentDir.getRemotePath());
-
-            if (sameAccount && isDescendant) {
-                String linkedToRemotePath = intent.getStringExtra(FileUploadWorker.EXTRA_LINKED_TO_PATH);
-                if (linkedToRemotePath == null || isAscendant(linkedToRemotePath)) {
-                    updateListOfFilesFragment(false);
-                }
-            }
 
+            // the list of files is updated through FileChangeBus
             boolean uploadWasFine = intent.getBooleanExtra(FileUploadWorker.EXTRA_UPLOAD_RESULT, false);
             boolean renamedInUpload = getFile().getRemotePath().equals(intent.getStringExtra(FileUploadWorker.EXTRA_OLD_REMOTE_PATH));
 
@@ -1587,12 +1578,6 @@ public class FileDisplayActivity extends FileActivity
                 ocFileListFragment.setLoading(false);
             }
         }
-
-        // TODO refactor this receiver, and maybe DownloadFinishReceiver; this method is duplicated :S
-        private boolean isAscendant(String linkedToRemotePath) {
-            OCFile currentDir = getCurrentDir();
-            return currentDir != null && currentDir.getRemotePath().startsWith(linkedToRemotePath);
-        }
     }
 
 
@@ -1610,11 +1595,8 @@ public class FileDisplayActivity extends FileActivity
             String downloadBehaviour = intent.getStringExtra(OCFileListFragment.DOWNLOAD_BEHAVIOUR);
             boolean isDescendant = isDescendant(downloadedRemotePath);
 
+            // the list of files is updated through FileChangeBus
             if (sameAccount && isDescendant) {
-                String linkedToRemotePath = intent.getStringExtra(FileDownloadWorker.EXTRA_LINKED_TO_PATH);
-                if (linkedToRemotePath == null || isAscendant(linkedToRemotePath)) {
-                    updateListOfFilesFragment(false);
-                }
                 refreshDetailsFragmentIfVisible(intent.getAction(), downloadedRemotePath, intent.getBooleanExtra(FileDownloadWorker.EXTRA_DOWNLOAD_RESULT, false));
             }
 
@@ -1642,11 +1624,6 @@ public class FileDisplayActivity extends FileActivity
             return currentDir != null && downloadedRemotePath != null && downloadedRemotePath.startsWith(currentDir.getRemotePath());
         }
 
-        private boolean isAscendant(String linkedToRemotePath) {
-            OCFile currentDir = getCurrentDir();
-            return currentDir != null && currentDir.getRemotePath().startsWith(linkedToRemotePath);
-        }
-
         private boolean isSameAccount(Intent intent) {
             String accountName = intent.getStringExtra(FileDownloadWorker.EXTRA_ACCOUNT_NAME);
             return accountName != null && getAccount() != null && accountName.equals(getAccount().name);
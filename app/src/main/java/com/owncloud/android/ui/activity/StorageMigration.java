@@ -24,11 +24,13 @@ import com.nextcloud.client.account.User;
 import com.owncloud.android.MainApp;
 import com.owncloud.android.R;
 import com.owncloud.android.datamodel.FileDataStorageManager;
+import com.owncloud.android.datastorage.StorageMigrationEngine;
 import com.owncloud.android.lib.common.utils.Log_OC;
-import com.owncloud.android.utils.FileStorageUtils;
+import com.owncloud.android.utils.DisplayUtils;
 import com.owncloud.android.utils.theme.ViewThemeUtils;
 
 import java.io.File;
+import java.io.IOException;
 
 import androidx.appcompat.app.AlertDialog;
 import androidx.core.content.res.ResourcesCompat;
@@ -65,7 +67,7 @@ public class StorageMigration {
     }
 
     public void migrate() {
-        if (storageFolderAlreadyExists()) {
+        if (storageFolderAlreadyExists() && !migrationInterrupted()) {
             askToOverride();
         } else {
             ProgressDialog progressDialog = createMigrationProgressDialog();
@@ -88,6 +90,10 @@ public class StorageMigration {
         return f.exists() && f.isDirectory();
     }
 
+    private boolean migrationInterrupted() {
+        return StorageMigrationEngine.hasCheckpoint(new File(mTargetStoragePath, MainApp.getDataFolder()));
+    }
+
     public static void a(ViewThemeUtils viewThemeUtils, Context context) {
         final MaterialAlertDialogBuilder builder = new MaterialAlertDialogBuilder(context)
             .setMessage(R.string.file_migration_directory_already_exists)
@@ -209,11 +215,15 @@ public class StorageMigration {
 
         @Override
         protected void onProgressUpdate(Integer... progress) {
-            if (progress.length > 1 && progress[0] != 0) {
-                mProgressDialog.setMessage(mContext.getString(progress[0]));
+            if (progress.length > 0 && progress[0] != 0) {
+                mProgressDialog.setMessage(getProgressMessage(progress[0]));
             }
         }
 
+        protected String getProgressMessage(int resId) {
+            return mContext.getString(resId);
+        }
+
         @Override
         protected void onPostExecute(Integer code) {
             if (code != 0) {
@@ -350,6 +360,11 @@ public class StorageMigration {
             private int getResId() { return mResId; }
         }
 
+        private StorageMigrationEngine mEngine;
+        private volatile long mMovedBytes;
+        private volatile long mTotalBytes;
+        private int mLastReportedPermille = -1;
+
         public FileMigrationTask(Context context,
                                  User user,
                                  String source,
@@ -360,6 +375,16 @@ public class StorageMigration {
             super(context, user, source, target, progressDialog, listener, viewThemeUtils);
         }
 
+        @Override
+        protected String getProgressMessage(int resId) {
+            if (resId == R.string.file_migration_migrating_progress) {
+                return mContext.getString(resId,
+                                          DisplayUtils.bytesToHumanReadable(mMovedBytes),
+                                          DisplayUtils.bytesToHumanReadable(mTotalBytes));
+            }
+            return super.getProgressMessage(resId);
+        }
+
         @Override
         protected Integer doInBackground(Void... args) {
             publishProgress(R.string.file_migration_preparing);
@@ -368,11 +393,15 @@ public class StorageMigration {
 
             try {
                 File dstFile = new File(mStorageTarget + File.separator + MainApp.getDataFolder());
-                deleteRecursive(dstFile);
-                dstFile.delete();
-
                 File srcFile = new File(mStorageSource + File.separator + MainApp.getDataFolder());
+
+                if (!StorageMigrationEngine.hasCheckpoint(dstFile)) {
+                    deleteRecursive(dstFile);
+                    dstFile.delete();
+                }
+
                 srcFile.mkdirs();
+                mEngine = new StorageMigrationEngine(srcFile, dstFile);
 
                 publishProgress(R.string.file_migration_checking_destination);
 
@@ -420,39 +449,52 @@ public class StorageMigration {
                 throw new MigrationException(R.string.file_migration_failed_not_writable);
             }
 
-            if (new File(dstFile, MainApp.getDataFolder()).exists()) {
+            File dstDataFolder = new File(dstFile, MainApp.getDataFolder());
+            if (dstDataFolder.exists() && !StorageMigrationEngine.hasCheckpoint(dstDataFolder)) {
                 throw new MigrationException(R.string.file_migration_failed_dir_already_exists);
             }
 
-            try {
-                if (dstFile.getFreeSpace() < FileStorageUtils.getFolderSize(new File(srcFile, MainApp.getDataFolder()))) {
-                    throw new MigrationException(R.string.file_migration_failed_not_enough_space);
-                }
-            } catch (MigrationException e) {
-                throw new RuntimeException(e);
+            // a rename on the same volume needs no additional space
+            if (!mEngine.canRename()) {
+                checkFreeSpace();
             }
         }
 
-        private void copyFiles() throws MigrationException {
-            File srcFile = new File(mStorageSource + File.separator + MainApp.getDataFolder());
-            File dstFile = new File(mStorageTarget + File.separator + MainApp.getDataFolder());
+        private void checkFreeSpace() throws MigrationException {
+            long pendingBytes;
+            try {
+                pendingBytes = mEngine.scan();
+            } catch (IOException e) {
+                throw new MigrationException(R.string.file_migration_failed_not_readable, e);
+            }
 
-            copyDirs(srcFile, dstFile);
+            if (new File(mStorageTarget).getFreeSpace() < pendingBytes) {
+                throw new MigrationException(R.string.file_migration_failed_not_enough_space);
+            }
         }
 
-        private void copyDirs(File src, File dst) throws MigrationException {
-            if (!dst.mkdirs()) {
-                throw new MigrationException(R.string.file_migration_failed_while_coping);
+        private void copyFiles() throws MigrationException {
+            if (mEngine.canRename()) {
+                if (mEngine.rename()) {
+                    return;
+                }
+                // the space was not checked for a planned rename, but the content has to be copied now
+                checkFreeSpace();
             }
 
-            for (File f : src.listFiles()) {
-                if (f.isDirectory()) {
-                    copyDirs(f, new File(dst, f.getName()));
-                } else if (!FileStorageUtils.copyFile(f, new File(dst, f.getName()))) {
-                    throw new MigrationException(R.string.file_migration_failed_while_coping);
+            boolean succeeded = mEngine.migrate((movedBytes, totalBytes) -> {
+                mMovedBytes = movedBytes;
+                mTotalBytes = totalBytes;
+                int permille = totalBytes > 0 ? (int) (movedBytes * 1000 / totalBytes) : 1000;
+                if (permille != mLastReportedPermille) {
+                    mLastReportedPermille = permille;
+                    publishProgress(R.string.file_migration_migrating_progress);
                 }
-            }
+            });
 
+            if (!succeeded) {
+                throw new MigrationException(R.string.file_migration_failed_while_coping);
+            }
         }
 
         private void updateIndex(Context context) throws MigrationException {
@@ -468,10 +510,11 @@ public class StorageMigration {
 
         private void cleanup() {
             File srcFile = new File(mStorageSource + File.separator + MainApp.getDataFolder());
-            if (!deleteRecursive(srcFile)) {
+            if (!mEngine.wasRenamed() && !deleteRecursive(srcFile)) {
                 Log_OC.w(TAG, "Migration cleanup step failed");
             }
             srcFile.delete();
+            mEngine.finish();
         }
 
         private boolean deleteRecursive(File f) {
@@ -485,7 +528,15 @@ public class StorageMigration {
         }
 
         private void rollback() {
+            if (mEngine != null) {
+                mEngine.rollback();
+            }
+
             File dstFile = new File(mStorageTarget + File.separator + MainApp.getDataFolder());
+            if (StorageMigrationEngine.hasCheckpoint(dstFile)) {
+                // keep already copied files, the next attempt resumes from the checkpoint
+                return;
+            }
             if (dstFile.exists() && !dstFile.delete()) {
                 Log_OC.w(TAG, "Rollback step failed");
             }
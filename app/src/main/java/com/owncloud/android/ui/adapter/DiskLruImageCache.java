@@ -16,12 +16,15 @@ package com.owncloud.android.ui.adapter;
 import android.graphics.Bitmap;
 import android.graphics.Bitmap.CompressFormat;
 import android.graphics.BitmapFactory;
+import android.os.SystemClock;
 
 import com.jakewharton.disklrucache.DiskLruCache;
 import com.owncloud.android.BuildConfig;
 import com.owncloud.android.lib.common.utils.Log_OC;
 import com.owncloud.android.utils.BitmapUtils;
 
+import androidx.annotation.VisibleForTesting;
+
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
 import java.io.File;
@@ -29,6 +32,13 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 
+/**
+ * Disk cache of thumbnails.
+ * <p>
+ * The cache is flushed, which trims it to its size and writes its journal, once every {@link #FLUSH_EVERY_PUTS} puts
+ * or {@link #FLUSH_INTERVAL_MS} instead of after every put. Pending puts are flushed by {@link #flush()}, which is
+ * called when the app goes to background or is asked to trim its memory.
+ */
 public class DiskLruImageCache {
 
     private DiskLruCache mDiskCache;
@@ -38,14 +48,35 @@ public class DiskLruImageCache {
     private static final int VALUE_COUNT = 1;
     private static final int IO_BUFFER_SIZE = 8 * 1024;
     private static final String CACHE_TEST_DISK = "cache_test_DISK_";
+    private static final int FLUSH_EVERY_PUTS = 32;
+    private static final long FLUSH_INTERVAL_MS = 5_000;
 
     private static final String TAG = DiskLruImageCache.class.getSimpleName();
 
+    private final int flushEveryPuts;
+    private final long flushIntervalMillis;
+    private int pendingPuts;
+    private long lastFlushMillis;
+    private int flushCount;
+
     public DiskLruImageCache(File diskCacheDir, int diskCacheSize, CompressFormat compressFormat, int quality)
         throws IOException {
+        this(diskCacheDir, diskCacheSize, compressFormat, quality, FLUSH_EVERY_PUTS, FLUSH_INTERVAL_MS);
+    }
+
+    @VisibleForTesting
+    public DiskLruImageCache(File diskCacheDir,
+                             int diskCacheSize,
+                             CompressFormat compressFormat,
+                             int quality,
+                             int flushEveryPuts,
+                             long flushIntervalMillis) throws IOException {
         mDiskCache = DiskLruCache.open(diskCacheDir, CACHE_VERSION, VALUE_COUNT, diskCacheSize);
         mCompressFormat = compressFormat;
         mCompressQuality = quality;
+        this.flushEveryPuts = flushEveryPuts;
+        this.flushIntervalMillis = flushIntervalMillis;
+        lastFlushMillis = SystemClock.elapsedRealtime();
     }
 
     private boolean writeBitmapToFile(Bitmap bitmap, DiskLruCache.Editor editor) throws IOException {
@@ -71,8 +102,8 @@ public class DiskLruImageCache {
             }
 
             if (writeBitmapToFile(data, editor)) {
-                mDiskCache.flush();
                 editor.commit();
+                onPut();
                 if (BuildConfig.DEBUG) {
                     Log_OC.d(CACHE_TEST_DISK, "image put on disk cache " + validKey);
                 }
@@ -96,6 +127,44 @@ public class DiskLruImageCache {
         }
     }
 
+    /**
+     * Flushes the puts since the last flush if the batching policy asks for it.
+     */
+    private synchronized void onPut() {
+        pendingPuts++;
+        if (pendingPuts >= flushEveryPuts || SystemClock.elapsedRealtime() - lastFlushMillis >= flushIntervalMillis) {
+            flushPending();
+        }
+    }
+
+    /**
+     * Writes the journal of the puts since the last flush and trims the cache to its size.
+     */
+    public synchronized void flush() {
+        if (pendingPuts > 0) {
+            flushPending();
+        }
+    }
+
+    private void flushPending() {
+        try {
+            mDiskCache.flush();
+            pendingPuts = 0;
+            lastFlushMillis = SystemClock.elapsedRealtime();
+            flushCount++;
+        } catch (IOException e) {
+            Log_OC.d(TAG, "Error flushing disk cache", e);
+        }
+    }
+
+    /**
+     * @return number of flushes of the cache
+     */
+    @VisibleForTesting
+    public synchronized int getFlushCount() {
+        return flushCount;
+    }
+
     public Bitmap getScaledBitmap(String key, int width, int height) {
         Bitmap bitmap = null;
         String validKey = convertToValidKey(key);
@@ -107,9 +176,12 @@ public class DiskLruImageCache {
 
             InputStream inputStream = snapshot.getInputStream(0);
             if (inputStream != null) {
-                // First decode with inJustDecodeBounds=true to check dimensions
-                final BitmapFactory.Options options = new BitmapFactory.Options();
                 try (BufferedInputStream buffIn = new BufferedInputStream(inputStream, IO_BUFFER_SIZE)) {
+                    // the whole entry may be read to find the dimensions, keep it to decode the pixels from the buffer
+                    buffIn.mark((int) Math.min(Integer.MAX_VALUE, snapshot.getLength(0) + 1));
+
+                    // First decode with inJustDecodeBounds=true to check dimensions
+                    final BitmapFactory.Options options = new BitmapFactory.Options();
                     options.inScaled = true;
                     options.inPurgeable = true;
                     options.inPreferQualityOverSpeed = false;
@@ -117,19 +189,14 @@ public class DiskLruImageCache {
                     options.inJustDecodeBounds = true;
 
                     BitmapFactory.decodeStream(buffIn, null, options);
-                }
-
-                try (DiskLruCache.Snapshot snapshot2 = mDiskCache.get(validKey)) {
-                    inputStream = snapshot2.getInputStream(0);
+                    buffIn.reset();
 
-                    try (BufferedInputStream buffIn = new BufferedInputStream(inputStream, IO_BUFFER_SIZE)) {
-                        // Calculate inSampleSize
-                        options.inSampleSize = BitmapUtils.calculateSampleFactor(options, width, height);
+                    // Calculate inSampleSize
+                    options.inSampleSize = BitmapUtils.calculateSampleFactor(options, width, height);
 
-                        // Decode bitmap with inSampleSize set
-                        options.inJustDecodeBounds = false;
-                        bitmap = BitmapFactory.decodeStream(buffIn, null, options);
-                    }
+                    // Decode bitmap with inSampleSize set
+                    options.inJustDecodeBounds = false;
+                    bitmap = BitmapFactory.decodeStream(buffIn, null, options);
                 }
             }
         } catch (Exception e) {
@@ -209,11 +276,12 @@ public class DiskLruImageCache {
 
     }
 
-    public void clearCache() {
+    public synchronized void clearCache() {
         if (BuildConfig.DEBUG) {
             Log_OC.d(CACHE_TEST_DISK, "disk cache CLEARED");
         }
         try {
+            pendingPuts = 0;
             mDiskCache.delete();
         } catch (IOException e) {
             Log_OC.d(TAG, e.getMessage(), e);
@@ -24,6 +24,7 @@ import androidx.annotation.VisibleForTesting
 import com.afollestad.sectionedrecyclerview.SectionedRecyclerViewAdapter
 import com.afollestad.sectionedrecyclerview.SectionedViewHolder
 import com.nextcloud.client.account.User
+import com.nextcloud.client.jobs.transfer.TransferStateIndex
 import com.nextcloud.client.preferences.AppPreferences
 import com.owncloud.android.databinding.GalleryHeaderBinding
 import com.owncloud.android.databinding.GalleryRowBinding
@@ -61,7 +62,7 @@ class GalleryAdapter(
 
     init {
         ocFileListDelegate = OCFileListDelegate(
-            transferServiceGetter.fileUploaderHelper,
+            TransferStateIndex.instance,
             context,
             ocFileListFragmentInterface,
             user,
@@ -267,7 +267,7 @@ public class LocalFileListAdapter extends RecyclerView.Adapter<RecyclerView.View
                                     task
                                 );
                         thumbnailView.setImageDrawable(asyncDrawable);
-                        task.execute(new ThumbnailsCacheManager.ThumbnailGenerationTaskObject(file, null));
+                        ThumbnailsCacheManager.loadThumbnail(task, new ThumbnailsCacheManager.ThumbnailGenerationTaskObject(file, null));
                         Log_OC.v(TAG, "Executing task to generate a new thumbnail");
 
                     } // else, already being generated, don't restart it
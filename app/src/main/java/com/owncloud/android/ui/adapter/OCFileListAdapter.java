@@ -19,7 +19,6 @@ import android.content.res.ColorStateList;
 import android.content.res.Resources;
 import android.graphics.Color;
 import android.graphics.drawable.Drawable;
-import android.os.Build;
 import android.os.Handler;
 import android.os.Looper;
 import android.text.TextUtils;
@@ -35,7 +34,9 @@ import com.nextcloud.android.common.ui.theme.utils.ColorRole;
 import com.nextcloud.android.lib.resources.recommendations.Recommendation;
 import com.nextcloud.client.account.User;
 import com.nextcloud.client.database.entity.OfflineOperationEntity;
-import com.nextcloud.client.jobs.upload.FileUploadHelper;
+import com.nextcloud.client.files.FavoritesLoader;
+import com.nextcloud.client.files.FileChangeBus;
+import com.nextcloud.client.jobs.transfer.TransferStateIndex;
 import com.nextcloud.client.preferences.AppPreferences;
 import com.nextcloud.model.OCFileFilterType;
 import com.nextcloud.model.OfflineOperationType;
@@ -89,17 +90,26 @@ import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
-import java.util.stream.Collectors;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.ListUpdateCallback;
 import androidx.recyclerview.widget.RecyclerView;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import me.zhanghai.android.fastscroll.PopupTextProvider;
@@ -148,6 +158,10 @@ public class OCFileListAdapter extends RecyclerView.Adapter<RecyclerView.ViewHol
 
     private ArrayList<Recommendation> recommendedFiles = new ArrayList<>();
 
+    // shared by all lists, so that listings are prepared one after another
+    private static final Executor listPreparationExecutor = Executors.newSingleThreadExecutor();
+    private final AtomicInteger swapGeneration = new AtomicInteger();
+
     public OCFileListAdapter(
         Activity activity,
         @NonNull User user,
@@ -181,7 +195,7 @@ public class OCFileListAdapter extends RecyclerView.Adapter<RecyclerView.ViewHol
                          AccountUtils.Constants.KEY_USER_ID);
         this.syncedFolderProvider = syncedFolderProvider;
         this.viewThemeUtils = viewThemeUtils;
-        ocFileListDelegate = new OCFileListDelegate(FileUploadHelper.Companion.instance(),
+        ocFileListDelegate = new OCFileListDelegate(TransferStateIndex.getInstance(),
                                                     activity,
                                                     ocFileListFragmentInterface,
                                                     user,
@@ -507,6 +521,24 @@ public class OCFileListAdapter extends RecyclerView.Adapter<RecyclerView.ViewHol
         }
     }
 
+    @Override
+    public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position, @NonNull List<Object> payloads) {
+        boolean onlyLocalState = !payloads.isEmpty();
+        for (Object payload : payloads) {
+            onlyLocalState &= OCFileListDiffCallback.PAYLOAD_LOCAL_STATE.equals(payload);
+        }
+
+        OCFile file = getItem(position);
+        if (onlyLocalState && file != null && holder instanceof ListViewHolder listViewHolder) {
+            // keep thumbnail and texts, only the download and sync indicators changed
+            ocFileListDelegate.bindLocalState(listViewHolder, file);
+            checkVisibilityOfFileFeaturesLayout(listViewHolder);
+            return;
+        }
+
+        onBindViewHolder(holder, position);
+    }
+
     private boolean shouldShowRecommendedFiles() {
         return !recommendedFiles.isEmpty() && currentDirectory.isRootDirectory();
     }
@@ -535,31 +567,38 @@ public class OCFileListAdapter extends RecyclerView.Adapter<RecyclerView.ViewHol
         fileFeaturesLayout.setVisibility(fileFeaturesVisibility);
     }
 
-    private void mergeOCFilesForLivePhoto() {
-        List<OCFile> filesToRemove = new ArrayList<>();
-
-        for (int i = 0; i < mFiles.size(); i++) {
-            OCFile file = mFiles.get(i);
-
-            for (int j = i + 1; j < mFiles.size(); j++) {
-                OCFile nextFile = mFiles.get(j);
-                String fileLocalId = String.valueOf(file.getLocalId());
-                String nextFileLinkedLocalId = nextFile.getLinkedFileIdForLivePhoto();
-
-                if (fileLocalId.equals(nextFileLinkedLocalId)) {
-                    if (MimeTypeUtil.isVideo(file.getMimeType())) {
-                        nextFile.livePhotoVideo = file;
-                        filesToRemove.add(file);
-                    } else if (MimeTypeUtil.isVideo(nextFile.getMimeType())) {
-                        file.livePhotoVideo = nextFile;
-                        filesToRemove.add(nextFile);
-                    }
+    /**
+     * Attaches the video of a live photo to its image and removes the video from the list. A file is paired with a
+     * preceding file whose local id it links to, looked up in a single pass by local id.
+     */
+    @VisibleForTesting
+    static void mergeOCFilesForLivePhoto(List<OCFile> files) {
+        Map<String, OCFile> filesByLocalId = new HashMap<>(files.size() * 2);
+        Set<OCFile> filesToRemove = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        for (OCFile nextFile : files) {
+            String nextFileLinkedLocalId = nextFile.getLinkedFileIdForLivePhoto();
+            OCFile file = nextFileLinkedLocalId == null ? null : filesByLocalId.get(nextFileLinkedLocalId);
+
+            if (file != null) {
+                if (MimeTypeUtil.isVideo(file.getMimeType())) {
+                    nextFile.livePhotoVideo = file;
+                    filesToRemove.add(file);
+                } else if (MimeTypeUtil.isVideo(nextFile.getMimeType())) {
+                    file.livePhotoVideo = nextFile;
+                    filesToRemove.add(nextFile);
                 }
             }
+
+            String localId = String.valueOf(nextFile.getLocalId());
+            if (!filesByLocalId.containsKey(localId)) {
+                filesByLocalId.put(localId, nextFile);
+            }
         }
 
-        mFiles.removeAll(filesToRemove);
-        filesToRemove.clear();
+        if (!filesToRemove.isEmpty()) {
+            files.removeIf(filesToRemove::contains);
+        }
     }
 
     private void updateLivePhotoIndicators(ListViewHolder holder, OCFile file) {
@@ -823,13 +862,29 @@ public class OCFileListAdapter extends RecyclerView.Adapter<RecyclerView.ViewHol
      * @param updatedStorageManager Optional updated storage manager; used to replace
      * @param limitToMimeType       show only files of this mimeType
      */
-    @SuppressLint("NotifyDataSetChanged")
     public void swapDirectory(
         @NonNull User account,
         @NonNull OCFile directory,
         @NonNull FileDataStorageManager updatedStorageManager,
         boolean onlyOnDevice,
         @NonNull String limitToMimeType) {
+        swapDirectory(account, directory, updatedStorageManager, onlyOnDevice, limitToMimeType, null);
+    }
+
+    /**
+     * Change the adapted directory for a new one. The listing is prepared in the background; when the same directory
+     * is shown again, only the changed items are updated.
+     *
+     * @param onSwapped called on the main thread once the new listing is shown
+     */
+    @SuppressLint("NotifyDataSetChanged")
+    public void swapDirectory(
+        @NonNull User account,
+        @NonNull OCFile directory,
+        @NonNull FileDataStorageManager updatedStorageManager,
+        boolean onlyOnDevice,
+        @NonNull String limitToMimeType,
+        @Nullable Runnable onSwapped) {
         this.onlyOnDevice = onlyOnDevice;
 
         if (!updatedStorageManager.equals(mStorageManager)) {
@@ -838,48 +893,269 @@ public class OCFileListAdapter extends RecyclerView.Adapter<RecyclerView.ViewHol
             this.user = account;
         }
 
-        if (mStorageManager != null) {
-            // TODO refactor filtering mechanism for mFiles
-            mFiles = mStorageManager.getFolderContent(directory, onlyOnDevice);
-            if (!preferences.isShowHiddenFilesEnabled()) {
-                mFiles = OCFileExtensionsKt.filterHiddenFiles(mFiles);
-            }
-            if (!limitToMimeType.isEmpty()) {
-                mFiles = OCFileExtensionsKt.filterByMimeType(mFiles, limitToMimeType);
-            }
-            if (OCFile.ROOT_PATH.equals(directory.getRemotePath()) && MainApp.isOnlyPersonFiles()) {
-                mFiles = OCFileExtensionsKt.limitToPersonalFiles(mFiles, userId);
+        final int generation = swapGeneration.incrementAndGet();
+        if (mStorageManager == null) {
+            mFiles.clear();
+            mFilesAll.clear();
+            searchType = null;
+            activity.runOnUiThread(this::notifyDataSetChanged);
+            return;
+        }
+
+        final FileDataStorageManager storageManager = mStorageManager;
+        final OCFile previousDirectory = currentDirectory;
+        final List<OCFile> previousFiles = new ArrayList<>(mFiles);
+        final boolean showHiddenFiles = preferences.isShowHiddenFilesEnabled();
+        final int menuItemId = DrawerActivity.menuItemId;
+
+        listPreparationExecutor.execute(() -> {
+            ListPreparation preparation = prepareDirectory(directory,
+                                                           previousDirectory,
+                                                           storageManager,
+                                                           onlyOnDevice,
+                                                           limitToMimeType,
+                                                           showHiddenFiles,
+                                                           menuItemId);
+
+            // only worth it when the same directory is refreshed, otherwise all items change anyway
+            DiffUtil.DiffResult diff = null;
+            if (directory.equals(previousDirectory)) {
+                diff = DiffUtil.calculateDiff(new OCFileListDiffCallback(previousFiles, preparation.files), true);
             }
 
-            // TODO refactor add DrawerState instead of using static menuItemId
-            if (DrawerActivity.menuItemId == R.id.nav_shared && currentDirectory != null) {
-                mFiles = updatedStorageManager.filter(currentDirectory, OCFileFilterType.Shared);
+            final DiffUtil.DiffResult directoryDiff = diff;
+            activity.runOnUiThread(() -> {
+                if (generation != swapGeneration.get()) {
+                    // a newer listing is on its way
+                    return;
+                }
+                showPreparedDirectory(directory, preparation, previousFiles, directoryDiff);
+                if (onSwapped != null) {
+                    onSwapped.run();
+                }
+            });
+        });
+    }
+
+    private static final class ListPreparation {
+        private final List<OCFile> files;
+        private final List<OCFile> filesAll;
+        private final List<String> hiddenFileNames;
+        private final FileSortOrder sortOrder;
+
+        private ListPreparation(List<OCFile> files,
+                                List<OCFile> filesAll,
+                                List<String> hiddenFileNames,
+                                FileSortOrder sortOrder) {
+            this.files = files;
+            this.filesAll = filesAll;
+            this.hiddenFileNames = hiddenFileNames;
+            this.sortOrder = sortOrder;
+        }
+    }
+
+    /**
+     * Loads, filters and sorts the content of the directory. Runs in the background and must not touch the state of
+     * the adapter.
+     */
+    private ListPreparation prepareDirectory(OCFile directory,
+                                             @Nullable OCFile previousDirectory,
+                                             FileDataStorageManager storageManager,
+                                             boolean onlyOnDevice,
+                                             String limitToMimeType,
+                                             boolean showHiddenFiles,
+                                             int menuItemId) {
+        // TODO refactor filtering mechanism for mFiles
+        List<OCFile> files = storageManager.getFolderContent(directory, onlyOnDevice);
+        if (!showHiddenFiles) {
+            files = OCFileExtensionsKt.filterHiddenFiles(files);
+        }
+        if (!limitToMimeType.isEmpty()) {
+            files = OCFileExtensionsKt.filterByMimeType(files, limitToMimeType);
+        }
+        if (OCFile.ROOT_PATH.equals(directory.getRemotePath()) && MainApp.isOnlyPersonFiles()) {
+            files = OCFileExtensionsKt.limitToPersonalFiles(files, userId);
+        }
+
+        // TODO refactor add DrawerState instead of using static menuItemId
+        if (menuItemId == R.id.nav_shared && previousDirectory != null) {
+            files = storageManager.filter(previousDirectory, OCFileFilterType.Shared);
+        }
+        if (menuItemId == R.id.nav_favorites && previousDirectory != null) {
+            files = storageManager.filter(previousDirectory, OCFileFilterType.Favorite);
+        }
+
+        // Filter out temp files from the list to prevent duplication
+        files = OCFileExtensionsKt.filterTempFilter(files);
+
+        files = OCFileExtensionsKt.filterFilenames(files);
+
+        FileSortOrder directorySortOrder = preferences.getSortOrderByFolder(directory);
+        files = new ArrayList<>(directorySortOrder.sortCloudFiles(files));
+        List<String> hiddenFileNames = getHiddenFileNames(files);
+        mergeOCFilesForLivePhoto(files);
+
+        List<OCFile> filesAll = new ArrayList<>();
+        addOfflineOperations(storageManager, directory.getFileId(), filesAll);
+        filesAll.addAll(files);
+
+        return new ListPreparation(files, filesAll, hiddenFileNames, directorySortOrder);
+    }
+
+    @SuppressLint("NotifyDataSetChanged")
+    private void showPreparedDirectory(OCFile directory,
+                                       ListPreparation preparation,
+                                       List<OCFile> previousFiles,
+                                       @Nullable DiffUtil.DiffResult diff) {
+        boolean hadHeader = shouldShowHeader();
+        // the diff is only valid if nothing changed the shown items in the meantime
+        boolean diffApplicable = diff != null && searchType == null && previousFiles.equals(mFiles);
+
+        mFiles = preparation.files;
+        mFilesAll.clear();
+        mFilesAll.addAll(preparation.filesAll);
+        listOfHiddenFiles.clear();
+        listOfHiddenFiles.addAll(preparation.hiddenFileNames);
+        sortOrder = preparation.sortOrder;
+        currentDirectory = directory;
+        searchType = null;
+
+        if (diffApplicable && hadHeader == shouldShowHeader()) {
+            int headerOffset = hadHeader ? 1 : 0;
+            diff.dispatchUpdatesTo(new ListUpdateCallback() {
+                @Override
+                public void onInserted(int position, int count) {
+                    notifyItemRangeInserted(position + headerOffset, count);
+                }
+
+                @Override
+                public void onRemoved(int position, int count) {
+                    notifyItemRangeRemoved(position + headerOffset, count);
+                }
+
+                @Override
+                public void onMoved(int fromPosition, int toPosition) {
+                    notifyItemMoved(fromPosition + headerOffset, toPosition + headerOffset);
+                }
+
+                @Override
+                public void onChanged(int position, int count, @Nullable Object payload) {
+                    notifyItemRangeChanged(position + headerOffset, count, payload);
+                }
+            });
+
+            // folder and file counts
+            notifyItemChanged(getItemCount() - 1);
+        } else {
+            notifyDataSetChanged();
+        }
+    }
+
+    /**
+     * Reads the files reported as changed by {@link FileChangeBus} from the database. Meant to be called on a
+     * background thread, the result is applied with {@link #applyChanges(Map)} on the main thread.
+     *
+     * @return the changed files by their remote path, null for removed files
+     */
+    @WorkerThread
+    @NonNull
+    public Map<String, OCFile> resolveChanges(@NonNull Map<String, FileChangeBus.ChangeType> changes) {
+        Map<String, OCFile> changedFiles = new HashMap<>();
+        FileDataStorageManager storageManager = mStorageManager;
+        for (Map.Entry<String, FileChangeBus.ChangeType> change : changes.entrySet()) {
+            OCFile changedFile = null;
+            if (change.getValue() == FileChangeBus.ChangeType.CHANGED && storageManager != null) {
+                changedFile = storageManager.getFileByDecryptedRemotePath(change.getKey());
             }
-            if (DrawerActivity.menuItemId == R.id.nav_favorites && currentDirectory != null) {
-                mFiles = updatedStorageManager.filter(currentDirectory, OCFileFilterType.Favorite);
+            changedFiles.put(change.getKey(), changedFile);
+        }
+        return changedFiles;
+    }
+
+    /**
+     * Updates the items of changed files of the current directory in place, as resolved by
+     * {@link #resolveChanges(Map)}.
+     *
+     * @return false if the changes cannot be applied to single items, e.g. because a file was added, so that the
+     * directory has to be swapped again
+     */
+    @SuppressLint("NotifyDataSetChanged")
+    public boolean applyChanges(@NonNull Map<String, OCFile> changedFiles) {
+        if (mStorageManager == null || currentDirectory == null || searchType != null) {
+            return false;
+        }
+
+        for (Map.Entry<String, OCFile> change : changedFiles.entrySet()) {
+            if (change.getValue() != null && indexOfRemotePath(mFiles, change.getKey()) == -1) {
+                return false;
             }
+        }
 
-            // Filter out temp files from the list to prevent duplication
-            mFiles = OCFileExtensionsKt.filterTempFilter(mFiles);
+        List<OCFile> previousOrder = new ArrayList<>(mFiles);
+        mFiles = new ArrayList<>(mFiles);
+        for (Map.Entry<String, OCFile> change : changedFiles.entrySet()) {
+            int index = indexOfRemotePath(mFiles, change.getKey());
+            int allIndex = indexOfRemotePath(mFilesAll, change.getKey());
+            OCFile changedFile = change.getValue();
+            if (index == -1) {
+                continue;
+            }
 
-            mFiles = OCFileExtensionsKt.filterFilenames(mFiles);
+            if (changedFile == null) {
+                mFiles.remove(index);
+                if (allIndex != -1) {
+                    mFilesAll.remove(allIndex);
+                }
+            } else {
+                changedFile.livePhotoVideo = mFiles.get(index).livePhotoVideo;
+                mFiles.set(index, changedFile);
+                if (allIndex != -1) {
+                    mFilesAll.set(allIndex, changedFile);
+                }
+            }
+        }
 
-            sortOrder = preferences.getSortOrderByFolder(directory);
+        if (sortOrder != null) {
             mFiles = sortOrder.sortCloudFiles(mFiles);
-            prepareListOfHiddenFiles();
-            mergeOCFilesForLivePhoto();
-            mFilesAll.clear();
-            addOfflineOperations(directory.getFileId());
+        }
 
-            mFilesAll.addAll(mFiles);
-            currentDirectory = directory;
-        } else {
-            mFiles.clear();
-            mFilesAll.clear();
+        // a changed file may have to move, e.g. when sorted by date
+        List<String> remainingOrder = new ArrayList<>();
+        for (OCFile file : previousOrder) {
+            String remotePath = file.getDecryptedRemotePath();
+            if (!changedFiles.containsKey(remotePath) || changedFiles.get(remotePath) != null) {
+                remainingOrder.add(remotePath);
+            }
+        }
+        for (int i = 0; i < remainingOrder.size(); i++) {
+            if (!Objects.equals(remainingOrder.get(i), mFiles.get(i).getDecryptedRemotePath())) {
+                notifyDataSetChanged();
+                return true;
+            }
         }
 
-        searchType = null;
-        activity.runOnUiThread(this::notifyDataSetChanged);
+        // walk backwards, so that removals do not shift the positions of items still to be notified
+        int headerOffset = shouldShowHeader() ? 1 : 0;
+        for (int i = previousOrder.size() - 1; i >= 0; i--) {
+            String remotePath = previousOrder.get(i).getDecryptedRemotePath();
+            if (changedFiles.containsKey(remotePath)) {
+                if (changedFiles.get(remotePath) == null) {
+                    notifyItemRemoved(i + headerOffset);
+                } else {
+                    notifyItemChanged(i + headerOffset);
+                }
+            }
+        }
+        return true;
+    }
+
+    private static int indexOfRemotePath(List<OCFile> files, String remotePath) {
+        for (int i = 0; i < files.size(); i++) {
+            if (remotePath.equals(files.get(i).getDecryptedRemotePath())) {
+                return i;
+            }
+        }
+        return -1;
     }
 
     /**
@@ -890,26 +1166,33 @@ public class OCFileListAdapter extends RecyclerView.Adapter<RecyclerView.ViewHol
      * <p>
      * These function also need to be used: {@link FileDataStorageManager#createPendingDirectory(String, long, long)}, {@link FileDataStorageManager#createPendingFile(String, String, long, long)}.
      */
-    private void addOfflineOperations(long fileId) {
-        List<OCFile> offlineOperations = mStorageManager.offlineOperationsRepository.convertToOCFiles(fileId);
+    private static void addOfflineOperations(FileDataStorageManager storageManager, long fileId, List<OCFile> filesAll) {
+        List<OCFile> offlineOperations = storageManager.offlineOperationsRepository.convertToOCFiles(fileId);
         if (offlineOperations.isEmpty()) {
             return;
         }
 
-        List<OCFile> newFiles;
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.UPSIDE_DOWN_CAKE) {
-            newFiles = offlineOperations.stream()
-                .filter(offlineFile -> mFilesAll.stream()
-                    .noneMatch(file -> Objects.equals(file.getDecryptedRemotePath(), offlineFile.getDecryptedRemotePath())))
-                .toList();
-        } else {
-            newFiles = offlineOperations.stream()
-                .filter(offlineFile -> mFilesAll.stream()
-                    .noneMatch(file -> Objects.equals(file.getDecryptedRemotePath(), offlineFile.getDecryptedRemotePath())))
-                .collect(Collectors.toList());
+        addOfflineOperationFiles(offlineOperations, filesAll);
+    }
+
+    /**
+     * Adds the files of offline operations of which no file with the same path is in filesAll yet.
+     */
+    @VisibleForTesting
+    static void addOfflineOperationFiles(List<OCFile> offlineOperations, List<OCFile> filesAll) {
+        Set<String> paths = new HashSet<>(filesAll.size() * 2);
+        for (OCFile file : filesAll) {
+            paths.add(file.getDecryptedRemotePath());
+        }
+
+        List<OCFile> newFiles = new ArrayList<>(offlineOperations.size());
+        for (OCFile offlineFile : offlineOperations) {
+            if (!paths.contains(offlineFile.getDecryptedRemotePath())) {
+                newFiles.add(offlineFile);
+            }
         }
 
-        mFilesAll.addAll(newFiles);
+        filesAll.addAll(newFiles);
     }
 
     public void setData(List<Object> objects,
@@ -938,7 +1221,8 @@ public class OCFileListAdapter extends RecyclerView.Adapter<RecyclerView.ViewHol
                 default -> VirtualFolderType.NONE;
             };
 
-            if (type != VirtualFolderType.GALLERY) {
+            // favorites found are replaced in the same transaction as they are stored
+            if (type != VirtualFolderType.GALLERY && (type != VirtualFolderType.FAVORITE || objects.isEmpty())) {
                 mStorageManager.deleteVirtuals(type);
             }
         }
@@ -948,7 +1232,9 @@ public class OCFileListAdapter extends RecyclerView.Adapter<RecyclerView.ViewHol
             if (searchType == SearchType.SHARED_FILTER) {
                 parseShares(objects);
             } else {
-                if (searchType != SearchType.GALLERY_SEARCH) {
+                if (searchType == SearchType.FAVORITE_SEARCH) {
+                    parseFavorites(objects, clear);
+                } else if (searchType != SearchType.GALLERY_SEARCH) {
                     parseVirtuals(objects, searchType);
                 }
             }
@@ -993,14 +1279,23 @@ public class OCFileListAdapter extends RecyclerView.Adapter<RecyclerView.ViewHol
         mStorageManager.saveShares(shares);
     }
 
+    private void parseFavorites(List<Object> objects, boolean replace) {
+        List<OCFile> favorites = new FavoritesLoader(user, mStorageManager, activity).load(objects, replace);
+        for (OCFile favorite : favorites) {
+            //handling duplicates for favorites section
+            if (!mFiles.contains(favorite)) {
+                mFiles.add(favorite);
+            }
+        }
+
+        preferences.setPhotoSearchTimestamp(System.currentTimeMillis());
+    }
+
     private void parseVirtuals(List<Object> objects, SearchType searchType) {
         VirtualFolderType type;
         boolean onlyMedia = false;
 
         switch (searchType) {
-            case FAVORITE_SEARCH:
-                type = VirtualFolderType.FAVORITE;
-                break;
             case GALLERY_SEARCH:
                 type = VirtualFolderType.GALLERY;
                 onlyMedia = true;
@@ -1113,6 +1408,14 @@ public class OCFileListAdapter extends RecyclerView.Adapter<RecyclerView.ViewHol
     }
 
 
+    public void showLocalSearchResults(List<OCFile> files) {
+        mFiles = files;
+        mFilesAll.clear();
+        mFilesAll.addAll(mFiles);
+
+        notifyDataSetChanged();
+    }
+
     public void setSortOrder(@Nullable OCFile folder, FileSortOrder sortOrder) {
         preferences.setSortOrder(folder, sortOrder);
         mFiles = sortOrder.sortCloudFiles(mFiles);
@@ -1141,14 +1444,16 @@ public class OCFileListAdapter extends RecyclerView.Adapter<RecyclerView.ViewHol
         return mFiles;
     }
 
-    private void prepareListOfHiddenFiles() {
-        listOfHiddenFiles.clear();
+    private static List<String> getHiddenFileNames(List<OCFile> files) {
+        List<String> hiddenFileNames = new ArrayList<>();
 
-        mFiles.forEach(file -> {
+        files.forEach(file -> {
             if (file.shouldHide()) {
-                listOfHiddenFiles.add(file.getFileName());
+                hiddenFileNames.add(file.getFileName());
             }
         });
+
+        return hiddenFileNames;
     }
 
     public void resetLastTimestamp() {
@@ -1165,7 +1470,20 @@ public class OCFileListAdapter extends RecyclerView.Adapter<RecyclerView.ViewHol
         if (holder instanceof ListViewHolder listGridImageViewHolder) {
             LoaderImageView thumbnailShimmer = listGridImageViewHolder.getShimmerThumbnail();
             DisplayUtils.stopShimmer(thumbnailShimmer,  listGridImageViewHolder.getThumbnail());
+            ThumbnailsCacheManager.cancelThumbnailWork(listGridImageViewHolder.getThumbnail());
+        }
+    }
+
+    /**
+     * Generates the thumbnail of the item at the given position ahead of binding it.
+     */
+    public void prefetchThumbnail(int position) {
+        OCFile file = getItem(position);
+        if (file == null || file.isFolder() || file.getRemoteId() == null || !file.isPreviewAvailable() ||
+            file.isOfflineOperation() || mStorageManager == null) {
+            return;
         }
+        ThumbnailsCacheManager.prefetchThumbnail(file, user, mStorageManager);
     }
 
     @Override
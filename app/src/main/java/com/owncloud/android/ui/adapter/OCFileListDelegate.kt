@@ -9,7 +9,6 @@ package com.owncloud.android.ui.adapter
 
 import android.content.Context
 import android.graphics.Color
-import android.os.AsyncTask
 import android.view.View
 import android.widget.ImageView
 import androidx.core.content.ContextCompat
@@ -18,8 +17,7 @@ import androidx.core.graphics.drawable.toDrawable
 import com.elyeproj.loaderviewlibrary.LoaderImageView
 import com.nextcloud.android.common.ui.theme.utils.ColorRole
 import com.nextcloud.client.account.User
-import com.nextcloud.client.jobs.download.FileDownloadHelper
-import com.nextcloud.client.jobs.upload.FileUploadHelper
+import com.nextcloud.client.jobs.transfer.TransferStateIndex
 import com.nextcloud.client.preferences.AppPreferences
 import com.nextcloud.utils.extensions.makeRounded
 import com.nextcloud.utils.mdm.MDMConfig
@@ -42,7 +40,7 @@ import com.owncloud.android.utils.theme.ViewThemeUtils
 
 @Suppress("LongParameterList", "TooManyFunctions")
 class OCFileListDelegate(
-    private val fileUploadHelper: FileUploadHelper,
+    private val transferStateIndex: TransferStateIndex,
     private val context: Context,
     private val ocFileListFragmentInterface: OCFileListFragmentInterface,
     private val user: User,
@@ -156,12 +154,6 @@ class OCFileListDelegate(
             return
         }
 
-        for (task in asyncTasks) {
-            if (file.remoteId != null && task.imageKey != null && file.remoteId == task.imageKey) {
-                return
-            }
-        }
-
         try {
             val task = ThumbnailsCacheManager.GalleryImageGenerationTask(
                 thumbnailView,
@@ -200,7 +192,7 @@ class OCFileListDelegate(
             thumbnailView.setImageDrawable(asyncDrawable)
 
             asyncGalleryTasks.add(task)
-            task.executeOnExecutor(AsyncTask.THREAD_POOL_EXECUTOR, file)
+            ThumbnailsCacheManager.loadGalleryImage(task, file)
         } catch (e: IllegalArgumentException) {
             Log_OC.d(tag, "ThumbnailGenerationTask : " + e.message)
         }
@@ -274,6 +266,14 @@ class OCFileListDelegate(
         }
     }
 
+    /**
+     * Binds only the download, sync and favorite indicators, e.g. after a file was downloaded.
+     */
+    fun bindLocalState(gridViewHolder: ListViewHolder, file: OCFile) {
+        gridViewHolder.localFileIndicator.visibility = View.GONE
+        bindGridMetadataViews(file, gridViewHolder)
+    }
+
     private fun bindUnreadComments(file: OCFile, gridViewHolder: ListViewHolder) {
         if (file.unreadCommentsCount > 0) {
             gridViewHolder.unreadComments.visibility = View.VISIBLE
@@ -355,12 +355,10 @@ class OCFileListDelegate(
 
     private fun showLocalFileIndicator(file: OCFile, gridViewHolder: ListViewHolder) {
         val operationsServiceBinder = transferServiceGetter.operationsServiceBinder
-        val fileDownloadHelper = FileDownloadHelper.instance()
 
         val icon: Int? = when {
-            operationsServiceBinder?.isSynchronizing(user, file) == true ||
-                fileDownloadHelper.isDownloading(user, file) ||
-                fileUploadHelper.isUploading(user, file) -> {
+            transferStateIndex.isTransferring(user.accountName, file) ||
+                operationsServiceBinder?.isSynchronizing(user, file) == true -> {
                 // synchronizing, downloading or uploading
                 R.drawable.ic_synchronizing
             }
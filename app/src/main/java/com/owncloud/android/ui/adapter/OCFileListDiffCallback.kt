@@ -0,0 +1,75 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later OR GPL-2.0-only
+ */
+package com.owncloud.android.ui.adapter
+
+import androidx.recyclerview.widget.DiffUtil
+import com.owncloud.android.datamodel.OCFile
+
+/**
+ * Compares two listings of a folder by file id. Items of which only the local state changed, e.g. because they were
+ * downloaded or synced, get [PAYLOAD_LOCAL_STATE] so that only the indicators are bound again instead of the whole
+ * item including its thumbnail.
+ */
+class OCFileListDiffCallback(private val oldFiles: List<OCFile>, private val newFiles: List<OCFile>) :
+    DiffUtil.Callback() {
+
+    companion object {
+        const val PAYLOAD_LOCAL_STATE = "localState"
+    }
+
+    override fun getOldListSize(): Int = oldFiles.size
+
+    override fun getNewListSize(): Int = newFiles.size
+
+    override fun areItemsTheSame(oldItemPosition: Int, newItemPosition: Int): Boolean {
+        val oldFile = oldFiles[oldItemPosition]
+        val newFile = newFiles[newItemPosition]
+
+        // pending files of offline operations are not stored with an id yet
+        return if (oldFile.fileId > 0 || newFile.fileId > 0) {
+            oldFile.fileId == newFile.fileId
+        } else {
+            oldFile.decryptedRemotePath == newFile.decryptedRemotePath
+        }
+    }
+
+    override fun areContentsTheSame(oldItemPosition: Int, newItemPosition: Int): Boolean {
+        val oldFile = oldFiles[oldItemPosition]
+        val newFile = newFiles[newItemPosition]
+        return isSameContent(oldFile, newFile) && isSameLocalState(oldFile, newFile)
+    }
+
+    override fun getChangePayload(oldItemPosition: Int, newItemPosition: Int): Any? {
+        val oldFile = oldFiles[oldItemPosition]
+        val newFile = newFiles[newItemPosition]
+        return if (isSameContent(oldFile, newFile)) PAYLOAD_LOCAL_STATE else null
+    }
+
+    @Suppress("ComplexMethod")
+    private fun isSameContent(oldFile: OCFile, newFile: OCFile): Boolean = oldFile.fileName == newFile.fileName &&
+        oldFile.mimeType == newFile.mimeType &&
+        oldFile.fileLength == newFile.fileLength &&
+        oldFile.modificationTimestamp == newFile.modificationTimestamp &&
+        oldFile.etagOnServer == newFile.etagOnServer &&
+        oldFile.permissions == newFile.permissions &&
+        oldFile.isFavorite == newFile.isFavorite &&
+        oldFile.isEncrypted == newFile.isEncrypted &&
+        oldFile.isLocked == newFile.isLocked &&
+        oldFile.isSharedViaLink == newFile.isSharedViaLink &&
+        oldFile.isSharedWithSharee == newFile.isSharedWithSharee &&
+        oldFile.sharees == newFile.sharees &&
+        oldFile.unreadCommentsCount == newFile.unreadCommentsCount &&
+        oldFile.tags == newFile.tags &&
+        oldFile.isOfflineOperation == newFile.isOfflineOperation &&
+        oldFile.livePhotoVideo?.fileId == newFile.livePhotoVideo?.fileId
+
+    private fun isSameLocalState(oldFile: OCFile, newFile: OCFile): Boolean =
+        oldFile.storagePath == newFile.storagePath &&
+            oldFile.etag == newFile.etag &&
+            oldFile.etagInConflict == newFile.etagInConflict &&
+            oldFile.lastSyncDateForData == newFile.lastSyncDateForData
+}
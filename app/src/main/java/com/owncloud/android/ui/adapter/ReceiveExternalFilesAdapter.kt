@@ -142,8 +142,7 @@ class ReceiveExternalFilesAdapter(
                 )
                 thumbnailImageView.setImageDrawable(asyncDrawable)
 
-                @Suppress("DEPRECATION")
-                task.execute(ThumbnailGenerationTaskObject(file, file.remoteId))
+                ThumbnailsCacheManager.loadThumbnail(task, ThumbnailGenerationTaskObject(file, file.remoteId))
             }
         }
     }
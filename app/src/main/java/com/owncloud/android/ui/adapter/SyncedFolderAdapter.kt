@@ -37,8 +37,6 @@ import com.owncloud.android.datamodel.ThumbnailsCacheManager.MediaThumbnailGener
 import com.owncloud.android.utils.theme.ViewThemeUtils
 import java.io.File
 import java.util.Locale
-import java.util.concurrent.Executor
-import java.util.concurrent.Executors
 
 /**
  * Adapter to display all auto-synced folders and/or instant upload media folders.
@@ -57,7 +55,6 @@ class SyncedFolderAdapter(
     private val syncFolderItems: MutableList<SyncedFolderDisplayItem> = ArrayList()
     private val filteredSyncFolderItems: MutableList<SyncedFolderDisplayItem> = ArrayList()
     private var hideItems = true
-    private val thumbnailThreadPool: Executor = Executors.newCachedThreadPool()
 
     init {
         shouldShowHeadersForEmptySections(true)
@@ -367,7 +364,7 @@ class SyncedFolderAdapter(
                 )
             holder.binding.thumbnail.setImageDrawable(asyncDrawable)
 
-            task.executeOnExecutor(thumbnailThreadPool, file)
+            ThumbnailsCacheManager.loadMediaThumbnail(task, file)
 
             // set proper tag
             holder.binding.thumbnail.tag = file.hashCode()
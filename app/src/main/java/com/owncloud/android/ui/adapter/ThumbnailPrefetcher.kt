@@ -0,0 +1,50 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later OR GPL-2.0-only
+ */
+package com.owncloud.android.ui.adapter
+
+import androidx.recyclerview.widget.LinearLayoutManager
+import androidx.recyclerview.widget.RecyclerView
+
+/**
+ * Requests thumbnails of the items right after the visible ones, in scroll direction, so they are ready once the
+ * items are bound. Every position is requested at most once while it stays in the prefetch window.
+ */
+class ThumbnailPrefetcher @JvmOverloads constructor(
+    private val prefetch: (position: Int) -> Unit,
+    private val distance: Int = DEFAULT_DISTANCE
+) : RecyclerView.OnScrollListener() {
+
+    companion object {
+        private const val DEFAULT_DISTANCE = 12
+    }
+
+    private var requested = IntRange.EMPTY
+
+    override fun onScrolled(recyclerView: RecyclerView, dx: Int, dy: Int) {
+        val layoutManager = recyclerView.layoutManager as? LinearLayoutManager ?: return
+        val itemCount = recyclerView.adapter?.itemCount ?: return
+        val first = layoutManager.findFirstVisibleItemPosition()
+        val last = layoutManager.findLastVisibleItemPosition()
+        if (first == RecyclerView.NO_POSITION || last == RecyclerView.NO_POSITION) {
+            return
+        }
+
+        val window = if (dy >= 0) {
+            (last + 1)..minOf(last + distance, itemCount - 1)
+        } else {
+            maxOf(first - distance, 0)..(first - 1)
+        }
+
+        val previous = requested
+        requested = window
+        if (dy >= 0) {
+            window.filter { it !in previous }.forEach(prefetch)
+        } else {
+            window.reversed().filter { it !in previous }.forEach(prefetch)
+        }
+    }
+}
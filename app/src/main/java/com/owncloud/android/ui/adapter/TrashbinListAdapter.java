@@ -285,8 +285,9 @@ public class TrashbinListAdapter extends RecyclerView.Adapter<RecyclerView.ViewH
                                             thumbnail, task);
                             thumbnailView.setImageDrawable(asyncDrawable);
                             asyncTasks.add(task);
-                            task.execute(new ThumbnailsCacheManager.ThumbnailGenerationTaskObject(file,
-                                    file.getRemoteId()));
+                            ThumbnailsCacheManager.loadThumbnail(
+                                task,
+                                new ThumbnailsCacheManager.ThumbnailGenerationTaskObject(file, file.getRemoteId()));
                         } catch (IllegalArgumentException e) {
                             Log_OC.d(TAG, "ThumbnailGenerationTask : " + e.getMessage());
                         }
@@ -530,7 +530,7 @@ public class UploadListAdapter extends SectionedRecyclerViewAdapter<SectionedVie
                             task
                         );
                     itemViewHolder.binding.thumbnail.setImageDrawable(asyncDrawable);
-                    task.execute(new ThumbnailsCacheManager.ThumbnailGenerationTaskObject(
+                    ThumbnailsCacheManager.loadThumbnail(task, new ThumbnailsCacheManager.ThumbnailGenerationTaskObject(
                         fakeFileToCheatThumbnailsCacheManagerInterface, null));
                 }
             }
@@ -560,7 +560,8 @@ public class UploadListAdapter extends SectionedRecyclerViewAdapter<SectionedVie
                     new ThumbnailsCacheManager.AsyncThumbnailDrawable(parentActivity.getResources(), thumbnail,
                                                                       task);
 
-                task.execute(new ThumbnailsCacheManager.ThumbnailGenerationTaskObject(file, null));
+                ThumbnailsCacheManager.loadThumbnail(task,
+                                                     new ThumbnailsCacheManager.ThumbnailGenerationTaskObject(file, null));
                 task.setListener(new ThumbnailsCacheManager.ThumbnailGenerationTask.Listener() {
                     @Override
                     public void onSuccess() {
@@ -265,7 +265,11 @@ open class ExtendedListFragment :
                 } else {
                     lifecycleScope.launch(Dispatchers.Main) {
                         if (adapter is OCFileListAdapter) {
-                            if (accountManager
+                            if (this@ExtendedListFragment is OCFileListFragment &&
+                                activity.connectivityService?.isConnected == false
+                            ) {
+                                searchLocally(query)
+                            } else if (accountManager
                                     .user
                                     .server
                                     .version
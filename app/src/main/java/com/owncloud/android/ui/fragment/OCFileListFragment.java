@@ -49,10 +49,12 @@ import com.nextcloud.client.di.Injectable;
 import com.nextcloud.client.documentscan.AppScanOptionalFeature;
 import com.nextcloud.client.documentscan.DocumentScanActivity;
 import com.nextcloud.client.editimage.EditImageActivity;
+import com.nextcloud.client.files.FileChangeBus;
 import com.nextcloud.client.jobs.BackgroundJobManager;
 import com.nextcloud.client.network.ClientFactory;
 import com.nextcloud.client.utils.Throttler;
 import com.nextcloud.common.NextcloudClient;
+import com.nextcloud.model.LocalFileSearchQuery;
 import com.nextcloud.ui.fileactions.FileActionsBottomSheet;
 import com.nextcloud.utils.EditorUtils;
 import com.nextcloud.utils.ShortcutUtil;
@@ -88,6 +90,7 @@ import com.owncloud.android.ui.activity.OnEnforceableRefreshListener;
 import com.owncloud.android.ui.activity.UploadFilesActivity;
 import com.owncloud.android.ui.adapter.CommonOCFileListAdapterInterface;
 import com.owncloud.android.ui.adapter.OCFileListAdapter;
+import com.owncloud.android.ui.adapter.ThumbnailPrefetcher;
 import com.owncloud.android.ui.dialog.ChooseRichDocumentsTemplateDialogFragment;
 import com.owncloud.android.ui.dialog.ChooseTemplateDialogFragment;
 import com.owncloud.android.ui.dialog.ConfirmationDialogFragment;
@@ -125,8 +128,10 @@ import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executors;
@@ -218,6 +223,8 @@ public class OCFileListFragment extends ExtendedListFragment implements
 
     protected OCFile mFile;
     private OCFileListAdapter mAdapter;
+
+    private final FileChangeBus.Listener fileChangeListener = this::onFolderChanged;
     protected boolean mOnlyFoldersClickable;
     protected boolean mFileSelectable;
 
@@ -277,6 +284,8 @@ public class OCFileListFragment extends ExtendedListFragment implements
             handleSearchEvent(searchEvent);
         }
 
+        FileChangeBus.getInstance().register(fileChangeListener);
+
         super.onResume();
     }
 
@@ -354,6 +363,7 @@ public class OCFileListFragment extends ExtendedListFragment implements
     @Override
     public void onPause() {
         super.onPause();
+        FileChangeBus.getInstance().unregister(fileChangeListener);
         if (mAdapter != null) {
             mAdapter.cancelAllPendingTasks();
         }
@@ -462,6 +472,12 @@ public class OCFileListFragment extends ExtendedListFragment implements
         setRecyclerViewAdapter(mAdapter);
 
         fastScrollUtils.applyFastScroll(getRecyclerView());
+
+        final OCFileListAdapter adapter = mAdapter;
+        getRecyclerView().addOnScrollListener(new ThumbnailPrefetcher(position -> {
+            adapter.prefetchThumbnail(position);
+            return Unit.INSTANCE;
+        }));
     }
 
     protected void prepareCurrentSearch(SearchEvent event) {
@@ -1548,27 +1564,19 @@ public class OCFileListFragment extends ExtendedListFragment implements
                 return;
             }
 
+            OCFile previousDirectory = mFile;
+            OCFile listedDirectory = directory;
             mAdapter.swapDirectory(
                 accountManager.getUser(),
                 directory,
                 storageManager,
                 onlyOnDevice,
-                mLimitToMimeType);
+                mLimitToMimeType,
+                () -> scrollAfterListing(previousDirectory, listedDirectory, file));
 
-            OCFile previousDirectory = mFile;
             mFile = directory;
 
             updateLayout();
-
-            if (file != null) {
-                mAdapter.setHighlightedItem(file);
-                int position = mAdapter.getItemPosition(file);
-                if (position != -1) {
-                    getRecyclerView().scrollToPosition(position);
-                }
-            } else if (previousDirectory == null || !previousDirectory.equals(directory)) {
-                getRecyclerView().scrollToPosition(0);
-            }
         } else if (isSearchEventSet(searchEvent)) {
             handleSearchEvent(searchEvent);
             if (mRefreshListLayout != null) {
@@ -1577,6 +1585,69 @@ public class OCFileListFragment extends ExtendedListFragment implements
         }
     }
 
+    /**
+     * Updates the changed items of the listed directory, or lists it again if they cannot be updated one by one. A
+     * change deeper below only updates the folder of the listed directory containing it.
+     * <p>
+     * Called on the background thread of {@link FileChangeBus}, the changed files are read there and only applied on
+     * the main thread.
+     */
+    private void onFolderChanged(@NonNull FileChangeBus.FolderChanges folderChanges) {
+        OCFile directory = mFile;
+        OCFileListAdapter adapter = mAdapter;
+        if (searchFragment || adapter == null || directory == null || !directory.isFolder() ||
+            !accountManager.getUser().getAccountName().equals(folderChanges.getAccountName())) {
+            return;
+        }
+
+        String directoryPath = directory.getRemotePath();
+        String folderPath = folderChanges.getFolderPath();
+        if (!folderPath.startsWith(directoryPath)) {
+            return;
+        }
+
+        Map<String, FileChangeBus.ChangeType> changes;
+        if (folderPath.equals(directoryPath)) {
+            if (folderChanges.isRefreshed()) {
+                new Handler(Looper.getMainLooper()).post(() -> relistDirectory(directory));
+                return;
+            }
+            changes = folderChanges.getChanges();
+        } else {
+            int end = folderPath.indexOf(OCFile.PATH_SEPARATOR, directoryPath.length());
+            changes = Collections.singletonMap(folderPath.substring(0, end + 1), FileChangeBus.ChangeType.CHANGED);
+        }
+
+        Map<String, OCFile> changedFiles = adapter.resolveChanges(changes);
+        new Handler(Looper.getMainLooper()).post(() -> {
+            if (adapter == mAdapter && directory.equals(mFile) && !adapter.applyChanges(changedFiles)) {
+                listDirectory(MainApp.isOnlyOnDevice(), false);
+            }
+        });
+    }
+
+    private void relistDirectory(@NonNull OCFile directory) {
+        if (directory.equals(mFile)) {
+            listDirectory(MainApp.isOnlyOnDevice(), false);
+        }
+    }
+
+    private void scrollAfterListing(@Nullable OCFile previousDirectory, OCFile directory, @Nullable OCFile file) {
+        if (getView() == null) {
+            return;
+        }
+
+        if (file != null) {
+            mAdapter.setHighlightedItem(file);
+            int position = mAdapter.getItemPosition(file);
+            if (position != -1) {
+                getRecyclerView().scrollToPosition(position);
+            }
+        } else if (previousDirectory == null || !previousDirectory.equals(directory)) {
+            getRecyclerView().scrollToPosition(0);
+        }
+    }
+
     public List<OCFile> getAdapterFiles() {
         return mAdapter.getFiles();
     }
@@ -1879,6 +1950,11 @@ public class OCFileListFragment extends ExtendedListFragment implements
                          mFile,
                          true);
 
+        if (event.getSearchType() == SearchRemoteOperation.SearchType.FAVORITE_SEARCH) {
+            // favorites of the last search are shown until the search finishes
+            mAdapter.showVirtuals(VirtualFolderType.FAVORITE, false, mContainerActivity.getStorageManager());
+        }
+
         setFabVisible(false);
 
         Runnable switchViewsRunnable = () -> {
@@ -1913,6 +1989,34 @@ public class OCFileListFragment extends ExtendedListFragment implements
                                          ocCapability);
     }
 
+    /**
+     * Searches the local file index instead of the server, e.g. while offline.
+     */
+    public void searchLocally(String query) {
+        if (mContainerActivity == null || mContainerActivity.getStorageManager() == null) {
+            return;
+        }
+
+        FileDataStorageManager storageManager = mContainerActivity.getStorageManager();
+        setLoading(true);
+
+        new Thread(() -> {
+            List<OCFile> files = storageManager.searchLocalFiles(new LocalFileSearchQuery(query));
+
+            FragmentActivity activity = getActivity();
+            if (activity == null) {
+                return;
+            }
+            activity.runOnUiThread(() -> {
+                mAdapter.showLocalSearchResults(files);
+                setLoading(false);
+                if (files.isEmpty()) {
+                    setEmptyListMessage(SearchType.LOCAL_SEARCH);
+                }
+            });
+        }).start();
+    }
+
     @Subscribe(threadMode = ThreadMode.MAIN)
     public void onMessageEvent(EncryptionEvent event) {
         new Thread(() -> {{
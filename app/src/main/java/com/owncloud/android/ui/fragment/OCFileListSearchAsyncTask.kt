@@ -58,6 +58,16 @@ class OCFileListSearchAsyncTask(
         if (remoteOperationResult.hasSuccessfulResult() && !isCancelled && fragment.searchFragment) {
             fragment.searchEvent = event
             if (remoteOperationResult.resultData.isNullOrEmpty()) {
+                if (fragment.currentSearchType == SearchType.FAVORITE_SEARCH) {
+                    // removes the favorites of the last search shown meanwhile
+                    fragment.adapter.setData(
+                        emptyList(),
+                        SearchType.FAVORITE_SEARCH,
+                        fileDataStorageManager,
+                        fragment.mFile,
+                        true
+                    )
+                }
                 fragment.setEmptyView(event)
             } else {
                 fragment.adapter.setData(
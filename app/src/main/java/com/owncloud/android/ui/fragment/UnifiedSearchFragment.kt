@@ -306,6 +306,7 @@ class UnifiedSearchFragment :
     override fun onQueryTextChange(newText: String?): Boolean {
         val closeButton = searchView?.findViewById<ImageView>(androidx.appcompat.R.id.search_close_btn)
         closeButton?.visibility = if (newText?.isEmpty() == true) View.INVISIBLE else View.VISIBLE
+        vm.queryChanged(newText.orEmpty())
         return true
     }
 
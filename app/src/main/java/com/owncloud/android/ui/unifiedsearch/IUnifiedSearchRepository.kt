@@ -12,21 +12,11 @@ import com.owncloud.android.lib.common.SearchResult
 
 data class UnifiedSearchResult(val provider: ProviderID, val success: Boolean, val result: SearchResult)
 
-@Suppress("LongParameterList")
+/**
+ * Suspending access to the unified search providers; cancelling the calling coroutine aborts the request.
+ */
 interface IUnifiedSearchRepository {
-    fun queryAll(
-        query: String,
-        onResult: (UnifiedSearchResult) -> Unit,
-        onError: (Throwable) -> Unit,
-        onFinished: (Boolean) -> Unit
-    )
+    suspend fun fetchProviders(): List<ProviderID>
 
-    fun queryProvider(
-        query: String,
-        provider: ProviderID,
-        cursor: Int?,
-        onResult: (UnifiedSearchResult) -> Unit,
-        onError: (Throwable) -> Unit,
-        onFinished: (Boolean) -> Unit
-    )
+    suspend fun queryProvider(query: String, provider: ProviderID, cursor: Int?): UnifiedSearchResult
 }
@@ -20,6 +20,7 @@ interface IUnifiedSearchViewModel {
     val searchResults: LiveData<List<UnifiedSearchSection>>
 
     fun initialQuery()
+    fun queryChanged(query: String)
     fun loadMore(provider: ProviderID)
     fun openResult(result: SearchResultEntry)
     fun setQuery(query: String)
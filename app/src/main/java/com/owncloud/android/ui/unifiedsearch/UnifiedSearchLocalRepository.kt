@@ -0,0 +1,65 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later OR GPL-2.0-only
+ */
+package com.owncloud.android.ui.unifiedsearch
+
+import android.net.Uri
+import com.nextcloud.client.account.CurrentAccountProvider
+import com.nextcloud.client.database.dao.FileDao
+import com.nextcloud.client.database.entity.FileEntity
+import com.nextcloud.model.LocalFileSearchQuery
+import com.owncloud.android.datamodel.OCFile
+import com.owncloud.android.lib.common.SearchResult
+import com.owncloud.android.lib.common.SearchResultEntry
+import com.owncloud.android.utils.MimeType
+import kotlinx.coroutines.CoroutineDispatcher
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.withContext
+import java.io.File
+
+/**
+ * Searches the locally known files of the current account by name, so matches can be shown before any
+ * provider answered.
+ */
+class UnifiedSearchLocalRepository(
+    private val fileDao: FileDao,
+    private val currentAccountProvider: CurrentAccountProvider,
+    private val sectionName: String,
+    private val ioDispatcher: CoroutineDispatcher = Dispatchers.IO
+) {
+    companion object {
+        private const val LIMIT = 5
+        private const val FOLDER_ICON = "icon-folder"
+        private const val FILE_ICON = "icon-file"
+    }
+
+    suspend fun query(query: String): UnifiedSearchResult = withContext(ioDispatcher) {
+        val user = currentAccountProvider.user
+        val serverUrl = user.server.uri.toString()
+        val searchQuery = LocalFileSearchQuery(text = query, limit = LIMIT).toSQLiteQuery(user.accountName)
+
+        val entries = fileDao.search(searchQuery).map { it.toSearchResultEntry(serverUrl) }
+
+        UnifiedSearchResult(UnifiedSearchViewModel.FILES_PROVIDER_ID, true, SearchResult(sectionName, false, entries))
+    }
+
+    private fun FileEntity.toSearchResultEntry(serverUrl: String): SearchResultEntry {
+        val remotePath = pathDecrypted ?: path.orEmpty()
+        val isFolder = contentType == MimeType.DIRECTORY || contentType == MimeType.WEBDAV_FOLDER
+        val fileName = File(remotePath).name
+        val parentPath = File(remotePath).parent ?: OCFile.ROOT_PATH
+
+        return SearchResultEntry(
+            "",
+            fileName,
+            parentPath,
+            serverUrl + "/index.php/apps/files/?dir=" + Uri.encode(parentPath, "/") +
+                "&scrollto=" + Uri.encode(fileName),
+            if (isFolder) FOLDER_ICON else FILE_ICON,
+            false
+        )
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later OR GPL-2.0-only
+ */
+package com.owncloud.android.ui.unifiedsearch
+
+import com.owncloud.android.lib.common.utils.Log_OC
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.async
+import kotlinx.coroutines.awaitAll
+import kotlinx.coroutines.coroutineScope
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.launch
+
+/**
+ * Runs a unified search across all providers.
+ *
+ * Every submitted query supersedes the previous one: its debounce delay is restarted and all provider calls still
+ * in flight are cancelled, so only the latest query reaches the server. Local matches are delivered before any
+ * remote result. Callbacks are invoked on the dispatcher of [scope].
+ */
+class UnifiedSearchOrchestrator(
+    private val scope: CoroutineScope,
+    private val listener: Listener,
+    private val debounceMillis: Long = DEFAULT_DEBOUNCE_MILLIS
+) {
+    companion object {
+        private const val TAG = "UnifiedSearchOrchestrator"
+        const val DEFAULT_DEBOUNCE_MILLIS = 400L
+    }
+
+    interface Listener {
+        fun onLocalResult(result: UnifiedSearchResult)
+        fun onSearchResult(result: UnifiedSearchResult)
+        fun onError(error: Throwable)
+        fun onSearchFinished(success: Boolean)
+    }
+
+    var repository: IUnifiedSearchRepository? = null
+    var localRepository: UnifiedSearchLocalRepository? = null
+
+    private var searchJob: Job? = null
+    private var loadMoreJob: Job? = null
+
+    /**
+     * @param debounce wait for further input before querying, used while the user is typing
+     * @param includeRemote false to search local files only, e.g. while offline
+     */
+    fun submit(query: String, debounce: Boolean, includeRemote: Boolean = true) {
+        cancel()
+        searchJob = scope.launch {
+            if (debounce) {
+                delay(debounceMillis)
+            }
+            search(query, includeRemote)
+        }
+    }
+
+    fun loadMore(query: String, provider: ProviderID, cursor: Int) {
+        val repository = repository ?: return
+        loadMoreJob?.cancel()
+        loadMoreJob = scope.launch {
+            val success = queryProvider(repository, query, provider, cursor)
+            listener.onSearchFinished(success)
+        }
+    }
+
+    fun cancel() {
+        searchJob?.cancel()
+        loadMoreJob?.cancel()
+    }
+
+    private suspend fun search(query: String, includeRemote: Boolean) = coroutineScope {
+        val local = localRepository?.let { localRepository ->
+            async {
+                try {
+                    listener.onLocalResult(localRepository.query(query))
+                } catch (e: CancellationException) {
+                    throw e
+                } catch (@Suppress("TooGenericExceptionCaught") e: Exception) {
+                    Log_OC.e(TAG, "Local search failed", e)
+                }
+            }
+        }
+
+        val repository = repository
+        if (!includeRemote || repository == null) {
+            local?.await()
+            listener.onSearchFinished(true)
+            return@coroutineScope
+        }
+
+        val providers = try {
+            repository.fetchProviders()
+        } catch (e: CancellationException) {
+            throw e
+        } catch (@Suppress("TooGenericExceptionCaught") e: Exception) {
+            listener.onError(e)
+            local?.await()
+            listener.onSearchFinished(false)
+            return@coroutineScope
+        }
+
+        val results = providers.map { provider ->
+            async { queryProvider(repository, query, provider, null, beforeDelivery = { local?.await() }) }
+        }.awaitAll()
+
+        listener.onSearchFinished(results.all { it })
+    }
+
+    private suspend fun queryProvider(
+        repository: IUnifiedSearchRepository,
+        query: String,
+        provider: ProviderID,
+        cursor: Int?,
+        beforeDelivery: suspend () -> Unit = {}
+    ): Boolean {
+        return try {
+            val result = repository.queryProvider(query, provider, cursor)
+            beforeDelivery()
+            listener.onSearchResult(result)
+            result.success
+        } catch (e: CancellationException) {
+            throw e
+        } catch (@Suppress("TooGenericExceptionCaught") e: Exception) {
+            listener.onError(e)
+            false
+        }
+    }
+}
@@ -8,115 +8,56 @@
 package com.owncloud.android.ui.unifiedsearch
 
 import com.nextcloud.client.account.CurrentAccountProvider
-import com.nextcloud.client.core.AsyncRunner
 import com.nextcloud.client.network.ClientFactory
-import com.nextcloud.common.NextcloudClient
-import com.owncloud.android.lib.common.SearchProviders
 import com.owncloud.android.lib.common.utils.Log_OC
-import kotlinx.coroutines.CoroutineExceptionHandler
-import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.CoroutineDispatcher
 import kotlinx.coroutines.Dispatchers
-import kotlinx.coroutines.launch
+import kotlinx.coroutines.runInterruptible
 
 class UnifiedSearchRemoteRepository(
     private val clientFactory: ClientFactory,
     private val currentAccountProvider: CurrentAccountProvider,
-    private val asyncRunner: AsyncRunner
+    private val cache: UnifiedSearchResultCache,
+    private val ioDispatcher: CoroutineDispatcher = Dispatchers.IO
 ) : IUnifiedSearchRepository {
 
-    private var providers: SearchProviders? = null
+    @Volatile
+    private var providers: List<ProviderID>? = null
     private val tag = "UnifiedSearchRemoteRepository"
 
-    private fun runAsyncWithNcClient(callback: (client: NextcloudClient) -> Unit) {
-        val coroutineExceptionHandler = CoroutineExceptionHandler { _, exception ->
-            Log_OC.d(tag, "CoroutineExceptionHandler got at runAsyncWithNcClient $exception")
-        }
+    override suspend fun fetchProviders(): List<ProviderID> {
+        providers?.let { return it }
 
-        CoroutineScope(Dispatchers.IO).launch(coroutineExceptionHandler) {
+        Log_OC.d(tag, "fetchProviders")
+        val result = runInterruptible(ioDispatcher) {
             val client = clientFactory.createNextcloudClient(currentAccountProvider.user)
-            callback(client)
+            GetSearchProvidersTask(client).invoke()
         }
-    }
 
-    override fun queryAll(
-        query: String,
-        onResult: (UnifiedSearchResult) -> Unit,
-        onError: (Throwable) -> Unit,
-        onFinished: (Boolean) -> Unit
-    ) {
-        Log_OC.d(this, "queryAll")
-        fetchProviders(
-            onResult = { result ->
-                val providerIds = result.providers.map { it.id }
-                var openRequests = providerIds.size
-                var anyError = false
-                runAsyncWithNcClient { client ->
-                    providerIds
-                        .forEach { provider ->
-                            val task = SearchOnProviderTask(query, provider, client)
-                            asyncRunner.postQuickTask(
-                                task = task,
-                                onResult = {
-                                    openRequests--
-                                    anyError = anyError || !it.success
-                                    onResult(UnifiedSearchResult(provider, it.success, it.searchResult))
-                                    if (openRequests == 0) {
-                                        onFinished(!anyError)
-                                    }
-                                },
-                                onError = {
-                                    openRequests--
-                                    anyError = true
-                                    onError(it)
-                                    if (openRequests == 0) {
-                                        onFinished(!anyError)
-                                    }
-                                }
-                            )
-                        }
-                }
-            },
-            onError = onError
-        )
+        val providerIds = result.providers.providers.map { it.id }
+        if (result.success) {
+            providers = providerIds
+        }
+        return providerIds
     }
 
-    override fun queryProvider(
-        query: String,
-        provider: ProviderID,
-        cursor: Int?,
-        onResult: (UnifiedSearchResult) -> Unit,
-        onError: (Throwable) -> Unit,
-        onFinished: (Boolean) -> Unit
-    ) {
-        Log_OC.d(
-            this,
-            "queryProvider() called with: query = $query, provider = $provider, cursor = $cursor"
-        )
-        runAsyncWithNcClient { client ->
-            val task = SearchOnProviderTask(query, provider, client, cursor)
-            asyncRunner.postQuickTask(
-                task,
-                onResult = {
-                    onResult(UnifiedSearchResult(provider, it.success, it.searchResult))
-                    onFinished(it.success)
-                },
-                onError
-            )
+    override suspend fun queryProvider(query: String, provider: ProviderID, cursor: Int?): UnifiedSearchResult {
+        val user = currentAccountProvider.user
+        val key = UnifiedSearchResultCache.Key(user.accountName, query, provider, cursor)
+        cache.get(key)?.let {
+            Log_OC.d(tag, "queryProvider() cache hit: query = $query, provider = $provider, cursor = $cursor")
+            return it
+        }
+
+        Log_OC.d(tag, "queryProvider() called with: query = $query, provider = $provider, cursor = $cursor")
+        val result = runInterruptible(ioDispatcher) {
+            val client = clientFactory.createNextcloudClient(user)
+            SearchOnProviderTask(query, provider, client, cursor).invoke()
         }
-    }
 
-    fun fetchProviders(onResult: (SearchProviders) -> Unit, onError: (Throwable) -> Unit) {
-        Log_OC.d(this, "fetchProviders")
-        if (this.providers != null) {
-            onResult(this.providers!!)
-        } else {
-            runAsyncWithNcClient { client ->
-                val task = GetSearchProvidersTask(client)
-                asyncRunner.postQuickTask(
-                    task,
-                    onResult = { onResult(it.providers) },
-                    onError = onError
-                )
+        return UnifiedSearchResult(provider, result.success, result.searchResult).also {
+            if (it.success) {
+                cache.put(key, it)
             }
         }
     }
@@ -0,0 +1,59 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later OR GPL-2.0-only
+ */
+package com.owncloud.android.ui.unifiedsearch
+
+import com.nextcloud.client.core.Clock
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * Keeps recent provider results, so re-typing or re-opening a search does not hit the server again.
+ * Entries expire after [ttlMillis]; once [maxEntries] is reached the least recently used entry is evicted.
+ */
+@Singleton
+class UnifiedSearchResultCache(
+    private val clock: Clock,
+    private val maxEntries: Int,
+    private val ttlMillis: Long
+) {
+    @Inject
+    constructor(clock: Clock) : this(clock, DEFAULT_MAX_ENTRIES, DEFAULT_TTL_MILLIS)
+
+    companion object {
+        private const val DEFAULT_MAX_ENTRIES = 100
+        private const val DEFAULT_TTL_MILLIS = 2 * 60 * 1000L
+        private const val LOAD_FACTOR = 0.75f
+    }
+
+    data class Key(val accountName: String, val query: String, val provider: ProviderID, val cursor: Int?)
+
+    private data class Entry(val result: UnifiedSearchResult, val createdAt: Long)
+
+    private val entries = object : LinkedHashMap<Key, Entry>(maxEntries, LOAD_FACTOR, true) {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<Key, Entry>?): Boolean = size > maxEntries
+    }
+
+    @Synchronized
+    fun get(key: Key): UnifiedSearchResult? {
+        val entry = entries[key] ?: return null
+        if (clock.currentTime - entry.createdAt > ttlMillis) {
+            entries.remove(key)
+            return null
+        }
+        return entry.result
+    }
+
+    @Synchronized
+    fun put(key: Key, result: UnifiedSearchResult) {
+        entries[key] = Entry(result, clock.currentTime)
+    }
+
+    @Synchronized
+    fun clear() {
+        entries.clear()
+    }
+}
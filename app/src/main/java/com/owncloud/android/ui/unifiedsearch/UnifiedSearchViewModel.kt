@@ -14,8 +14,10 @@ import androidx.annotation.VisibleForTesting
 import androidx.core.net.toUri
 import androidx.lifecycle.AndroidViewModel
 import androidx.lifecycle.MutableLiveData
+import androidx.lifecycle.viewModelScope
 import com.nextcloud.client.account.CurrentAccountProvider
 import com.nextcloud.client.core.AsyncRunner
+import com.nextcloud.client.database.NextcloudDatabase
 import com.nextcloud.client.network.ClientFactory
 import com.nextcloud.client.network.ConnectivityService
 import com.owncloud.android.R
@@ -28,10 +30,13 @@ import com.owncloud.android.ui.asynctasks.GetRemoteFileTask
 import javax.inject.Inject
 
 @Suppress("LongParameterList")
-class UnifiedSearchViewModel(application: Application) : AndroidViewModel(application), IUnifiedSearchViewModel {
+class UnifiedSearchViewModel(application: Application) :
+    AndroidViewModel(application),
+    IUnifiedSearchViewModel,
+    UnifiedSearchOrchestrator.Listener {
     companion object {
         private const val TAG = "UnifiedSearchViewModel"
-        private const val FILES_PROVIDER_ID = "files"
+        const val FILES_PROVIDER_ID = "files"
     }
 
     private data class UnifiedSearchMetadata(
@@ -56,8 +61,9 @@ class UnifiedSearchViewModel(application: Application) : AndroidViewModel(applic
     private val context: Context
         get() = getApplication<Application>().applicationContext
 
-    private lateinit var repository: IUnifiedSearchRepository
+    private val orchestrator = UnifiedSearchOrchestrator(viewModelScope, this)
     private var results: MutableMap<ProviderID, UnifiedSearchMetadata> = mutableMapOf()
+    private var localResult: SearchResult? = null
 
     override val isLoading = MutableLiveData(false)
     override val searchResults = MutableLiveData<List<UnifiedSearchSection>>(mutableListOf())
@@ -73,7 +79,8 @@ class UnifiedSearchViewModel(application: Application) : AndroidViewModel(applic
         runner: AsyncRunner,
         clientFactory: ClientFactory,
         resources: Resources,
-        connectivityService: ConnectivityService
+        connectivityService: ConnectivityService,
+        searchResultCache: UnifiedSearchResultCache
     ) : this(application) {
         this.currentAccountProvider = currentAccountProvider
         this.runner = runner
@@ -81,10 +88,15 @@ class UnifiedSearchViewModel(application: Application) : AndroidViewModel(applic
         this.resources = resources
         this.connectivityService = connectivityService
 
-        repository = UnifiedSearchRemoteRepository(
+        orchestrator.repository = UnifiedSearchRemoteRepository(
             clientFactory,
             currentAccountProvider,
-            runner
+            searchResultCache
+        )
+        orchestrator.localRepository = UnifiedSearchLocalRepository(
+            NextcloudDatabase.getInstance(application).fileDao(),
+            currentAccountProvider,
+            resources.getString(R.string.drawer_item_on_device)
         )
     }
 
@@ -92,16 +104,38 @@ class UnifiedSearchViewModel(application: Application) : AndroidViewModel(applic
      * Clears data and queries all available providers
      */
     override fun initialQuery() {
-        doWithConnectivityCheck {
-            results = mutableMapOf()
-            searchResults.value = mutableListOf()
-            val queryTerm = query.value.orEmpty()
+        search(debounce = false)
+    }
 
-            if (isLoading.value != true && queryTerm.isNotBlank()) {
-                isLoading.value = true
-                repository.queryAll(queryTerm, this::onSearchResult, this::onError, this::onSearchFinished)
-            }
+    /**
+     * Same as [initialQuery], but waits for further input first; superseded queries are cancelled
+     */
+    override fun queryChanged(query: String) {
+        if (query == this.query.value) {
+            return
         }
+        setQuery(query)
+        search(debounce = true)
+    }
+
+    private fun search(debounce: Boolean) {
+        results = mutableMapOf()
+        localResult = null
+        searchResults.value = mutableListOf()
+        val queryTerm = query.value.orEmpty()
+
+        if (queryTerm.isBlank()) {
+            orchestrator.cancel()
+            isLoading.value = false
+            return
+        }
+
+        isLoading.value = true
+        val connected = connectivityService.connectivity.isConnected
+        if (!connected) {
+            error.value = resources.getString(R.string.offline_mode)
+        }
+        orchestrator.submit(queryTerm, debounce, includeRemote = connected)
     }
 
     override fun loadMore(provider: ProviderID) {
@@ -111,14 +145,7 @@ class UnifiedSearchViewModel(application: Application) : AndroidViewModel(applic
             if (isLoading.value != true && queryTerm.isNotBlank()) {
                 results[provider]?.nextCursor()?.let { cursor ->
                     isLoading.value = true
-                    repository.queryProvider(
-                        queryTerm,
-                        provider,
-                        cursor,
-                        this::onSearchResult,
-                        this::onError,
-                        this::onSearchFinished
-                    )
+                    orchestrator.loadMore(queryTerm, provider, cursor)
                 }
             }
         }
@@ -173,12 +200,19 @@ class UnifiedSearchViewModel(application: Application) : AndroidViewModel(applic
         }
     }
 
-    fun onError(error: Throwable) {
+    override fun onError(error: Throwable) {
         Log_OC.e(TAG, "Error: " + error.stackTrace)
     }
 
+    override fun onLocalResult(result: UnifiedSearchResult) {
+        if (result.result.entries.isNotEmpty()) {
+            localResult = result.result
+            genSearchResultsFromMeta()
+        }
+    }
+
     @Synchronized
-    fun onSearchResult(result: UnifiedSearchResult) {
+    override fun onSearchResult(result: UnifiedSearchResult) {
         if (result.success) {
             val providerMeta = results[result.provider] ?: UnifiedSearchMetadata()
             providerMeta.results.add(result.result)
@@ -194,7 +228,7 @@ class UnifiedSearchViewModel(application: Application) : AndroidViewModel(applic
     }
 
     private fun genSearchResultsFromMeta() {
-        searchResults.value = results
+        val remoteSections = results
             .filter { it.value.results.isNotEmpty() }
             .map { (key, value) ->
                 val isLastEntryHaveValue = results[key]?.results?.last()?.entries?.isEmpty() != true
@@ -206,6 +240,13 @@ class UnifiedSearchViewModel(application: Application) : AndroidViewModel(applic
                     hasMoreResults = isLastEntryHaveValue && results[key]?.nextCursor() != null
                 )
             }
+
+        // local matches are shown until the files provider answered
+        val localSection = localResult
+            ?.takeIf { !results.containsKey(FILES_PROVIDER_ID) }
+            ?.let { UnifiedSearchSection(FILES_PROVIDER_ID, it.name, it.entries, false) }
+
+        searchResults.value = (listOfNotNull(localSection) + remoteSections)
             .sortedWith { o1, o2 ->
                 // TODO sort with sort order from server providers?
                 when {
@@ -216,7 +257,7 @@ class UnifiedSearchViewModel(application: Application) : AndroidViewModel(applic
             }
     }
 
-    private fun onSearchFinished(success: Boolean) {
+    override fun onSearchFinished(success: Boolean) {
         Log_OC.d(TAG, "onSearchFinished: success: $success")
         isLoading.value = false
         if (!success) {
@@ -226,7 +267,7 @@ class UnifiedSearchViewModel(application: Application) : AndroidViewModel(applic
 
     @VisibleForTesting
     fun setRepository(repository: IUnifiedSearchRepository) {
-        this.repository = repository
+        orchestrator.repository = repository
     }
 
     private fun onFileRequestResult(result: GetRemoteFileTask.Result) {
@@ -33,7 +33,6 @@ import android.graphics.Point;
 import android.graphics.drawable.ColorDrawable;
 import android.graphics.drawable.Drawable;
 import android.net.Uri;
-import android.os.AsyncTask;
 import android.text.Spannable;
 import android.text.SpannableStringBuilder;
 import android.text.TextUtils;
@@ -926,7 +925,7 @@ public final class DisplayUtils {
             return;
         }
 
-        final var entity = storageManager.offlineOperationDao.getByPath(file.getDecryptedRemotePath());
+        final var entity = storageManager.getOfflineEntityFromOCFile(file);
         if (entity == null) {
             return;
         }
@@ -1004,13 +1003,6 @@ public final class DisplayUtils {
             return;
         }
 
-        for (ThumbnailsCacheManager.ThumbnailGenerationTask task : asyncTasks) {
-            if (file.getRemoteId() != null && task.getImageKey() != null &&
-                file.getRemoteId().equals(task.getImageKey())) {
-                return;
-            }
-        }
-
         try {
             final ThumbnailsCacheManager.ThumbnailGenerationTask task =
                 new ThumbnailsCacheManager.ThumbnailGenerationTask(thumbnailView,
@@ -1063,9 +1055,9 @@ public final class DisplayUtils {
 
             thumbnailView.setImageDrawable(asyncDrawable);
             asyncTasks.add(task);
-            task.executeOnExecutor(AsyncTask.THREAD_POOL_EXECUTOR,
-                                   new ThumbnailsCacheManager.ThumbnailGenerationTaskObject(file,
-                                                                                            file.getRemoteId()));
+            ThumbnailsCacheManager.loadThumbnail(task,
+                                                 new ThumbnailsCacheManager.ThumbnailGenerationTaskObject(file,
+                                                                                                          file.getRemoteId()));
         } catch (IllegalArgumentException e) {
             Log_OC.d(TAG, "ThumbnailGenerationTask : " + e.getMessage());
         }
@@ -23,6 +23,7 @@ import com.owncloud.android.datamodel.ArbitraryDataProviderImpl;
 import com.owncloud.android.datamodel.EncryptedFiledrop;
 import com.owncloud.android.datamodel.FileDataStorageManager;
 import com.owncloud.android.datamodel.OCFile;
+import com.owncloud.android.datamodel.e2e.FolderMetadataCache;
 import com.owncloud.android.datamodel.e2e.v1.decrypted.DecryptedFile;
 import com.owncloud.android.datamodel.e2e.v1.decrypted.DecryptedFolderMetadataFileV1;
 import com.owncloud.android.datamodel.e2e.v1.decrypted.DecryptedMetadata;
@@ -398,11 +399,11 @@ public final class EncryptionUtils {
     }
 
     /**
-     * Download metadata (v1 or v2) for folder and decrypt it
+     * Download metadata (v1 or v2) for folder and decrypt it. Metadata of a folder whose eTag did not change since
+     * it was last decrypted is taken from {@link FolderMetadataCache}.
      *
      * @return decrypted v2 metadata or null
      */
-    @SuppressFBWarnings("URV")
     public static @Nullable
     Object
     downloadFolderMetadata(OCFile folder,
@@ -410,6 +411,27 @@ public final class EncryptionUtils {
                            Context context,
                            User user
                           ) {
+        FolderMetadataCache cache = FolderMetadataCache.getInstance();
+        Object cached = cache.get(user.getAccountName(), folder.getLocalId(), folder.getEtag());
+        if (cached != null) {
+            return cached;
+        }
+
+        Object metadata = fetchFolderMetadata(folder, client, context, user);
+        if (metadata != null) {
+            cache.put(user.getAccountName(), folder.getLocalId(), folder.getEtag(), metadata);
+        }
+        return metadata;
+    }
+
+    @SuppressFBWarnings("URV")
+    private static @Nullable
+    Object
+    fetchFolderMetadata(OCFile folder,
+                        OwnCloudClient client,
+                        Context context,
+                        User user
+                       ) {
         RemoteOperationResult<MetadataResponse> getMetadataOperationResult = new GetMetadataRemoteOperation(folder.getLocalId())
             .execute(client);
 
@@ -1318,6 +1340,8 @@ public final class EncryptionUtils {
     }
 
     public static String lockFolder(ServerFileInterface parentFile, OwnCloudClient client, long counter) throws UploadException {
+        FolderMetadataCache.getInstance().invalidate(parentFile.getLocalId());
+
         // Lock folder
         LockFileRemoteOperation lockFileOperation = new LockFileRemoteOperation(parentFile.getLocalId(),
                                                                                 counter);
@@ -1465,6 +1489,8 @@ public final class EncryptionUtils {
                                       String signature,
                                       ArbitraryDataProvider arbitraryDataProvider,
                                       User user) throws UploadException {
+        FolderMetadataCache.getInstance().invalidate(parentFile.getLocalId());
+
         RemoteOperationResult<String> uploadMetadataOperationResult;
         if (metadataExists) {
             // update metadata
@@ -1543,6 +1569,8 @@ public final class EncryptionUtils {
         arbitraryDataProvider.deleteKeyForAccount(user.getAccountName(), EncryptionUtils.PRIVATE_KEY);
         arbitraryDataProvider.deleteKeyForAccount(user.getAccountName(), EncryptionUtils.PUBLIC_KEY);
         arbitraryDataProvider.deleteKeyForAccount(user.getAccountName(), EncryptionUtils.MNEMONIC);
+
+        FolderMetadataCache.getInstance().clear(user.getAccountName());
     }
 
     public static boolean isMatchingKeys(KeyPair keyPair, String publicKeyString) throws CertificateException {
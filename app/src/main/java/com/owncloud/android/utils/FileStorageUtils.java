@@ -25,6 +25,7 @@ import com.owncloud.android.MainApp;
 import com.owncloud.android.R;
 import com.owncloud.android.datamodel.FileDataStorageManager;
 import com.owncloud.android.datamodel.OCFile;
+import com.owncloud.android.datamodel.StorageUsageLedger;
 import com.owncloud.android.lib.common.utils.Log_OC;
 import com.owncloud.android.lib.resources.files.model.RemoteFile;
 import com.owncloud.android.lib.resources.shares.ShareeUser;
@@ -527,6 +528,16 @@ public final class FileStorageUtils {
             return true;
         }
 
+        List<OCFile> ancestors = storageManager.getAncestors(file);
+        if (ancestors != null) {
+            for (OCFile ancestor : ancestors) {
+                if (ancestor.isEncrypted()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
         while (file != null && !OCFile.ROOT_PATH.equals(file.getDecryptedRemotePath())) {
             if (file.isEncrypted()) {
                 return true;
@@ -747,7 +758,7 @@ public final class FileStorageUtils {
             // not yet downloaded anything
             return 0;
         } else {
-            return FileStorageUtils.getFolderSize(new File(file.getStoragePath()));
+            return StorageUsageLedger.getInstance().getSize(new File(file.getStoragePath()));
         }
     }
 
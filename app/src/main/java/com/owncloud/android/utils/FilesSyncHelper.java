@@ -13,12 +13,16 @@ import android.content.ContentResolver;
 import android.content.Context;
 import android.database.Cursor;
 import android.net.Uri;
+import android.os.Build;
 import android.provider.MediaStore;
+import android.text.TextUtils;
 
 import com.nextcloud.client.account.UserAccountManager;
+import com.nextcloud.client.database.NextcloudDatabase;
 import com.nextcloud.client.device.PowerManagementService;
 import com.nextcloud.client.jobs.BackgroundJobManager;
 import com.nextcloud.client.jobs.BackgroundJobManagerImpl;
+import com.nextcloud.client.jobs.autoUpload.AutoUploadChangeDetector;
 import com.nextcloud.client.jobs.upload.FileUploadHelper;
 import com.nextcloud.client.network.ConnectivityService;
 import com.owncloud.android.MainApp;
@@ -33,16 +37,18 @@ import org.lukhnos.nnio.file.AccessDeniedException;
 import org.lukhnos.nnio.file.FileVisitResult;
 import org.lukhnos.nnio.file.FileVisitor;
 import org.lukhnos.nnio.file.Path;
-import org.lukhnos.nnio.file.Paths;
-import org.lukhnos.nnio.file.SimpleFileVisitor;
 import org.lukhnos.nnio.file.attribute.BasicFileAttributes;
 import org.lukhnos.nnio.file.Files;
 import org.lukhnos.nnio.file.impl.FileBasedPathImpl;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import static com.owncloud.android.datamodel.OCFile.PATH_SEPARATOR;
 
@@ -54,6 +60,9 @@ public final class FilesSyncHelper {
 
     public static final String GLOBAL = "global";
 
+    // stays below the limit of SQLite host parameters of older Android versions
+    private static final int MAX_SELECTION_ARGS = 500;
+
     private FilesSyncHelper() {
         // utility class -> private constructor
     }
@@ -92,58 +101,6 @@ public final class FilesSyncHelper {
         }
     }
 
-    private static void insertCustomFolderIntoDB(Path path,
-                                                 SyncedFolder syncedFolder,
-                                                 FilesystemDataProvider filesystemDataProvider,
-                                                 long lastCheck) {
-
-        final long enabledTimestampMs = syncedFolder.getEnabledTimestampMs();
-
-        try {
-
-            walkFileTreeRandomly(path, new SimpleFileVisitor<>() {
-                @Override
-                public FileVisitResult visitFile(Path path, BasicFileAttributes attrs) {
-                    File file = path.toFile();
-                    if (syncedFolder.isExcludeHidden() && file.isHidden()) {
-                        // exclude hidden file or folder
-                        return FileVisitResult.CONTINUE;
-                    }
-
-                    if (attrs.lastModifiedTime().toMillis() < lastCheck) {
-                        // skip files that were already checked
-                        return FileVisitResult.CONTINUE;
-                    }
-
-                    if (syncedFolder.isExisting() || attrs.lastModifiedTime().toMillis() >= enabledTimestampMs) {
-                        // storeOrUpdateFileValue takes a few ms
-                        // -> Rest of this file check takes not even 1 ms.
-                        filesystemDataProvider.storeOrUpdateFileValue(path.toAbsolutePath().toString(),
-                                                                      attrs.lastModifiedTime().toMillis(),
-                                                                      file.isDirectory(), syncedFolder);
-                    }
-
-                    return FileVisitResult.CONTINUE;
-                }
-
-                @Override
-                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
-                    if (syncedFolder.isExcludeHidden() && dir.compareTo(Paths.get(syncedFolder.getLocalPath())) != 0 && dir.toFile().isHidden()) {
-                        return FileVisitResult.SKIP_SUBTREE;
-                    }
-                    return FileVisitResult.CONTINUE;
-                }
-
-                @Override
-                public FileVisitResult visitFileFailed(Path file, IOException exc) {
-                    return FileVisitResult.CONTINUE;
-                }
-            });
-        } catch (IOException e) {
-            Log_OC.e(TAG, "Something went wrong while indexing files for auto upload", e);
-        }
-    }
-
     public static void insertAllDBEntriesForSyncedFolder(SyncedFolder syncedFolder) {
         final Context context = MainApp.getAppContext();
         final ContentResolver contentResolver = context.getContentResolver();
@@ -157,24 +114,36 @@ public final class FilesSyncHelper {
             Log_OC.d(TAG,"File-sync start check folder "+syncedFolder.getLocalPath());
             long startTime = System.nanoTime();
 
+            FilesystemDataProvider filesystemDataProvider = new FilesystemDataProvider(contentResolver);
+            AutoUploadChangeDetector changeDetector = new AutoUploadChangeDetector(
+                context,
+                NextcloudDatabase.getInstance(context).syncedFolderScanDao(),
+                filesystemDataProvider);
+
             if (mediaType == MediaFolderType.IMAGE) {
                 FilesSyncHelper.insertContentIntoDB(MediaStore.Images.Media.INTERNAL_CONTENT_URI,
                                                     syncedFolder,
                                                     lastCheckTimestampMs);
-                FilesSyncHelper.insertContentIntoDB(MediaStore.Images.Media.EXTERNAL_CONTENT_URI,
-                                                    syncedFolder,
-                                                    lastCheckTimestampMs);
+                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+                    changeDetector.scanMediaFolder(syncedFolder);
+                } else {
+                    FilesSyncHelper.insertContentIntoDB(MediaStore.Images.Media.EXTERNAL_CONTENT_URI,
+                                                        syncedFolder,
+                                                        lastCheckTimestampMs);
+                }
             } else if (mediaType == MediaFolderType.VIDEO) {
                 FilesSyncHelper.insertContentIntoDB(MediaStore.Video.Media.INTERNAL_CONTENT_URI,
                                                     syncedFolder,
                                                     lastCheckTimestampMs);
-                FilesSyncHelper.insertContentIntoDB(MediaStore.Video.Media.EXTERNAL_CONTENT_URI,
-                                                    syncedFolder,
-                                                    lastCheckTimestampMs);
+                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+                    changeDetector.scanMediaFolder(syncedFolder);
+                } else {
+                    FilesSyncHelper.insertContentIntoDB(MediaStore.Video.Media.EXTERNAL_CONTENT_URI,
+                                                        syncedFolder,
+                                                        lastCheckTimestampMs);
+                }
             } else {
-                    FilesystemDataProvider filesystemDataProvider = new FilesystemDataProvider(contentResolver);
-                    Path path = Paths.get(syncedFolder.getLocalPath());
-                    FilesSyncHelper.insertCustomFolderIntoDB(path, syncedFolder, filesystemDataProvider, lastCheckTimestampMs);
+                changeDetector.scanCustomFolder(syncedFolder);
             }
 
             Log_OC.d(TAG,"File-sync finished full check for custom folder "+syncedFolder.getLocalPath()+" within "+(System.nanoTime() - startTime)+ "ns");
@@ -185,51 +154,122 @@ public final class FilesSyncHelper {
                                             String[] changedFiles) {
         final ContentResolver contentResolver = MainApp.getAppContext().getContentResolver();
         final FilesystemDataProvider filesystemDataProvider = new FilesystemDataProvider(contentResolver);
-        for (String changedFileURI : changedFiles){
-            String changedFile = getFileFromURI(changedFileURI);
-            if (syncedFolder.containsTypedFile(changedFile)){
+        for (String changedFile : getFilesFromURIs(contentResolver, changedFiles)) {
+            if (syncedFolder.containsTypedFile(changedFile)) {
+                // media store rows of images and videos are never folders
                 File file = new File(changedFile);
                 filesystemDataProvider.storeOrUpdateFileValue(changedFile,
-                                                              file.lastModified(),file.isDirectory(),
+                                                              file.lastModified(),
+                                                              false,
                                                               syncedFolder);
             }
         }
     }
 
-    private static String getFileFromURI(String uri){
-        final Context context = MainApp.getAppContext();
+    /**
+     * Resolves the local paths of changed media store URIs, querying all URIs of a collection at once.
+     */
+    private static List<String> getFilesFromURIs(ContentResolver contentResolver, String[] uris) {
+        final List<String> paths = new ArrayList<>();
+        final Map<Uri, List<String>> idsByCollection = new HashMap<>();
+
+        for (String uriString : uris) {
+            Uri uri = Uri.parse(uriString);
+            List<String> segments = uri.getPathSegments();
+            String id = uri.getLastPathSegment();
+
+            if (id == null || !TextUtils.isDigitsOnly(id)) {
+                String path = getFileFromURI(contentResolver, uri);
+                if (path != null) {
+                    paths.add(path);
+                }
+                continue;
+            }
 
-        Cursor cursor;
-        int column_index_data;
-        String filePath = null;
+            Uri.Builder collection = uri.buildUpon().path(null).clearQuery();
+            for (String segment : segments.subList(0, segments.size() - 1)) {
+                collection.appendPath(segment);
+            }
+            Uri collectionUri = collection.build();
+            List<String> ids = idsByCollection.get(collectionUri);
+            if (ids == null) {
+                ids = new ArrayList<>();
+                idsByCollection.put(collectionUri, ids);
+            }
+            ids.add(id);
+        }
 
         String[] projection = {MediaStore.MediaColumns.DATA};
+        for (Map.Entry<Uri, List<String>> entry : idsByCollection.entrySet()) {
+            List<String> ids = entry.getValue();
+            for (int from = 0; from < ids.size(); from += MAX_SELECTION_ARGS) {
+                List<String> chunk = ids.subList(from, Math.min(from + MAX_SELECTION_ARGS, ids.size()));
+                String selection = MediaStore.MediaColumns._ID + " IN (" +
+                    TextUtils.join(",", Collections.nCopies(chunk.size(), "?")) + ")";
+
+                try (Cursor cursor = contentResolver.query(entry.getKey(),
+                                                           projection,
+                                                           selection,
+                                                           chunk.toArray(new String[0]),
+                                                           null)) {
+                    if (cursor == null) {
+                        continue;
+                    }
+
+                    int columnIndexData = cursor.getColumnIndexOrThrow(MediaStore.MediaColumns.DATA);
+                    while (cursor.moveToNext()) {
+                        String path = cursor.getString(columnIndexData);
+                        if (path != null) {
+                            paths.add(path);
+                        }
+                    }
+                }
+            }
+        }
 
-        cursor = context.getContentResolver().query(Uri.parse(uri), projection, null, null, null, null);
+        return paths;
+    }
+
+    private static String getFileFromURI(ContentResolver contentResolver, Uri uri) {
+        String filePath = null;
 
-        if (cursor != null && cursor.moveToFirst()) {
-            column_index_data = cursor.getColumnIndexOrThrow(MediaStore.MediaColumns.DATA);
-            filePath = cursor.getString(column_index_data);
-            cursor.close();
+        String[] projection = {MediaStore.MediaColumns.DATA};
+
+        try (Cursor cursor = contentResolver.query(uri, projection, null, null, null, null)) {
+            if (cursor != null && cursor.moveToFirst()) {
+                filePath = cursor.getString(cursor.getColumnIndexOrThrow(MediaStore.MediaColumns.DATA));
+            }
         }
         return filePath;
     }
 
+    /**
+     * @return modification date in seconds media store rows need to have at least to be relevant for the scan of
+     * the synced folder, or -1 if all rows are
+     */
+    static long getMinimumDateModified(SyncedFolder syncedFolder, long lastCheckTimestampMs) {
+        long minimum = -1;
+        if (syncedFolder.getLastScanTimestampMs() != SyncedFolder.NOT_SCANNED_YET) {
+            minimum = lastCheckTimestampMs / 1000;
+        }
+        if (!syncedFolder.isExisting()) {
+            minimum = Math.max(minimum, syncedFolder.getEnabledTimestampMs() / 1000);
+        }
+        return minimum;
+    }
+
     private static void insertContentIntoDB(Uri uri, SyncedFolder syncedFolder,
                                             long lastCheckTimestampMs) {
         final Context context = MainApp.getAppContext();
         final ContentResolver contentResolver = context.getContentResolver();
 
-        Cursor cursor;
-        int column_index_data;
-        int column_index_date_modified;
-
         final FilesystemDataProvider filesystemDataProvider = new FilesystemDataProvider(contentResolver);
 
-        String contentPath;
-        boolean isFolder;
-
-        String[] projection = {MediaStore.MediaColumns.DATA, MediaStore.MediaColumns.DATE_MODIFIED};
+        String[] projection = {
+            MediaStore.MediaColumns.DATA,
+            MediaStore.MediaColumns.DATE_MODIFIED,
+            MediaStore.MediaColumns.MIME_TYPE
+        };
 
         String path = syncedFolder.getLocalPath();
         if (!path.endsWith(PATH_SEPARATOR)) {
@@ -237,32 +277,36 @@ public final class FilesSyncHelper {
         }
         path = path + "%";
 
-        long enabledTimestampMs = syncedFolder.getEnabledTimestampMs();
+        // filter out rows not modified since the last scan in the media store instead of here
+        String selection = MediaStore.MediaColumns.DATA + " LIKE ?";
+        String[] selectionArgs = new String[]{path};
+        long minimumDateModified = getMinimumDateModified(syncedFolder, lastCheckTimestampMs);
+        if (minimumDateModified >= 0) {
+            selection += " AND " + MediaStore.MediaColumns.DATE_MODIFIED + " >= ?";
+            selectionArgs = new String[]{path, Long.toString(minimumDateModified)};
+        }
 
-        cursor = context.getContentResolver().query(uri, projection, MediaStore.MediaColumns.DATA + " LIKE ?",
-                                                    new String[]{path}, null);
+        try (Cursor cursor = contentResolver.query(uri, projection, selection, selectionArgs, null)) {
+            if (cursor == null) {
+                return;
+            }
 
-        if (cursor != null) {
-            column_index_data = cursor.getColumnIndexOrThrow(MediaStore.MediaColumns.DATA);
-            column_index_date_modified = cursor.getColumnIndexOrThrow(MediaStore.MediaColumns.DATE_MODIFIED);
+            int columnIndexData = cursor.getColumnIndexOrThrow(MediaStore.MediaColumns.DATA);
+            int columnIndexDateModified = cursor.getColumnIndexOrThrow(MediaStore.MediaColumns.DATE_MODIFIED);
+            int columnIndexMimeType = cursor.getColumnIndexOrThrow(MediaStore.MediaColumns.MIME_TYPE);
             while (cursor.moveToNext()) {
-                contentPath = cursor.getString(column_index_data);
-                isFolder = new File(contentPath).isDirectory();
+                String contentPath = cursor.getString(columnIndexData);
 
-                if (syncedFolder.getLastScanTimestampMs() != SyncedFolder.NOT_SCANNED_YET &&
-                    cursor.getLong(column_index_date_modified) < (lastCheckTimestampMs / 1000)) {
-                    continue;
-                }
+                // a known mime type answers whether this is a file without asking the file system
+                boolean isFolder = cursor.isNull(columnIndexMimeType) && new File(contentPath).isDirectory();
 
-                if (syncedFolder.isExisting() || cursor.getLong(column_index_date_modified) >= enabledTimestampMs / 1000) {
-                    // storeOrUpdateFileValue takes a few ms
-                    // -> Rest of this file check takes not even 1 ms.
-                    filesystemDataProvider.storeOrUpdateFileValue(contentPath,
-                                                                  cursor.getLong(column_index_date_modified), isFolder,
-                                                                  syncedFolder);
-                }
+                // storeOrUpdateFileValue takes a few ms
+                // -> Rest of this file check takes not even 1 ms.
+                filesystemDataProvider.storeOrUpdateFileValue(contentPath,
+                                                              cursor.getLong(columnIndexDateModified),
+                                                              isFolder,
+                                                              syncedFolder);
             }
-            cursor.close();
         }
     }
 
@@ -270,14 +314,11 @@ public final class FilesSyncHelper {
                                               final UserAccountManager accountManager,
                                               final ConnectivityService connectivityService,
                                               final PowerManagementService powerManagementService) {
-        
-        new Thread(() -> {
-            FileUploadHelper.Companion.instance().retryFailedUploads(
-                uploadsStorageManager,
-                connectivityService,
-                accountManager,
-                powerManagementService);
-        }).start();
+        FileUploadHelper.Companion.instance().scheduleRetryFailedUploads(
+            uploadsStorageManager,
+            connectivityService,
+            accountManager,
+            powerManagementService);
     }
 
     public static void scheduleFilesSyncForAllFoldersIfNeeded(Context context, SyncedFolderProvider syncedFolderProvider, BackgroundJobManager jobManager) {
@@ -0,0 +1,94 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later OR GPL-2.0-only
+ */
+package com.nextcloud.client.files
+
+import android.content.Context
+import com.nextcloud.client.account.MockUser
+import com.owncloud.android.datamodel.FileDataStorageManager
+import com.owncloud.android.datamodel.OCFile
+import com.owncloud.android.datamodel.VirtualFolderType
+import com.owncloud.android.lib.resources.files.model.RemoteFile
+import com.owncloud.android.utils.MimeType
+import io.mockk.every
+import io.mockk.mockk
+import io.mockk.slot
+import io.mockk.verify
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class FavoritesLoaderTest {
+
+    private val storageManager = mockk<FileDataStorageManager>(relaxed = true)
+    private val refreshed = mutableListOf<String>()
+    private val loader = FavoritesLoader(MockUser(), storageManager, mockk<Context>()) { refreshed.add(it.remotePath) }
+
+    @Test
+    fun onlyChangedFoldersAreRefreshed() {
+        every { storageManager.getFilesByPaths(any()) } returns mutableMapOf(
+            "/" to stored("/", 1, ""),
+            "/unchanged/" to stored("/unchanged/", 2, "a"),
+            "/changed/" to stored("/changed/", 3, "b")
+        )
+        val saved = slot<List<OCFile>>()
+        every { storageManager.saveVirtualFolderFiles(VirtualFolderType.FAVORITE, capture(saved), true) } returns true
+
+        val files = loader.load(
+            listOf(
+                remote("/unchanged/", "A", MimeType.DIRECTORY),
+                remote("/changed/", "c", MimeType.DIRECTORY),
+                remote("/new/", "d", MimeType.DIRECTORY),
+                remote("/file.txt", "e", "text/plain")
+            ),
+            true
+        )
+
+        assertEquals(listOf("/changed/", "/new/"), refreshed)
+        assertEquals(files, saved.captured)
+        assertEquals(listOf(2L, 3L, -1L, -1L), files.map { it.fileId })
+        assertTrue(files.all { it.parentId == 1L })
+
+        // folders keep the ETag their contents were synchronized at
+        assertEquals(listOf("a", "b", "", "e"), files.map { it.etag })
+        assertEquals(listOf("A", "c", "d", "e"), files.map { it.etagOnServer })
+        verify(exactly = 1) { storageManager.getFilesByPaths(any()) }
+        verify(exactly = 0) { storageManager.saveFileWithParent(any(), any()) }
+    }
+
+    @Test
+    fun nothingIsReturnedOrRefreshedIfStoringFails() {
+        every { storageManager.getFilesByPaths(any()) } returns mutableMapOf("/" to stored("/", 1, ""))
+        every { storageManager.saveVirtualFolderFiles(VirtualFolderType.FAVORITE, any(), false) } returns false
+
+        val files = loader.load(listOf(remote("/new/", "d", MimeType.DIRECTORY)), false)
+
+        assertTrue(files.isEmpty())
+        assertTrue(refreshed.isEmpty())
+    }
+
+    @Test
+    fun refreshIsNeededUnlessContentsAreSynchronizedAtRemoteEtag() {
+        val remote = stored("/a/", 0, "etag")
+
+        assertFalse(FavoritesLoader.isRefreshNeeded(stored("/a/", 1, "ETAG"), remote))
+        assertTrue(FavoritesLoader.isRefreshNeeded(stored("/a/", 1, "other"), remote))
+        assertTrue(FavoritesLoader.isRefreshNeeded(stored("/a/", 1, ""), remote))
+        assertTrue(FavoritesLoader.isRefreshNeeded(null, remote))
+    }
+
+    private fun stored(path: String, id: Long, etag: String) = OCFile(path).apply {
+        fileId = id
+        mimeType = MimeType.DIRECTORY
+        this.etag = etag
+    }
+
+    private fun remote(path: String, etag: String, mimeType: String) = RemoteFile(path).apply {
+        this.etag = etag
+        this.mimeType = mimeType
+    }
+}
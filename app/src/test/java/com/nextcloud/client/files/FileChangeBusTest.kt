@@ -0,0 +1,113 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later OR GPL-2.0-only
+ */
+package com.nextcloud.client.files
+
+import com.nextcloud.client.files.FileChangeBus.ChangeType
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+
+class FileChangeBusTest {
+
+    companion object {
+        private const val ACCOUNT = "user@nextcloud.example.com"
+        private const val WINDOW_MILLIS = 100L
+    }
+
+    private val scheduled = mutableListOf<Runnable>()
+    private val received = mutableListOf<FileChangeBus.FolderChanges>()
+
+    private lateinit var bus: FileChangeBus
+
+    @Before
+    fun setUp() {
+        bus = FileChangeBus({ delayMillis, task ->
+            assertEquals(WINDOW_MILLIS, delayMillis)
+            scheduled.add(task)
+        }, WINDOW_MILLIS)
+        bus.register { received.add(it) }
+    }
+
+    @Test
+    fun burstOfChangesIsDeliveredOncePerFolder() {
+        repeat(500) { bus.postChanged(ACCOUNT, "/photos/$it.jpg") }
+        bus.postChanged(ACCOUNT, "/documents/a.txt")
+
+        assertEquals(1, scheduled.size)
+        assertTrue(received.isEmpty())
+
+        flush()
+        assertEquals(listOf("/photos/", "/documents/"), received.map { it.folderPath })
+        assertEquals(500, received[0].changes.size)
+        assertEquals(ChangeType.CHANGED, received[0].changes["/photos/1.jpg"])
+        assertEquals(1, received[1].changes.size)
+
+        flush()
+        assertEquals(2, received.size)
+    }
+
+    @Test
+    fun latestChangeOfFileWins() {
+        bus.postChanged(ACCOUNT, "/a.txt")
+        bus.postRemoved(ACCOUNT, "/a.txt")
+        bus.postRemoved(ACCOUNT, "/b.txt")
+        bus.postChanged(ACCOUNT, "/b.txt")
+        flush()
+
+        assertEquals(
+            mapOf("/a.txt" to ChangeType.REMOVED, "/b.txt" to ChangeType.CHANGED),
+            received.single().changes
+        )
+    }
+
+    @Test
+    fun foldersAreGroupedByAccount() {
+        bus.postChanged(ACCOUNT, "/a.txt")
+        bus.postChanged("other@nextcloud.example.com", "/b.txt")
+        flush()
+
+        assertEquals(2, received.size)
+        assertEquals(setOf("/a.txt"), received.single { it.accountName == ACCOUNT }.changes.keys)
+    }
+
+    @Test
+    fun refreshIsCoalescedWithChanges() {
+        bus.postChanged(ACCOUNT, "/folder/a.txt")
+        bus.postFolderRefreshed(ACCOUNT, "/folder/")
+        flush()
+
+        val changes = received.single()
+        assertTrue(changes.isRefreshed)
+        assertEquals(setOf("/folder/a.txt"), changes.changes.keys)
+    }
+
+    @Test
+    fun newWindowStartsAfterFlush() {
+        bus.postChanged(ACCOUNT, "/a.txt")
+        flush()
+        bus.postChanged(ACCOUNT, "/b.txt")
+        flush()
+
+        assertEquals(2, received.size)
+        assertFalse(received[1].changes.containsKey("/a.txt"))
+    }
+
+    @Test
+    fun parentOfFolderIsItsContainingFolder() {
+        assertEquals("/", FileChangeBus.getParentPath("/a.txt"))
+        assertEquals("/a/", FileChangeBus.getParentPath("/a/b/"))
+        assertEquals("/a/b/", FileChangeBus.getParentPath("/a/b/c.txt"))
+    }
+
+    private fun flush() {
+        val tasks = scheduled.toList()
+        scheduled.clear()
+        tasks.forEach { it.run() }
+    }
+}
@@ -22,6 +22,7 @@ import com.nextcloud.client.integrations.deck.DeckApi
 import com.nextcloud.client.logger.Logger
 import com.nextcloud.client.network.ConnectivityService
 import com.nextcloud.client.preferences.AppPreferences
+import com.nextcloud.client.startup.StartupGate
 import com.owncloud.android.datamodel.ArbitraryDataProvider
 import com.owncloud.android.datamodel.SyncedFolderProvider
 import com.owncloud.android.datamodel.UploadsStorageManager
@@ -123,7 +124,8 @@ class BackgroundJobFactoryTest {
             { viewThemeUtils },
             { localBroadcastManager },
             generatePDFUseCase,
-            syncedFolderProvider
+            syncedFolderProvider,
+            StartupGate(0).apply { open() }
         )
     }
 
@@ -0,0 +1,70 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later OR GPL-2.0-only
+ */
+package com.nextcloud.client.jobs
+
+import androidx.work.Data
+import androidx.work.WorkInfo
+import androidx.work.WorkManager
+import io.mockk.mockk
+import io.mockk.verify
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import java.util.UUID
+
+class WorkStateRegistryTest {
+
+    private val workManager = mockk<WorkManager>(relaxed = true)
+    private val registry = WorkStateRegistry(workManager)
+
+    @Before
+    fun setUp() {
+        registry.update(
+            listOf(
+                workInfo(WorkInfo.State.RUNNING, "running"),
+                workInfo(WorkInfo.State.ENQUEUED, "enqueued", "shared"),
+                workInfo(WorkInfo.State.SUCCEEDED, "succeeded", "shared"),
+                workInfo(WorkInfo.State.BLOCKED, "blocked")
+            )
+        )
+    }
+
+    @Test
+    fun statesAreAnsweredFromMemory() {
+        assertTrue(registry.isScheduled("running"))
+        assertTrue(registry.isRunning("running"))
+
+        assertTrue(registry.isScheduled("enqueued"))
+        assertFalse(registry.isRunning("enqueued"))
+        assertTrue(registry.isScheduled("shared"))
+
+        assertFalse(registry.isScheduled("succeeded"))
+        assertFalse(registry.isScheduled("blocked"))
+        assertFalse(registry.isScheduled("unknown"))
+
+        verify(exactly = 0) { workManager.getWorkInfosByTag(any()) }
+    }
+
+    @Test
+    fun finishedWorkIsForgotten() {
+        registry.update(listOf(workInfo(WorkInfo.State.CANCELLED, "running")))
+
+        assertFalse(registry.isScheduled("running"))
+        assertFalse(registry.isRunning("running"))
+    }
+
+    private fun workInfo(state: WorkInfo.State, vararg tags: String) = WorkInfo(
+        id = UUID.randomUUID(),
+        state = state,
+        outputData = Data.Builder().build(),
+        tags = tags.toSet(),
+        progress = Data.Builder().build(),
+        runAttemptCount = 1,
+        generation = 0
+    )
+}
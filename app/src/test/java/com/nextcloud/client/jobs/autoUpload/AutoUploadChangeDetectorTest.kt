@@ -0,0 +1,200 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later OR GPL-2.0-only
+ */
+package com.nextcloud.client.jobs.autoUpload
+
+import android.content.Context
+import com.nextcloud.client.database.dao.SyncedFolderScanDao
+import com.nextcloud.client.database.entity.SyncedFolderCheckpointEntity
+import com.nextcloud.client.database.entity.SyncedFolderDirectoryEntity
+import com.nextcloud.client.preferences.SubFolderRule
+import com.owncloud.android.datamodel.FilesystemDataProvider
+import com.owncloud.android.datamodel.MediaFolderType
+import com.owncloud.android.datamodel.SyncedFolder
+import com.owncloud.android.datamodel.SyncedFolderDisplayItem
+import io.mockk.clearMocks
+import io.mockk.mockk
+import io.mockk.verify
+import org.junit.Assert.assertEquals
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import java.io.File
+
+class AutoUploadChangeDetectorTest {
+
+    companion object {
+        private const val HOUR = 60 * 60 * 1000L
+        private const val DAY = 24 * HOUR
+    }
+
+    @get:Rule
+    val temporaryFolder = TemporaryFolder()
+
+    private lateinit var root: File
+    private lateinit var syncedFolder: SyncedFolder
+    private lateinit var dao: InMemoryScanDao
+    private lateinit var filesystemDataProvider: FilesystemDataProvider
+    private lateinit var detector: AutoUploadChangeDetector
+
+    private val past = System.currentTimeMillis() - HOUR
+
+    @Before
+    fun setUp() {
+        root = temporaryFolder.newFolder("root")
+        syncedFolder = SyncedFolderDisplayItem(
+            1,
+            root.absolutePath,
+            "/remote",
+            false,
+            false,
+            true,
+            false,
+            "user@server",
+            0,
+            0,
+            true,
+            0,
+            "root",
+            MediaFolderType.CUSTOM,
+            false,
+            SubFolderRule.YEAR_MONTH,
+            false,
+            SyncedFolder.NOT_SCANNED_YET
+        )
+        dao = InMemoryScanDao()
+        filesystemDataProvider = mockk(relaxed = true)
+        detector = AutoUploadChangeDetector(mockk<Context>(), dao, filesystemDataProvider)
+    }
+
+    @Test
+    fun unchangedDirectoriesAreNotIndexedAgain() {
+        val first = createFile("a/first.jpg")
+        val second = createFile("b/second.jpg")
+        settle()
+
+        detector.scanCustomFolder(syncedFolder)
+        verify { filesystemDataProvider.storeOrUpdateFileValue(first.absolutePath, any(), false, syncedFolder) }
+        verify { filesystemDataProvider.storeOrUpdateFileValue(second.absolutePath, any(), false, syncedFolder) }
+        assertEquals(3, dao.directories.size)
+
+        syncedFolder.lastScanTimestampMs = past + HOUR / 4
+        clearMocks(filesystemDataProvider)
+        dao.upserted.clear()
+        detector.scanCustomFolder(syncedFolder)
+        verify(exactly = 0) { filesystemDataProvider.storeOrUpdateFileValue(any(), any(), any(), any()) }
+        assertEquals(emptyList<String>(), dao.upserted)
+
+        val third = createFile("b/third.jpg", past + HOUR / 2)
+        File(root, "b").setLastModified(past + HOUR / 2)
+        clearMocks(filesystemDataProvider)
+        detector.scanCustomFolder(syncedFolder)
+        verify { filesystemDataProvider.storeOrUpdateFileValue(third.absolutePath, any(), false, syncedFolder) }
+        verify(exactly = 0) { filesystemDataProvider.storeOrUpdateFileValue(first.absolutePath, any(), any(), any()) }
+        assertEquals(listOf(File(root, "b").absolutePath), dao.upserted)
+    }
+
+    @Test
+    fun filesRewrittenInPlaceAreFoundByDailyFullScan() {
+        val first = createFile("a/first.jpg")
+        createFile("a/nested/second.jpg")
+        settle()
+        detector.scanCustomFolder(syncedFolder)
+
+        // rewriting or appending to a file does not change the modification time of its directory
+        first.appendText("more")
+        first.setLastModified(past + HOUR / 2)
+        settle()
+        syncedFolder.lastScanTimestampMs = past + HOUR / 4
+        clearMocks(filesystemDataProvider)
+        dao.upserted.clear()
+        detector.scanCustomFolder(syncedFolder)
+
+        verify(exactly = 0) { filesystemDataProvider.storeOrUpdateFileValue(any(), any(), any(), any()) }
+        assertEquals(emptyList<String>(), dao.upserted)
+
+        val lastFullScan = dao.checkpoints.getValue(syncedFolder.id to "full_scan")
+        dao.upsertCheckpoint(lastFullScan.copy(generation = lastFullScan.generation - DAY))
+        detector.scanCustomFolder(syncedFolder)
+
+        verify(exactly = 1) { filesystemDataProvider.storeOrUpdateFileValue(any(), any(), any(), any()) }
+        verify { filesystemDataProvider.storeOrUpdateFileValue(first.absolutePath, any(), false, syncedFolder) }
+        assertEquals(3, dao.upserted.size)
+    }
+
+    @Test
+    fun removedDirectoriesAreDroppedFromIndex() {
+        createFile("a/nested/file.jpg")
+        createFile("b/file.jpg")
+        settle()
+        detector.scanCustomFolder(syncedFolder)
+        assertEquals(4, dao.directories.size)
+
+        File(root, "a").deleteRecursively()
+        root.setLastModified(past + HOUR / 2)
+        syncedFolder.lastScanTimestampMs = 1
+        detector.scanCustomFolder(syncedFolder)
+
+        assertEquals(setOf(root.absolutePath, File(root, "b").absolutePath), dao.directories.keys)
+    }
+
+    @Test
+    fun recentlyModifiedDirectoriesAreListedAgain() {
+        val file = createFile("a/file.jpg")
+        detector.scanCustomFolder(syncedFolder)
+
+        syncedFolder.lastScanTimestampMs = 1
+        clearMocks(filesystemDataProvider)
+        detector.scanCustomFolder(syncedFolder)
+        verify { filesystemDataProvider.storeOrUpdateFileValue(file.absolutePath, any(), false, syncedFolder) }
+    }
+
+    private fun createFile(relativePath: String, modified: Long = past): File {
+        val file = File(root, relativePath)
+        file.parentFile!!.mkdirs()
+        file.writeText(relativePath)
+        file.setLastModified(modified)
+        return file
+    }
+
+    private fun settle() {
+        root.walkBottomUp().filter { it.isDirectory }.forEach { it.setLastModified(past) }
+    }
+
+    private class InMemoryScanDao : SyncedFolderScanDao {
+        val checkpoints = mutableMapOf<Pair<Long, String>, SyncedFolderCheckpointEntity>()
+        val directories = mutableMapOf<String, SyncedFolderDirectoryEntity>()
+        val upserted = mutableListOf<String>()
+
+        override fun getCheckpoint(syncedFolderId: Long, volume: String) = checkpoints[syncedFolderId to volume]
+
+        override fun upsertCheckpoint(checkpoint: SyncedFolderCheckpointEntity) {
+            checkpoints[checkpoint.syncedFolderId to checkpoint.volume] = checkpoint
+        }
+
+        override fun getDirectories(syncedFolderId: Long) = directories.values.toList()
+
+        override fun upsertDirectories(directories: List<SyncedFolderDirectoryEntity>) {
+            directories.forEach {
+                this.directories[it.path] = it
+                upserted.add(it.path)
+            }
+        }
+
+        override fun deleteDirectoryTree(syncedFolderId: Long, path: String) {
+            directories.keys.removeAll { it == path || it.startsWith("$path/") }
+        }
+
+        override fun deleteCheckpoints(syncedFolderId: Long) {
+            checkpoints.clear()
+        }
+
+        override fun deleteDirectories(syncedFolderId: Long) {
+            directories.clear()
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later OR GPL-2.0-only
+ */
+package com.nextcloud.client.jobs.offlineOperations.repository
+
+import com.nextcloud.client.database.entity.OfflineOperationEntity
+import com.nextcloud.model.OfflineOperationRawType
+import com.nextcloud.model.OfflineOperationType
+import com.owncloud.android.datamodel.OCFile
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Test
+
+class OfflineOperationsCacheTest {
+
+    private val entities = mutableListOf<OfflineOperationEntity>()
+    private var loads = 0
+    private val cache = OfflineOperationsCache {
+        loads++
+        entities.toList()
+    }
+
+    @Test
+    fun operationsAreLoadedOnceUntilInvalidated() {
+        entities.add(createFolder(1, "/a/", 10))
+
+        repeat(1000) {
+            cache.getByPath("/a/")
+            cache.getByParentId(10)
+        }
+        assertEquals(1, loads)
+
+        entities.add(createFolder(2, "/b/", 10))
+        assertNull(cache.getByPath("/b/"))
+
+        cache.invalidate()
+        assertEquals(2, cache.getByParentId(10).size)
+        assertEquals(2, loads)
+    }
+
+    @Test
+    fun firstOperationOfPathWins() {
+        val first = createFolder(1, "/a/", 10)
+        entities.add(first)
+        entities.add(createFolder(2, "/a/", 10))
+
+        assertEquals(first, cache.getByPath("/a/"))
+        assertNull(cache.getByPath(null))
+        assertEquals(emptyList<OfflineOperationEntity>(), cache.getByParentId(11))
+    }
+
+    @Test
+    fun filenameConsidersPendingRename() {
+        val file = OCFile("/a.txt").apply { fileId = 5 }
+        assertEquals("a.txt", cache.getFilename(file))
+
+        entities.add(
+            OfflineOperationEntity(
+                id = 1,
+                parentOCFileId = 10,
+                path = "/a.txt",
+                type = OfflineOperationType.RenameFile(OfflineOperationRawType.RenameFile.name, 5, "b.txt"),
+                filename = "b.txt"
+            )
+        )
+        cache.invalidate()
+
+        assertEquals("b.txt", cache.getFilename(file))
+    }
+
+    private fun createFolder(id: Int, path: String, parentId: Long) = OfflineOperationEntity(
+        id = id,
+        parentOCFileId = parentId,
+        path = path,
+        type = OfflineOperationType.CreateFolder(OfflineOperationRawType.CreateFolder.name, path),
+        filename = path.trim('/')
+    )
+}
@@ -0,0 +1,146 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later OR GPL-2.0-only
+ */
+package com.nextcloud.client.jobs.sync
+
+import android.os.FileObserver
+import com.nextcloud.client.core.Clock
+import io.mockk.every
+import io.mockk.mockk
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import java.io.File
+import java.util.concurrent.TimeUnit
+
+class LocalChangeJournalTest {
+
+    companion object {
+        private const val CONSUMER = "consumer"
+        private const val OTHER_CONSUMER = "other"
+    }
+
+    @get:Rule
+    val temporaryFolder = TemporaryFolder()
+
+    private val clock = mockk<Clock>()
+    private var now = 0L
+
+    private lateinit var journal: LocalChangeJournal
+    private lateinit var root: File
+
+    @Before
+    fun setUp() {
+        every { clock.currentTime } answers { now }
+        journal = LocalChangeJournal(clock, 10, 10)
+        root = temporaryFolder.newFolder("data")
+        journal.watch(root)
+    }
+
+    @Test
+    fun consumerHasToRescanBeforeChangesAreComplete() {
+        val changes = journal.getChanges(root, CONSUMER)
+        assertFalse(changes.isComplete)
+
+        journal.acknowledge(changes)
+        assertTrue(journal.getChanges(root, CONSUMER).isComplete)
+    }
+
+    @Test
+    fun changesAreReportedUntilAcknowledged() {
+        rescan(CONSUMER)
+        event(FileObserver.CREATE, "a.txt")
+        event(FileObserver.CLOSE_WRITE, "a.txt")
+        event(FileObserver.CLOSE_WRITE, "b.txt")
+
+        val changes = journal.getChanges(root, CONSUMER)
+        assertEquals(
+            mapOf(
+                path("a.txt") to LocalChangeJournal.ChangeType.CREATED,
+                path("b.txt") to LocalChangeJournal.ChangeType.MODIFIED
+            ),
+            changes.paths
+        )
+
+        event(FileObserver.DELETE, "c.txt")
+        journal.acknowledge(changes)
+        assertEquals(setOf(path("c.txt")), journal.getChanges(root, CONSUMER).paths.keys)
+    }
+
+    @Test
+    fun consumersAcknowledgeIndependently() {
+        rescan(CONSUMER)
+        rescan(OTHER_CONSUMER)
+        event(FileObserver.CLOSE_WRITE, "a.txt")
+
+        journal.acknowledge(journal.getChanges(root, CONSUMER))
+
+        assertTrue(journal.getChanges(root, CONSUMER).paths.isEmpty())
+        assertTrue(journal.getChanges(root, OTHER_CONSUMER).contains(path("a.txt")))
+    }
+
+    @Test
+    fun overflowRequiresRescan() {
+        rescan(CONSUMER)
+        val changes = journal.getChanges(root, CONSUMER)
+        journal.onEvent(root.absolutePath, root.absolutePath, LocalChangeJournal.IN_Q_OVERFLOW, null)
+
+        journal.acknowledge(changes)
+        assertFalse(journal.getChanges(root, CONSUMER).isComplete)
+    }
+
+    @Test
+    fun tooManyChangesRequireRescan() {
+        rescan(CONSUMER)
+        repeat(11) { event(FileObserver.CLOSE_WRITE, "$it.txt") }
+
+        assertFalse(journal.getChanges(root, CONSUMER).isComplete)
+    }
+
+    @Test
+    fun directoryMovedIntoTreeIsJournaledAndWatched() {
+        rescan(CONSUMER)
+        val directory = File(root, "moved")
+        directory.mkdirs()
+        File(directory, "a.txt").writeText("a")
+
+        event(FileObserver.MOVED_TO or LocalChangeJournal.IN_ISDIR, "moved")
+        journal.onEvent(root.absolutePath, directory.absolutePath, FileObserver.CLOSE_WRITE, "b.txt")
+
+        val changes = journal.getChanges(root, CONSUMER)
+        assertEquals(
+            setOf(path("moved"), path("moved/a.txt"), path("moved/b.txt")),
+            changes.paths.keys
+        )
+        assertTrue(changes.isChangedBelow(directory.absolutePath))
+    }
+
+    @Test
+    fun rescanIsRequiredPeriodically() {
+        rescan(CONSUMER)
+        now = TimeUnit.DAYS.toMillis(2)
+
+        val changes = journal.getChanges(root, CONSUMER)
+        assertFalse(changes.isComplete)
+
+        journal.acknowledge(changes)
+        assertTrue(journal.getChanges(root, CONSUMER).isComplete)
+    }
+
+    private fun rescan(consumer: String) {
+        journal.acknowledge(journal.getChanges(root, consumer))
+    }
+
+    private fun event(event: Int, name: String) {
+        journal.onEvent(root.absolutePath, root.absolutePath, event, name)
+    }
+
+    private fun path(name: String) = File(root, name).absolutePath
+}
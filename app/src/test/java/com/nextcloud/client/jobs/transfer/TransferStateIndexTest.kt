@@ -0,0 +1,155 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later OR GPL-2.0-only
+ */
+package com.nextcloud.client.jobs.transfer
+
+import com.owncloud.android.datamodel.OCFile
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class TransferStateIndexTest {
+
+    companion object {
+        private const val ACCOUNT = "user@nextcloud.example.com"
+        private const val OTHER_ACCOUNT = "other@nextcloud.example.com"
+    }
+
+    private val changed = mutableListOf<String>()
+    private val index = TransferStateIndex { _, remotePath -> changed.add(remotePath) }
+
+    @Test
+    fun downloadIsFoundByIdAndPath() {
+        index.addDownload(ACCOUNT, "/photos/a.jpg", 7)
+
+        assertTrue(index.isDownloading(ACCOUNT, file("/photos/a.jpg", 7)))
+        assertTrue(index.isDownloading(ACCOUNT, file("/photos/renamed.jpg", 7)))
+        assertTrue(index.isDownloading(ACCOUNT, file("/photos/a.jpg", 0)))
+        assertFalse(index.isDownloading(OTHER_ACCOUNT, file("/photos/a.jpg", 7)))
+        assertFalse(index.isUploading(ACCOUNT, file("/photos/a.jpg", 7)))
+    }
+
+    @Test
+    fun ancestorsAreDownloadingUntilLastFileFinished() {
+        index.addDownload(ACCOUNT, "/photos/2024/a.jpg", 1)
+        index.addDownload(ACCOUNT, "/photos/2024/b.jpg", 2)
+        val folder = file("/photos/", 10)
+
+        assertTrue(index.isDownloading(ACCOUNT, folder))
+        assertTrue(index.isDownloading(ACCOUNT, file("/photos/2024/", 11)))
+        assertFalse(index.isDownloading(ACCOUNT, file("/documents/", 12)))
+
+        index.removeDownload(ACCOUNT, "/photos/2024/a.jpg", 1)
+        assertTrue(index.isDownloading(ACCOUNT, folder))
+
+        index.removeDownload(ACCOUNT, "/photos/2024/b.jpg", 2)
+        assertFalse(index.isDownloading(ACCOUNT, folder))
+        assertFalse(index.isDownloading(ACCOUNT, file("/photos/2024/a.jpg", 1)))
+    }
+
+    @Test
+    fun uploadIsFoundByPath() {
+        index.addUploads(ACCOUNT, listOf("/a.txt"))
+
+        assertTrue(index.isUploading(ACCOUNT, file("/a.txt", 0)))
+        assertTrue(index.isTransferring(ACCOUNT, file("/a.txt", 0)))
+        assertFalse(index.isUploading(ACCOUNT, file("/", 1)))
+
+        index.removeUpload(ACCOUNT, "/a.txt")
+        assertFalse(index.isTransferring(ACCOUNT, file("/a.txt", 0)))
+    }
+
+    @Test
+    fun pendingUploadsReplaceThoseOfTheAccount() {
+        index.setUploads(ACCOUNT, (1..250).map { "/upload$it.txt" })
+        index.setUploads(OTHER_ACCOUNT, listOf("/other.txt"))
+
+        // beyond the page handled by the worker
+        assertTrue(index.isUploading(ACCOUNT, file("/upload250.txt", 0)))
+
+        changed.clear()
+        index.setUploads(ACCOUNT, listOf("/upload1.txt", "/new.txt"))
+
+        assertTrue(index.isUploading(ACCOUNT, file("/upload1.txt", 0)))
+        assertTrue(index.isUploading(ACCOUNT, file("/new.txt", 0)))
+        assertFalse(index.isUploading(ACCOUNT, file("/upload2.txt", 0)))
+        assertTrue(index.isUploading(OTHER_ACCOUNT, file("/other.txt", 0)))
+        assertEquals(250, changed.size)
+    }
+
+    @Test
+    fun scheduledFolderDownloadMarksItsContents() {
+        index.addScheduledDownload(ACCOUNT, "/photos/", 10)
+        index.addScheduledDownload(ACCOUNT, "/photos/", 10)
+
+        assertTrue(index.isDownloading(ACCOUNT, file("/photos/", 10)))
+        assertTrue(index.isDownloading(ACCOUNT, file("/photos/2024/", 11)))
+        assertTrue(index.isDownloading(ACCOUNT, file("/photos/2024/a.jpg", 12)))
+        assertFalse(index.isDownloading(ACCOUNT, file("/documents/", 13)))
+        assertFalse(index.isDownloading(OTHER_ACCOUNT, file("/photos/", 10)))
+
+        // the worker indexes the files it downloads before the mark is removed
+        index.addDownload(ACCOUNT, "/photos/2024/a.jpg", 12)
+        index.removeScheduledDownload(ACCOUNT, "/photos/")
+        assertTrue(index.isDownloading(ACCOUNT, file("/photos/", 10)))
+        assertFalse(index.isDownloading(ACCOUNT, file("/photos/b.jpg", 14)))
+
+        index.removeDownload(ACCOUNT, "/photos/2024/a.jpg", 12)
+        assertFalse(index.isDownloading(ACCOUNT, file("/photos/", 10)))
+    }
+
+    @Test
+    fun scheduledRootDownloadMarksAllFilesOfAccount() {
+        index.addScheduledDownload(ACCOUNT, OCFile.ROOT_PATH, 1)
+
+        assertTrue(index.isDownloading(ACCOUNT, file("/photos/2024/a.jpg", 12)))
+        assertFalse(index.isDownloading(OTHER_ACCOUNT, file("/photos/2024/a.jpg", 12)))
+
+        index.removeScheduledDownload(ACCOUNT, 1L)
+        assertFalse(index.isDownloading(ACCOUNT, file("/photos/2024/a.jpg", 12)))
+    }
+
+    @Test
+    fun cancelledScheduledDownloadIsRemovedById() {
+        index.addScheduledDownload(ACCOUNT, "/a.txt", 3)
+        index.addScheduledDownload(ACCOUNT, "/b.txt", 4)
+
+        index.removeScheduledDownload(ACCOUNT, 3L)
+        assertFalse(index.isDownloading(ACCOUNT, file("/a.txt", 3)))
+        assertTrue(index.isDownloading(ACCOUNT, file("/b.txt", 4)))
+
+        index.removeScheduledDownloads()
+        assertFalse(index.isDownloading(ACCOUNT, file("/b.txt", 4)))
+    }
+
+    @Test
+    fun removingUnknownTransferKeepsOthers() {
+        index.addUploads(ACCOUNT, listOf("/a.txt"))
+        index.removeUpload(ACCOUNT, "/b.txt")
+        index.removeDownload(ACCOUNT, "/a.txt", 3)
+
+        assertTrue(index.isUploading(ACCOUNT, file("/a.txt", 3)))
+    }
+
+    @Test
+    fun changesAreReported() {
+        index.addDownload(ACCOUNT, "/a.txt", 1)
+        index.removeDownload(ACCOUNT, "/a.txt", 1)
+        index.addUploads(ACCOUNT, listOf("/b.txt"))
+
+        assertEquals(listOf("/a.txt", "/a.txt", "/b.txt"), changed)
+    }
+
+    @Test
+    fun ancestorPathsExcludeRoot() {
+        assertEquals(emptyList<String>(), TransferStateIndex.getAncestorPaths("/a.txt"))
+        assertEquals(listOf("/a/b/", "/a/"), TransferStateIndex.getAncestorPaths("/a/b/c.txt"))
+        assertEquals(listOf("/a/"), TransferStateIndex.getAncestorPaths("/a/b/"))
+    }
+
+    private fun file(remotePath: String, id: Long) = OCFile(remotePath).apply { fileId = id }
+}
@@ -0,0 +1,173 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later OR GPL-2.0-only
+ */
+package com.nextcloud.client.startup
+
+import com.nextcloud.client.core.Clock
+import com.nextcloud.client.startup.StartupOrchestrator.Result
+import com.nextcloud.client.startup.StartupOrchestrator.Stage
+import io.mockk.every
+import io.mockk.mockk
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import java.util.concurrent.Executor
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+class StartupOrchestratorTest {
+
+    private val clock = mockk<Clock>()
+    private var now = 0L
+
+    private val idleQueue = QueueExecutor()
+    private val backgroundQueue = QueueExecutor()
+    private val executed = mutableListOf<String>()
+
+    private lateinit var orchestrator: StartupOrchestrator
+
+    @Before
+    fun setUp() {
+        every { clock.millisSinceBoot } answers { now }
+        orchestrator = StartupOrchestrator(clock, idleQueue, backgroundQueue)
+    }
+
+    @Test
+    fun onlyCriticalStageRunsOnStart() {
+        orchestrator
+            .add("critical", Stage.CRITICAL, task("critical", 5))
+            .add("deferred", Stage.DEFERRED, task("deferred", 1))
+            .add("background", Stage.BACKGROUND, task("background", 1))
+            .start()
+        assertEquals(listOf("critical"), executed)
+
+        idleQueue.runAll()
+        assertEquals(listOf("critical", "deferred"), executed)
+
+        backgroundQueue.runAll()
+        assertEquals(listOf("critical", "deferred", "background"), executed)
+    }
+
+    @Test
+    fun tasksRunAfterTheirDependencies() {
+        orchestrator
+            .add("c", Stage.CRITICAL, task("c"), "b")
+            .add("a", Stage.CRITICAL, task("a"))
+            .add("b", Stage.CRITICAL, task("b"), "a")
+            .add("d", Stage.CRITICAL, task("d"))
+            .start()
+
+        assertEquals(listOf("a", "b", "c", "d"), executed)
+    }
+
+    @Test(expected = IllegalArgumentException::class)
+    fun dependencyOnLaterStageIsRejected() {
+        orchestrator
+            .add("background", Stage.BACKGROUND, task("background"))
+            .add("critical", Stage.CRITICAL, task("critical"), "background")
+            .start()
+    }
+
+    @Test(expected = IllegalArgumentException::class)
+    fun cyclicDependenciesAreRejected() {
+        orchestrator
+            .add("a", Stage.DEFERRED, task("a"), "b")
+            .add("b", Stage.DEFERRED, task("b"), "a")
+            .start()
+    }
+
+    @Test(expected = IllegalArgumentException::class)
+    fun unknownDependencyIsRejected() {
+        orchestrator
+            .add("a", Stage.CRITICAL, task("a"), "missing")
+            .start()
+    }
+
+    @Test
+    fun dependentsOfFailedTaskAreSkipped() {
+        orchestrator
+            .add("failing", Stage.DEFERRED, { throw IllegalStateException("failed") })
+            .add("dependent", Stage.BACKGROUND, task("dependent"), "failing")
+            .add("independent", Stage.BACKGROUND, task("independent"))
+            .start()
+        idleQueue.runAll()
+        backgroundQueue.runAll()
+
+        assertEquals(listOf("independent"), executed)
+        val background = orchestrator.getTimings().single { it.stage == Stage.BACKGROUND }
+        assertEquals(Result.SKIPPED, background.tasks.single { it.name == "dependent" }.result)
+    }
+
+    @Test(expected = IllegalStateException::class)
+    fun failingCriticalTaskFailsStartup() {
+        orchestrator
+            .add("failing", Stage.CRITICAL, { throw IllegalStateException("failed") })
+            .start()
+    }
+
+    @Test
+    fun recordsTimingsPerStage() {
+        orchestrator
+            .add("a", Stage.CRITICAL, task("a", 12))
+            .add("b", Stage.CRITICAL, task("b", 3), "a")
+            .add("c", Stage.CRITICAL, task("c", 4))
+            .add("d", Stage.DEFERRED, task("d", 2))
+            .add("e", Stage.BACKGROUND, task("e", 40), "a")
+            .add("f", Stage.BACKGROUND, task("f", 25), "e", "c")
+            .start()
+        idleQueue.runAll()
+        backgroundQueue.runAll()
+
+        val timings = orchestrator.getTimings().associateBy { it.stage }
+        assertEquals(19, timings.getValue(Stage.CRITICAL).millis)
+        assertEquals(2, timings.getValue(Stage.DEFERRED).millis)
+        assertEquals(65, timings.getValue(Stage.BACKGROUND).millis)
+        assertEquals(
+            listOf(40L, 25L),
+            timings.getValue(Stage.BACKGROUND).tasks.map { it.millis }
+        )
+        assertTrue(orchestrator.getReport().contains("CRITICAL: 19ms [a 12ms, b 3ms, c 4ms]"))
+    }
+
+    @Test
+    fun finishesAfterBackgroundStageAndReleasesItsThread() {
+        val background = Executors.newSingleThreadExecutor()
+        val gate = StartupGate(TimeUnit.SECONDS.toMillis(5))
+        StartupOrchestrator(clock, idleQueue, background)
+            .add("failing", Stage.BACKGROUND, { throw IllegalStateException("failed") })
+            .add("dependent", Stage.BACKGROUND, task("dependent"), "failing")
+            .start(gate::open)
+        assertFalse(gate.isOpen)
+
+        idleQueue.runAll()
+        gate.await()
+
+        assertTrue(gate.isOpen)
+        assertTrue(background.awaitTermination(5, TimeUnit.SECONDS))
+        assertTrue(executed.isEmpty())
+    }
+
+    private fun task(name: String, millis: Long = 0) = Runnable {
+        now += millis
+        executed.add(name)
+    }
+
+    private class QueueExecutor : Executor {
+        private val commands = ArrayDeque<Runnable>()
+
+        override fun execute(command: Runnable) {
+            commands.add(command)
+        }
+
+        fun runAll() {
+            while (commands.isNotEmpty()) {
+                commands.removeFirst().run()
+            }
+        }
+    }
+}
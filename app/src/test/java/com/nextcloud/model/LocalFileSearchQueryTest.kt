@@ -0,0 +1,134 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later OR GPL-2.0-only
+ */
+package com.nextcloud.model
+
+import androidx.sqlite.db.SupportSQLiteProgram
+import androidx.sqlite.db.SupportSQLiteQuery
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class LocalFileSearchQueryTest {
+    companion object {
+        private const val ACCOUNT = "user@server"
+    }
+
+    @Test
+    fun textIsMatchedAsEscapedWordPrefixes() {
+        val query = LocalFileSearchQuery(text = "IMG_2024 \"x\" OR*").toSQLiteQuery(ACCOUNT)
+
+        assertTrue(query.sql.contains("filelist._id IN (SELECT docid FROM filelist_fts WHERE filelist_fts MATCH ?)"))
+        assertEquals("\"img\"* \"2024\"* \"x\"* \"or\"*", bindArgs(query)[1])
+    }
+
+    @Test
+    fun tagIsMatchedOnTagsColumnOnly() {
+        val query = LocalFileSearchQuery(text = "report", tag = "Top-Secret").toSQLiteQuery(ACCOUNT)
+
+        assertEquals("\"report\"* tags:\"top\"* tags:\"secret\"*", bindArgs(query)[1])
+    }
+
+    @Test
+    fun resultsAreLimitedToFilesOfAccount() {
+        val query = LocalFileSearchQuery().toSQLiteQuery(ACCOUNT)
+        val args = bindArgs(query)
+
+        assertTrue(query.sql.contains("WHERE filelist.file_owner = ? AND filelist.parent > 0"))
+        assertEquals(listOf(ACCOUNT, LocalFileSearchQuery.DEFAULT_LIMIT.toLong()), args)
+        assertFalse(query.sql.contains("MATCH"))
+        assertTrue(query.sql.endsWith("ORDER BY filelist.modified DESC LIMIT ?"))
+    }
+
+    @Test
+    fun textWithoutWordsIsNotMatched() {
+        val query = LocalFileSearchQuery(text = " *\"- ", limit = 5).toSQLiteQuery(ACCOUNT)
+
+        assertFalse(query.sql.contains("MATCH"))
+        assertEquals(5L, bindArgs(query).last())
+    }
+
+    @Test
+    fun nameMatchesAreRankedFirst() {
+        val query = LocalFileSearchQuery(text = " Report ", limit = 20).toSQLiteQuery(ACCOUNT)
+
+        assertTrue(
+            query.sql.contains(
+                "ORDER BY lower(filelist.filename) = ? DESC, substr(lower(filelist.filename), 1, ?) = ? DESC, " +
+                    "length(lower(filelist.filename)) ASC, filelist.modified DESC LIMIT ?"
+            )
+        )
+        assertEquals(listOf("report", 6L, "report", 20L), bindArgs(query).takeLast(4))
+    }
+
+    @Test
+    fun optionalCriteriaAreBound() {
+        val query = LocalFileSearchQuery(
+            mimeTypePrefix = "image/",
+            minSize = 10,
+            maxSize = 20,
+            modifiedAfter = 30,
+            modifiedBefore = 40
+        ).toSQLiteQuery(ACCOUNT)
+
+        assertTrue(query.sql.contains("filelist.content_type >= ? AND filelist.content_type < ?"))
+        assertEquals(
+            listOf(ACCOUNT, "image/", "image/" + Char.MAX_VALUE, 10L, 20L, 30L, 40L, 100L),
+            bindArgs(query)
+        )
+    }
+
+    @Test
+    fun fileNameSearchMatchesSubstringsOfFilesWithoutLimit() {
+        val query = LocalFileSearchQuery.fileNameContaining("port").toSQLiteQuery(ACCOUNT)
+
+        assertFalse(query.sql.contains("MATCH"))
+        assertTrue(query.sql.contains("instr(filelist.filename, ?) > 0"))
+        assertTrue(query.sql.contains("ifnull(filelist.content_type, '') NOT IN (?, ?)"))
+        assertEquals(
+            listOf(ACCOUNT, "port", "DIR", "httpd/unix-directory", LocalFileSearchQuery.NO_LIMIT.toLong()),
+            bindArgs(query)
+        )
+    }
+
+    private fun bindArgs(query: SupportSQLiteQuery): List<Any?> {
+        val program = RecordingProgram()
+        query.bindTo(program)
+        assertEquals(query.argCount, program.args.size)
+        return (1..program.args.size).map { program.args[it] }
+    }
+
+    private class RecordingProgram : SupportSQLiteProgram {
+        val args = mutableMapOf<Int, Any?>()
+
+        override fun bindNull(index: Int) {
+            args[index] = null
+        }
+
+        override fun bindLong(index: Int, value: Long) {
+            args[index] = value
+        }
+
+        override fun bindDouble(index: Int, value: Double) {
+            args[index] = value
+        }
+
+        override fun bindString(index: Int, value: String) {
+            args[index] = value
+        }
+
+        override fun bindBlob(index: Int, value: ByteArray) {
+            args[index] = value
+        }
+
+        override fun clearBindings() {
+            args.clear()
+        }
+
+        override fun close() = Unit
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later OR GPL-2.0-only
+ */
+package com.owncloud.android.datamodel
+
+import com.nextcloud.client.database.dao.ArbitraryDataDao
+import com.nextcloud.client.database.entity.ArbitraryDataEntity
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class ArbitraryDataProviderImplTest {
+
+    companion object {
+        private const val ACCOUNT = "user@nextcloud.example.com"
+        private const val OTHER_ACCOUNT = "other@nextcloud.example.com"
+        private const val KEY = "KEY"
+    }
+
+    private class CountingDao : ArbitraryDataDao {
+        val rows = HashMap<Pair<String, String>, String?>()
+        var reads = 0
+        var writes = 0
+
+        override fun insertValue(accountName: String, key: String, value: String?) {
+            writes++
+            check(!rows.containsKey(accountName to key)) { "duplicate row" }
+            rows[accountName to key] = value
+        }
+
+        override fun getByAccountAndKey(accountName: String, key: String): ArbitraryDataEntity? {
+            reads++
+            return if (rows.containsKey(accountName to key)) {
+                ArbitraryDataEntity(reads, accountName, key, rows[accountName to key])
+            } else {
+                null
+            }
+        }
+
+        override fun updateValue(accountName: String, key: String, value: String?) {
+            writes++
+            if (rows.containsKey(accountName to key)) {
+                rows[accountName to key] = value
+            }
+        }
+
+        override fun deleteValue(accountName: String, key: String) {
+            writes++
+            rows.remove(accountName to key)
+        }
+    }
+
+    private val dao = CountingDao()
+    private val cache = ArbitraryDataCache()
+    private val provider = ArbitraryDataProviderImpl(dao, cache)
+
+    @Test
+    fun repeatedReadsQueryOnce() {
+        dao.rows[ACCOUNT to KEY] = "true"
+
+        repeat(1000) {
+            assertTrue(provider.getBooleanValue(ACCOUNT, KEY))
+            assertEquals("true", provider.getValue(ACCOUNT, KEY))
+        }
+        assertEquals(1, dao.reads)
+
+        // missing keys are cached as well
+        repeat(1000) {
+            assertEquals(-1L, provider.getLongValue(ACCOUNT, "MISSING"))
+        }
+        assertEquals(2, dao.reads)
+
+        assertEquals("", provider.getValue(OTHER_ACCOUNT, KEY))
+        assertEquals(3, dao.reads)
+    }
+
+    @Test
+    fun writesGoThroughToDatabaseAndCache() {
+        provider.storeOrUpdateKeyValue(ACCOUNT, KEY, 5L)
+        provider.storeOrUpdateKeyValue(ACCOUNT, KEY, 6L)
+        provider.incrementValue(ACCOUNT, KEY)
+
+        assertEquals(7L, provider.getLongValue(ACCOUNT, KEY))
+        assertEquals("7", dao.rows[ACCOUNT to KEY])
+        assertEquals(1, dao.reads)
+        assertEquals(3, dao.writes)
+
+        provider.deleteKeyForAccount(ACCOUNT, KEY)
+        assertEquals(-1, provider.getIntegerValue(ACCOUNT, KEY))
+        assertFalse(dao.rows.containsKey(ACCOUNT to KEY))
+
+        provider.storeOrUpdateKeyValue(ACCOUNT, KEY, true)
+        assertTrue(provider.getBooleanValue(ACCOUNT, KEY))
+        assertEquals("true", dao.rows[ACCOUNT to KEY])
+        assertEquals(1, dao.reads)
+    }
+
+    @Test
+    fun providersSharingCacheSeeEachOthersWrites() {
+        val other = ArbitraryDataProviderImpl(dao, cache)
+        assertEquals("", other.getValue(ACCOUNT, KEY))
+
+        provider.storeOrUpdateKeyValue(ACCOUNT, KEY, "value")
+
+        assertEquals("value", other.getValue(ACCOUNT, KEY))
+        assertEquals(1, dao.reads)
+    }
+}
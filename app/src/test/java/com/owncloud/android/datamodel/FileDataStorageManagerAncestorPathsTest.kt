@@ -0,0 +1,29 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later OR GPL-2.0-only
+ */
+package com.owncloud.android.datamodel
+
+import org.junit.Assert.assertEquals
+import org.junit.Test
+
+class FileDataStorageManagerAncestorPathsTest {
+
+    @Test
+    fun ancestorsOfFileAreListedFromClosestOn() {
+        assertEquals(listOf("/a/b/", "/a/"), FileDataStorageManager.getAncestorPaths("/a/b/c.txt"))
+    }
+
+    @Test
+    fun ancestorsOfFolderExcludeFolderItself() {
+        assertEquals(listOf("/a/"), FileDataStorageManager.getAncestorPaths("/a/b/"))
+    }
+
+    @Test
+    fun rootIsNoAncestor() {
+        assertEquals(emptyList<String>(), FileDataStorageManager.getAncestorPaths("/a.txt"))
+        assertEquals(emptyList<String>(), FileDataStorageManager.getAncestorPaths("/"))
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later OR GPL-2.0-only
+ */
+package com.owncloud.android.datamodel
+
+import com.nextcloud.client.core.Clock
+import com.nextcloud.client.database.dao.StorageUsageDao
+import com.nextcloud.client.database.entity.StorageUsageEntity
+import io.mockk.every
+import io.mockk.mockk
+import org.junit.Assert.assertEquals
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import java.io.File
+import java.util.concurrent.TimeUnit
+
+class StorageUsageLedgerTest {
+
+    @get:Rule
+    val temporaryFolder = TemporaryFolder()
+
+    private val dao = InMemoryStorageUsageDao()
+    private val clock = mockk<Clock>()
+    private var now = 0L
+
+    private lateinit var ledger: StorageUsageLedger
+    private lateinit var root: File
+
+    @Before
+    fun setUp() {
+        every { clock.currentTime } answers { now }
+        ledger = StorageUsageLedger(dao, clock) { it.run() }
+        root = temporaryFolder.newFolder("data")
+        File(root, "a").mkdirs()
+        File(root, "a/1.txt").writeBytes(ByteArray(10))
+        File(root, "b.txt").writeBytes(ByteArray(5))
+    }
+
+    @Test
+    fun directoryIsCountedOnceAndThenAnsweredFromRecord() {
+        assertEquals(15, ledger.getSize(root))
+        File(root, "untracked.txt").writeBytes(ByteArray(100))
+        assertEquals(15, ledger.getSize(root))
+        assertEquals(15, dao.get(root.absolutePath)?.bytes)
+    }
+
+    @Test
+    fun reportedChangesUpdateAllRecordedAncestors() {
+        val folder = File(root, "a")
+        ledger.getSize(root)
+        ledger.getSize(folder)
+
+        val file = File(folder, "2.txt")
+        file.writeBytes(ByteArray(20))
+        ledger.onFileWritten(file, 0)
+        assertEquals(35, ledger.getSize(root))
+        assertEquals(30, ledger.getSize(folder))
+
+        val target = File(root, "moved")
+        val bytes = ledger.recordedSizeOf(folder)!!
+        folder.renameTo(target)
+        ledger.onMoved(folder, target, bytes)
+        assertEquals(35, ledger.getSize(root))
+        assertEquals(null, dao.get(folder.absolutePath))
+
+        val removed = File(root, "b.txt")
+        val length = removed.length()
+        removed.delete()
+        ledger.onRemoved(removed, length)
+        assertEquals(30, ledger.getSize(root))
+    }
+
+    @Test
+    fun staleRecordIsReconciled() {
+        ledger.getSize(root)
+        File(root, "untracked.txt").writeBytes(ByteArray(100))
+
+        now = TimeUnit.DAYS.toMillis(2)
+        assertEquals(15, ledger.getSize(root))
+        assertEquals(115, ledger.getSize(root))
+        assertEquals(now, dao.get(root.absolutePath)?.reconciled)
+    }
+
+    @Test
+    fun invalidatedDirectoriesAreCountedAgain() {
+        val folder = File(root, "a")
+        ledger.getSize(root)
+        File(folder, "2.txt").writeBytes(ByteArray(20))
+
+        ledger.invalidate(folder)
+        assertEquals(null, dao.get(root.absolutePath))
+        assertEquals(35, ledger.getSize(root))
+    }
+
+    @Test
+    fun recordedSizeDoesNotCountUnrecordedDirectories() {
+        val folder = File(root, "a")
+
+        assertEquals(null, ledger.recordedSizeOf(folder))
+        assertEquals(null, dao.get(folder.absolutePath))
+        assertEquals(5L, ledger.recordedSizeOf(File(root, "b.txt")))
+
+        ledger.getSize(folder)
+        assertEquals(10L, ledger.recordedSizeOf(folder))
+    }
+
+    private class InMemoryStorageUsageDao : StorageUsageDao {
+        private val usages = mutableMapOf<String, StorageUsageEntity>()
+
+        override fun get(path: String): StorageUsageEntity? = usages[path]
+
+        override fun upsert(usage: StorageUsageEntity) {
+            usages[usage.path] = usage
+        }
+
+        override fun add(paths: List<String>, delta: Long) {
+            paths.mapNotNull { usages[it] }.forEach { usages[it.path] = it.copy(bytes = maxOf(it.bytes + delta, 0)) }
+        }
+
+        override fun delete(paths: List<String>) {
+            paths.forEach { usages.remove(it) }
+        }
+
+        override fun deleteTree(path: String) {
+            usages.keys.removeAll { it == path || it.startsWith("$path/") }
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later OR GPL-2.0-only
+ */
+package com.owncloud.android.datamodel
+
+import android.graphics.Bitmap
+import io.mockk.mockk
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertSame
+import org.junit.Before
+import org.junit.Test
+import java.util.Collections
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+class ThumbnailLoaderTest {
+
+    companion object {
+        private const val TIMEOUT_SECONDS = 5L
+    }
+
+    private lateinit var loader: ThumbnailLoader
+    private lateinit var blocker: CountDownLatch
+    private val executed: MutableList<String> = Collections.synchronizedList(mutableListOf())
+
+    @Before
+    fun setUp() {
+        loader = ThumbnailLoader(1, 10) { it.run() }
+        blocker = CountDownLatch(1)
+        val started = CountDownLatch(1)
+        loader.load(
+            "blocker",
+            {
+                started.countDown()
+                blocker.await()
+                null
+            },
+            {}
+        )
+        started.await(TIMEOUT_SECONDS, TimeUnit.SECONDS)
+    }
+
+    @Test
+    fun newestRequestsAreServedFirstAndPrefetchesLast() {
+        val done = CountDownLatch(4)
+        loader.prefetch("prefetch") { record("prefetch", done) }
+        listOf("a", "b", "c").forEach { key -> loader.load(key, { record(key, done) }, {}) }
+
+        blocker.countDown()
+        done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS)
+
+        assertEquals(listOf("c", "b", "a", "prefetch"), executed)
+    }
+
+    @Test
+    fun requestsForSameKeyShareOneJob() {
+        val bitmap = mockk<Bitmap>()
+        val delivered = CountDownLatch(2)
+        val results = Collections.synchronizedList(mutableListOf<Bitmap?>())
+        repeat(2) {
+            loader.load(
+                "key",
+                {
+                    executed.add("key")
+                    bitmap
+                },
+                { result ->
+                    results.add(result)
+                    delivered.countDown()
+                }
+            )
+        }
+
+        blocker.countDown()
+        delivered.await(TIMEOUT_SECONDS, TimeUnit.SECONDS)
+
+        assertEquals(listOf("key"), executed)
+        assertEquals(2, results.size)
+        results.forEach { assertSame(bitmap, it) }
+        assertEquals(1, loader.getMetrics().deduplicated)
+    }
+
+    @Test
+    fun cancelledRequestsAreRemovedFromQueue() {
+        val done = CountDownLatch(1)
+        val request = loader.load("cancelled", { record("cancelled", done) }, {})
+        loader.load("kept", { record("kept", done) }, {})
+
+        request.cancel()
+        blocker.countDown()
+        done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS)
+
+        assertEquals(listOf("kept"), executed)
+        assertEquals(1, loader.getMetrics().cancelled)
+    }
+
+    @Test
+    fun droppedRequestsAreReportedInsteadOfAnswered() {
+        val dropped = mutableListOf<String>()
+        val answered = Collections.synchronizedList(mutableListOf<String>())
+        val done = CountDownLatch(10)
+        repeat(11) { index ->
+            val key = "key$index"
+            loader.load(
+                key,
+                {
+                    executed.add(key)
+                    null
+                },
+                {
+                    answered.add(key)
+                    done.countDown()
+                },
+                { dropped.add(key) }
+            )
+        }
+
+        assertEquals(listOf("key0"), dropped)
+
+        blocker.countDown()
+        done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS)
+
+        assertEquals((1..10).map { "key$it" }.toSet(), answered.toSet())
+        assertFalse("key0" in executed)
+    }
+
+    private fun record(key: String, done: CountDownLatch): Bitmap? {
+        executed.add(key)
+        done.countDown()
+        return null
+    }
+}
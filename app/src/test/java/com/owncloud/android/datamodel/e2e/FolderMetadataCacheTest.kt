@@ -0,0 +1,93 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later OR GPL-2.0-only
+ */
+package com.owncloud.android.datamodel.e2e
+
+import com.owncloud.android.datamodel.e2e.v2.decrypted.DecryptedFile
+import com.owncloud.android.datamodel.e2e.v2.decrypted.DecryptedFolderMetadataFile
+import com.owncloud.android.datamodel.e2e.v2.decrypted.DecryptedMetadata
+import org.junit.Assert.assertArrayEquals
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNotSame
+import org.junit.Assert.assertNull
+import org.junit.Before
+import org.junit.Test
+
+class FolderMetadataCacheTest {
+
+    companion object {
+        private const val ACCOUNT = "user@server"
+        private const val FOLDER_ID = 1L
+        private const val ETAG = "etag"
+    }
+
+    private lateinit var cache: FolderMetadataCache
+
+    @Before
+    fun setUp() {
+        cache = FolderMetadataCache(2)
+    }
+
+    @Test
+    fun hitReturnsIndependentCopy() {
+        val metadata = createMetadata()
+        cache.put(ACCOUNT, FOLDER_ID, ETAG, metadata)
+
+        val first = cache.get(ACCOUNT, FOLDER_ID, ETAG) as DecryptedFolderMetadataFile
+        assertEquals(metadata, first)
+        assertArrayEquals(metadata.metadata.metadataKey, first.metadata.metadataKey)
+        assertNotSame(metadata, first)
+
+        first.metadata.files.clear()
+        val second = cache.get(ACCOUNT, FOLDER_ID, ETAG) as DecryptedFolderMetadataFile
+        assertEquals(1, second.metadata.files.size)
+
+        assertEquals(2, cache.getMetrics().hits)
+        assertEquals(100, cache.getMetrics().hitRatePercent)
+    }
+
+    @Test
+    fun changedETagIsMiss() {
+        cache.put(ACCOUNT, FOLDER_ID, ETAG, createMetadata())
+
+        assertNull(cache.get(ACCOUNT, FOLDER_ID, "other"))
+        assertNull(cache.get(ACCOUNT, FOLDER_ID, ETAG))
+        assertEquals(1, cache.getMetrics().stale)
+        assertEquals(2, cache.getMetrics().misses)
+    }
+
+    @Test
+    fun invalidateAndClearDropEntries() {
+        cache.put(ACCOUNT, FOLDER_ID, ETAG, createMetadata())
+        cache.put(ACCOUNT, FOLDER_ID + 1, ETAG, createMetadata())
+
+        cache.invalidate(FOLDER_ID)
+        assertNull(cache.get(ACCOUNT, FOLDER_ID, ETAG))
+
+        cache.clear(ACCOUNT)
+        assertNull(cache.get(ACCOUNT, FOLDER_ID + 1, ETAG))
+        assertEquals(0, cache.getMetrics().entries)
+    }
+
+    @Test
+    fun leastRecentlyUsedEntryIsEvicted() {
+        cache.put(ACCOUNT, 1, ETAG, createMetadata())
+        cache.put(ACCOUNT, 2, ETAG, createMetadata())
+        cache.get(ACCOUNT, 1, ETAG)
+        cache.put(ACCOUNT, 3, ETAG, createMetadata())
+
+        assertNull(cache.get(ACCOUNT, 2, ETAG))
+        assertEquals(2, cache.getMetrics().entries)
+    }
+
+    private fun createMetadata() = DecryptedFolderMetadataFile(
+        DecryptedMetadata(
+            counter = 3,
+            files = mutableMapOf("encrypted" to DecryptedFile("photo.jpg", "image/jpeg", "nonce", "tag", "key")),
+            metadataKey = byteArrayOf(1, 2, 3)
+        )
+    )
+}
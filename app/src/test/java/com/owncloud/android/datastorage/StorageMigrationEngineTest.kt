@@ -0,0 +1,160 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later OR GPL-2.0-only
+ */
+package com.owncloud.android.datastorage
+
+import android.system.ErrnoException
+import android.system.Os
+import android.system.StructStat
+import io.mockk.every
+import io.mockk.mockk
+import io.mockk.mockkStatic
+import io.mockk.unmockkStatic
+import org.junit.After
+import org.junit.Assert.assertArrayEquals
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import java.io.File
+
+class StorageMigrationEngineTest {
+
+    @get:Rule
+    val temporaryFolder = TemporaryFolder()
+
+    private lateinit var source: File
+    private lateinit var target: File
+
+    @Before
+    fun setUp() {
+        mockkStatic(Os::class)
+        source = temporaryFolder.newFolder("source", "nextcloud")
+        target = File(temporaryFolder.newFolder("target"), "nextcloud")
+        File(source, "1.txt").writeBytes(ByteArray(10) { 1 })
+        File(source, "2.txt").writeBytes(ByteArray(20) { 2 })
+        File(source, "z").mkdirs()
+        File(source, "z/3.txt").writeBytes(ByteArray(30) { 3 })
+    }
+
+    @After
+    fun tearDown() {
+        unmockkStatic(Os::class)
+    }
+
+    @Test
+    fun folderOnSameVolumeIsRenamedAndRolledBack() {
+        onSameVolume()
+        val sut = StorageMigrationEngine(source, target)
+
+        assertTrue(sut.canRename())
+        assertTrue(sut.migrate(null))
+
+        assertTrue(sut.wasRenamed())
+        assertFalse(source.exists())
+        assertContentMoved()
+
+        sut.rollback()
+
+        assertTrue(File(source, "z/3.txt").exists())
+        assertFalse(target.exists())
+    }
+
+    @Test
+    fun failedRenameFallsBackToCopy() {
+        onSameVolume()
+        // renaming into a missing parent folder fails
+        target.parentFile!!.delete()
+        val sut = StorageMigrationEngine(source, target, 1)
+
+        assertTrue(sut.canRename())
+        assertFalse(sut.rename())
+        assertFalse(sut.canRename())
+        assertEquals(60, sut.scan())
+        assertTrue(sut.migrate(null))
+
+        assertFalse(sut.wasRenamed())
+        assertContentMoved()
+        assertTrue(File(source, "z/3.txt").exists())
+    }
+
+    @Test
+    fun folderOnOtherVolumeIsCopied() {
+        onOtherVolume()
+        val sut = StorageMigrationEngine(source, target, 1)
+        val progress = mutableListOf<Pair<Long, Long>>()
+
+        assertFalse(sut.canRename())
+        assertEquals(60, sut.scan())
+        assertTrue(sut.migrate { movedBytes, totalBytes -> progress.add(movedBytes to totalBytes) })
+
+        assertFalse(sut.wasRenamed())
+        assertEquals(0L to 60L, progress.first())
+        assertEquals(60L to 60L, progress.last())
+        assertContentMoved()
+        assertTrue(File(source, "z/3.txt").exists())
+        assertTrue(StorageMigrationEngine.hasCheckpoint(target))
+
+        sut.finish()
+
+        assertFalse(StorageMigrationEngine.hasCheckpoint(target))
+    }
+
+    @Test
+    fun failedCopyKeepsCheckpointAndIsResumed() {
+        onOtherVolume()
+        // a non empty folder in place of the last file makes its copy fail
+        File(target, "z/3.txt/blocking").apply { parentFile?.mkdirs() }.writeText("blocking")
+
+        val failed = StorageMigrationEngine(source, target, 1)
+        assertFalse(failed.migrate(null))
+
+        failed.rollback()
+        assertTrue(StorageMigrationEngine.hasCheckpoint(target))
+        assertTrue(File(source, "z/3.txt").exists())
+        assertTrue(File(target, "1.txt").exists())
+
+        File(target, "z/3.txt").deleteRecursively()
+        val resumed = StorageMigrationEngine(source, target, 1)
+
+        assertFalse(resumed.canRename())
+        assertEquals(30, resumed.scan())
+        assertTrue(resumed.migrate(null))
+        assertContentMoved()
+    }
+
+    @Test
+    fun checkpointedFileWithWrongLengthIsCopiedAgain() {
+        onOtherVolume()
+        assertTrue(StorageMigrationEngine(source, target, 1).migrate(null))
+        File(target, "2.txt").writeBytes(ByteArray(5))
+
+        val sut = StorageMigrationEngine(source, target, 1)
+
+        assertEquals(20, sut.scan())
+        assertTrue(sut.migrate(null))
+        assertContentMoved()
+    }
+
+    private fun onSameVolume() {
+        val stat = mockk<StructStat>()
+        every { Os.stat(any()) } returns stat
+    }
+
+    private fun onOtherVolume() {
+        every { Os.stat(any()) } throws ErrnoException("stat", 0)
+    }
+
+    private fun assertContentMoved() {
+        assertArrayEquals(ByteArray(10) { 1 }, File(target, "1.txt").readBytes())
+        assertArrayEquals(ByteArray(20) { 2 }, File(target, "2.txt").readBytes())
+        assertArrayEquals(ByteArray(30) { 3 }, File(target, "z/3.txt").readBytes())
+        assertFalse(File(target, "z/3.txt.part").exists())
+    }
+}
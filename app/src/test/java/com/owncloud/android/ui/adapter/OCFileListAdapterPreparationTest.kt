@@ -0,0 +1,152 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later OR GPL-2.0-only
+ */
+package com.owncloud.android.ui.adapter
+
+import com.owncloud.android.datamodel.OCFile
+import com.owncloud.android.utils.MimeTypeUtil
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertSame
+import org.junit.Test
+
+class OCFileListAdapterPreparationTest {
+
+    companion object {
+        private const val IMAGE = "image/jpeg"
+        private const val VIDEO = "video/quicktime"
+    }
+
+    @Test
+    fun videoOfLivePhotoIsMergedIntoImage() {
+        val image = file(1, "/a.jpg", IMAGE, livePhoto = "2")
+        val video = file(2, "/a.mov", VIDEO, livePhoto = "1")
+        val other = file(3, "/b.txt", "text/plain")
+        val files = mutableListOf(video, other, image)
+
+        OCFileListAdapter.mergeOCFilesForLivePhoto(files)
+
+        assertEquals(listOf(other, image), files)
+        assertSame(video, image.livePhotoVideo)
+    }
+
+    @Test
+    fun imageBeforeVideoIsMerged() {
+        val image = file(1, "/a.jpg", IMAGE)
+        val video = file(2, "/a.mov", VIDEO, livePhoto = "1")
+        val files = mutableListOf(image, video)
+
+        OCFileListAdapter.mergeOCFilesForLivePhoto(files)
+
+        assertEquals(listOf(image), files)
+        assertSame(video, image.livePhotoVideo)
+    }
+
+    @Test
+    fun filesWithoutVideoAreNotMerged() {
+        val first = file(1, "/a.jpg", IMAGE)
+        val second = file(2, "/b.jpg", IMAGE, livePhoto = "1")
+        val files = mutableListOf(first, second)
+
+        OCFileListAdapter.mergeOCFilesForLivePhoto(files)
+
+        assertEquals(listOf(first, second), files)
+        assertNull(first.livePhotoVideo)
+    }
+
+    @Test
+    fun offlineOperationsAreOnlyAddedForNewPaths() {
+        val existing = file(1, "/a.txt", "text/plain")
+        val duplicate = OCFile("/a.txt")
+        val pending = OCFile("/new/")
+        val filesAll = mutableListOf(existing)
+
+        OCFileListAdapter.addOfflineOperationFiles(listOf(duplicate, pending), filesAll)
+
+        assertEquals(listOf(existing, pending), filesAll)
+    }
+
+    /**
+     * Benchmark of the list preparation of folders with 10k and 50k files, half of the images being live photos.
+     * For 10k files the result is compared with the former pairwise implementation.
+     */
+    @Test
+    fun benchmarkLargeFolders() {
+        for (count in listOf(10_000, 50_000)) {
+            val files = createFolder(count)
+            val offlineOperations = (0 until count / 10).map { OCFile("/pending$it/") }
+
+            val start = System.nanoTime()
+            OCFileListAdapter.mergeOCFilesForLivePhoto(files)
+            val filesAll = files.toMutableList()
+            OCFileListAdapter.addOfflineOperationFiles(offlineOperations, filesAll)
+            val millis = (System.nanoTime() - start) / 1_000_000
+
+            assertEquals(count * 3 / 4, files.size)
+            assertEquals(files.size + offlineOperations.size, filesAll.size)
+            println("$count files prepared in ${millis}ms")
+
+            if (count == 10_000) {
+                val pairwiseFiles = createFolder(count)
+                val pairwiseStart = System.nanoTime()
+                mergePairwise(pairwiseFiles)
+                val pairwiseMillis = (System.nanoTime() - pairwiseStart) / 1_000_000
+
+                assertEquals(files.map { it.remotePath }, pairwiseFiles.map { it.remotePath })
+                assertEquals(
+                    files.map { it.livePhotoVideo?.remotePath },
+                    pairwiseFiles.map { it.livePhotoVideo?.remotePath }
+                )
+                println("$count files paired pairwise in ${pairwiseMillis}ms")
+            }
+        }
+    }
+
+    /**
+     * Folder of alternating images and documents, every second image having its video right after it.
+     */
+    private fun createFolder(count: Int): MutableList<OCFile> {
+        val files = ArrayList<OCFile>(count)
+        var id = 1L
+        while (files.size < count) {
+            val image = file(id++, "/image$id.jpg", IMAGE)
+            files.add(image)
+            if (files.size % 4 == 1) {
+                files.add(file(id++, "/video$id.mov", VIDEO, livePhoto = image.localId.toString()))
+            } else {
+                files.add(file(id++, "/document$id.txt", "text/plain"))
+            }
+        }
+        return files
+    }
+
+    private fun mergePairwise(files: MutableList<OCFile>) {
+        val filesToRemove = mutableListOf<OCFile>()
+        for (i in files.indices) {
+            val file = files[i]
+            for (j in i + 1 until files.size) {
+                val nextFile = files[j]
+                if (file.localId.toString() == nextFile.linkedFileIdForLivePhoto) {
+                    if (MimeTypeUtil.isVideo(file.mimeType)) {
+                        nextFile.livePhotoVideo = file
+                        filesToRemove.add(file)
+                    } else if (MimeTypeUtil.isVideo(nextFile.mimeType)) {
+                        file.livePhotoVideo = nextFile
+                        filesToRemove.add(nextFile)
+                    }
+                }
+            }
+        }
+        files.removeAll(filesToRemove)
+    }
+
+    private fun file(id: Long, path: String, mime: String, livePhoto: String? = null) = OCFile(path).apply {
+        fileId = id
+        localId = id
+        mimeType = mime
+        setLivePhoto(livePhoto)
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later OR GPL-2.0-only
+ */
+package com.owncloud.android.ui.adapter
+
+import androidx.recyclerview.widget.DiffUtil
+import androidx.recyclerview.widget.ListUpdateCallback
+import com.owncloud.android.datamodel.OCFile
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class OCFileListDiffCallbackTest {
+
+    private val events = mutableListOf<String>()
+
+    private val callback = object : ListUpdateCallback {
+        override fun onInserted(position: Int, count: Int) {
+            events.add("inserted $position $count")
+        }
+
+        override fun onRemoved(position: Int, count: Int) {
+            events.add("removed $position $count")
+        }
+
+        override fun onMoved(fromPosition: Int, toPosition: Int) {
+            events.add("moved $fromPosition $toPosition")
+        }
+
+        override fun onChanged(position: Int, count: Int, payload: Any?) {
+            events.add("changed $position $count $payload")
+        }
+    }
+
+    @Test
+    fun unchangedListingHasNoUpdates() {
+        dispatch(listOf(file(1, "a"), file(2, "b")), listOf(file(1, "a"), file(2, "b")))
+
+        assertEquals(emptyList<String>(), events)
+    }
+
+    @Test
+    fun downloadedFileOnlyRebindsLocalState() {
+        val downloaded = file(2, "b").apply { storagePath = "/storage/b" }
+        dispatch(listOf(file(1, "a"), file(2, "b")), listOf(file(1, "a"), downloaded))
+
+        assertEquals(listOf("changed 1 1 ${OCFileListDiffCallback.PAYLOAD_LOCAL_STATE}"), events)
+    }
+
+    @Test
+    fun changedContentRebindsWholeItem() {
+        val renamed = file(2, "c")
+        dispatch(listOf(file(1, "a"), file(2, "b")), listOf(file(1, "a"), renamed))
+
+        assertEquals(listOf("changed 1 1 null"), events)
+    }
+
+    @Test
+    fun itemsAreMatchedByFileId() {
+        dispatch(
+            listOf(file(1, "a"), file(2, "b"), file(3, "c")),
+            listOf(file(1, "a"), file(3, "c"), file(4, "d"))
+        )
+
+        assertEquals(2, events.size)
+        assertTrue(events.contains("removed 1 1"))
+        assertTrue(events.any { it.startsWith("inserted") && it.endsWith(" 1") })
+    }
+
+    private fun dispatch(oldFiles: List<OCFile>, newFiles: List<OCFile>) {
+        DiffUtil.calculateDiff(OCFileListDiffCallback(oldFiles, newFiles), true).dispatchUpdatesTo(callback)
+    }
+
+    private fun file(id: Long, name: String) = OCFile("/$name").apply {
+        fileId = id
+        decryptedRemotePath = "/$name"
+    }
+}
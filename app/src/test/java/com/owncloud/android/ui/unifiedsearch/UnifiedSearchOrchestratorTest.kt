@@ -0,0 +1,128 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later OR GPL-2.0-only
+ */
+package com.owncloud.android.ui.unifiedsearch
+
+import com.owncloud.android.lib.common.SearchResult
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.CompletableDeferred
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.test.TestScope
+import kotlinx.coroutines.test.advanceTimeBy
+import kotlinx.coroutines.test.advanceUntilIdle
+import kotlinx.coroutines.test.runCurrent
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+@OptIn(ExperimentalCoroutinesApi::class)
+class UnifiedSearchOrchestratorTest {
+    companion object {
+        private const val DEBOUNCE = 400L
+    }
+
+    private val scope = TestScope()
+    private val repository = FakeRepository()
+    private val listener = RecordingListener()
+
+    private val sut = UnifiedSearchOrchestrator(scope, listener, DEBOUNCE).also { it.repository = repository }
+
+    @Test
+    fun debouncedQueryWaitsForFurtherInput() {
+        sut.submit("a", debounce = true)
+        scope.advanceTimeBy(DEBOUNCE - 1)
+        sut.submit("ab", debounce = true)
+        scope.advanceTimeBy(DEBOUNCE - 1)
+        scope.runCurrent()
+
+        assertEquals(emptyList<String>(), repository.queries)
+
+        scope.advanceUntilIdle()
+
+        assertEquals(listOf("ab:files", "ab:talk"), repository.queries)
+        assertEquals(listOf("ab:files", "ab:talk"), listener.results)
+        assertEquals(listOf(true), listener.finished)
+    }
+
+    @Test
+    fun queryWithoutDebounceStartsImmediately() {
+        sut.submit("a", debounce = false)
+        scope.runCurrent()
+
+        assertEquals(listOf("a:files", "a:talk"), repository.queries)
+        assertEquals(0L, scope.testScheduler.currentTime)
+    }
+
+    @Test
+    fun supersededSearchIsCancelled() {
+        val blocked = CompletableDeferred<Unit>()
+        repository.blockQuery = { query -> if (query == "a") blocked.await() }
+
+        sut.submit("a", debounce = false)
+        scope.runCurrent()
+        assertEquals(listOf("a:files", "a:talk"), repository.queries)
+
+        sut.submit("b", debounce = false)
+        scope.runCurrent()
+        blocked.complete(Unit)
+        scope.advanceUntilIdle()
+
+        assertEquals(listOf("a:files", "a:talk"), repository.cancelled)
+        assertEquals(listOf("b:files", "b:talk"), listener.results)
+        assertEquals(listOf(true), listener.finished)
+        assertTrue(listener.errors.isEmpty())
+    }
+
+    @Test
+    fun cancelStopsSearchInDebounce() {
+        sut.submit("a", debounce = true)
+        scope.advanceTimeBy(DEBOUNCE / 2)
+        sut.cancel()
+        scope.advanceUntilIdle()
+
+        assertTrue(repository.queries.isEmpty())
+        assertTrue(listener.finished.isEmpty())
+    }
+
+    private class FakeRepository : IUnifiedSearchRepository {
+        val queries = mutableListOf<String>()
+        val cancelled = mutableListOf<String>()
+        var blockQuery: suspend (String) -> Unit = {}
+
+        override suspend fun fetchProviders(): List<ProviderID> = listOf("files", "talk")
+
+        override suspend fun queryProvider(query: String, provider: ProviderID, cursor: Int?): UnifiedSearchResult {
+            queries.add("$query:$provider")
+            try {
+                blockQuery(query)
+            } catch (e: CancellationException) {
+                cancelled.add("$query:$provider")
+                throw e
+            }
+            return UnifiedSearchResult(provider, true, SearchResult("$query:$provider", false, emptyList()))
+        }
+    }
+
+    private class RecordingListener : UnifiedSearchOrchestrator.Listener {
+        val results = mutableListOf<String>()
+        val errors = mutableListOf<Throwable>()
+        val finished = mutableListOf<Boolean>()
+
+        override fun onLocalResult(result: UnifiedSearchResult) = Unit
+
+        override fun onSearchResult(result: UnifiedSearchResult) {
+            results.add(result.result.name)
+        }
+
+        override fun onError(error: Throwable) {
+            errors.add(error)
+        }
+
+        override fun onSearchFinished(success: Boolean) {
+            finished.add(success)
+        }
+    }
+}
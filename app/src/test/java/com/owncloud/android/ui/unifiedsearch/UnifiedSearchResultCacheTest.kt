@@ -0,0 +1,76 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later OR GPL-2.0-only
+ */
+package com.owncloud.android.ui.unifiedsearch
+
+import com.nextcloud.client.core.Clock
+import com.owncloud.android.lib.common.SearchResult
+import io.mockk.every
+import io.mockk.mockk
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertSame
+import org.junit.Before
+import org.junit.Test
+
+class UnifiedSearchResultCacheTest {
+    companion object {
+        private const val TTL = 1000L
+        private const val MAX_ENTRIES = 2
+    }
+
+    private var now = 0L
+    private lateinit var sut: UnifiedSearchResultCache
+
+    @Before
+    fun setUp() {
+        val clock = mockk<Clock>()
+        every { clock.currentTime } answers { now }
+        sut = UnifiedSearchResultCache(clock, MAX_ENTRIES, TTL)
+    }
+
+    private fun key(query: String, cursor: Int? = null) = UnifiedSearchResultCache.Key("user@server", query, "files", cursor)
+
+    private fun result() = UnifiedSearchResult("files", true, SearchResult())
+
+    @Test
+    fun entryWithinTtl_isReturned() {
+        val result = result()
+        sut.put(key("a"), result)
+
+        now += TTL
+
+        assertSame(result, sut.get(key("a")))
+    }
+
+    @Test
+    fun expiredEntry_isDropped() {
+        sut.put(key("a"), result())
+
+        now += TTL + 1
+
+        assertNull(sut.get(key("a")))
+    }
+
+    @Test
+    fun cursorIsPartOfKey() {
+        sut.put(key("a", 5), result())
+
+        assertNull(sut.get(key("a")))
+    }
+
+    @Test
+    fun leastRecentlyUsedEntry_isEvicted() {
+        val first = result()
+        sut.put(key("a"), first)
+        sut.put(key("b"), result())
+
+        sut.get(key("a"))
+        sut.put(key("c"), result())
+
+        assertSame(first, sut.get(key("a")))
+        assertNull(sut.get(key("b")))
+    }
+}
@@ -7,6 +7,8 @@
 
 package com.owncloud.android.utils;
 
+import com.owncloud.android.datamodel.SyncedFolder;
+
 import org.junit.Test;
 
 import org.lukhnos.nnio.file.FileVisitResult;
@@ -22,7 +24,9 @@ import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 
+import static com.owncloud.android.utils.FilesSyncHelper.getMinimumDateModified;
 import static com.owncloud.android.utils.FilesSyncHelper.walkFileTreeRandomly;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
 
@@ -72,5 +76,25 @@ public class FilesSyncHelperTest {
             fail("walkFileTree throws an exception: \n" + stackTrace);
         }
     }
+
+    @Test
+    public void testMinimumDateModified() {
+        SyncedFolder syncedFolder = mock(SyncedFolder.class);
+        Mockito.when(syncedFolder.getLastScanTimestampMs()).thenReturn(SyncedFolder.NOT_SCANNED_YET);
+        Mockito.when(syncedFolder.isExisting()).thenReturn(true);
+        Mockito.when(syncedFolder.getEnabledTimestampMs()).thenReturn(5_000L);
+
+        // first scan of existing files takes all of them
+        assertEquals(-1, getMinimumDateModified(syncedFolder, 9_000L));
+
+        // later scans only the ones modified since the last check
+        Mockito.when(syncedFolder.getLastScanTimestampMs()).thenReturn(9_000L);
+        assertEquals(9, getMinimumDateModified(syncedFolder, 9_000L));
+
+        // without existing files, only the ones modified since enabling
+        Mockito.when(syncedFolder.isExisting()).thenReturn(false);
+        assertEquals(9, getMinimumDateModified(syncedFolder, 9_000L));
+        assertEquals(5, getMinimumDateModified(syncedFolder, 2_000L));
+    }
     
 }
\ No newline at end of file